@@ -0,0 +1,168 @@
+package app.core;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Additive-increase / multiplicative-decrease concurrency limit for batch workers.
+ *
+ * <p>Completions are evaluated in windows of {@code limit} items. The limit grows by one after a
+ * window whose throughput held up and whose mean latency stayed near the observed baseline. It is
+ * halved on overload (HTTP 429/5xx) or when window latency inflates past twice the baseline.
+ * Overload signals within one baseline latency of the last decrease, and at least 100 ms of it, are
+ * ignored, so a burst of rejections from the same round of requests only halves once, even before the
+ * first window has set a baseline.
+ */
+public final class AimdLimiter {
+
+    /** Upper bound for auto mode regardless of observed throughput. */
+    public static final int HARD_MAX = 16;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AimdLimiter.class);
+    private static final double LATENCY_INFLATION = 2.0;
+    private static final double THROUGHPUT_TOLERANCE = 0.95;
+    private static final double BASELINE_DRIFT = 0.05;
+    private static final long MIN_COOLDOWN_NANOS = 100_000_000L;
+
+    private final int maxLimit;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private volatile IntConsumer listener = l -> { };
+
+    private int limit;
+    private int inFlight;
+    private long windowStart;
+    private int windowCompletions;
+    private long windowLatencySum;
+    private double lastThroughput;
+    private double baselineLatency;
+    private long lastDecrease = Long.MIN_VALUE;
+
+    public AimdLimiter(int initialLimit, int maxLimit) {
+        this(initialLimit, maxLimit, System::nanoTime);
+    }
+
+    public AimdLimiter(int initialLimit, int maxLimit, LongSupplier nanoClock) {
+        this.maxLimit = Math.max(1, Math.min(maxLimit, HARD_MAX));
+        this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+        this.clock = nanoClock;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * Called with the new limit whenever it changes; runs on the reporting worker thread.
+     */
+    public void setListener(IntConsumer listener) {
+        this.listener = listener;
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= limit) {
+                released.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long latencyNanos) {
+        int changed;
+        lock.lock();
+        try {
+            windowCompletions++;
+            windowLatencySum += latencyNanos;
+            changed = windowCompletions >= limit ? evaluateWindow() : -1;
+        } finally {
+            lock.unlock();
+        }
+        notifyChange(changed);
+    }
+
+    public void onOverload() {
+        int changed;
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            boolean coolingDown = lastDecrease != Long.MIN_VALUE && now - lastDecrease < Math.max(baselineLatency, MIN_COOLDOWN_NANOS);
+            changed = coolingDown ? -1 : decrease(now, "overload");
+        } finally {
+            lock.unlock();
+        }
+        notifyChange(changed);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    private int evaluateWindow() {
+        long now = clock.getAsLong();
+        double avgLatency = (double) windowLatencySum / windowCompletions;
+        double elapsed = Math.max(1, now - windowStart);
+        double throughput = windowCompletions / elapsed;
+        if (baselineLatency == 0 || avgLatency < baselineLatency) {
+            baselineLatency = avgLatency;
+        } else {
+            baselineLatency += (avgLatency - baselineLatency) * BASELINE_DRIFT;
+        }
+        if (avgLatency > baselineLatency * LATENCY_INFLATION) {
+            return decrease(now, "latency inflation");
+        }
+        int previous = limit;
+        if (throughput >= lastThroughput * THROUGHPUT_TOLERANCE && limit < maxLimit) {
+            limit++;
+        }
+        lastThroughput = throughput;
+        resetWindow(now);
+        return limit != previous ? limit : -1;
+    }
+
+    private int decrease(long now, String reason) {
+        int previous = limit;
+        limit = Math.max(1, limit / 2);
+        lastDecrease = now;
+        lastThroughput = 0;
+        resetWindow(now);
+        LOG.debug("Concurrency limit {} -> {} ({})", previous, limit, reason);
+        return limit != previous ? limit : -1;
+    }
+
+    private void resetWindow(long now) {
+        windowStart = now;
+        windowCompletions = 0;
+        windowLatencySum = 0;
+    }
+
+    private void notifyChange(int newLimit) {
+        if (newLimit > 0) {
+            listener.accept(newLimit);
+        }
+    }
+}
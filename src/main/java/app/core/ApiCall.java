@@ -0,0 +1,26 @@
+package app.core;
+
+/**
+ * CloudConvert API endpoints a batch item calls, for per-item call accounting.
+ */
+public enum ApiCall {
+    /** Creating the import/upload task and sending the file to its form. */
+    Upload("Upload"),
+    CreateJob("Create job"),
+    /** Fetching the job while it runs, and once more when it has finished. */
+    PollJob("Poll job"),
+    /** Fetching a single task, only needed when the job payload lacks its result. */
+    GetTask("Get task"),
+    Download("Download"),
+    Cancel("Cancel");
+
+    private final String displayName;
+
+    ApiCall(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+}
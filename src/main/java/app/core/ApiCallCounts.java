@@ -0,0 +1,60 @@
+package app.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Number of API calls per {@link ApiCall}. Thread-safe, since the outputs of one item download in
+ * parallel and a batch adds up the counts of items finishing on different workers.
+ */
+public final class ApiCallCounts {
+
+    private static final ApiCall[] CALLS = ApiCall.values();
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(CALLS.length);
+
+    public void increment(ApiCall call) {
+        counts.incrementAndGet(call.ordinal());
+    }
+
+    public void add(ApiCallCounts other) {
+        for (int i = 0; i < CALLS.length; i++) {
+            int n = other.counts.get(i);
+            if (n != 0) {
+                counts.addAndGet(i, n);
+            }
+        }
+    }
+
+    public int get(ApiCall call) {
+        return counts.get(call.ordinal());
+    }
+
+    public int total() {
+        int total = 0;
+        for (int i = 0; i < CALLS.length; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Endpoints called at least once, in {@link ApiCall} order.
+     */
+    public Map<ApiCall, Integer> asMap() {
+        Map<ApiCall, Integer> map = new EnumMap<>(ApiCall.class);
+        for (ApiCall call : CALLS) {
+            int n = get(call);
+            if (n != 0) {
+                map.put(call, n);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
@@ -0,0 +1,259 @@
+package app.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads the outputs of many converted items as zip archives instead of one export per file.
+ * Workers hand over items once their convert tasks are finished; every {@code chunkSize} items an
+ * archive task over their convert tasks is exported, and the archive is extracted while it streams
+ * in. Each convert task names its output with a unique entry name, so entries map back to their item
+ * and reserved target; unknown entries are ignored and never used as paths. {@link #close()} stops an
+ * export that will not be finished and fails the items it still holds.
+ */
+public final class ArchiveExport implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveExport.class);
+    private static final int MAX_POLLS = 600;
+    private static final String CLOSED = "Batch stopped before the archive was extracted";
+
+    private final CloudConvertFacade facade;
+    private final OutputStaging staging;
+    private final AtomicBoolean cancelRequested;
+    private final Consumer<BatchItem> onFinished;
+    private final int chunkSize;
+    private final long pollIntervalMs;
+    private final AtomicLong entrySeq = new AtomicLong();
+    private final ExecutorService extractor = Executors.newSingleThreadExecutor();
+    private final Object lock = new Object();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile InputStream streaming;
+    private Map<String, Claim> pending = new LinkedHashMap<>();
+    private int pendingItems;
+    private int archiveSeq;
+
+    /**
+     * One output of a handed-over item: its archive entry name, the convert task producing it,
+     * and the reserved target it is committed to.
+     */
+    public record Output(String entryName, String taskId, Path target) {
+    }
+
+    public ArchiveExport(CloudConvertFacade facade, OutputStaging staging, AtomicBoolean cancelRequested,
+            Consumer<BatchItem> onFinished) {
+        this(facade, staging, cancelRequested, onFinished, DEFAULT_CHUNK_SIZE, 2000);
+    }
+
+    public ArchiveExport(CloudConvertFacade facade, OutputStaging staging, AtomicBoolean cancelRequested,
+            Consumer<BatchItem> onFinished, int chunkSize, long pollIntervalMs) {
+        this.facade = facade;
+        this.staging = staging;
+        this.cancelRequested = cancelRequested;
+        this.onFinished = onFinished;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * A batch-unique file name for one converted output.
+     */
+    public String entryName(ConversionProfile target) {
+        return String.format(Locale.ROOT, "%08d.%s", entrySeq.incrementAndGet(), target.outputFormat());
+    }
+
+    /**
+     * Takes over an item whose convert tasks have finished. The item is finished, and reported to
+     * the callback, when its archive has been extracted.
+     */
+    public void add(BatchItem item, List<Output> outputs) {
+        synchronized (lock) {
+            if (!closed.get()) {
+                for (Output output : outputs) {
+                    pending.put(output.entryName(), new Claim(item, output));
+                }
+                pendingItems++;
+                if (pendingItems >= chunkSize) {
+                    submitPending();
+                }
+                return;
+            }
+        }
+        complete(item, outputs, Set.of(), new IllegalStateException(CLOSED));
+    }
+
+    /**
+     * Exports whatever is still pending and waits until every archive has been extracted.
+     */
+    public void finish() throws InterruptedException {
+        synchronized (lock) {
+            if (!pending.isEmpty()) {
+                submitPending();
+            }
+        }
+        extractor.shutdown();
+        extractor.awaitTermination(24, TimeUnit.HOURS);
+    }
+
+    /**
+     * Stops exporting without waiting: the archive streaming in is closed, and items not extracted
+     * yet, or handed over later, fail; those of the export in progress fail as it stops. Does nothing
+     * to items already finished, so it is safe after {@link #finish()}.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (lock) {
+            if (!pending.isEmpty() && !extractor.isShutdown()) {
+                submitPending();
+            }
+        }
+        closeQuietly(streaming);
+        for (Runnable notStarted : extractor.shutdownNow()) {
+            notStarted.run();
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            LOG.debug("Could not close archive stream", e);
+        }
+    }
+
+    private void submitPending() {
+        Map<String, Claim> chunk = pending;
+        pending = new LinkedHashMap<>();
+        pendingItems = 0;
+        String filename = "batch-" + (++archiveSeq) + ".zip";
+        extractor.submit(() -> export(filename, chunk));
+    }
+
+    private void export(String filename, Map<String, Claim> chunk) {
+        Map<BatchItem, List<Output>> byItem = new LinkedHashMap<>();
+        for (Claim claim : chunk.values()) {
+            byItem.computeIfAbsent(claim.item(), k -> new ArrayList<>()).add(claim.output());
+        }
+        Set<Path> committed = new HashSet<>();
+        Exception failure = null;
+        long start = System.nanoTime();
+        try {
+            if (closed.get()) {
+                failure = new IllegalStateException(CLOSED);
+            } else if (!cancelRequested.get()) {
+                List<String> taskIds = chunk.values().stream().map(claim -> claim.output().taskId()).toList();
+                String url = awaitArchiveUrl(facade.createArchiveExport(taskIds, filename));
+                try (InputStream in = facade.download(url)) {
+                    streaming = in;
+                    extract(in, chunk, committed);
+                } finally {
+                    streaming = null;
+                }
+                staging.flush();
+            }
+        } catch (Exception e) {
+            failure = e;
+            LOG.error("Archive {} failed", filename, e);
+        }
+        int elapsedMs = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        for (Map.Entry<BatchItem, List<Output>> e : byItem.entrySet()) {
+            e.getKey().downloadMs = elapsedMs;
+            complete(e.getKey(), e.getValue(), committed, failure);
+        }
+    }
+
+    private void extract(InputStream in, Map<String, Claim> chunk, Set<Path> committed) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                Claim claim = chunk.get(entry.getName());
+                if (entry.isDirectory() || claim == null) {
+                    LOG.warn("Ignoring unexpected archive entry {}", entry.getName());
+                    continue;
+                }
+                Path target = claim.output().target();
+                Path part = staging.newPart(target);
+                try {
+                    Files.copy(zip, part, StandardCopyOption.REPLACE_EXISTING);
+                    staging.commitDeferred(part, target);
+                } finally {
+                    Files.deleteIfExists(part);
+                }
+                committed.add(target);
+            }
+        }
+    }
+
+    /**
+     * An item is done only if all of its outputs were committed; otherwise its uncommitted
+     * reservations are released.
+     */
+    private void complete(BatchItem item, List<Output> outputs, Set<Path> committed, Exception failure) {
+        List<Path> paths = outputs.stream().map(Output::target).filter(committed::contains).toList();
+        if (paths.size() == outputs.size()) {
+            item.outputPaths = paths;
+            item.outputPath = paths.get(0);
+            item.progress = 1.0;
+            item.message = "";
+            item.status = BatchItemStatus.Done;
+        } else {
+            outputs.stream().map(Output::target).filter(t -> !committed.contains(t)).forEach(staging::release);
+            if (cancelRequested.get()) {
+                item.status = BatchItemStatus.Canceled;
+            } else {
+                item.status = BatchItemStatus.Failed;
+                item.message = failure != null ? ErrorMessages.fromException(failure) : "Missing from archive";
+            }
+        }
+        onFinished.accept(item);
+    }
+
+    private String awaitArchiveUrl(CloudConvertFacade.TaskResult export) throws Exception {
+        for (int i = 0; i < MAX_POLLS && !cancelRequested.get(); i++) {
+            CloudConvertFacade.TaskResult task = i == 0 ? export : facade.getTask(null, export.taskId());
+            String status = task.status() != null ? task.status().toLowerCase(Locale.ROOT) : "";
+            if ("finished".equals(status)) {
+                String url = TaskFields.firstFileUrl(task.output());
+                if (url == null) {
+                    throw new IllegalStateException("No archive URL in export task " + export.taskId());
+                }
+                return url;
+            }
+            if ("error".equals(status)) {
+                throw new IllegalStateException("Archive export failed");
+            }
+            Thread.sleep(pollIntervalMs);
+        }
+        throw new IllegalStateException(cancelRequested.get() ? "Canceled" : "Archive export timed out");
+    }
+
+    private record Claim(BatchItem item, Output output) {
+    }
+}
@@ -0,0 +1,47 @@
+package app.core;
+
+import app.core.CloudConvertFacade.JobResult;
+import app.core.CloudConvertFacade.OutputTask;
+import app.core.CloudConvertFacade.TaskResult;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking counterpart of {@link CloudConvertFacade}. Every call returns at once and its future
+ * completes when the API has answered, so an item waiting on CloudConvert holds no thread. A failed
+ * call completes its future exceptionally with the exception the sync facade would throw.
+ */
+public interface AsyncCloudConvertFacade {
+
+    /**
+     * Creates the import/upload task and sends {@code file} to its upload form.
+     */
+    CompletableFuture<TaskResult> createUploadTaskAndUpload(Path file);
+
+    /**
+     * Creates one job converting the uploaded file once per output; see
+     * {@link CloudConvertFacade#createMultiOutputJob(String, List)}.
+     *
+     * @return the job id
+     */
+    CompletableFuture<String> createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs);
+
+    CompletableFuture<JobResult> getJob(String jobId);
+
+    /**
+     * Downloads {@code url} into {@code target}, replacing it.
+     */
+    CompletableFuture<Void> downloadTo(String url, Path target);
+
+    CompletableFuture<Void> cancelJob(String jobId);
+
+    /**
+     * Runs each call of a sync facade on {@code executor}. A running call still blocks one of its
+     * threads, so this suits facades without a non-blocking client, such as the SDK one.
+     */
+    static AsyncCloudConvertFacade fromSync(CloudConvertFacade facade, Executor executor) {
+        return new SyncFacadeAdapter(facade, executor);
+    }
+}
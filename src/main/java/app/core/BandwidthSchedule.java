@@ -0,0 +1,47 @@
+package app.core;
+
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Bandwidth caps by time of day: {@code offPeak} applies from {@code offPeakFrom} (inclusive) to
+ * {@code offPeakUntil} (exclusive), wrapping past midnight when it ends earlier than it starts, and
+ * {@code peak} the rest of the day. Equal times mean there is no off-peak window.
+ */
+public record BandwidthSchedule(Caps peak, Caps offPeak, LocalTime offPeakFrom, LocalTime offPeakUntil) {
+
+    public BandwidthSchedule {
+        Objects.requireNonNull(peak, "peak");
+        Objects.requireNonNull(offPeak, "offPeak");
+        Objects.requireNonNull(offPeakFrom, "offPeakFrom");
+        Objects.requireNonNull(offPeakUntil, "offPeakUntil");
+    }
+
+    /**
+     * The same caps all day.
+     */
+    public static BandwidthSchedule constant(Caps caps) {
+        return new BandwidthSchedule(caps, caps, LocalTime.MIDNIGHT, LocalTime.MIDNIGHT);
+    }
+
+    public Caps capsAt(LocalTime time) {
+        return isOffPeak(time) ? offPeak : peak;
+    }
+
+    private boolean isOffPeak(LocalTime time) {
+        if (offPeakFrom.equals(offPeakUntil)) {
+            return false;
+        }
+        boolean afterStart = !time.isBefore(offPeakFrom);
+        boolean beforeEnd = time.isBefore(offPeakUntil);
+        return offPeakFrom.isBefore(offPeakUntil) ? afterStart && beforeEnd : afterStart || beforeEnd;
+    }
+
+    /**
+     * Rates in bytes per second for uploads, downloads and both together; 0 is unlimited.
+     */
+    public record Caps(long uploadBytesPerSecond, long downloadBytesPerSecond, long totalBytesPerSecond) {
+
+        public static final Caps UNLIMITED = new Caps(0, 0, 0);
+    }
+}
@@ -0,0 +1,43 @@
+package app.core;
+
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Shapes the transfers of every worker it is given to against one {@link BandwidthSchedule}: uploads
+ * share the upload cap, downloads the download cap, and both share the total cap. Give several batch
+ * runners the same shaper to cap them together.
+ */
+public final class BandwidthShaper {
+
+    private final Throttle upload;
+    private final Throttle download;
+
+    public BandwidthShaper(BandwidthSchedule schedule) {
+        this(schedule, Clock.systemDefaultZone(), System::nanoTime);
+    }
+
+    public BandwidthShaper(BandwidthSchedule schedule, Clock clock, LongSupplier nanoTime) {
+        TokenBucket total = new TokenBucket(() -> caps(schedule, clock).totalBytesPerSecond(),
+                TokenBucket.DEFAULT_BURST_BYTES, nanoTime);
+        TokenBucket up = new TokenBucket(() -> caps(schedule, clock).uploadBytesPerSecond(),
+                TokenBucket.DEFAULT_BURST_BYTES, nanoTime);
+        TokenBucket down = new TokenBucket(() -> caps(schedule, clock).downloadBytesPerSecond(),
+                TokenBucket.DEFAULT_BURST_BYTES, nanoTime);
+        this.upload = Throttle.both(up, total);
+        this.download = Throttle.both(down, total);
+    }
+
+    private static BandwidthSchedule.Caps caps(BandwidthSchedule schedule, Clock clock) {
+        return schedule.capsAt(LocalTime.now(clock));
+    }
+
+    public Throttle upload() {
+        return upload;
+    }
+
+    public Throttle download() {
+        return download;
+    }
+}
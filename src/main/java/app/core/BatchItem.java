@@ -1,30 +1,71 @@
 package app.core;
 
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Represents a single file in a batch conversion.
  * Output directory is resolved at conversion time, not at creation.
+ *
+ * <p>Batches can hold a million items, so an item keeps only what the pipeline and history need:
+ * the status is an enum, profiles are the shared {@link Profiles} instances, messages are shared
+ * (see {@link ErrorMessages#shared}) and stage timings are ints.
  */
 public final class BatchItem {
 
     public final Path input;
     public final ConversionProfile profile;
 
-    public volatile String status;
+    /** Directory under the output directory to write to, relative; null for the output directory itself. */
+    public final Path outputSubdir;
+
+    public volatile BatchItemStatus status;
     public volatile double progress;
     public volatile String message;
     public volatile Path outputPath;
 
+    /** Every output written for this item, in profile target order; outputPath is the first. */
+    public volatile List<Path> outputPaths = List.of();
+
+    /**
+     * The output reserved for each of the profile's targets, in target order, with null for a target
+     * the conflict policy skipped; outputPaths holds the same paths without the gaps.
+     */
+    public volatile List<Path> targetOutputs = List.of();
+
+    /**
+     * SHA-256 of each output, hashed while it was downloaded and aligned with outputPaths; empty when
+     * the outputs did not arrive as single downloads (archive export).
+     */
+    public volatile List<String> outputDigests = List.of();
+
+    /** Input size in bytes recorded by preflight validation; -1 until validated. */
+    public volatile long inputBytes;
+
+    /** SHA-256 of the input if it was hashed for deduplication, else null. */
+    public volatile String contentHash;
+
+    /** Wall-clock time spent in each stage, in milliseconds; 0 if the stage did not run here. */
+    public volatile int uploadMs;
+    public volatile int convertMs;
+    public volatile int downloadMs;
+
     public volatile String jobId;
-    public volatile String uploadTaskId;
-    public volatile String exportTaskId;
+
+    /** CloudConvert calls made for this item by its last worker run; null until a worker runs it. */
+    public volatile ApiCallCounts apiCalls;
 
     public BatchItem(Path input, ConversionProfile profile) {
+        this(input, profile, null);
+    }
+
+    public BatchItem(Path input, ConversionProfile profile, Path outputSubdir) {
         this.input = input;
         this.profile = profile;
-        this.status = BatchItemStatus.Queued.name();
+        this.outputSubdir = outputSubdir == null || outputSubdir.toString().isEmpty() ? null : outputSubdir;
+        this.status = BatchItemStatus.Queued;
         this.progress = 0.0;
         this.message = "";
+        this.inputBytes = -1;
     }
 }
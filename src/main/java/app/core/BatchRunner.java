@@ -1,9 +1,19 @@
 package app.core;
 
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
@@ -11,55 +21,475 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Runs batch conversions with configurable concurrency.
+ * Workers pull from a {@link WorkQueue}, so items can be added or moved to the front while a batch runs.
+ * An item waiting for its job or for disk space is parked outside the queue and frees its worker.
  */
 public class BatchRunner {
 
     private static final Logger LOG = LoggerFactory.getLogger(BatchRunner.class);
+    private static final ThreadFactory POLLER = runnable -> {
+        Thread thread = new Thread(runnable, "job-poller");
+        thread.setDaemon(true);
+        return thread;
+    };
+    private static final int HASH_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
     private final CloudConvertFacade facade;
     private final int concurrency;
+    private final AimdLimiter autoLimit;
     private final AtomicBoolean cancelRequested = new AtomicBoolean(false);
+    private final OutputSizeEstimator outputSizes = new OutputSizeEstimator();
+    private volatile WorkQueue queue;
+    private volatile Deduplicator dedup;
+    private volatile Map<BatchItem, PipelineWorker> parked = Map.of();
+    private volatile DiskSpaceAdmission diskAdmission;
+    private volatile OutputStaging.ConflictPolicy conflictPolicy = OutputStaging.ConflictPolicy.Overwrite;
+    private volatile boolean archiveExport;
+    private volatile HistoryStore history;
+    private volatile long pollIntervalMs = PipelineWorker.DEFAULT_POLL_INTERVAL_MS;
+    private volatile long pollTimeoutMs = PipelineWorker.DEFAULT_POLL_TIMEOUT_MS;
+    private volatile ApiCallCounts apiCalls = new ApiCallCounts();
+    private volatile long diskHeadroomBytes = DiskSpaceAdmission.DEFAULT_HEADROOM_BYTES;
+    private volatile BandwidthShaper bandwidth;
+    private volatile SyncIndex.Check incrementalSync;
+    private volatile AsyncCloudConvertFacade asyncFacade;
 
     public BatchRunner(CloudConvertFacade facade, int concurrency) {
         this.facade = facade;
         this.concurrency = Math.max(1, concurrency);
+        this.autoLimit = null;
+    }
+
+    /**
+     * Auto mode: one worker per slot up to the limiter's maximum, gated by its current limit.
+     */
+    public BatchRunner(CloudConvertFacade facade, AimdLimiter autoLimit) {
+        this.facade = facade;
+        this.concurrency = autoLimit.getMaxLimit();
+        this.autoLimit = autoLimit;
+    }
+
+    /**
+     * What happens to outputs that already exist on disk; applies from the next run.
+     * Items of one batch never overwrite each other whatever the policy.
+     */
+    public void setConflictPolicy(OutputStaging.ConflictPolicy conflictPolicy) {
+        this.conflictPolicy = conflictPolicy;
+    }
+
+    /**
+     * When set, converted outputs are downloaded together as zip archives instead of one export per
+     * file, which suits batches of many small outputs; applies from the next run.
+     */
+    public void setArchiveExport(boolean archiveExport) {
+        this.archiveExport = archiveExport;
+    }
+
+    /**
+     * Records every queued item in {@code history} once it has finished; items rejected by validation
+     * are not recorded. Null disables history.
+     */
+    public void setHistory(HistoryStore history) {
+        this.history = history;
+    }
+
+    /**
+     * How long workers wait between job status polls.
+     */
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * How long workers wait for a job to finish before failing its item.
+     */
+    public void setPollTimeoutMs(long pollTimeoutMs) {
+        this.pollTimeoutMs = pollTimeoutMs;
+    }
+
+    /**
+     * Free space to keep on the output volume; downloads that would cut into it wait. Applies from
+     * the next run; a negative value disables the check.
+     */
+    public void setDiskHeadroomBytes(long diskHeadroomBytes) {
+        this.diskHeadroomBytes = diskHeadroomBytes;
+    }
+
+    /**
+     * Paces the uploads and downloads of all workers; null for no limit. Runners given the same
+     * shaper share its caps. Applies to items started after the call.
+     */
+    public void setBandwidth(BandwidthShaper bandwidth) {
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Skips items whose outputs are already up to date, checked as closely as {@code check} says;
+     * null converts every item. Applies from the next run.
+     */
+    public void setIncrementalSync(SyncIndex.Check check) {
+        this.incrementalSync = check;
+    }
+
+    /**
+     * Polls jobs through {@code async}, so workers upload the next items instead of waiting for
+     * conversions; null polls on the workers. Applies from the next run.
+     */
+    public void setAsyncFacade(AsyncCloudConvertFacade async) {
+        this.asyncFacade = async;
+    }
+
+    /**
+     * CloudConvert calls made by workers of the current or last run, summed over its items.
+     */
+    public ApiCallCounts apiCalls() {
+        return apiCalls;
     }
 
     public void run(List<BatchItem> items, Path outputDir) {
+        run(items, outputDir, SchedulingPolicy.TableOrder);
+    }
+
+    public void run(List<BatchItem> items, Path outputDir, SchedulingPolicy policy) {
         cancelRequested.set(false);
-        LOG.debug("Batch run started: items={}, concurrency={}", items.size(), concurrency);
+        apiCalls = new ApiCallCounts();
+        LOG.debug("Batch run started: items={}, concurrency={}, policy={}", items.size(), concurrency, policy);
+        OutputStaging.sweepOrphans(outputDir);
+        OutputStaging staging = new OutputStaging(outputDir, conflictPolicy);
+        WorkQueue batchQueue = new WorkQueue();
+        Deduplicator batchDedup = new Deduplicator(staging, this::record);
+        Map<BatchItem, PipelineWorker> batchParked = new ConcurrentHashMap<>();
+        // Published before preflight, which can take a while, so items submitted meanwhile are queued.
+        dedup = batchDedup;
+        parked = batchParked;
+        queue = batchQueue;
+        List<BatchItem> ordered = policy.order(skipUpToDate(preflight(items), outputDir));
+        ordered.forEach(batchQueue::add);
+        ExecutorService hashPool = Executors.newFixedThreadPool(HASH_THREADS);
+        batchDedup.hashInBackground(Deduplicator.candidates(ordered), hashPool);
+        hashPool.shutdown();
+        ArchiveExport archive = archiveExport
+                ? new ArchiveExport(facade, staging, cancelRequested, item -> settle(item, batchDedup)) : null;
+        diskAdmission = admission(ordered, outputDir);
+        // Starts its thread only once a job is polled.
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(POLLER);
+        BatchContext context = new BatchContext(batchQueue, batchDedup, staging, archive, diskAdmission, batchParked,
+                asyncFacade, poller);
         ExecutorService pool = Executors.newFixedThreadPool(concurrency);
         try {
-            for (BatchItem item : items) {
-                if (cancelRequested.get()) {
-                    LOG.info("Batch run stopping due to cancellation");
-                    break;
-                }
-                Validation.ValidationResult result = Validation.validate(item);
-                if (!result.valid()) {
-                    item.status = BatchItemStatus.Skipped.name();
-                    item.message = result.message();
-                    LOG.debug("Skipping invalid item {}: {}",
-                            item.input != null ? item.input.getFileName() : "<null>", result.message());
-                    continue;
-                }
-                pool.submit(new PipelineWorker(item, outputDir, facade, cancelRequested));
-                LOG.debug("Submitted item {}", item.input != null ? item.input.getFileName() : "<null>");
+            for (int i = 0; i < concurrency; i++) {
+                pool.submit(() -> drain(context));
             }
         } finally {
             pool.shutdown();
         }
         try {
             pool.awaitTermination(24, TimeUnit.HOURS);
-            LOG.debug("Batch run finished");
+            if (archive != null) {
+                archive.finish();
+            }
+            LOG.debug("Batch run finished: {} API call(s) {}", apiCalls.total(), apiCalls);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             LOG.warn("Batch run interrupted", e);
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+            hashPool.shutdownNow();
+            poller.shutdownNow();
         }
     }
 
+    /**
+     * Adds an item to the running batch. Items submitted while the batch is still being validated
+     * start ahead of its own items.
+     *
+     * @return false if it failed validation or no batch is accepting work
+     */
+    public boolean submit(BatchItem item) {
+        WorkQueue current = queue;
+        if (current == null || !accept(item)) {
+            return false;
+        }
+        boolean added = current.add(item);
+        LOG.debug("Submitted item {} to running batch: {}", item.input.getFileName(), added);
+        return added;
+    }
+
+    /**
+     * Moves a queued item ahead of all other pending items.
+     */
+    public boolean runNext(BatchItem item) {
+        WorkQueue current = queue;
+        boolean moved = current != null && current.runNext(item);
+        LOG.debug("Run next requested for {}: {}", item.input != null ? item.input.getFileName() : "<null>", moved);
+        return moved;
+    }
+
+    public boolean isRunning() {
+        WorkQueue current = queue;
+        return current != null && !current.isClosed();
+    }
+
     public void cancel() {
         cancelRequested.set(true);
+        WorkQueue current = queue;
+        Deduplicator currentDedup = dedup;
+        Map<BatchItem, PipelineWorker> currentParked = parked;
+        DiskSpaceAdmission currentAdmission = diskAdmission;
+        if (currentAdmission != null) {
+            // Puts items waiting for disk space back in the queue, to be canceled with the rest.
+            currentAdmission.wakeAll();
+        }
+        if (current != null) {
+            for (BatchItem item : current.drain()) {
+                PipelineWorker waiting = currentParked.remove(item);
+                if (waiting != null) {
+                    waiting.resume();
+                }
+                item.status = BatchItemStatus.Canceled;
+                settle(item, currentDedup);
+            }
+        }
         LOG.info("Cancel flag set for batch");
     }
+
+    private void drain(BatchContext context) {
+        try {
+            while (true) {
+                if (autoLimit != null) {
+                    autoLimit.acquire();
+                }
+                BatchItem item = context.queue().take();
+                try {
+                    if (item == null) {
+                        return;
+                    }
+                    process(item, context);
+                } catch (RuntimeException e) {
+                    item.status = BatchItemStatus.Failed;
+                    item.message = ErrorMessages.fromException(e);
+                    LOG.error("Batch worker failed on {}", item.input, e);
+                    settle(item, context.dedup());
+                } finally {
+                    if (item != null) {
+                        context.queue().complete();
+                    }
+                    if (autoLimit != null) {
+                        autoLimit.release();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Batch worker interrupted", e);
+        }
+    }
+
+    private void process(BatchItem item, BatchContext context) throws InterruptedException {
+        long start = System.nanoTime();
+        PipelineWorker worker = context.parked().remove(item);
+        if (worker != null) {
+            worker.resume();
+        } else if (context.dedup().claim(item)) {
+            worker = new PipelineWorker(item, context.staging(), facade, cancelRequested, context.archive());
+            worker.setPollIntervalMs(pollIntervalMs);
+            worker.setPollTimeoutMs(pollTimeoutMs);
+            worker.setAdmission(context.admission());
+            worker.setBandwidth(bandwidth);
+            worker.setAsyncFacade(context.async());
+            worker.run();
+        } else {
+            return;
+        }
+        if (park(item, worker, context)) {
+            return;
+        }
+        apiCalls.add(item.apiCalls);
+        if (!worker.isHandedOff()) {
+            settle(item, context.dedup());
+        }
+        if (autoLimit == null) {
+            return;
+        }
+        int status = ErrorMessages.httpStatusOf(worker.getFailure());
+        if (status == 429 || status >= 500) {
+            autoLimit.onOverload();
+        } else if (worker.isHandedOff() || item.status == BatchItemStatus.Done) {
+            autoLimit.onSuccess(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Parks the item if its worker is waiting for its job or for disk space.
+     *
+     * @return false if the item is finished or handed over
+     */
+    private static boolean park(BatchItem item, PipelineWorker worker, BatchContext context) {
+        if (worker.isWaitingForJob()) {
+            waitForJob(item, worker, context);
+            return true;
+        }
+        if (worker.isWaitingForDisk()) {
+            waitForDisk(item, worker, context);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parks a converted item whose download has no room yet and puts it back in the queue once there
+     * is, so the worker is free to convert other items meanwhile. The queue is held open while the
+     * item is out of it, since nothing else may be in flight.
+     */
+    private static void waitForDisk(BatchItem item, PipelineWorker worker, BatchContext context) {
+        context.queue().hold();
+        context.parked().put(item, worker);
+        context.admission().whenRoom(item, () -> {
+            context.queue().add(item);
+            context.queue().complete();
+        });
+    }
+
+    /**
+     * Parks an item whose job is converting and puts it back in the queue once the poller has seen the
+     * job finish, fail or time out, ahead of items not yet uploaded so converted outputs are fetched
+     * first. The queue is held open meanwhile, as for {@link #waitForDisk}.
+     */
+    private static void waitForJob(BatchItem item, PipelineWorker worker, BatchContext context) {
+        context.queue().hold();
+        context.parked().put(item, worker);
+        worker.pollJob(context.poller()).whenComplete((v, e) -> {
+            context.queue().add(item, Integer.MAX_VALUE);
+            context.queue().complete();
+        });
+    }
+
+    /**
+     * Records an item that has taken its final status and finishes its duplicates.
+     */
+    private void settle(BatchItem item, Deduplicator batchDedup) {
+        if (item.status == BatchItemStatus.Done) {
+            outputSizes.record(item.profile.id(), item.inputBytes, outputBytes(item));
+        }
+        record(item);
+        batchDedup.onFinished(item);
+    }
+
+    private void record(BatchItem item) {
+        HistoryStore store = history;
+        if (store == null) {
+            return;
+        }
+        try {
+            store.append(new HistoryRecord(Instant.now(), item.input, item.contentHash, item.profile.id(),
+                    item.status.name(), item.inputBytes, outputBytes(item), item.uploadMs, item.convertMs, item.downloadMs,
+                    item.jobId, item.message, item.outputPaths, item.outputDigests));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not record history for {}", item.input, e);
+        }
+    }
+
+    private static long outputBytes(BatchItem item) {
+        if (item.outputPaths.isEmpty()) {
+            return -1;
+        }
+        long total = 0;
+        for (Path output : item.outputPaths) {
+            try {
+                total += Files.size(output);
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Validates every item up front, which also records input sizes for size-aware policies.
+     */
+    private List<BatchItem> preflight(List<BatchItem> items) {
+        List<BatchItem> runnable = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            if (accept(item)) {
+                runnable.add(item);
+            }
+        }
+        return runnable;
+    }
+
+    /**
+     * In an incremental run, marks the items whose outputs are up to date as skipped, from one index
+     * of the output directory and before anything is uploaded, and returns the rest.
+     */
+    private List<BatchItem> skipUpToDate(List<BatchItem> items, Path outputDir) {
+        SyncIndex.Check check = incrementalSync;
+        if (check == null || items.isEmpty()) {
+            return items;
+        }
+        long start = System.nanoTime();
+        SyncIndex index;
+        try {
+            index = SyncIndex.scan(outputDir, check);
+        } catch (IOException e) {
+            LOG.warn("Could not index {}, converting every item", outputDir, e);
+            return items;
+        }
+        HistoryStore store = history;
+        if (store != null) {
+            index.seed(store, items.stream().map(i -> i.profile.id()).distinct().toList());
+        }
+        List<List<Path>> upToDate = index.upToDate(items, HASH_THREADS);
+        List<BatchItem> stale = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            List<Path> outputs = upToDate.get(i);
+            if (outputs == null) {
+                stale.add(item);
+                continue;
+            }
+            item.outputPaths = List.copyOf(outputs);
+            item.outputPath = outputs.get(0);
+            item.progress = 1.0;
+            item.message = "Up to date";
+            item.status = BatchItemStatus.Skipped;
+        }
+        LOG.info("Incremental sync: {} of {} item(s) up to date, {} file(s) indexed in {} ms",
+                items.size() - stale.size(), items.size(), index.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return stale;
+    }
+
+    private boolean accept(BatchItem item) {
+        Validation.ValidationResult result = Validation.validate(item);
+        if (!result.valid()) {
+            item.status = BatchItemStatus.Skipped;
+            item.message = result.message();
+            LOG.debug("Skipping invalid item {}: {}",
+                    item.input != null ? item.input.getFileName() : "<null>", result.message());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Disk space admission for the run, with size ratios seeded from history for its profiles.
+     */
+    private DiskSpaceAdmission admission(List<BatchItem> items, Path outputDir) {
+        long headroom = diskHeadroomBytes;
+        if (headroom < 0) {
+            return null;
+        }
+        HistoryStore store = history;
+        if (store != null) {
+            outputSizes.seed(store, items.stream().map(i -> i.profile.id()).distinct().toList());
+        }
+        return new DiskSpaceAdmission(outputDir, headroom, outputSizes);
+    }
+
+    private record BatchContext(WorkQueue queue, Deduplicator dedup, OutputStaging staging, ArchiveExport archive,
+            DiskSpaceAdmission admission, Map<BatchItem, PipelineWorker> parked, AsyncCloudConvertFacade async,
+            ScheduledExecutorService poller) {
+    }
 }
@@ -1,7 +1,13 @@
 package app.core;
 
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
 
 /**
  * Thin wrapper around CloudConvert SDK for upload, job creation, polling, download.
@@ -11,14 +17,70 @@ public interface CloudConvertFacade {
     String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
             ConversionProfile profile) throws Exception;
 
+    /**
+     * Creates one job converting a single uploaded file once per output, each with its own export task.
+     * Facades that cannot build such jobs only accept a single output.
+     */
+    default String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) throws Exception {
+        OutputTask output = outputs.get(0);
+        if (outputs.size() != 1 || output.exportTaskName() == null || output.outputFilename() != null) {
+            throw new UnsupportedOperationException("Multi-output jobs are not supported by this facade");
+        }
+        return createJobForFile(uploadTaskId, output.convertTaskName(), output.exportTaskName(), output.profile());
+    }
+
+    /**
+     * Bundles the outputs of the given finished tasks into one zip archive and exports it.
+     *
+     * @return the export task, whose result carries the archive URL once finished
+     */
+    default TaskResult createArchiveExport(List<String> taskIds, String filename) throws Exception {
+        throw new UnsupportedOperationException("Archive export is not supported by this facade");
+    }
+
     TaskResult createUploadTaskAndUpload(Path file) throws Exception;
 
+    /**
+     * Like {@link #createUploadTaskAndUpload(Path)}, sending the file only as fast as {@code throttle}
+     * allows. Facades that cannot pace their upload ignore the throttle.
+     */
+    default TaskResult createUploadTaskAndUpload(Path file, Throttle throttle) throws Exception {
+        return createUploadTaskAndUpload(file);
+    }
+
     JobResult getJob(String jobId) throws Exception;
 
     TaskResult getTask(String jobId, String taskId) throws Exception;
 
     InputStream download(String url) throws Exception;
 
+    /**
+     * Downloads {@code url} into {@code target}, replacing it. Implementations may fetch it in
+     * parallel ranges; the default streams {@link #download(String)}.
+     */
+    default void downloadTo(String url, Path target) throws Exception {
+        try (InputStream in = download(url)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Like {@link #downloadTo(String, Path)}, receiving only as fast as {@code throttle} allows and
+     * hashing the content on the way in. Implementations reject a download that is shorter than the
+     * server announced with {@link DownloadIntegrityException}. The default streams
+     * {@link #download(String)}, which carries no length or checksum to check against.
+     */
+    default DownloadResult downloadTo(String url, Path target, Throttle throttle) throws Exception {
+        MessageDigest sha256 = ContentHash.newSha256();
+        InputStream source = throttle == Throttle.NONE
+                ? download(url)
+                : new ThrottledInputStream(download(url), throttle);
+        try (InputStream in = new DigestInputStream(source, sha256)) {
+            long bytes = Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            return new DownloadResult(bytes, HexFormat.of().formatHex(sha256.digest()));
+        }
+    }
+
     void cancelTask(String jobId, String taskId) throws Exception;
 
     void cancelJob(String jobId) throws Exception;
@@ -28,4 +90,17 @@ public interface CloudConvertFacade {
 
     record JobResult(String status, Object tasks) {
     }
+
+    /**
+     * One convert/export pair of a multi-output job; {@code profile} is a single-output profile.
+     * A null {@code exportTaskName} leaves the output unexported (e.g. for a later archive), and a
+     * non-null {@code outputFilename} names the converted file instead of the server's default.
+     */
+    record OutputTask(String convertTaskName, String exportTaskName, ConversionProfile profile,
+            String outputFilename) {
+
+        public OutputTask(String convertTaskName, String exportTaskName, ConversionProfile profile) {
+            this(convertTaskName, exportTaskName, profile, null);
+        }
+    }
 }
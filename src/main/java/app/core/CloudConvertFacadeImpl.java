@@ -3,6 +3,7 @@ package app.core;
 import com.cloudconvert.client.CloudConvertClient;
 import com.cloudconvert.client.setttings.StringSettingsProvider;
 import com.cloudconvert.dto.request.ConvertFilesTaskRequest;
+import com.cloudconvert.dto.request.CreateArchivesTaskRequest;
 import com.cloudconvert.dto.request.TaskRequest;
 import com.cloudconvert.dto.request.UploadImportRequest;
 import com.cloudconvert.dto.request.UrlExportRequest;
@@ -11,9 +12,11 @@ import com.cloudconvert.dto.response.TaskResponse;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,39 +39,132 @@ public class CloudConvertFacadeImpl implements CloudConvertFacade {
         LOG.debug("CloudConvert client initialized");
     }
 
+    /**
+     * Loads and initializes the SDK client and DTO classes, so the first Start does not pay for them.
+     * Meant for a background thread once the window is up.
+     */
+    public static void preload() {
+        long start = System.nanoTime();
+        for (Class<?> type : List.of(CloudConvertClient.class, StringSettingsProvider.class, JobResponse.class,
+                TaskResponse.class, ConvertFilesTaskRequest.class, UploadImportRequest.class, UrlExportRequest.class)) {
+            try {
+                Class.forName(type.getName(), true, type.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                LOG.debug("Could not preload {}: {}", type.getName(), e.toString());
+            }
+        }
+        LOG.debug("Preloaded CloudConvert SDK in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
     @Override
     public String createJobForFile(String uploadTaskId, String convertTaskName, String exportTaskName,
             ConversionProfile profile) throws Exception {
-        LOG.debug("Creating job for uploadTaskId={} using profile {}", uploadTaskId, profile.id());
-        ConvertFilesTaskRequest convertReq = new ConvertFilesTaskRequest()
-                .setInput(uploadTaskId)
-                .setOutputFormat(profile.outputFormat());
-        for (Map.Entry<String, Object> e : profile.convertOptions().entrySet()) {
-            convertReq.set(e.getKey(), e.getValue());
-        }
-        UrlExportRequest exportReq = new UrlExportRequest().setInput(convertTaskName);
+        return createMultiOutputJob(uploadTaskId, List.of(new OutputTask(convertTaskName, exportTaskName, profile)));
+    }
+
+    /**
+     * All convert tasks read the same upload task, so the input is transferred once however many
+     * outputs the job produces.
+     */
+    @Override
+    public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) throws Exception {
+        LOG.debug("Creating job for uploadTaskId={} with {} output(s)", uploadTaskId, outputs.size());
         Map<String, TaskRequest> tasks = new HashMap<>();
-        tasks.put(convertTaskName, convertReq);
-        tasks.put(exportTaskName, exportReq);
+        for (OutputTask output : outputs) {
+            ConvertFilesTaskRequest last = addConvertTasks(tasks, uploadTaskId, output.convertTaskName(),
+                    output.profile());
+            if (output.outputFilename() != null) {
+                last.set("filename", output.outputFilename());
+            }
+            if (output.exportTaskName() != null) {
+                tasks.put(output.exportTaskName(), new UrlExportRequest().setInput(output.convertTaskName()));
+            }
+        }
         JobResponse job = client.jobs().create(tasks).getBody();
         LOG.debug("Job created: jobId={}", job.getId());
         return job.getId();
     }
 
+    /**
+     * Adds one convert task per step of the profile, each reading the previous one, so intermediate
+     * formats of a chained profile never leave the server. The last step is named {@code convertTaskName}.
+     *
+     * @return the request of the last step
+     */
+    private static ConvertFilesTaskRequest addConvertTasks(Map<String, TaskRequest> tasks, String uploadTaskId,
+            String convertTaskName, ConversionProfile profile) {
+        List<ConversionProfile> steps = profile.steps();
+        String input = uploadTaskId;
+        ConvertFilesTaskRequest convertReq = null;
+        for (int i = 0; i < steps.size(); i++) {
+            ConversionProfile step = steps.get(i);
+            String name = i == steps.size() - 1 ? convertTaskName : convertTaskName + "-hop" + (i + 1);
+            convertReq = new ConvertFilesTaskRequest()
+                    .setInput(input)
+                    .setOutputFormat(step.outputFormat());
+            for (Map.Entry<String, Object> e : step.convertOptions().entrySet()) {
+                convertReq.set(e.getKey(), e.getValue());
+            }
+            tasks.put(name, convertReq);
+            input = name;
+        }
+        return convertReq;
+    }
+
+    /**
+     * Archive and export are standalone tasks reading the finished convert tasks by id, so each file
+     * keeps its own job and only the download is shared.
+     */
+    @Override
+    public TaskResult createArchiveExport(List<String> taskIds, String filename) throws Exception {
+        TaskResponse archive = client.tasks().archive(new CreateArchivesTaskRequest()
+                .setInput(taskIds.toArray(String[]::new))
+                .setOutputFormat("zip")
+                .setFilename(filename)).getBody();
+        TaskResponse export = client.exportUsing().url(new UrlExportRequest().setInput(archive.getId())).getBody();
+        LOG.debug("Archive task {} over {} task(s), export task {}", archive.getId(), taskIds.size(), export.getId());
+        return new TaskResult(export.getId(),
+                export.getStatus() != null ? export.getStatus().toString() : "",
+                export.getResult());
+    }
+
+    /**
+     * Creates the import/upload task, then streams the file to its form URL ourselves rather than
+     * handing the SDK an InputStream, so multi-GB inputs never sit in a request buffer.
+     */
     @Override
     public TaskResult createUploadTaskAndUpload(Path file) throws Exception {
+        return createUploadTaskAndUpload(file, Throttle.NONE);
+    }
+
+    @Override
+    public TaskResult createUploadTaskAndUpload(Path file, Throttle throttle) throws Exception {
         String filename = file.getFileName().toString();
         LOG.debug("Uploading file {}", filename);
-        try (InputStream is = Files.newInputStream(file)) {
-            TaskResponse resp = client.importUsing()
-                    .upload(new UploadImportRequest(), is, filename)
-                    .getBody();
-            LOG.debug("Upload task created: taskId={}, status={}",
-                    resp.getId(), resp.getStatus() != null ? resp.getStatus().toString() : "");
-            return new TaskResult(resp.getId(),
-                    resp.getStatus() != null ? resp.getStatus().toString() : "",
-                    resp.getResult());
+        TaskResponse resp = client.importUsing()
+                .upload(new UploadImportRequest())
+                .getBody();
+        Object form = TaskFields.readField(resp.getResult(), "form");
+        String formUrl = TaskFields.readString(form, "url");
+        if (formUrl == null || formUrl.isBlank()) {
+            throw new IllegalStateException("Upload task " + resp.getId() + " has no upload form");
+        }
+        StreamingUpload.upload(URI.create(formUrl), formParameters(form), file, throttle);
+        LOG.debug("Upload task created: taskId={}, status={}",
+                resp.getId(), resp.getStatus() != null ? resp.getStatus().toString() : "");
+        return new TaskResult(resp.getId(),
+                resp.getStatus() != null ? resp.getStatus().toString() : "",
+                resp.getResult());
+    }
+
+    private static Map<String, ?> formParameters(Object form) {
+        Object parameters = TaskFields.readField(form, "parameters");
+        if (parameters instanceof Map<?, ?> map) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            map.forEach((k, v) -> result.put(String.valueOf(k), v));
+            return result;
         }
+        return Map.of();
     }
 
     @Override
@@ -96,6 +192,22 @@ public class CloudConvertFacadeImpl implements CloudConvertFacade {
         return client.files().download(url).getBody();
     }
 
+    /**
+     * Export URLs are plain signed HTTPS links, so large outputs are fetched in parallel ranges
+     * rather than through the SDK's single stream.
+     */
+    @Override
+    public void downloadTo(String url, Path target) throws Exception {
+        downloadTo(url, target, Throttle.NONE);
+    }
+
+    @Override
+    public DownloadResult downloadTo(String url, Path target, Throttle throttle) throws Exception {
+        DownloadResult result = SegmentedDownload.download(URI.create(url), target, throttle);
+        LOG.debug("Downloaded {} byte(s) to {}, sha256={}", result.bytes(), target.getFileName(), result.sha256());
+        return result;
+    }
+
     @Override
     public void cancelTask(String jobId, String taskId) throws Exception {
         LOG.info("Canceling task {} for job {}", taskId, jobId);
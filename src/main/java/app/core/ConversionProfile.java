@@ -1,14 +1,71 @@
 package app.core;
 
+import java.util.List;
 import java.util.Map;
 
 /**
  * Defines a conversion profile (input format, output format, options).
+ * A multi-output profile lists several single-output profiles in {@code outputs}; its input is
+ * uploaded once and converted to each of them within one job. A chained profile lists its
+ * conversion steps in {@code hops}; they run back to back on the server and only the last is exported.
  */
 public record ConversionProfile(
         String id,
         String displayName,
         String inputFormat,
         String outputFormat,
-        Map<String, Object> convertOptions
-) {}
+        Map<String, Object> convertOptions,
+        List<ConversionProfile> outputs,
+        List<ConversionProfile> hops
+) {
+
+    public ConversionProfile {
+        outputs = outputs == null ? List.of() : List.copyOf(outputs);
+        hops = hops == null ? List.of() : List.copyOf(hops);
+    }
+
+    public ConversionProfile(String id, String displayName, String inputFormat, String outputFormat,
+            Map<String, Object> convertOptions) {
+        this(id, displayName, inputFormat, outputFormat, convertOptions, List.of(), List.of());
+    }
+
+    public boolean isMultiOutput() {
+        return !outputs.isEmpty();
+    }
+
+    /**
+     * The single-output profiles this profile produces: its outputs, or itself for a plain profile.
+     */
+    public List<ConversionProfile> targets() {
+        return isMultiOutput() ? outputs : List.of(this);
+    }
+
+    public boolean isChained() {
+        return !hops.isEmpty();
+    }
+
+    /**
+     * The convert steps of this profile in execution order: its hops, or itself for a plain profile.
+     */
+    public List<ConversionProfile> steps() {
+        return isChained() ? hops : List.of(this);
+    }
+
+    /**
+     * True if the hops start at this profile's input, each hop reads the previous hop's output,
+     * and the last hop produces this profile's output.
+     */
+    public boolean isChainConsistent() {
+        if (!isChained()) {
+            return true;
+        }
+        String format = inputFormat;
+        for (ConversionProfile hop : hops) {
+            if (hop.isMultiOutput() || hop.isChained() || !hop.inputFormat().equals(format)) {
+                return false;
+            }
+            format = hop.outputFormat();
+        }
+        return format.equals(outputFormat);
+    }
+}
@@ -0,0 +1,92 @@
+package app.core;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Counts every call one worker makes through a facade. A call counts once even if the delegate
+ * implements it on top of another facade method.
+ */
+final class CountingFacade implements CloudConvertFacade {
+
+    private final CloudConvertFacade delegate;
+    private final ApiCallCounts counts;
+
+    CountingFacade(CloudConvertFacade delegate, ApiCallCounts counts) {
+        this.delegate = delegate;
+        this.counts = counts;
+    }
+
+    @Override
+    public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+            ConversionProfile profile) throws Exception {
+        counts.increment(ApiCall.CreateJob);
+        return delegate.createJobForFile(uploadTaskName, convertTaskName, exportTaskName, profile);
+    }
+
+    @Override
+    public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) throws Exception {
+        counts.increment(ApiCall.CreateJob);
+        return delegate.createMultiOutputJob(uploadTaskId, outputs);
+    }
+
+    @Override
+    public TaskResult createArchiveExport(List<String> taskIds, String filename) throws Exception {
+        return delegate.createArchiveExport(taskIds, filename);
+    }
+
+    @Override
+    public TaskResult createUploadTaskAndUpload(Path file) throws Exception {
+        counts.increment(ApiCall.Upload);
+        return delegate.createUploadTaskAndUpload(file);
+    }
+
+    @Override
+    public TaskResult createUploadTaskAndUpload(Path file, Throttle throttle) throws Exception {
+        counts.increment(ApiCall.Upload);
+        return delegate.createUploadTaskAndUpload(file, throttle);
+    }
+
+    @Override
+    public JobResult getJob(String jobId) throws Exception {
+        counts.increment(ApiCall.PollJob);
+        return delegate.getJob(jobId);
+    }
+
+    @Override
+    public TaskResult getTask(String jobId, String taskId) throws Exception {
+        counts.increment(ApiCall.GetTask);
+        return delegate.getTask(jobId, taskId);
+    }
+
+    @Override
+    public InputStream download(String url) throws Exception {
+        counts.increment(ApiCall.Download);
+        return delegate.download(url);
+    }
+
+    @Override
+    public void downloadTo(String url, Path target) throws Exception {
+        counts.increment(ApiCall.Download);
+        delegate.downloadTo(url, target);
+    }
+
+    @Override
+    public DownloadResult downloadTo(String url, Path target, Throttle throttle) throws Exception {
+        counts.increment(ApiCall.Download);
+        return delegate.downloadTo(url, target, throttle);
+    }
+
+    @Override
+    public void cancelTask(String jobId, String taskId) throws Exception {
+        counts.increment(ApiCall.Cancel);
+        delegate.cancelTask(jobId, taskId);
+    }
+
+    @Override
+    public void cancelJob(String jobId) throws Exception {
+        counts.increment(ApiCall.Cancel);
+        delegate.cancelJob(jobId);
+    }
+}
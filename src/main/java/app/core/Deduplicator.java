@@ -0,0 +1,283 @@
+package app.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups batch items with identical content and profile so only one representative is converted.
+ * Candidates are hashed in the background while the batch is already running; a worker claims an
+ * item when it takes it from the queue, so the first duplicate in queue order becomes the
+ * representative. When the representative finishes, its outcome is copied to every duplicate and
+ * the output is materialized at each duplicate's own reserved target, by hard link where possible, else by copy.
+ */
+public final class Deduplicator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Deduplicator.class);
+
+    private final OutputStaging staging;
+    private final Map<Key, Group> groups = new ConcurrentHashMap<>();
+    private final Map<BatchItem, Group> byRepresentative = new IdentityHashMap<>();
+    private final Map<BatchItem, Future<String>> hashes = new ConcurrentHashMap<>();
+    private final Consumer<BatchItem> onDuplicateFinished;
+
+    public Deduplicator(OutputStaging staging) {
+        this(staging, item -> { });
+    }
+
+    /**
+     * @param onDuplicateFinished called once for every duplicate, after it has taken its final status
+     */
+    public Deduplicator(OutputStaging staging, Consumer<BatchItem> onDuplicateFinished) {
+        this.staging = staging;
+        this.onDuplicateFinished = onDuplicateFinished;
+    }
+
+    /**
+     * Starts hashing the given items on {@code executor}. Items never passed here are always converted.
+     */
+    public void hashInBackground(List<BatchItem> candidates, ExecutorService executor) {
+        for (BatchItem item : candidates) {
+            hashes.put(item, executor.submit(() -> ContentHash.sha256(item.input)));
+        }
+    }
+
+    /**
+     * Only items sharing a size and profile with another item can be duplicates, so only those are hashed.
+     */
+    static List<BatchItem> candidates(List<BatchItem> items) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (BatchItem item : items) {
+            counts.merge(sizeKey(item), 1, Integer::sum);
+        }
+        List<BatchItem> candidates = new ArrayList<>();
+        for (BatchItem item : items) {
+            if (counts.get(sizeKey(item)) > 1) {
+                candidates.add(item);
+            }
+        }
+        return candidates;
+    }
+
+    private static String sizeKey(BatchItem item) {
+        return item.profile.id() + ":" + item.inputBytes;
+    }
+
+    /**
+     * Called by the worker that took the item. Waits for the item's hash if it has one pending.
+     *
+     * @return true if the item must be converted; false if it was recorded as a duplicate
+     */
+    public boolean claim(BatchItem item) throws InterruptedException {
+        Future<String> hash = hashes.remove(item);
+        if (hash == null) {
+            return true;
+        }
+        try {
+            return register(item, hash.get());
+        } catch (ExecutionException e) {
+            LOG.warn("Could not hash {}, converting it individually: {}", item.input, e.getCause().getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * @return true if the item is the first with this content and profile and must be converted;
+     *     false if it was recorded as a duplicate (and materialized already if the original is done)
+     */
+    boolean register(BatchItem item, String digest) {
+        item.contentHash = digest;
+        Group group = groups.computeIfAbsent(new Key(item.profile.id(), digest), k -> new Group(item));
+        if (group.representative == item) {
+            synchronized (byRepresentative) {
+                byRepresentative.put(item, group);
+            }
+            return true;
+        }
+        boolean finished;
+        synchronized (group) {
+            finished = group.finished;
+            if (!finished) {
+                group.duplicates.add(item);
+            }
+        }
+        LOG.debug("{} duplicates {}", item.input.getFileName(), group.representative.input.getFileName());
+        if (finished) {
+            materialize(group.representative, item);
+        }
+        return false;
+    }
+
+    /**
+     * Propagates a representative's final status to its duplicates. No-op for other items.
+     */
+    public void onFinished(BatchItem item) {
+        Group group;
+        synchronized (byRepresentative) {
+            group = byRepresentative.remove(item);
+        }
+        if (group == null) {
+            return;
+        }
+        List<BatchItem> duplicates;
+        synchronized (group) {
+            group.finished = true;
+            duplicates = new ArrayList<>(group.duplicates);
+            group.duplicates.clear();
+        }
+        for (BatchItem duplicate : duplicates) {
+            materialize(item, duplicate);
+        }
+    }
+
+    private void materialize(BatchItem original, BatchItem duplicate) {
+        copyOutcome(original, duplicate);
+        onDuplicateFinished.accept(duplicate);
+    }
+
+    private void copyOutcome(BatchItem original, BatchItem duplicate) {
+        String originalName = original.input.getFileName().toString();
+        if (original.status != BatchItemStatus.Done) {
+            duplicate.status = original.status;
+            String message = original.message;
+            duplicate.message = message == null || message.isEmpty() ? "Duplicate of " + originalName : message;
+            return;
+        }
+        List<Path> placed;
+        try {
+            placed = placeAll(original, duplicate);
+        } catch (IOException | RuntimeException e) {
+            duplicate.status = BatchItemStatus.Failed;
+            duplicate.message = ErrorMessages.fromException(e);
+            LOG.error("Failed to materialize duplicate {} of {}", duplicate.input, original.input, e);
+            return;
+        }
+        List<Path> paths = placed.stream().filter(Objects::nonNull).toList();
+        if (paths.isEmpty()) {
+            duplicate.status = BatchItemStatus.Skipped;
+            duplicate.message = "Output already exists";
+            return;
+        }
+        duplicate.targetOutputs = placed;
+        duplicate.outputPaths = paths;
+        duplicate.outputDigests = digests(original, placed);
+        duplicate.outputPath = paths.get(0);
+        duplicate.progress = 1.0;
+        duplicate.message = "Duplicate of " + originalName;
+        duplicate.status = BatchItemStatus.Done;
+    }
+
+    /**
+     * Places the original's output of each target for the duplicate, matching them by target, so a
+     * target the original skipped is skipped for the duplicate too.
+     *
+     * @return the duplicate's output for each target, null where there is none
+     */
+    private List<Path> placeAll(BatchItem original, BatchItem duplicate) throws IOException {
+        List<Path> sources = original.targetOutputs;
+        List<ConversionProfile> targets = duplicate.profile.targets();
+        Path[] placed = new Path[targets.size()];
+        for (int i = 0; i < targets.size() && i < sources.size(); i++) {
+            if (sources.get(i) != null) {
+                placed[i] = place(original, duplicate, targets.get(i), sources.get(i));
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(placed));
+    }
+
+    /**
+     * The original's digests of the outputs the duplicate got, in the same order; none if the original
+     * has no digests.
+     */
+    private static List<String> digests(BatchItem original, List<Path> placed) {
+        if (original.outputDigests.isEmpty()) {
+            return List.of();
+        }
+        List<Path> sources = original.targetOutputs;
+        List<String> digests = new ArrayList<>();
+        int written = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i) == null) {
+                continue;
+            }
+            if (i < placed.size() && placed.get(i) != null && written < original.outputDigests.size()) {
+                digests.add(original.outputDigests.get(written));
+            }
+            written++;
+        }
+        return List.copyOf(digests);
+    }
+
+    /**
+     * Places one output of the duplicate. A duplicate that would have the same name as the original's
+     * output simply shares it; otherwise a target is reserved and the output linked or copied there.
+     *
+     * @return the duplicate's output path, or null if the conflict policy skipped it
+     */
+    private Path place(BatchItem original, BatchItem duplicate, ConversionProfile target, Path source)
+            throws IOException {
+        Path desired = OutputNaming.resolveInDir(duplicate.input, staging.dirFor(duplicate.outputSubdir), target);
+        Path originalDesired = OutputNaming.resolveInDir(original.input, staging.dirFor(original.outputSubdir), target);
+        if (desired.equals(originalDesired)) {
+            return source;
+        }
+        Path reserved = staging.reserve(duplicate.input, duplicate.outputSubdir, target);
+        if (reserved == null) {
+            return null;
+        }
+        try {
+            linkOrCopy(source, reserved);
+            return reserved;
+        } catch (IOException e) {
+            staging.release(reserved);
+            throw e;
+        }
+    }
+
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.deleteIfExists(target);
+            Files.createLink(target, source);
+            staging.markDirty(target.getParent());
+            return;
+        } catch (UnsupportedOperationException | IOException e) {
+            LOG.debug("Hard link not possible for {}, copying: {}", target, e.getMessage());
+        }
+        Path part = staging.newPart(target);
+        try {
+            Files.copy(source, part, StandardCopyOption.REPLACE_EXISTING);
+            staging.commit(part, target);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    private record Key(String profileId, String digest) {
+    }
+
+    private static final class Group {
+        private final BatchItem representative;
+        private final List<BatchItem> duplicates = new ArrayList<>();
+        private boolean finished;
+
+        private Group(BatchItem representative) {
+            this.representative = representative;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package app.core;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds convertible files under a directory tree. Every directory is listed by its own fork/join
+ * task, so wide and deep trees are walked by all workers at once. Matches are handed to the sink in
+ * small batches as soon as they are found, from the worker threads, so the sink must be thread-safe.
+ * Symbolic links are not followed and unreadable directories are skipped with a warning.
+ */
+public final class DirectoryWalker implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectoryWalker.class);
+
+    private final Set<String> extensions;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+    private final Set<AtomicBoolean> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Walks for files that {@link ProfileRouting#DEFAULT} routes to a profile.
+     */
+    public DirectoryWalker() {
+        this(ProfileRouting.DEFAULT.extensions(), DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param extensions lower-case extensions without the dot
+     */
+    public DirectoryWalker(Set<String> extensions, int batchSize, int parallelism) {
+        this.extensions = Set.copyOf(extensions);
+        this.batchSize = Math.max(1, batchSize);
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Walks {@code root} and returns once the whole tree has been seen or the walk was canceled.
+     *
+     * @return number of matching files handed to the sink
+     */
+    public long walk(Path root, Consumer<List<Path>> sink) {
+        return walk(root, sink, new AtomicBoolean());
+    }
+
+    /**
+     * Walks {@code root} until the whole tree has been seen or {@code cancel} is set. Each walk has its
+     * own token, so a walk started later neither clears nor is stopped by an earlier cancel. A token
+     * set before the walk starts stops it at once.
+     *
+     * @return number of matching files handed to the sink
+     */
+    public long walk(Path root, Consumer<List<Path>> sink, AtomicBoolean cancel) {
+        AtomicLong found = new AtomicLong();
+        running.add(cancel);
+        try {
+            pool.invoke(new ListDirectory(root, sink, found, cancel));
+        } finally {
+            running.remove(cancel);
+        }
+        LOG.debug("Walked {}: {} matching file(s)", root, found.get());
+        return found.get();
+    }
+
+    /**
+     * Stops the walks running now; directories not listed yet are left out. Walks started afterwards
+     * are not affected.
+     */
+    public void cancel() {
+        running.forEach(token -> token.set(true));
+    }
+
+    boolean matches(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Lists one directory. Tasks never leave the pool, so their state is not meant to be serialized.
+     */
+    private final class ListDirectory extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+        private final transient Consumer<List<Path>> sink;
+        private final transient AtomicLong found;
+        private final transient AtomicBoolean cancel;
+
+        ListDirectory(Path dir, Consumer<List<Path>> sink, AtomicLong found, AtomicBoolean cancel) {
+            this.dir = dir;
+            this.sink = sink;
+            this.found = found;
+            this.cancel = cancel;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancel.get()) {
+                return;
+            }
+            List<ListDirectory> subdirs = new ArrayList<>();
+            List<Path> batch = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        ListDirectory task = new ListDirectory(entry, sink, found, cancel);
+                        task.fork();
+                        subdirs.add(task);
+                    } else if (attrs.isRegularFile() && matches(entry)) {
+                        batch.add(entry);
+                        if (batch.size() >= batchSize) {
+                            emit(batch);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                LOG.warn("Skipping unreadable directory {}: {}", dir, e.getMessage());
+            }
+            emit(batch);
+            subdirs.forEach(ListDirectory::join);
+        }
+
+        private void emit(List<Path> batch) {
+            if (!batch.isEmpty() && !cancel.get()) {
+                found.addAndGet(batch.size());
+                sink.accept(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package app.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Admits downloads into the output directory only while the volume has room for them. Each download
+ * reserves its estimated size. A download that does not fit next to the running ones, plus a fixed
+ * headroom, is put back until one of them finishes, so its worker goes on converting other items and
+ * the item is paused instead of failing on a full disk. A download that does not fit even with nothing
+ * else reserved waits too: it is retried every {@link #DEFAULT_RECHECK_MS} ms, for space freed outside
+ * the app.
+ */
+public final class DiskSpaceAdmission {
+
+    public static final long DEFAULT_HEADROOM_BYTES = 256L * 1024 * 1024;
+    public static final long DEFAULT_RECHECK_MS = 5000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiskSpaceAdmission.class);
+    private static final String WAITING = "Waiting for disk space";
+    private static final long MB = 1024 * 1024;
+    private static final ScheduledExecutorService RECHECK = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "disk-space-recheck");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongSupplier usableSpace;
+    private final long headroomBytes;
+    private final OutputSizeEstimator estimator;
+    private final List<Runnable> waiting = new ArrayList<>();
+    private long reservedBytes;
+    private long recheckMs = DEFAULT_RECHECK_MS;
+    private boolean recheckScheduled;
+
+    public DiskSpaceAdmission(Path outputDir, long headroomBytes, OutputSizeEstimator estimator) {
+        this(() -> usableSpace(outputDir), headroomBytes, estimator);
+    }
+
+    /**
+     * @param usableSpace free bytes on the output volume, read whenever a download asks for room
+     */
+    public DiskSpaceAdmission(LongSupplier usableSpace, long headroomBytes, OutputSizeEstimator estimator) {
+        this.usableSpace = usableSpace;
+        this.headroomBytes = Math.max(0, headroomBytes);
+        this.estimator = estimator;
+    }
+
+    private static long usableSpace(Path dir) {
+        try {
+            return Files.getFileStore(dir).getUsableSpace();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * How long a download that does not fit with nothing else reserved waits before it is retried.
+     */
+    public synchronized void setRecheckMs(long recheckMs) {
+        this.recheckMs = Math.max(1, recheckMs);
+    }
+
+    /**
+     * Reserves room for the outputs of {@code item} if there is some. Otherwise the item's message says
+     * it is waiting, and the caller should retry after {@link #whenRoom}.
+     *
+     * @return the reservation to close once the outputs are saved, or null if the item has to wait
+     */
+    public Reservation tryReserve(BatchItem item) {
+        long bytes = estimator.estimate(item);
+        synchronized (this) {
+            if (fits(bytes)) {
+                reservedBytes += bytes;
+                if (WAITING.equals(item.message)) {
+                    item.message = "";
+                }
+                return new Reservation(this, bytes);
+            }
+            LOG.info("Pausing download of {}: about {} MB needed, {} MB available, {} MB reserved", item.input,
+                    ceilMb(bytes), Math.max(0, usableSpace.getAsLong() - headroomBytes) / MB, reservedBytes / MB);
+            item.message = WAITING;
+            return null;
+        }
+    }
+
+    /**
+     * Runs {@code retry} once another download releases its space, or at once if space has been
+     * released since {@link #tryReserve} turned {@code item} away. With no other download holding
+     * space, only space freed outside the app can help, so {@code retry} runs after the recheck delay.
+     */
+    public void whenRoom(BatchItem item, Runnable retry) {
+        long bytes = estimator.estimate(item);
+        synchronized (this) {
+            if (!fits(bytes)) {
+                waiting.add(retry);
+                if (reservedBytes == 0 && !recheckScheduled) {
+                    recheckScheduled = true;
+                    RECHECK.schedule(this::recheck, recheckMs, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        retry.run();
+    }
+
+    /**
+     * Runs every waiting retry now, whether or not there is room; a canceled batch uses this to
+     * finish its paused items.
+     */
+    public void wakeAll() {
+        release(0);
+    }
+
+    private void recheck() {
+        synchronized (this) {
+            recheckScheduled = false;
+        }
+        release(0);
+    }
+
+    /**
+     * Bytes reserved by downloads in progress.
+     */
+    public synchronized long reservedBytes() {
+        return reservedBytes;
+    }
+
+    private boolean fits(long bytes) {
+        return usableSpace.getAsLong() - reservedBytes - headroomBytes >= bytes;
+    }
+
+    private void release(long bytes) {
+        List<Runnable> retries;
+        synchronized (this) {
+            reservedBytes -= bytes;
+            retries = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        retries.forEach(Runnable::run);
+    }
+
+    private static long ceilMb(long bytes) {
+        return (bytes + MB - 1) / MB;
+    }
+
+    /**
+     * Space held for one download until closed.
+     */
+    public static final class Reservation implements AutoCloseable {
+
+        private final DiskSpaceAdmission admission;
+        private final long bytes;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Reservation(DiskSpaceAdmission admission, long bytes) {
+            this.admission = admission;
+            this.bytes = bytes;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                admission.release(bytes);
+            }
+        }
+    }
+}
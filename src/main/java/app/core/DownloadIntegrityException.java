@@ -0,0 +1,16 @@
+package app.core;
+
+import java.io.IOException;
+
+/**
+ * A download ended with fewer bytes than announced or with content that does not match the checksum
+ * the server sent. The part file must not be committed.
+ */
+public class DownloadIntegrityException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DownloadIntegrityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package app.core;
+
+/**
+ * What a download wrote: its length and the SHA-256 of its content as lowercase hex, both taken from
+ * the stream as it arrived.
+ */
+public record DownloadResult(long bytes, String sha256) {
+}
@@ -5,6 +5,7 @@ import com.cloudconvert.dto.result.Status;
 import com.cloudconvert.exception.CloudConvertException;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -13,10 +14,38 @@ import java.util.Map;
  */
 public final class ErrorMessages {
 
+    /** Distinct messages kept for sharing; beyond this, the least recently used one is dropped. */
+    static final int MAX_SHARED = 4096;
+
+    private static final Map<String, String> SHARED = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_SHARED;
+        }
+    };
+
     private ErrorMessages() {
     }
 
+    /**
+     * The one shared instance of {@code message}, so that thousands of items failing the same way
+     * hold one string between them rather than a copy each. Messages unique to one file, such as
+     * those naming it, pass through and are soon dropped, so they never crowd out the common ones.
+     */
+    public static String shared(String message) {
+        if (message == null) {
+            return null;
+        }
+        synchronized (SHARED) {
+            return SHARED.computeIfAbsent(message, m -> m);
+        }
+    }
+
     public static String fromException(Throwable throwable) {
+        return shared(describe(throwable));
+    }
+
+    private static String describe(Throwable throwable) {
         if (throwable == null) {
             return "Unknown error";
         }
@@ -38,6 +67,25 @@ public final class ErrorMessages {
         return throwable.getClass().getSimpleName();
     }
 
+    /**
+     * HTTP status carried by the exception or one of its causes, or -1 when there is none.
+     */
+    public static int httpStatusOf(Throwable throwable) {
+        Throwable current = throwable;
+        int maxDepth = 12;
+        for (int i = 0; i < maxDepth && current != null; i++) {
+            if (current instanceof HttpStatusException httpStatusException) {
+                return httpStatusException.getStatusCode();
+            }
+            if (current instanceof CloudConvertException cloudConvertException) {
+                Status status = cloudConvertException.getStatus();
+                return status != null && status.getCode() > 0 ? status.getCode() : -1;
+            }
+            current = current.getCause();
+        }
+        return -1;
+    }
+
     static String fromCloudConvert(CloudConvertException exception) {
         List<String> details = new ArrayList<>();
         Status status = exception.getStatus();
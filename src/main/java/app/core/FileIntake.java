@@ -0,0 +1,110 @@
+package app.core;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns selected files into validated batch items off the UI thread. Files are taken in chunks;
+ * each chunk is validated in parallel and then published in one call, in selection order, so the
+ * table grows by one {@code addAll} per chunk instead of one change per file. Intakes run one after
+ * another in submission order, and {@link #cancel()} drops everything not yet published.
+ */
+public final class FileIntake implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileIntake.class);
+
+    private final int chunkSize;
+    private final ForkJoinPool validators;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "file-intake");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong generation = new AtomicLong();
+
+    public FileIntake() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors()), DEFAULT_CHUNK_SIZE);
+    }
+
+    public FileIntake(int parallelism, int chunkSize) {
+        this.validators = new ForkJoinPool(Math.max(1, parallelism));
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Creates and validates an item per file and hands them to {@code publish} a chunk at a time, on
+     * the intake thread. Invalid files are marked Skipped when {@code skipIneligible} is set.
+     *
+     * @return completes with the number of items published
+     */
+    public CompletableFuture<Integer> submit(List<Path> files, ConversionProfile profile, boolean skipIneligible,
+            Consumer<List<BatchItem>> publish) {
+        return submit(files, file -> new BatchItem(file, profile), skipIneligible, publish);
+    }
+
+    /**
+     * Like {@link #submit(List, ConversionProfile, boolean, Consumer)}, with {@code newItem} choosing
+     * each file's profile and output subdirectory.
+     */
+    public CompletableFuture<Integer> submit(List<Path> files, Function<Path, BatchItem> newItem,
+            boolean skipIneligible, Consumer<List<BatchItem>> publish) {
+        long gen = generation.get();
+        List<Path> snapshot = List.copyOf(files);
+        return CompletableFuture.supplyAsync(() -> intake(snapshot, newItem, skipIneligible, publish, gen),
+                coordinator);
+    }
+
+    private int intake(List<Path> files, Function<Path, BatchItem> newItem, boolean skipIneligible,
+            Consumer<List<BatchItem>> publish, long gen) {
+        int published = 0;
+        for (int from = 0; from < files.size() && generation.get() == gen; from += chunkSize) {
+            List<Path> slice = files.subList(from, Math.min(files.size(), from + chunkSize));
+            List<BatchItem> chunk = new ArrayList<>(slice.size());
+            for (Path file : slice) {
+                chunk.add(newItem.apply(file));
+            }
+            validators.submit(() -> chunk.parallelStream().forEach(item -> validate(item, skipIneligible))).join();
+            if (generation.get() != gen) {
+                break;
+            }
+            publish.accept(chunk);
+            published += chunk.size();
+        }
+        LOG.debug("Intake of {} file(s) published {} item(s)", files.size(), published);
+        return published;
+    }
+
+    private static void validate(BatchItem item, boolean skipIneligible) {
+        Validation.ValidationResult result = Validation.validate(item);
+        if (!result.valid() && skipIneligible) {
+            item.status = BatchItemStatus.Skipped;
+            item.message = result.message();
+        }
+    }
+
+    /**
+     * Stops every intake submitted so far from publishing further chunks.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        coordinator.shutdownNow();
+        validators.shutdownNow();
+    }
+}
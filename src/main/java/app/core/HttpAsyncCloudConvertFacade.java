@@ -0,0 +1,225 @@
+package app.core;
+
+import app.core.CloudConvertFacade.JobResult;
+import app.core.CloudConvertFacade.OutputTask;
+import app.core.CloudConvertFacade.TaskResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AsyncCloudConvertFacade} speaking the CloudConvert v2 REST API through the JDK
+ * {@link HttpClient}'s async API. Requests wait on the client's selector thread, and responses are
+ * handled on a small fixed executor, so the thread count does not grow with the number of items in
+ * flight. Uploads stream the file from disk and downloads stream into the target file. Non-2xx answers
+ * fail with {@link HttpStatusException}.
+ */
+public final class HttpAsyncCloudConvertFacade implements AsyncCloudConvertFacade {
+
+    public static final URI API_URL = URI.create("https://api.cloudconvert.com/v2");
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpAsyncCloudConvertFacade.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final HttpClient http;
+
+    /**
+     * A facade on {@link #API_URL} whose responses are handled on one pool shared by every facade made
+     * this way, so a facade per batch adds no threads.
+     */
+    public HttpAsyncCloudConvertFacade(String apiKey) {
+        this(API_URL, apiKey, SharedExecutor.INSTANCE);
+    }
+
+    /**
+     * @param apiUrl   base URL of the v2 API, e.g. {@link #API_URL}
+     * @param executor runs response handling; keep it small and non-blocking
+     */
+    public HttpAsyncCloudConvertFacade(URI apiUrl, String apiKey, Executor executor) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("API key not configured");
+        }
+        String base = apiUrl.toString();
+        this.apiUrl = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.apiKey = apiKey;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(executor)
+                .build();
+    }
+
+
+    @Override
+    public CompletableFuture<TaskResult> createUploadTaskAndUpload(Path file) {
+        return send("POST", "/import/upload", Map.of()).thenCompose(task -> {
+            Map<String, Object> form = map(map(task.get("result")).get("form"));
+            Object url = form.get("url");
+            if (!(url instanceof String formUrl) || formUrl.isBlank()) {
+                throw new IllegalStateException("Upload task " + task.get("id") + " has no upload form");
+            }
+            return upload(URI.create(formUrl), map(form.get("parameters")), file)
+                    .thenApply(v -> new TaskResult((String) task.get("id"), (String) task.get("status"),
+                            task.get("result")));
+        });
+    }
+
+    /**
+     * Sends the multipart form with the file as a streamed part, never holding the file in memory.
+     */
+    private CompletableFuture<Void> upload(URI formUrl, Map<String, ?> parameters, Path file) {
+        String boundary = StreamingUpload.newBoundary();
+        HttpRequest.BodyPublisher body;
+        try {
+            body = HttpRequest.BodyPublishers.concat(
+                    HttpRequest.BodyPublishers.ofByteArray(
+                            StreamingUpload.head(boundary, parameters, file.getFileName().toString())),
+                    HttpRequest.BodyPublishers.ofFile(file),
+                    HttpRequest.BodyPublishers.ofByteArray(StreamingUpload.tail(boundary)));
+        } catch (FileNotFoundException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(formUrl)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(body)
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenAccept(response -> {
+            if (response.statusCode() >= 400) {
+                throw new CompletionException(new HttpStatusException(response.statusCode(),
+                        "Upload failed: HTTP " + response.statusCode()));
+            }
+            LOG.debug("Uploaded {}", file.getFileName());
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) {
+        Map<String, Object> tasks = new LinkedHashMap<>();
+        for (OutputTask output : outputs) {
+            String input = uploadTaskId;
+            List<ConversionProfile> steps = output.profile().steps();
+            for (int i = 0; i < steps.size(); i++) {
+                boolean last = i == steps.size() - 1;
+                String name = last ? output.convertTaskName() : output.convertTaskName() + "-hop" + (i + 1);
+                Map<String, Object> convert = new LinkedHashMap<>(steps.get(i).convertOptions());
+                convert.put("operation", "convert");
+                convert.put("input", input);
+                convert.put("output_format", steps.get(i).outputFormat());
+                if (last && output.outputFilename() != null) {
+                    convert.put("filename", output.outputFilename());
+                }
+                tasks.put(name, convert);
+                input = name;
+            }
+            if (output.exportTaskName() != null) {
+                tasks.put(output.exportTaskName(), Map.of("operation", "export/url", "input", input));
+            }
+        }
+        return send("POST", "/jobs", Map.of("tasks", tasks)).thenApply(job -> (String) job.get("id"));
+    }
+
+    @Override
+    public CompletableFuture<JobResult> getJob(String jobId) {
+        return send("GET", "/jobs/" + jobId, null)
+                .thenApply(job -> new JobResult((String) job.get("status"), job.get("tasks")));
+    }
+
+    /**
+     * Export URLs are signed, so the API key is not sent with the download.
+     */
+    @Override
+    public CompletableFuture<Void> downloadTo(String url, Path target) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        HttpResponse.BodyHandler<Path> toFile = info -> info.statusCode() / 100 == 2
+                ? HttpResponse.BodySubscribers.ofFile(target, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                : HttpResponse.BodySubscribers.replacing(null);
+        return http.sendAsync(request, toFile).thenAccept(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new CompletionException(new HttpStatusException(response.statusCode(),
+                        "Download failed: HTTP " + response.statusCode()));
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> cancelJob(String jobId) {
+        return send("DELETE", "/jobs/" + jobId, null).thenApply(job -> null);
+    }
+
+    /**
+     * Sends one API request and completes with the {@code data} object of its answer.
+     */
+    private CompletableFuture<Map<String, Object>> send(String method, String path, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body != null
+                    ? HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body))
+                    : HttpRequest.BodyPublishers.noBody();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .method(method, publisher)
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new CompletionException(new HttpStatusException(response.statusCode(),
+                        method + " " + path + " returned " + response.statusCode()));
+            }
+            return data(response.body());
+        });
+    }
+
+    private static Map<String, Object> data(byte[] body) {
+        if (body.length == 0) {
+            return Map.of();
+        }
+        try {
+            return map(JSON.readValue(body, Map.class).get("data"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+
+    /**
+     * Created on first use only.
+     */
+    private static final class SharedExecutor {
+        static final Executor INSTANCE = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread t = new Thread(r, "cloudconvert-async");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+}
@@ -0,0 +1,22 @@
+package app.core;
+
+import java.io.IOException;
+
+/**
+ * Raised when a direct HTTP transfer (upload form, export URL) answers with an error status.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public HttpStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
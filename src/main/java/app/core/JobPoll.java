@@ -0,0 +1,129 @@
+package app.core;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for one conversion job to finish, polling its status one interval apart until it finishes,
+ * fails, runs out of time or the batch is canceled. The wait either blocks the calling thread or, with
+ * the async facade, runs on a timer and holds no thread between polls.
+ */
+final class JobPoll {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobPoll.class);
+
+    private final String jobId;
+    private final long intervalMs;
+    private final long timeoutMs;
+    private final AtomicBoolean cancelRequested;
+    private final long deadline;
+
+    JobPoll(String jobId, long intervalMs, long timeoutMs, AtomicBoolean cancelRequested) {
+        this.jobId = jobId;
+        this.intervalMs = intervalMs;
+        this.timeoutMs = timeoutMs;
+        this.cancelRequested = cancelRequested;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * Polls on the calling thread.
+     *
+     * @return the finished job, or null if the batch was canceled
+     * @throws RuntimeException if the job failed or timed out
+     */
+    CloudConvertFacade.JobResult await(CloudConvertFacade facade) throws Exception {
+        int polls = 0;
+        while (!cancelRequested.get()) {
+            CloudConvertFacade.JobResult job = settled(facade.getJob(jobId), polls++);
+            if (job != null) {
+                return job;
+            }
+            Thread.sleep(Math.min(intervalMs, remainingMs()));
+        }
+        LOG.info("Polling canceled for job {}", jobId);
+        return null;
+    }
+
+    /**
+     * Polls through {@code async}, scheduling each next poll on {@code timer}; {@code onPoll} runs before
+     * every poll. Completes like {@link #await}: with the finished job, with null if the batch was
+     * canceled, or exceptionally with the failure itself.
+     */
+    CompletableFuture<CloudConvertFacade.JobResult> awaitAsync(AsyncCloudConvertFacade async,
+            ScheduledExecutorService timer, Runnable onPoll) {
+        CompletableFuture<CloudConvertFacade.JobResult> done = new CompletableFuture<>();
+        poll(async, timer, onPoll, 0, done);
+        return done;
+    }
+
+    private void poll(AsyncCloudConvertFacade async, ScheduledExecutorService timer, Runnable onPoll, int polls,
+            CompletableFuture<CloudConvertFacade.JobResult> done) {
+        if (cancelRequested.get()) {
+            LOG.info("Polling canceled for job {}", jobId);
+            done.complete(null);
+            return;
+        }
+        onPoll.run();
+        async.getJob(jobId).whenComplete((status, error) -> {
+            try {
+                if (error != null) {
+                    done.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                    return;
+                }
+                CloudConvertFacade.JobResult job = settled(status, polls);
+                if (job != null) {
+                    done.complete(job);
+                    return;
+                }
+                timer.schedule(() -> poll(async, timer, onPoll, polls + 1, done),
+                        Math.min(intervalMs, remainingMs()), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * The job if it has finished, or null if it is still running with time left.
+     *
+     * @param polls polls made before this one
+     * @throws RuntimeException if the job failed or has run out of time
+     */
+    private CloudConvertFacade.JobResult settled(CloudConvertFacade.JobResult job, int polls) {
+        if (polls % 10 == 0) {
+            LOG.debug("Polling job {} status={} (poll {})", jobId, job.status(), polls + 1);
+        }
+        if (isStatus(job.status(), "finished")) {
+            LOG.debug("Job {} finished", jobId);
+            return job;
+        }
+        if (isStatus(job.status(), "error")) {
+            LOG.warn("Job {} failed", jobId);
+            throw new RuntimeException("Job failed");
+        }
+        if (remainingMs() <= 0) {
+            LOG.warn("Job {} timed out after {} ms and {} polls", jobId, timeoutMs, polls + 1);
+            throw new RuntimeException("Job timed out");
+        }
+        return null;
+    }
+
+    private long remainingMs() {
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    private static boolean isStatus(String actualStatus, String expectedStatus) {
+        if (actualStatus == null) {
+            return false;
+        }
+        return expectedStatus.equals(actualStatus.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,92 @@
+package app.core;
+
+import app.persistence.HistoryQuery;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates the output size of an item from its input size and the output/input ratio seen for its
+ * profile. Ratios are learned from finished items and can be seeded from the conversion history.
+ * Profiles without samples assume each output is as large as the input.
+ */
+public final class OutputSizeEstimator {
+
+    /** Margin on learned ratios, since sizes vary between files of one profile. */
+    static final double SAFETY_FACTOR = 1.25;
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutputSizeEstimator.class);
+    private static final int SEED_RECORDS = 200;
+
+    private final Map<String, Totals> totals = new ConcurrentHashMap<>();
+
+    /**
+     * Learns from one finished item; items without both sizes are ignored.
+     */
+    public void record(String profileId, long inputBytes, long outputBytes) {
+        if (inputBytes <= 0 || outputBytes < 0) {
+            return;
+        }
+        totals.computeIfAbsent(profileId, id -> new Totals()).add(inputBytes, outputBytes);
+    }
+
+    /**
+     * Learns from the latest successful conversions of each profile not sampled yet.
+     */
+    public void seed(HistoryStore history, Collection<String> profileIds) {
+        for (String profileId : profileIds) {
+            if (totals.containsKey(profileId)) {
+                continue;
+            }
+            try {
+                for (HistoryRecord r : history.query(HistoryQuery.all().withProfile(profileId).limit(SEED_RECORDS))) {
+                    if (BatchItemStatus.Done.name().equals(r.outcome())) {
+                        record(profileId, r.inputBytes(), r.outputBytes());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not read size history for {}", profileId, e);
+            }
+        }
+    }
+
+    /**
+     * Output/input size ratio for the profile, or -1 without samples.
+     */
+    public double ratio(String profileId) {
+        Totals t = totals.get(profileId);
+        return t != null ? t.ratio() : -1;
+    }
+
+    /**
+     * Expected bytes written for all outputs of {@code item}; 0 if its input size is unknown.
+     */
+    public long estimate(BatchItem item) {
+        if (item.inputBytes <= 0) {
+            return 0;
+        }
+        double ratio = ratio(item.profile.id());
+        double factor = ratio >= 0 ? ratio * SAFETY_FACTOR : item.profile.targets().size();
+        return (long) Math.ceil(item.inputBytes * factor);
+    }
+
+    private static final class Totals {
+
+        private long inputBytes;
+        private long outputBytes;
+
+        synchronized void add(long input, long output) {
+            inputBytes += input;
+            outputBytes += output;
+        }
+
+        synchronized double ratio() {
+            return (double) outputBytes / inputBytes;
+        }
+    }
+}
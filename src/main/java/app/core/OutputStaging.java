@@ -0,0 +1,261 @@
+package app.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stages downloads for one output directory so concurrent items never share a part file or a target.
+ * Targets are reserved up front in an index shared by the whole batch: two items of the same batch
+ * never get the same target, whatever the policy; the policy only decides what happens to files
+ * already on disk. Commits are atomic moves, and the directory entries they create are made durable
+ * with one fsync per directory for every group of concurrent commits.
+ */
+public final class OutputStaging {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutputStaging.class);
+
+    static final String TMP_DIR = ".tmp";
+    static final String PART_SUFFIX = ".part";
+
+    /** How long a part file must go unwritten before a sweep takes it for a leftover. */
+    public static final Duration STALE_PART_AGE = Duration.ofHours(1);
+
+    /**
+     * What to do when the target already exists on disk.
+     */
+    public enum ConflictPolicy {
+        Suffix("Keep both"),
+        Overwrite("Overwrite"),
+        Skip("Skip");
+
+        private final String displayName;
+
+        ConflictPolicy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final Path outputDir;
+    private final Path tmpDir;
+    private final ConflictPolicy policy;
+    private final Set<Path> reserved = ConcurrentHashMap.newKeySet();
+    private final Set<Path> createdDirs = ConcurrentHashMap.newKeySet();
+    private final Set<Path> unsyncedDirs = ConcurrentHashMap.newKeySet();
+    private final AtomicLong commits = new AtomicLong();
+    private final Object syncLock = new Object();
+    private long syncedThrough;
+
+    public OutputStaging(Path outputDir, ConflictPolicy policy) {
+        this.outputDir = outputDir;
+        this.tmpDir = outputDir.resolve(TMP_DIR);
+        this.policy = policy;
+    }
+
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * Reserves the output for {@code input} under {@code profile}.
+     *
+     * @return the reserved target, or null if the policy is Skip and the file already exists
+     */
+    public Path reserve(Path input, ConversionProfile profile) {
+        return reserve(input, null, profile);
+    }
+
+    /**
+     * Reserves the output for {@code input} in {@code subdir} of the output directory, creating it
+     * if needed.
+     *
+     * @return the reserved target, or null if the policy is Skip and the file already exists
+     * @throws IllegalArgumentException if {@code subdir} leads outside the output directory
+     */
+    public Path reserve(Path input, Path subdir, ConversionProfile profile) {
+        Path desired = OutputNaming.resolveInDir(input, dirFor(subdir), profile).toAbsolutePath().normalize();
+        if (policy == ConflictPolicy.Skip && Files.exists(desired)) {
+            return null;
+        }
+        if ((policy == ConflictPolicy.Overwrite || !Files.exists(desired)) && reserved.add(desired)) {
+            return desired;
+        }
+        return reserveSuffixed(desired);
+    }
+
+    /**
+     * The directory outputs in {@code subdir} go to; null means the output directory itself.
+     *
+     * @throws IllegalArgumentException if {@code subdir} leads outside the output directory
+     */
+    public Path dirFor(Path subdir) {
+        if (subdir == null) {
+            return outputDir;
+        }
+        Path root = outputDir.toAbsolutePath().normalize();
+        Path dir = root.resolve(subdir).normalize();
+        if (subdir.isAbsolute() || !dir.startsWith(root)) {
+            throw new IllegalArgumentException("Output subdirectory outside the output directory: " + subdir);
+        }
+        if (createdDirs.add(dir)) {
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                createdDirs.remove(dir);
+                throw new UncheckedIOException(e);
+            }
+        }
+        return dir;
+    }
+
+    private Path reserveSuffixed(Path desired) {
+        String name = desired.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot >= 0 ? name.substring(0, dot) : name;
+        String ext = dot >= 0 ? name.substring(dot) : "";
+        for (int n = 1;; n++) {
+            Path candidate = desired.resolveSibling(base + " (" + n + ")" + ext);
+            if (!Files.exists(candidate) && reserved.add(candidate)) {
+                LOG.debug("Output {} is taken, using {}", desired.getFileName(), candidate.getFileName());
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Gives up a reservation that will not be committed.
+     */
+    public void release(Path target) {
+        reserved.remove(target);
+    }
+
+    /**
+     * Creates an empty part file unique to this call, next to the other staged parts.
+     */
+    public Path newPart(Path target) throws IOException {
+        Files.createDirectories(tmpDir);
+        return Files.createTempFile(tmpDir, target.getFileName().toString() + ".", PART_SUFFIX);
+    }
+
+    /**
+     * Atomically moves a finished part onto its reserved target and waits until the new directory
+     * entry is durable. Concurrent commits share the directory fsync.
+     */
+    public void commit(Path part, Path target) throws IOException {
+        Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        markDirty(target.getParent());
+    }
+
+    /**
+     * Like {@link #commit} but leaves the directory sync to the next {@link #flush()}, for a caller
+     * committing many files in a row.
+     */
+    public void commitDeferred(Path part, Path target) throws IOException {
+        Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        unsyncedDirs.add(target.getParent());
+        commits.incrementAndGet();
+    }
+
+    /**
+     * Makes every commit so far durable.
+     */
+    public void flush() {
+        syncThrough(commits.get());
+    }
+
+    /**
+     * Records that a file was placed in {@code dir} by other means (e.g. a hard link) and syncs it.
+     */
+    public void markDirty(Path dir) {
+        unsyncedDirs.add(dir);
+        syncThrough(commits.incrementAndGet());
+    }
+
+    private void syncThrough(long ticket) {
+        synchronized (syncLock) {
+            if (syncedThrough >= ticket) {
+                return;
+            }
+            long upTo = commits.get();
+            List<Path> dirs = new ArrayList<>(unsyncedDirs);
+            unsyncedDirs.removeAll(dirs);
+            for (Path d : dirs) {
+                syncDirectory(d);
+            }
+            syncedThrough = upTo;
+        }
+    }
+
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms (Windows) cannot open or sync a directory; the move itself is still atomic.
+            LOG.debug("Directory sync not supported for {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes part files left behind in {@code outputDir} by a run that did not finish. A download in
+     * progress writes to its part file all the time, so only parts untouched for {@link #STALE_PART_AGE}
+     * are deleted; another run staging into the same directory keeps its own.
+     *
+     * @return number of part files removed
+     */
+    public static int sweepOrphans(Path outputDir) {
+        return sweepOrphans(outputDir, Instant.now().minus(STALE_PART_AGE));
+    }
+
+    /**
+     * Deletes part files in {@code outputDir} last modified before {@code cutoff}.
+     *
+     * @return number of part files removed
+     */
+    public static int sweepOrphans(Path outputDir, Instant cutoff) {
+        Path dir = outputDir.resolve(TMP_DIR);
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        int removed = 0;
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(dir, "*" + PART_SUFFIX)) {
+            for (Path part : parts) {
+                if (isOlder(part, cutoff) && Files.deleteIfExists(part)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not sweep orphaned parts in {}", dir, e);
+        }
+        if (removed > 0) {
+            LOG.info("Removed {} orphaned part file(s) from {}", removed, dir);
+        }
+        return removed;
+    }
+
+    private static boolean isOlder(Path part, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(part).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package app.core;
 
-import java.io.InputStream;
-import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,18 +24,95 @@ import org.slf4j.LoggerFactory;
  */
 public class PipelineWorker implements Runnable {
 
+    public static final long DEFAULT_POLL_INTERVAL_MS = 3000;
+    public static final long DEFAULT_POLL_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    static final long MIN_POLL_INTERVAL_MS = 10;
+
     private static final Logger LOG = LoggerFactory.getLogger(PipelineWorker.class);
 
     private final BatchItem item;
-    private final Path outputDir;
+    private final OutputStaging staging;
     private final CloudConvertFacade facade;
     private final AtomicBoolean cancelRequested;
+    private final ArchiveExport archive;
+    private volatile Throwable failure;
+    private volatile boolean handedOff;
+    private volatile boolean waitingForDisk;
+    private volatile boolean waitingForJob;
+    private AsyncCloudConvertFacade asyncFacade;
+    private long convertStart;
+    private volatile Throwable pollFailure;
+    private volatile CloudConvertFacade.JobResult convertedJob;
+    private List<StagedOutput> convertedOutputs;
+    private long pollIntervalMs = DEFAULT_POLL_INTERVAL_MS;
+    private long pollTimeoutMs = DEFAULT_POLL_TIMEOUT_MS;
+    private DiskSpaceAdmission admission;
+    private Throttle uploadThrottle = Throttle.NONE;
+    private Throttle downloadThrottle = Throttle.NONE;
 
+    /**
+     * Worker with its own staging that overwrites existing outputs, for use outside a batch.
+     */
     public PipelineWorker(BatchItem item, Path outputDir, CloudConvertFacade facade, AtomicBoolean cancelRequested) {
+        this(item, new OutputStaging(outputDir, OutputStaging.ConflictPolicy.Overwrite), facade, cancelRequested);
+    }
+
+    public PipelineWorker(BatchItem item, OutputStaging staging, CloudConvertFacade facade,
+            AtomicBoolean cancelRequested) {
+        this(item, staging, facade, cancelRequested, null);
+    }
+
+    /**
+     * With a non-null {@code archive}, outputs are not exported per file: once converted, the item is
+     * handed over to the archive, which finishes it.
+     */
+    public PipelineWorker(BatchItem item, OutputStaging staging, CloudConvertFacade facade,
+            AtomicBoolean cancelRequested, ArchiveExport archive) {
         this.item = item;
-        this.outputDir = outputDir;
-        this.facade = facade;
+        this.staging = staging;
+        item.apiCalls = new ApiCallCounts();
+        this.facade = new CountingFacade(facade, item.apiCalls);
         this.cancelRequested = cancelRequested;
+        this.archive = archive;
+    }
+
+    /**
+     * How long to wait between job status polls, at least {@value #MIN_POLL_INTERVAL_MS} ms; set
+     * before {@link #run()}.
+     */
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = Math.max(MIN_POLL_INTERVAL_MS, pollIntervalMs);
+    }
+
+    /**
+     * How long a job may take to finish, whatever the poll interval; set before {@link #run()}.
+     */
+    public void setPollTimeoutMs(long pollTimeoutMs) {
+        this.pollTimeoutMs = Math.max(0, pollTimeoutMs);
+    }
+
+    /**
+     * When set, downloads only start while the output volume has room for them; set before
+     * {@link #run()}. A worker turned away returns with {@link #isWaitingForDisk()} set.
+     */
+    public void setAdmission(DiskSpaceAdmission admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * When set, jobs are polled through {@code async} without holding a thread; set before {@link #run()}.
+     * The worker then returns once its job is created, with {@link #isWaitingForJob()} set.
+     */
+    public void setAsyncFacade(AsyncCloudConvertFacade async) {
+        this.asyncFacade = async;
+    }
+
+    /**
+     * When set, uploads and downloads are paced by {@code bandwidth}; set before {@link #run()}.
+     */
+    public void setBandwidth(BandwidthShaper bandwidth) {
+        uploadThrottle = bandwidth != null ? bandwidth.upload() : Throttle.NONE;
+        downloadThrottle = bandwidth != null ? bandwidth.download() : Throttle.NONE;
     }
 
     @Override
@@ -37,135 +120,368 @@ public class PipelineWorker implements Runnable {
         LOG.debug("Worker started for {}", item.input);
         Validation.ValidationResult result = Validation.validate(item);
         if (!result.valid()) {
-            item.status = BatchItemStatus.Failed.name();
+            item.status = BatchItemStatus.Failed;
             item.message = result.message();
             LOG.warn("Validation failed for {}: {}", item.input, result.message());
             return;
         }
         if (cancelRequested.get()) {
-            item.status = BatchItemStatus.Canceled.name();
+            item.status = BatchItemStatus.Canceled;
             LOG.debug("Worker canceled before upload for {}", item.input);
             return;
         }
-        item.status = BatchItemStatus.Uploading.name();
+        item.status = BatchItemStatus.Uploading;
         try {
             executeConversion();
+        } catch (InterruptedException e) {
+            interrupted();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Carries on with a worker that was waiting for its job, once {@link #pollJob} has completed, or for
+     * disk space, once there may be room. The worker can be turned away for disk space again.
+     */
+    public void resume() {
+        boolean converted = !waitingForJob;
+        waitingForJob = false;
+        waitingForDisk = false;
+        try {
+            if (cancelRequested.get()) {
+                item.status = BatchItemStatus.Canceled;
+                item.message = "";
+                LOG.debug("Worker canceled while waiting for {}", converted ? "disk space" : "its job");
+                return;
+            }
+            if (converted) {
+                download(convertedJob, convertedOutputs);
+            } else if (pollFailure != null) {
+                throw pollFailure instanceof Exception e ? e : new RuntimeException(pollFailure);
+            } else {
+                finishConversion(convertedJob, convertStart, convertedOutputs);
+            }
+        } catch (InterruptedException e) {
+            interrupted();
         } catch (Exception e) {
-            item.status = BatchItemStatus.Failed.name();
-            item.message = ErrorMessages.fromException(e);
-            LOG.error("Worker failed for {}: {}", item.input, item.message, e);
+            fail(e);
+        } finally {
+            releaseUnfinished(convertedOutputs);
         }
     }
 
+    /**
+     * A worker interrupted by a shutdown or cancel cancels its item and keeps the interrupt for its caller.
+     */
+    private void interrupted() {
+        Thread.currentThread().interrupt();
+        item.status = BatchItemStatus.Canceled;
+        item.message = "";
+        LOG.debug("Worker interrupted for {}", item.input);
+    }
+
+    private void fail(Exception e) {
+        failure = e;
+        item.status = BatchItemStatus.Failed;
+        item.message = ErrorMessages.fromException(e);
+        LOG.error("Worker failed for {}: {}", item.input, item.message, e);
+    }
+
+    /**
+     * The exception that failed this item, or null if it did not fail with one.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * True if the item was converted but its download had no room on the output volume yet. The item
+     * is not finished; call {@link #resume()} once {@link DiskSpaceAdmission#whenRoom} says so.
+     */
+    public boolean isWaitingForDisk() {
+        return waitingForDisk;
+    }
+
+    /**
+     * True if the job was created and is to be polled by {@link #pollJob}; then call {@link #resume()}.
+     */
+    public boolean isWaitingForJob() {
+        return waitingForJob;
+    }
+
+    /**
+     * Polls the job through the async facade, scheduling each poll on {@code timer}. Completes, never
+     * exceptionally, once the job has finished, failed or timed out, or the batch was canceled.
+     */
+    public CompletableFuture<Void> pollJob(ScheduledExecutorService timer) {
+        return jobPoll().awaitAsync(asyncFacade, timer, () -> item.apiCalls.increment(ApiCall.PollJob))
+                .handle((job, error) -> {
+                    convertedJob = job;
+                    pollFailure = error;
+                    return null;
+                });
+    }
+
+    /**
+     * True if the item was converted and handed over to the archive export to be finished there.
+     */
+    public boolean isHandedOff() {
+        return handedOff;
+    }
+
+    /**
+     * Reserves every output before anything is uploaded, so a skipped output costs no conversion.
+     * Reservations of an item that does not finish are released again.
+     */
     private void executeConversion() throws Exception {
+        List<StagedOutput> outputs = reserveOutputs();
+        item.targetOutputs = byTarget(outputs);
+        if (outputs.isEmpty()) {
+            item.status = BatchItemStatus.Skipped;
+            item.message = "Output already exists";
+            LOG.debug("Skipping {}: output already exists", item.input);
+            return;
+        }
+        try {
+            convertAndSave(outputs);
+        } finally {
+            releaseUnfinished(outputs);
+        }
+    }
+
+    private void releaseUnfinished(List<StagedOutput> outputs) {
+        if (!handedOff && !waitingForDisk && !waitingForJob && item.status != BatchItemStatus.Done) {
+            outputs.forEach(output -> staging.release(output.target()));
+        }
+    }
+
+    private void convertAndSave(List<StagedOutput> outputs) throws Exception {
         LOG.debug("Creating upload task for {}", item.input);
-        CloudConvertFacade.TaskResult uploadResult = facade.createUploadTaskAndUpload(item.input);
-        item.uploadTaskId = uploadResult.taskId();
-        LOG.debug("Upload task created: taskId={}", item.uploadTaskId);
+        long start = System.nanoTime();
+        CloudConvertFacade.TaskResult uploadResult = facade.createUploadTaskAndUpload(item.input, uploadThrottle);
+        item.uploadMs = elapsedMs(start);
+        LOG.debug("Upload task created: taskId={}", uploadResult.taskId());
         if (cancelRequested.get()) {
-            item.status = BatchItemStatus.Canceled.name();
+            item.status = BatchItemStatus.Canceled;
             LOG.debug("Worker canceled after upload for {}", item.input);
             return;
         }
-        String convertName = "convert-" + java.util.UUID.randomUUID();
-        String exportName = "export-" + java.util.UUID.randomUUID();
-        String jobId = facade.createJobForFile(uploadResult.taskId(), convertName, exportName, item.profile);
+        start = System.nanoTime();
+        String jobId = createJob(uploadResult.taskId(), outputs.stream().map(StagedOutput::task).toList());
         item.jobId = jobId;
         LOG.debug("Conversion job created: jobId={}", item.jobId);
-        item.status = BatchItemStatus.Converting.name();
-        String exportTaskId = pollUntilComplete(jobId, exportName);
+        item.status = BatchItemStatus.Converting;
+        if (asyncFacade != null) {
+            convertStart = start;
+            convertedOutputs = outputs;
+            waitingForJob = true;
+            return;
+        }
+        finishConversion(jobPoll().await(facade), start, outputs);
+    }
+
+    /**
+     * Downloads the outputs of a finished job, or hands them over to the archive export, unless the
+     * batch was canceled meanwhile.
+     */
+    private void finishConversion(CloudConvertFacade.JobResult job, long start, List<StagedOutput> outputs)
+            throws Exception {
+        item.convertMs = elapsedMs(start);
         if (cancelRequested.get()) {
-            item.status = BatchItemStatus.Canceled.name();
+            item.status = BatchItemStatus.Canceled;
             LOG.debug("Worker canceled during conversion for {}", item.input);
             return;
         }
-        item.status = BatchItemStatus.Downloading.name();
-        String url = getExportUrl(exportTaskId);
-        Path outputPath = OutputNaming.resolveInDir(item.input, outputDir, item.profile);
-        Path tmpDir = outputDir.resolve(".tmp");
-        Files.createDirectories(tmpDir);
-        String baseName = item.input.getFileName().toString();
-        int dot = baseName.lastIndexOf('.');
-        String nameWithoutExt = dot >= 0 ? baseName.substring(0, dot) : baseName;
-        Path partFile = tmpDir.resolve(nameWithoutExt + ".part");
-        try (InputStream in = facade.download(url)) {
-            Files.copy(in, partFile, StandardCopyOption.REPLACE_EXISTING);
-        }
-        item.status = BatchItemStatus.Saving.name();
-        Files.move(partFile, outputPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
-        item.outputPath = outputPath;
-        item.status = BatchItemStatus.Done.name();
+        item.status = BatchItemStatus.Downloading;
+        if (archive != null) {
+            handOver(job, outputs);
+            return;
+        }
+        download(job, outputs);
+    }
+
+    private void download(CloudConvertFacade.JobResult job, List<StagedOutput> outputs) throws Exception {
+        DiskSpaceAdmission.Reservation reservation = null;
+        if (admission != null) {
+            reservation = admission.tryReserve(item);
+            if (reservation == null) {
+                convertedJob = job;
+                convertedOutputs = outputs;
+                waitingForDisk = true;
+                return;
+            }
+        }
+        try {
+            saveOutputs(job, outputs);
+        } finally {
+            if (reservation != null) {
+                reservation.close();
+            }
+        }
+    }
+
+    private void saveOutputs(CloudConvertFacade.JobResult job, List<StagedOutput> outputs) throws Exception {
+        long start = System.nanoTime();
+        List<Downloaded> parts = downloadAll(job, outputs);
+        item.status = BatchItemStatus.Saving;
+        List<Path> outputPaths = new ArrayList<>(parts.size());
+        List<String> outputDigests = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            Path target = outputs.get(i).target();
+            staging.commit(parts.get(i).part(), target);
+            outputPaths.add(target);
+            outputDigests.add(parts.get(i).result().sha256());
+        }
+        item.downloadMs = elapsedMs(start);
+        item.outputPaths = List.copyOf(outputPaths);
+        item.outputDigests = List.copyOf(outputDigests);
+        item.outputPath = outputPaths.get(0);
+        item.status = BatchItemStatus.Done;
         item.progress = 1.0;
-        LOG.debug("Worker completed for {} -> {}", item.input, item.outputPath);
+        LOG.debug("Worker completed for {} -> {}", item.input, item.outputPaths);
     }
 
-    private String pollUntilComplete(String jobId, String exportTaskName) throws Exception {
-        int maxPolls = 600;
-        for (int i = 0; i < maxPolls && !cancelRequested.get(); i++) {
-            CloudConvertFacade.JobResult job = facade.getJob(jobId);
-            if (i % 10 == 0) {
-                LOG.debug("Polling job {} status={} (poll {}/{})",
-                        jobId, job.status(), i + 1, maxPolls);
+    private List<StagedOutput> reserveOutputs() {
+        List<StagedOutput> outputs = new ArrayList<>();
+        for (ConversionProfile target : item.profile.targets()) {
+            Path reserved = staging.reserve(item.input, item.outputSubdir, target);
+            if (reserved == null) {
+                continue;
             }
-            if (isStatus(job.status(), "finished")) {
-                LOG.debug("Job {} finished", jobId);
-                String exportTaskId = findExportTaskId(job, exportTaskName);
-                if (exportTaskId == null || exportTaskId.isBlank()) {
-                    throw new RuntimeException("Export task not found in finished job");
-                }
-                return exportTaskId;
+            String convertName = "convert-" + UUID.randomUUID();
+            CloudConvertFacade.OutputTask task = archive != null
+                    ? new CloudConvertFacade.OutputTask(convertName, null, target, archive.entryName(target))
+                    : new CloudConvertFacade.OutputTask(convertName, "export-" + UUID.randomUUID(), target);
+            outputs.add(new StagedOutput(task, reserved));
+        }
+        return outputs;
+    }
+
+    /**
+     * The reserved outputs spread over the profile's targets, with null where a target was skipped.
+     */
+    private List<Path> byTarget(List<StagedOutput> outputs) {
+        List<ConversionProfile> targets = item.profile.targets();
+        Path[] paths = new Path[targets.size()];
+        int next = 0;
+        for (int i = 0; i < targets.size() && next < outputs.size(); i++) {
+            if (outputs.get(next).task().profile() == targets.get(i)) {
+                paths[i] = outputs.get(next++).target();
             }
-            if (isStatus(job.status(), "error")) {
-                LOG.warn("Job {} failed", jobId);
-                throw new RuntimeException("Job failed");
+        }
+        return Collections.unmodifiableList(Arrays.asList(paths));
+    }
+
+    private String createJob(String uploadTaskId, List<CloudConvertFacade.OutputTask> outputs) throws Exception {
+        if (outputs.size() == 1 && archive == null) {
+            CloudConvertFacade.OutputTask output = outputs.get(0);
+            return facade.createJobForFile(uploadTaskId, output.convertTaskName(), output.exportTaskName(),
+                    output.profile());
+        }
+        return facade.createMultiOutputJob(uploadTaskId, outputs);
+    }
+
+    private void handOver(CloudConvertFacade.JobResult job, List<StagedOutput> outputs) {
+        List<ArchiveExport.Output> converted = new ArrayList<>(outputs.size());
+        for (StagedOutput output : outputs) {
+            Object task = TaskFields.findTask(job.tasks(), output.task().convertTaskName(), false);
+            String taskId = TaskFields.readString(task, "id");
+            if (taskId == null || taskId.isBlank()) {
+                throw new RuntimeException("Convert task not found in finished job");
             }
-            Thread.sleep(3000);
+            converted.add(new ArchiveExport.Output(output.task().outputFilename(), taskId, output.target()));
         }
-        if (cancelRequested.get()) {
-            LOG.info("Polling canceled for job {}", jobId);
-            return null;
-        }
-        LOG.warn("Job {} timed out after {} polls", jobId, maxPolls);
-        throw new RuntimeException("Job timed out");
-    }
-
-    private boolean isStatus(String actualStatus, String expectedStatus) {
-        if (actualStatus == null) {
-            return false;
-        }
-        return expectedStatus.equals(actualStatus.toLowerCase(Locale.ROOT));
-    }
-
-    private String findExportTaskId(CloudConvertFacade.JobResult job, String exportTaskName) {
-        Object tasks = job.tasks();
-        if (tasks instanceof List) {
-            String exportByOperation = null;
-            for (Object t : (List<?>) tasks) {
-                String id = readTaskField(t, "id");
-                String name = readTaskField(t, "name");
-                if (id == null || id.isBlank()) {
-                    continue;
-                }
-                if (exportTaskName.equals(name)) {
-                    return id;
-                }
-                String operation = readTaskField(t, "operation");
-                if (isStatus(operation, "export/url")) {
-                    exportByOperation = id;
-                }
+        item.message = "Waiting for archive";
+        handedOff = true;
+        archive.add(item, converted);
+    }
+
+    /**
+     * Downloads every output of the finished job to its own part file, concurrently when there are
+     * several. Each is verified as it streams in, so on failure, a truncated or corrupted one included,
+     * no part files are left behind and nothing is committed.
+     */
+    private List<Downloaded> downloadAll(CloudConvertFacade.JobResult job, List<StagedOutput> outputs) throws Exception {
+        List<Export> exports = exports(job, outputs);
+        List<Path> parts = new ArrayList<>(outputs.size());
+        ExecutorService pool = outputs.size() > 1 ? Executors.newFixedThreadPool(outputs.size()) : null;
+        try {
+            for (StagedOutput output : outputs) {
+                parts.add(staging.newPart(output.target()));
+            }
+            if (pool == null) {
+                return List.of(downloadOutput(exports.get(0), parts.get(0)));
+            }
+            List<Future<Downloaded>> downloads = new ArrayList<>(outputs.size());
+            for (int i = 0; i < outputs.size(); i++) {
+                Export export = exports.get(i);
+                Path part = parts.get(i);
+                downloads.add(pool.submit(() -> downloadOutput(export, part)));
+            }
+            return awaitAll(downloads);
+        } catch (Exception e) {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+            throw e;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
             }
-            return exportByOperation;
         }
-        return null;
     }
 
-    private String readTaskField(Object task, String key) {
-        return readStringField(task, key);
+    /**
+     * The export task of every output, with its file URL when the finished job already carries it.
+     */
+    private List<Export> exports(CloudConvertFacade.JobResult job, List<StagedOutput> outputs) {
+        List<Export> exports = new ArrayList<>(outputs.size());
+        for (StagedOutput output : outputs) {
+            Object task = TaskFields.findTask(job.tasks(), output.task().exportTaskName(), outputs.size() == 1);
+            String exportTaskId = TaskFields.readString(task, "id");
+            if (exportTaskId == null || exportTaskId.isBlank()) {
+                throw new RuntimeException("Export task not found in finished job");
+            }
+            exports.add(new Export(exportTaskId, TaskFields.firstFileUrl(TaskFields.readField(task, "result"))));
+        }
+        return exports;
+    }
+
+    private static List<Downloaded> awaitAll(List<Future<Downloaded>> downloads) throws Exception {
+        List<Downloaded> parts = new ArrayList<>(downloads.size());
+        for (Future<Downloaded> download : downloads) {
+            try {
+                parts.add(download.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        return parts;
     }
 
+    private Downloaded downloadOutput(Export export, Path partFile) throws Exception {
+        String url = export.url() != null && !export.url().isBlank() ? export.url() : getExportUrl(export.taskId());
+        return new Downloaded(partFile, facade.downloadTo(url, partFile, downloadThrottle));
+    }
+
+    private JobPoll jobPoll() {
+        return new JobPoll(item.jobId, pollIntervalMs, pollTimeoutMs, cancelRequested);
+    }
+
+    private static int elapsedMs(long startNanos) {
+        return (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Fetches the export task for its URL, for job payloads that do not include task results.
+     */
     private String getExportUrl(String exportTaskId) throws Exception {
         CloudConvertFacade.TaskResult task = facade.getTask(item.jobId, exportTaskId);
-        String url = extractFirstExportUrl(task.output());
+        String url = TaskFields.firstFileUrl(task.output());
         if (url != null && !url.isBlank()) {
             LOG.debug("Resolved export URL for job {}", item.jobId);
             return url;
@@ -173,41 +489,12 @@ public class PipelineWorker implements Runnable {
         throw new RuntimeException("No export URL in task result");
     }
 
-    private String extractFirstExportUrl(Object taskOutput) {
-        Object files = readField(taskOutput, "files");
-        if (files instanceof List) {
-            for (Object file : (List<?>) files) {
-                String url = readStringField(file, "url");
-                if (url != null && !url.isBlank()) {
-                    return url;
-                }
-            }
-        }
-        return null;
+    private record StagedOutput(CloudConvertFacade.OutputTask task, Path target) {
     }
 
-    @SuppressWarnings("unchecked")
-    private Object readField(Object source, String key) {
-        if (source == null || key == null || key.isBlank()) {
-            return null;
-        }
-        if (source instanceof Map) {
-            return ((Map<String, Object>) source).get(key);
-        }
-        try {
-            String methodName = "get" + Character.toUpperCase(key.charAt(0)) + key.substring(1);
-            Method method = source.getClass().getDeclaredMethod(methodName);
-            method.setAccessible(true);
-            return method.invoke(source);
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception ignored) {
-            return null;
-        }
+    private record Export(String taskId, String url) {
     }
 
-    private String readStringField(Object source, String key) {
-        Object value = readField(source, key);
-        return value != null ? value.toString() : null;
+    private record Downloaded(Path part, DownloadResult result) {
     }
 }
@@ -0,0 +1,109 @@
+package app.core;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index from file extension to the profile a file of that type gets by default, built once
+ * from a profile list. Extensions are compared lower-case without the dot, and aliases such as
+ * {@code jpeg} map onto the format profiles declare ({@code jpg}). The default for a format is the
+ * first profile in the list that takes it, so a batch can mix documents, images and video and each
+ * item is routed with one map lookup.
+ */
+public final class ProfileRouting {
+
+    /** Routing over {@link Profiles#all()}. */
+    public static final ProfileRouting DEFAULT = of(Profiles.all(), Map.of("jpeg", "jpg"));
+
+    private final Map<String, ConversionProfile> byFormat;
+    private final Map<String, String> aliases;
+
+    private ProfileRouting(Map<String, ConversionProfile> byFormat, Map<String, String> aliases) {
+        this.byFormat = byFormat;
+        this.aliases = aliases;
+    }
+
+    /**
+     * @param aliases extension to the format it stands for, both lower-case without the dot
+     */
+    public static ProfileRouting of(List<ConversionProfile> profiles, Map<String, String> aliases) {
+        Map<String, ConversionProfile> byFormat = new LinkedHashMap<>();
+        for (ConversionProfile profile : profiles) {
+            String format = profile.inputFormat();
+            if (format != null && !format.isBlank()) {
+                byFormat.putIfAbsent(format.toLowerCase(Locale.ROOT), profile);
+            }
+        }
+        return new ProfileRouting(Map.copyOf(byFormat), Map.copyOf(aliases));
+    }
+
+    /**
+     * The format a file is treated as: its extension, lower-case, with aliases resolved; "" if it has
+     * none.
+     */
+    public String formatOf(Path file) {
+        Path name = file.getFileName();
+        if (name == null) {
+            return "";
+        }
+        String s = name.toString();
+        int dot = s.lastIndexOf('.');
+        if (dot < 0) {
+            return "";
+        }
+        String ext = s.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return aliases.getOrDefault(ext, ext);
+    }
+
+    /**
+     * Whether some profile takes files of this format.
+     */
+    public boolean isSupported(String format) {
+        return byFormat.containsKey(format);
+    }
+
+    /**
+     * Whether {@code profile} takes files of this format.
+     */
+    public boolean accepts(ConversionProfile profile, String format) {
+        return profile != null && format.equals(profile.inputFormat());
+    }
+
+    /**
+     * The default profile for files of this format, or null if none takes it.
+     */
+    public ConversionProfile defaultFor(String format) {
+        return byFormat.get(format);
+    }
+
+    /**
+     * The profile for {@code file}: {@code preferred} if it takes the file, otherwise the default for
+     * the file's format, otherwise {@code preferred} (which validation will then reject).
+     */
+    public ConversionProfile route(Path file, ConversionProfile preferred) {
+        String format = formatOf(file);
+        if (accepts(preferred, format)) {
+            return preferred;
+        }
+        ConversionProfile routed = byFormat.get(format);
+        return routed != null ? routed : preferred;
+    }
+
+    /**
+     * Every extension that routes to a profile, aliases included.
+     */
+    public Set<String> extensions() {
+        Set<String> extensions = new LinkedHashSet<>(byFormat.keySet());
+        aliases.forEach((alias, format) -> {
+            if (byFormat.containsKey(format)) {
+                extensions.add(alias);
+            }
+        });
+        return Set.copyOf(extensions);
+    }
+}
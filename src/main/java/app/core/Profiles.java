@@ -1,7 +1,9 @@
 package app.core;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Predefined conversion profiles for MVP.
@@ -123,6 +125,69 @@ public final class Profiles {
             Map.of()
     );
 
+    public static final ConversionProfile DOC_TO_PDF_TO_DOCX = chain(
+            "doc-pdf-docx",
+            "DOC → PDF → DOCX",
+            DOC_TO_PDF,
+            PDF_TO_DOCX
+    );
+
+    public static final ConversionProfile MOD_TO_MOV_TO_MP4 = chain(
+            "mod-mov-mp4",
+            "MOD → MOV → MP4",
+            MOD_TO_MOV,
+            MOV_TO_MP4
+    );
+
+    public static final ConversionProfile MP4_TO_MP3_AND_MOV = multiOutput(
+            "mp4-mp3-mov",
+            "MP4 → MP3 + MOV",
+            MP4_TO_MP3,
+            MP4_TO_MOV
+    );
+
+    /**
+     * Builds a profile that uploads once and converts to every given output in the same job.
+     *
+     * @throws IllegalArgumentException if the outputs do not share an input format or are multi-output themselves
+     */
+    public static ConversionProfile multiOutput(String id, String displayName, ConversionProfile... outputs) {
+        if (outputs.length < 2) {
+            throw new IllegalArgumentException("A multi-output profile needs at least two outputs");
+        }
+        String inputFormat = outputs[0].inputFormat();
+        for (ConversionProfile output : outputs) {
+            if (output.isMultiOutput() || !output.inputFormat().equals(inputFormat)) {
+                throw new IllegalArgumentException("Output " + output.id() + " cannot be combined into " + id);
+            }
+        }
+        String outputFormat = Arrays.stream(outputs)
+                .map(ConversionProfile::outputFormat)
+                .collect(Collectors.joining("+"));
+        return new ConversionProfile(id, displayName, inputFormat, outputFormat, Map.of(), List.of(outputs), List.of());
+    }
+
+    /**
+     * Builds a profile that runs the given profiles one after another within a single job.
+     * Chained hops are flattened into this chain.
+     *
+     * @throws IllegalArgumentException if a hop's input format is not the previous hop's output format
+     */
+    public static ConversionProfile chain(String id, String displayName, ConversionProfile... hops) {
+        if (hops.length < 2) {
+            throw new IllegalArgumentException("A chained profile needs at least two hops");
+        }
+        List<ConversionProfile> steps = Arrays.stream(hops).flatMap(hop -> hop.steps().stream()).toList();
+        ConversionProfile chained = new ConversionProfile(id, displayName, steps.get(0).inputFormat(),
+                steps.get(steps.size() - 1).outputFormat(), Map.of(), List.of(), steps);
+        if (!chained.isChainConsistent()) {
+            throw new IllegalArgumentException("Hops of " + id + " do not connect: " + steps.stream()
+                    .map(hop -> hop.inputFormat() + "→" + hop.outputFormat())
+                    .collect(Collectors.joining(", ")));
+        }
+        return chained;
+    }
+
     public static List<ConversionProfile> all() {
         return List.of(
                 MOD_TO_MOV,
@@ -138,7 +203,10 @@ public final class Profiles {
                 MOV_TO_MP4,
                 MP4_TO_MOV,
                 MP4_TO_MP3,
-                WAV_TO_MP3
+                MP4_TO_MP3_AND_MOV,
+                WAV_TO_MP3,
+                DOC_TO_PDF_TO_DOCX,
+                MOD_TO_MOV_TO_MP4
         );
     }
 }
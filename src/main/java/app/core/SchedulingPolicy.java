@@ -0,0 +1,91 @@
+package app.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Order in which a batch's items are handed to workers. Sizes come from preflight validation
+ * ({@link BatchItem#inputBytes}); items that were never validated sort as size 0.
+ */
+public enum SchedulingPolicy {
+    /** Submit in table order. */
+    TableOrder("Table order"),
+    /** Longest-processing-time first: large inputs start early so they do not set the makespan. */
+    LargestFirst("Largest first"),
+    /** Small inputs first for fast feedback. */
+    ShortestFirst("Smallest first"),
+    /** Alternate conversion-heavy and upload-heavy items, each largest first. */
+    Interleaved("Interleaved");
+
+    private static final Set<String> TRANSCODE_OUTPUTS = Set.of("mov", "mp4");
+    private static final Comparator<BatchItem> BY_SIZE = Comparator.comparingLong(SchedulingPolicy::sizeOf);
+
+    private final String displayName;
+
+    SchedulingPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    public List<BatchItem> order(List<BatchItem> items) {
+        List<BatchItem> ordered = new ArrayList<>(items);
+        switch (this) {
+            case LargestFirst -> ordered.sort(BY_SIZE.reversed());
+            case ShortestFirst -> ordered.sort(BY_SIZE);
+            case Interleaved -> ordered = interleave(ordered);
+            default -> {
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    /**
+     * Video transcodes and office renders keep the converter busy for long relative to their
+     * upload; image and audio re-encodes are dominated by transfer time.
+     */
+    static boolean isConversionHeavy(ConversionProfile profile) {
+        for (ConversionProfile target : profile.targets()) {
+            for (ConversionProfile step : target.steps()) {
+                if (TRANSCODE_OUTPUTS.contains(step.outputFormat()) || step.convertOptions().containsKey("engine")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<BatchItem> interleave(List<BatchItem> items) {
+        List<BatchItem> conversionHeavy = new ArrayList<>();
+        List<BatchItem> uploadHeavy = new ArrayList<>();
+        for (BatchItem item : items) {
+            (isConversionHeavy(item.profile) ? conversionHeavy : uploadHeavy).add(item);
+        }
+        conversionHeavy.sort(BY_SIZE.reversed());
+        uploadHeavy.sort(BY_SIZE.reversed());
+        List<BatchItem> result = new ArrayList<>(items.size());
+        int max = Math.max(conversionHeavy.size(), uploadHeavy.size());
+        for (int i = 0; i < max; i++) {
+            if (i < conversionHeavy.size()) {
+                result.add(conversionHeavy.get(i));
+            }
+            if (i < uploadHeavy.size()) {
+                result.add(uploadHeavy.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static long sizeOf(BatchItem item) {
+        return Math.max(0, item.inputBytes);
+    }
+}
@@ -0,0 +1,259 @@
+package app.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads a file over several HTTP range requests in parallel, so per-connection throttling on the
+ * export host does not cap throughput. The first request asks for a probe range, which reveals the
+ * total size and whether ranges are honoured at all; a server that answers it with the whole body
+ * is simply streamed. The part file is pre-sized and every range lands at its own offset with
+ * positional {@link FileChannel} writes, so connections never coordinate beyond taking the next segment.
+ */
+public final class SegmentedDownload {
+
+    public static final int PROBE_BYTES = 1024 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentedDownload.class);
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final long BYTES_PER_CONNECTION = 4L * 1024 * 1024;
+    private static final int MAX_PARALLELISM = 8;
+    private static final int SEGMENTS_PER_CONNECTION = 4;
+    private static final long MIN_SEGMENT_BYTES = 1024 * 1024;
+    private static final long MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+    private static final int CONNECT_TIMEOUT_MS = 30_000;
+    private static final int READ_TIMEOUT_MS = 120_000;
+
+    private SegmentedDownload() {
+    }
+
+    /**
+     * How a download of a given size is split: connections grow with size up to a cap, and each
+     * connection gets several segments so a fast connection takes over work from slow ones.
+     */
+    public record Plan(int parallelism, long segmentBytes) {
+    }
+
+    public static Plan plan(long remainingBytes) {
+        int parallelism = (int) Math.max(1, Math.min(MAX_PARALLELISM, remainingBytes / BYTES_PER_CONNECTION));
+        long segment = ceilDiv(remainingBytes, (long) parallelism * SEGMENTS_PER_CONNECTION);
+        return new Plan(parallelism, Math.max(MIN_SEGMENT_BYTES, Math.min(MAX_SEGMENT_BYTES, segment)));
+    }
+
+    /**
+     * Downloads {@code url} into {@code target}, replacing its contents.
+     *
+     * @return number of bytes written
+     */
+    public static long download(URI url, Path target) throws IOException {
+        return download(url, target, Throttle.NONE).bytes();
+    }
+
+    /**
+     * Like {@link #download(URI, Path)}, reading from all connections together only as fast as
+     * {@code throttle} allows. The content is hashed as it is written, and the download fails with
+     * {@link DownloadIntegrityException} if it is shorter than announced or does not match a SHA-256
+     * the server sent along, so a bad file never needs to be read again to be caught.
+     */
+    public static DownloadResult download(URI url, Path target, Throttle throttle) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            StreamingDigest digest = new StreamingDigest(channel);
+            HttpURLConnection probe = open(url, 0, PROBE_BYTES - 1);
+            long total;
+            byte[] announced;
+            try {
+                int status = probe.getResponseCode();
+                announced = ServerChecksum.sha256(probe::getHeaderField);
+                if (status == HttpURLConnection.HTTP_OK) {
+                    LOG.debug("Ranges not supported by export host, streaming in one request");
+                    total = copy(probe, channel, 0, probe.getContentLengthLong(), throttle, digest);
+                } else if (status == RANGE_NOT_SATISFIABLE) {
+                    total = 0;
+                } else {
+                    ContentRange range = contentRange(probe, status);
+                    total = range.total();
+                    channel.write(ByteBuffer.allocate(1), total - 1);
+                    copy(probe, channel, 0, range.end() + 1, throttle, digest);
+                }
+            } finally {
+                probe.disconnect();
+            }
+            if (digest.hashedBytes() < total) {
+                fetchRemaining(url, channel, digest.hashedBytes(), total, throttle, digest);
+            }
+            return verify(digest, total, announced);
+        }
+    }
+
+    private static DownloadResult verify(StreamingDigest digest, long total, byte[] announced)
+            throws DownloadIntegrityException {
+        if (digest.hashedBytes() != total) {
+            throw new DownloadIntegrityException("Download incomplete: " + digest.hashedBytes() + " of " + total
+                    + " bytes");
+        }
+        byte[] actual = digest.digest();
+        if (announced != null && !MessageDigest.isEqual(announced, actual)) {
+            throw new DownloadIntegrityException("Download corrupted: SHA-256 " + StreamingDigest.hex(actual)
+                    + " does not match " + StreamingDigest.hex(announced) + " sent by the server");
+        }
+        return new DownloadResult(total, StreamingDigest.hex(actual));
+    }
+
+    private static void fetchRemaining(URI url, FileChannel channel, long from, long total, Throttle throttle,
+            StreamingDigest digest) throws IOException {
+        Plan plan = plan(total - from);
+        List<long[]> segments = new ArrayList<>();
+        for (long start = from; start < total; start += plan.segmentBytes()) {
+            segments.add(new long[] {start, Math.min(total, start + plan.segmentBytes()) - 1});
+        }
+        int connections = Math.min(plan.parallelism(), segments.size());
+        LOG.debug("Downloading {} byte(s) as {} segment(s) over {} connection(s)",
+                total - from, segments.size(), connections);
+        AtomicInteger next = new AtomicInteger();
+        Callable<Void> fetcher = () -> {
+            for (int i = next.getAndIncrement(); i < segments.size(); i = next.getAndIncrement()) {
+                fetchSegment(url, channel, segments.get(i)[0], segments.get(i)[1], throttle, digest);
+            }
+            return null;
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                workers.add(pool.submit(fetcher));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void fetchSegment(URI url, FileChannel channel, long start, long end, Throttle throttle,
+            StreamingDigest digest) throws IOException {
+        for (int attempt = 1;; attempt++) {
+            HttpURLConnection conn = open(url, start, end);
+            try {
+                int status = conn.getResponseCode();
+                if (status != HttpURLConnection.HTTP_PARTIAL) {
+                    throw unexpected(conn, status);
+                }
+                copy(conn, channel, start, end - start + 1, throttle, digest);
+                return;
+            } catch (IOException e) {
+                if (attempt >= MAX_ATTEMPTS || e instanceof HttpStatusException || interrupted(e)) {
+                    throw e;
+                }
+                LOG.debug("Retrying range {}-{} after: {}", start, end, e.getMessage());
+            } finally {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * An interrupt, such as one that stopped a throttled read, ends the download; a read timeout,
+     * which is an {@link InterruptedIOException} too, is worth another attempt.
+     */
+    private static boolean interrupted(IOException e) {
+        return e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)
+                || Thread.currentThread().isInterrupted();
+    }
+
+    private static HttpURLConnection open(URI url, long start, long end) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.toURL().openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        conn.setRequestProperty("Range", "bytes=" + start + "-" + end);
+        conn.setRequestProperty("Accept-Encoding", "identity");
+        return conn;
+    }
+
+    /**
+     * Reads the probe's Content-Range; the server may return less than the probe asked for.
+     */
+    private static ContentRange contentRange(HttpURLConnection probe, int status) throws IOException {
+        if (status != HttpURLConnection.HTTP_PARTIAL) {
+            throw unexpected(probe, status);
+        }
+        String header = probe.getHeaderField("Content-Range");
+        Matcher m = CONTENT_RANGE.matcher(String.valueOf(header));
+        if (!m.matches() || Long.parseLong(m.group(1)) != 0) {
+            throw new IOException("Unusable Content-Range: " + header);
+        }
+        return new ContentRange(Long.parseLong(m.group(2)), Long.parseLong(m.group(3)));
+    }
+
+    private static IOException unexpected(HttpURLConnection conn, int status) {
+        if (status >= 400) {
+            return new HttpStatusException(status, "Download failed: HTTP " + status);
+        }
+        return new IOException("Unexpected response to range request: HTTP " + status);
+    }
+
+    /**
+     * Writes the response body at {@code position} and hands every chunk to {@code digest} once it is on
+     * disk. With a non-negative {@code expected}, a body of any other length is an error, so a truncated
+     * response is never mistaken for a complete one.
+     */
+    private static long copy(HttpURLConnection conn, FileChannel channel, long position, long expected,
+            Throttle throttle, StreamingDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(StreamingUpload.CHUNK_SIZE);
+        long written = 0;
+        try (InputStream in = conn.getInputStream()) {
+            int n;
+            while ((n = in.read(buffer.array())) != -1) {
+                throttle.acquire(n);
+                buffer.limit(n);
+                long chunkAt = position + written;
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer, position + written);
+                }
+                digest.written(chunkAt, buffer.flip());
+                buffer.clear();
+            }
+        }
+        if (expected >= 0 && written != expected) {
+            throw new DownloadIntegrityException("Range at " + position + " ended after " + written
+                    + " of " + expected + " bytes");
+        }
+        return written;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    private record ContentRange(long end, long total) {
+    }
+}
@@ -0,0 +1,49 @@
+package app.core;
+
+import java.util.Base64;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a SHA-256 of the response body from the headers storage hosts send it in: {@code Repr-Digest}
+ * (RFC 9530), the older {@code Digest} (RFC 3230) and S3's {@code x-amz-checksum-sha256}. Other
+ * algorithms are ignored, since the download is only hashed with SHA-256.
+ */
+final class ServerChecksum {
+
+    private static final Pattern SHA_256 = Pattern.compile("(?:^|,)\\s*sha-256=:?([A-Za-z0-9+/=]+):?\\s*(?:,|$)");
+    private static final int SHA_256_BYTES = 32;
+
+    private ServerChecksum() {
+    }
+
+    /**
+     * @param header looks up a response header by name, null when absent
+     * @return the announced digest, or null when the server sent none this can check
+     */
+    static byte[] sha256(UnaryOperator<String> header) {
+        byte[] digest = decode(header.apply("x-amz-checksum-sha256"));
+        for (String name : new String[] {"Repr-Digest", "Digest"}) {
+            if (digest == null) {
+                String value = header.apply(name);
+                Matcher m = SHA_256.matcher(value != null ? value.toLowerCase(Locale.ROOT) : "");
+                digest = m.find() ? decode(value.substring(m.start(1), m.end(1))) : null;
+            }
+        }
+        return digest;
+    }
+
+    private static byte[] decode(String base64) {
+        if (base64 == null) {
+            return null;
+        }
+        try {
+            byte[] digest = Base64.getDecoder().decode(base64.trim());
+            return digest.length == SHA_256_BYTES ? digest : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
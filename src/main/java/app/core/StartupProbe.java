@@ -0,0 +1,64 @@
+package app.core;
+
+import app.persistence.AppSettings;
+import app.persistence.JsonSettingsStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Startup timing for CI and for training the class-data-sharing archive. The headless probe runs what
+ * a batch needs before its first upload (settings, profiles, routing) without JavaFX; the GUI reports
+ * its first frame through {@link #report(String, long)} when {@link #EXIT_AFTER_FIRST_FRAME} is set.
+ * Each probe prints one {@code startup-probe} line and fails when over {@link #BUDGET_PROPERTY}.
+ */
+public final class StartupProbe {
+
+    /** Set to true to close the GUI as soon as its first frame is shown. */
+    public static final String EXIT_AFTER_FIRST_FRAME = "converto.exitAfterFirstFrame";
+    /** Optional time budget in ms from JVM start; a slower probe exits with status 1. */
+    public static final String BUDGET_PROPERTY = "converto.startupBudgetMs";
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupProbe.class);
+
+    private StartupProbe() {
+    }
+
+    public static void main(String[] args) {
+        AppSettings settings = new JsonSettingsStore().load();
+        int formats = ProfileRouting.DEFAULT.extensions().size();
+        LOG.debug("Headless startup: {} format(s), output dir {}", formats, settings.lastOutputDir());
+        if (!report("headless", sinceJvmStartMs())) {
+            System.exit(1);
+        }
+    }
+
+    public static boolean isFirstFrameProbe() {
+        return Boolean.getBoolean(EXIT_AFTER_FIRST_FRAME);
+    }
+
+    /**
+     * Milliseconds since the JVM process started, or -1 where the OS does not report a start time.
+     */
+    public static long sinceJvmStartMs() {
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis())
+                .orElse(-1L);
+    }
+
+    /**
+     * Prints the probe line.
+     *
+     * @return false if a budget is set and {@code readyMs} exceeds it
+     */
+    public static boolean report(String entryPoint, long readyMs) {
+        long budget = Long.getLong(BUDGET_PROPERTY, Long.MAX_VALUE);
+        boolean withinBudget = readyMs <= budget;
+        System.out.println("startup-probe " + entryPoint + " ready_ms=" + readyMs
+                + (budget != Long.MAX_VALUE ? " budget_ms=" + budget : "")
+                + (withinBudget ? "" : " OVER_BUDGET"));
+        return withinBudget;
+    }
+}
@@ -0,0 +1,93 @@
+package app.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 of a file that is written in ranges, possibly out of order and from several threads. A chunk
+ * written where the hash has got to is hashed straight from the buffer it was written from. A chunk
+ * written further ahead is only noted, and read back from the channel (normally the page cache) once
+ * everything before it has been hashed; a single-stream download therefore never reads the file back.
+ * Bytes written again, as by a retried range, are hashed once.
+ */
+final class StreamingDigest {
+
+    private final MessageDigest sha256 = ContentHash.newSha256();
+    private final FileChannel channel;
+    /** Written but not yet hashed byte ranges ahead of {@link #hashed}, start to exclusive end. */
+    private final TreeMap<Long, Long> ahead = new TreeMap<>();
+    private long hashed;
+
+    StreamingDigest(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Records that the remaining bytes of {@code chunk} are now on disk at {@code position}; the buffer
+     * itself is left untouched.
+     */
+    synchronized void written(long position, ByteBuffer chunk) throws IOException {
+        long end = position + chunk.remaining();
+        if (end <= hashed) {
+            return;
+        }
+        if (position > hashed) {
+            ahead.merge(position, end, Math::max);
+            return;
+        }
+        ByteBuffer unhashed = chunk.duplicate();
+        unhashed.position(unhashed.position() + (int) (hashed - position));
+        sha256.update(unhashed);
+        hashed = end;
+        catchUp();
+    }
+
+    private void catchUp() throws IOException {
+        Map.Entry<Long, Long> next;
+        while ((next = ahead.firstEntry()) != null && next.getKey() <= hashed) {
+            ahead.pollFirstEntry();
+            if (next.getValue() > hashed) {
+                readBack(hashed, next.getValue());
+                hashed = next.getValue();
+            }
+        }
+    }
+
+    private void readBack(long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(StreamingUpload.CHUNK_SIZE, to - from));
+        for (long position = from; position < to; ) {
+            buffer.limit((int) Math.min(buffer.capacity(), to - position));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("File ended at " + position + " while hashing up to " + to);
+            }
+            buffer.flip();
+            sha256.update(buffer);
+            buffer.clear();
+            position += n;
+        }
+    }
+
+    /**
+     * Bytes hashed so far: the length of the gap-free prefix written.
+     */
+    synchronized long hashedBytes() {
+        return hashed;
+    }
+
+    /**
+     * Finishes the hash; call once, after all writes.
+     */
+    synchronized byte[] digest() {
+        return sha256.digest();
+    }
+
+    static String hex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+}
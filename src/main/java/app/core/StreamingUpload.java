@@ -0,0 +1,137 @@
+package app.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams a multipart/form-data upload straight from a {@link FileChannel}.
+ * The body length is computed up front and sent in fixed-length streaming mode, so the
+ * request is never buffered: memory use is one {@link #CHUNK_SIZE} buffer per upload.
+ */
+public final class StreamingUpload {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingUpload.class);
+    private static final String CRLF = "\r\n";
+    private static final int CONNECT_TIMEOUT_MS = 30_000;
+    private static final int READ_TIMEOUT_MS = 600_000;
+
+    private StreamingUpload() {
+    }
+
+    /**
+     * Posts {@code file} as the {@code file} part after the given form parameters.
+     *
+     * @return number of file bytes sent
+     */
+    public static long upload(URI formUrl, Map<String, ?> parameters, Path file) throws IOException {
+        return upload(formUrl, parameters, file, Throttle.NONE);
+    }
+
+    /**
+     * Like {@link #upload(URI, Map, Path)}, sending file chunks only as fast as {@code throttle} allows.
+     */
+    public static long upload(URI formUrl, Map<String, ?> parameters, Path file, Throttle throttle)
+            throws IOException {
+        String boundary = newBoundary();
+        byte[] head = head(boundary, parameters, file.getFileName().toString());
+        byte[] tail = tail(boundary);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            HttpURLConnection conn = (HttpURLConnection) formUrl.toURL().openConnection();
+            try {
+                conn.setRequestMethod("POST");
+                conn.setDoOutput(true);
+                conn.setInstanceFollowRedirects(false);
+                conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                conn.setReadTimeout(READ_TIMEOUT_MS);
+                conn.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+                conn.setFixedLengthStreamingMode(head.length + fileSize + tail.length);
+                long sent;
+                try (OutputStream out = conn.getOutputStream()) {
+                    out.write(head);
+                    sent = copyChannel(channel, out, throttle);
+                    out.write(tail);
+                }
+                checkResponse(conn);
+                LOG.debug("Streamed {} byte(s) of {}", sent, file.getFileName());
+                return sent;
+            } finally {
+                conn.disconnect();
+            }
+        }
+    }
+
+    static long copyChannel(FileChannel channel, OutputStream out, Throttle throttle) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        long total = 0;
+        int n;
+        while ((n = channel.read(buffer)) != -1) {
+            if (n > 0) {
+                throttle.acquire(n);
+                out.write(buffer.array(), 0, n);
+                total += n;
+            }
+            buffer.clear();
+        }
+        return total;
+    }
+
+    static String newBoundary() {
+        return "----converto-" + UUID.randomUUID();
+    }
+
+    /**
+     * The form parameters and the header of the file part; the file content follows it directly.
+     */
+    static byte[] head(String boundary, Map<String, ?> parameters, String filename) {
+        StringBuilder sb = new StringBuilder();
+        if (parameters != null) {
+            for (Map.Entry<String, ?> e : parameters.entrySet()) {
+                sb.append("--").append(boundary).append(CRLF)
+                        .append("Content-Disposition: form-data; name=\"").append(quote(e.getKey())).append('"')
+                        .append(CRLF).append(CRLF)
+                        .append(e.getValue() != null ? e.getValue() : "").append(CRLF);
+            }
+        }
+        sb.append("--").append(boundary).append(CRLF)
+                .append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(quote(filename))
+                .append('"').append(CRLF)
+                .append("Content-Type: application/octet-stream").append(CRLF).append(CRLF);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] tail(String boundary) {
+        return (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\r", "").replace("\n", "");
+    }
+
+    private static void checkResponse(HttpURLConnection conn) throws IOException {
+        int code = conn.getResponseCode();
+        InputStream body = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+        if (body != null) {
+            try (body) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        if (code >= 400) {
+            throw new HttpStatusException(code, "Upload failed: HTTP " + code);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package app.core;
+
+import app.core.CloudConvertFacade.JobResult;
+import app.core.CloudConvertFacade.OutputTask;
+import app.core.CloudConvertFacade.TaskResult;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AsyncCloudConvertFacade} over a sync facade, one executor task per call.
+ */
+final class SyncFacadeAdapter implements AsyncCloudConvertFacade {
+
+    private final CloudConvertFacade facade;
+    private final Executor executor;
+
+    SyncFacadeAdapter(CloudConvertFacade facade, Executor executor) {
+        this.facade = facade;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<TaskResult> createUploadTaskAndUpload(Path file) {
+        return call(() -> facade.createUploadTaskAndUpload(file));
+    }
+
+    @Override
+    public CompletableFuture<String> createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) {
+        return call(() -> facade.createMultiOutputJob(uploadTaskId, outputs));
+    }
+
+    @Override
+    public CompletableFuture<JobResult> getJob(String jobId) {
+        return call(() -> facade.getJob(jobId));
+    }
+
+    @Override
+    public CompletableFuture<Void> downloadTo(String url, Path target) {
+        return call(() -> {
+            facade.downloadTo(url, target);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> cancelJob(String jobId) {
+        return call(() -> {
+            facade.cancelJob(jobId);
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> call(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
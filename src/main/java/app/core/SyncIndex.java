@@ -0,0 +1,226 @@
+package app.core;
+
+import app.persistence.HistoryQuery;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * What an output directory already holds, read with one walk so an incremental run can tell which
+ * items are up to date without a stat per output or any call to CloudConvert. An item is up to date
+ * when every output it would get exists, is not empty and is no older than its input. Seeded from
+ * the history, the sizes of the last successful conversion must match too, and {@link Check#Content}
+ * also compares the input's hash with the one recorded then. Once seeded, items may be checked from
+ * several threads at once.
+ */
+public final class SyncIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyncIndex.class);
+
+    /**
+     * How closely an existing output is checked before its item is skipped.
+     */
+    public enum Check {
+        Metadata("Size and time"),
+        Content("Size, time and input hash");
+
+        private final String displayName;
+
+        Check(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final Path root;
+    private final Check check;
+    private final Map<Path, Entry> files;
+    private final Map<String, Map<Path, HistoryRecord>> lastDone = new HashMap<>();
+
+    private SyncIndex(Path root, Check check, Map<Path, Entry> files) {
+        this.root = root;
+        this.check = check;
+        this.files = files;
+    }
+
+    /**
+     * Indexes every file below {@code outputDir}, leaving out staged parts. A missing directory
+     * gives an empty index.
+     */
+    public static SyncIndex scan(Path outputDir, Check check) throws IOException {
+        Path root = outputDir.toAbsolutePath().normalize();
+        Map<Path, Entry> files = new HashMap<>();
+        if (Files.isDirectory(root)) {
+            Path tmp = root.resolve(OutputStaging.TMP_DIR);
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return dir.equals(tmp) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        files.put(file, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    LOG.debug("Not indexed: {}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return new SyncIndex(root, check, files);
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * Loads the latest successful conversion of every input under each of {@code profileIds}, one
+     * history scan per profile.
+     */
+    public void seed(HistoryStore history, Collection<String> profileIds) {
+        for (String profileId : profileIds) {
+            Map<Path, HistoryRecord> latest = new HashMap<>();
+            try {
+                for (HistoryRecord r : history.query(HistoryQuery.all().withProfile(profileId))) {
+                    if (BatchItemStatus.Done.name().equals(r.outcome())) {
+                        latest.putIfAbsent(r.input(), r);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not read history for {}", profileId, e);
+            }
+            lastDone.put(profileId, latest);
+        }
+    }
+
+    /**
+     * The outputs are looked for where the last successful conversion saved them, so outputs renamed
+     * by {@link OutputStaging.ConflictPolicy#Suffix} are found, and else under their plain names.
+     *
+     * @return the outputs of {@code item} if all of them are up to date, else null
+     */
+    public List<Path> upToDate(BatchItem item) {
+        long inputModified;
+        try {
+            inputModified = Files.getLastModifiedTime(item.input).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+        HistoryRecord done = lastDone(item);
+        if (done != null && done.outputPaths().size() == item.profile.targets().size()) {
+            List<Path> recorded = upToDate(item, done, done.outputPaths(), inputModified);
+            if (recorded != null) {
+                return recorded;
+            }
+        }
+        Path dir = item.outputSubdir != null ? root.resolve(item.outputSubdir).normalize() : root;
+        List<Path> named = new ArrayList<>();
+        for (ConversionProfile target : item.profile.targets()) {
+            named.add(OutputNaming.resolveInDir(item.input, dir, target));
+        }
+        return upToDate(item, done, named, inputModified);
+    }
+
+    /**
+     * {@link #upToDate(BatchItem)} for every item, in order. The content check hashes every input that
+     * still looks up to date, so those items are checked on {@code threads} threads. If a check fails or
+     * is interrupted, every item is converted.
+     */
+    public List<List<Path>> upToDate(List<BatchItem> items, int threads) {
+        if (check != Check.Content) {
+            return items.stream().map(this::upToDate).toList();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Path>>> checks = new ArrayList<>(items.size());
+            for (BatchItem item : items) {
+                checks.add(pool.submit(() -> upToDate(item)));
+            }
+            List<List<Path>> results = new ArrayList<>(items.size());
+            for (Future<List<Path>> f : checks) {
+                results.add(f.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            LOG.warn("Incremental sync check failed, converting every item", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return Collections.nCopies(items.size(), null);
+    }
+
+    private List<Path> upToDate(BatchItem item, HistoryRecord done, List<Path> outputs, long inputModified) {
+        long outputBytes = 0;
+        for (Path output : outputs) {
+            Entry entry = files.get(output);
+            if (entry == null || entry.size() == 0 || entry.modified() < inputModified) {
+                return null;
+            }
+            outputBytes += entry.size();
+        }
+        return matchesHistory(item, done, outputBytes) ? outputs : null;
+    }
+
+    private HistoryRecord lastDone(BatchItem item) {
+        Map<Path, HistoryRecord> latest = lastDone.get(item.profile.id());
+        return latest != null ? latest.get(item.input.toAbsolutePath().normalize()) : null;
+    }
+
+    /**
+     * Without a recorded conversion only {@link Check#Content} refuses, since it has no hash to compare.
+     */
+    private boolean matchesHistory(BatchItem item, HistoryRecord done, long outputBytes) {
+        if (done == null) {
+            return check != Check.Content;
+        }
+        if (done.inputBytes() >= 0 && done.inputBytes() != item.inputBytes
+                || done.outputBytes() >= 0 && done.outputBytes() != outputBytes) {
+            return false;
+        }
+        if (check != Check.Content) {
+            return true;
+        }
+        if (done.contentHash() == null) {
+            return false;
+        }
+        try {
+            item.contentHash = ContentHash.sha256(item.input);
+        } catch (IOException e) {
+            return false;
+        }
+        return done.contentHash().equals(item.contentHash);
+    }
+
+    private record Entry(long size, long modified) {
+    }
+}
@@ -0,0 +1,79 @@
+package app.core;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads fields from CloudConvert task payloads, which arrive either as SDK DTOs or as plain maps.
+ */
+final class TaskFields {
+
+    private TaskFields() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Object readField(Object source, String key) {
+        if (source == null || key == null || key.isBlank()) {
+            return null;
+        }
+        if (source instanceof Map) {
+            return ((Map<String, Object>) source).get(key);
+        }
+        try {
+            String methodName = "get" + Character.toUpperCase(key.charAt(0)) + key.substring(1);
+            Method method = source.getClass().getDeclaredMethod(methodName);
+            method.setAccessible(true);
+            return method.invoke(source);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    static String readString(Object source, String key) {
+        Object value = readField(source, key);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * The first file URL of an export task result, or null if it has none yet.
+     */
+    static String firstFileUrl(Object taskOutput) {
+        Object files = readField(taskOutput, "files");
+        if (files instanceof List) {
+            for (Object file : (List<?>) files) {
+                String url = readString(file, "url");
+                if (url != null && !url.isBlank()) {
+                    return url;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The task named {@code taskName} in a job's task list, or null. With {@code soleExport}, an export
+     * task may also be matched by operation.
+     */
+    static Object findTask(Object tasks, String taskName, boolean soleExport) {
+        if (!(tasks instanceof List)) {
+            return null;
+        }
+        Object exportByOperation = null;
+        for (Object task : (List<?>) tasks) {
+            String id = readString(task, "id");
+            if (id == null || id.isBlank()) {
+                continue;
+            }
+            if (taskName.equals(readString(task, "name"))) {
+                return task;
+            }
+            if (soleExport && "export/url".equalsIgnoreCase(readString(task, "operation"))) {
+                exportByOperation = task;
+            }
+        }
+        return exportByOperation;
+    }
+}
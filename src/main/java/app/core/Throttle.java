@@ -0,0 +1,30 @@
+package app.core;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Paces a byte stream: callers ask before sending or after receiving each chunk and are held back
+ * as long as the rate requires.
+ */
+@FunctionalInterface
+public interface Throttle {
+
+    Throttle NONE = bytes -> { };
+
+    /**
+     * Blocks until {@code bytes} more may pass.
+     *
+     * @throws InterruptedIOException if interrupted while held back
+     */
+    void acquire(int bytes) throws InterruptedIOException;
+
+    /**
+     * A throttle that passes bytes only as fast as both {@code first} and {@code second} allow.
+     */
+    static Throttle both(Throttle first, Throttle second) {
+        return bytes -> {
+            first.acquire(bytes);
+            second.acquire(bytes);
+        };
+    }
+}
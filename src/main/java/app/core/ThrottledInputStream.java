@@ -0,0 +1,36 @@
+package app.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that asks a {@link Throttle} for every chunk it has read.
+ */
+final class ThrottledInputStream extends FilterInputStream {
+
+    private final Throttle throttle;
+
+    ThrottledInputStream(InputStream in, Throttle throttle) {
+        super(in);
+        this.throttle = throttle;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            throttle.acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            throttle.acquire(n);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,69 @@
+package app.core;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket {@link Throttle}. The bucket fills at the current rate up to {@code burstBytes}; a
+ * chunk larger than what is left takes the bucket into debt and its caller sleeps until the debt is
+ * paid, so concurrent callers share the rate in the order they ask. The rate is read on every
+ * acquire, which lets a schedule change it while transfers run; a rate of 0 or less is unlimited.
+ */
+public final class TokenBucket implements Throttle {
+
+    /** One upload/download chunk, so a bucket lets at most one chunk through ahead of the rate. */
+    public static final long DEFAULT_BURST_BYTES = StreamingUpload.CHUNK_SIZE;
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LongSupplier bytesPerSecond;
+    private final long burstBytes;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long lastNanos;
+
+    public TokenBucket(long bytesPerSecond) {
+        this(() -> bytesPerSecond, DEFAULT_BURST_BYTES, System::nanoTime);
+    }
+
+    public TokenBucket(LongSupplier bytesPerSecond, long burstBytes, LongSupplier nanoTime) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = Math.max(1, burstBytes);
+        this.nanoTime = nanoTime;
+        this.tokens = this.burstBytes;
+        this.lastNanos = nanoTime.getAsLong();
+    }
+
+    @Override
+    public void acquire(int bytes) throws InterruptedIOException {
+        long waitNanos = reserve(bytes);
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttled");
+        }
+    }
+
+    /**
+     * Takes {@code bytes} from the bucket without waiting.
+     *
+     * @return nanoseconds the caller has to wait before the bytes may pass
+     */
+    public synchronized long reserve(long bytes) {
+        long rate = bytesPerSecond.getAsLong();
+        long now = nanoTime.getAsLong();
+        long elapsed = now - lastNanos;
+        lastNanos = now;
+        if (rate <= 0) {
+            tokens = burstBytes;
+            return 0;
+        }
+        tokens = Math.min(burstBytes, tokens + elapsed * rate / NANOS_PER_SECOND) - bytes;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * NANOS_PER_SECOND / rate);
+    }
+}
@@ -2,16 +2,13 @@ package app.core;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Set;
 
 /**
  * Pre-flight validation for batch items.
  */
 public final class Validation {
 
-    private static final Set<String> ALLOWED_EXTENSIONS = buildAllowedExtensions();
+    private static final ProfileRouting ROUTING = ProfileRouting.DEFAULT;
 
     private Validation() {
     }
@@ -27,19 +24,24 @@ public final class Validation {
             return ValidationResult.failure("File is not readable");
         }
         try {
-            if (Files.size(item.input) == 0) {
+            long size = Files.size(item.input);
+            item.inputBytes = size;
+            if (size == 0) {
                 return ValidationResult.failure("File is empty");
             }
         } catch (Exception e) {
             return ValidationResult.failure("Cannot read file size: " + e.getMessage());
         }
-        String ext = getExtension(item.input);
-        if (!ALLOWED_EXTENSIONS.contains(ext.toLowerCase())) {
-            return ValidationResult.failure("Format not supported: " + ext);
+        String format = ROUTING.formatOf(item.input);
+        if (!ROUTING.isSupported(format)) {
+            return ValidationResult.failure("Format not supported: " + getExtension(item.input));
         }
-        if (!isProfileCompatible(ext, item.profile)) {
+        if (!ROUTING.accepts(item.profile, format)) {
             return ValidationResult.failure("Profile incompatible with file format");
         }
+        if (!item.profile.isChainConsistent()) {
+            return ValidationResult.failure("Profile steps do not connect");
+        }
         return ValidationResult.success();
     }
 
@@ -49,37 +51,13 @@ public final class Validation {
         return dot >= 0 ? "." + name.substring(dot + 1) : "";
     }
 
-    private static boolean isProfileCompatible(String ext, ConversionProfile profile) {
-        String normalized = ext.toLowerCase().replaceFirst("^\\.", "");
-        if (normalized.equals("jpeg")) {
-            normalized = "jpg";
-        }
-        return normalized.equals(profile.inputFormat());
-    }
-
-    private static Set<String> buildAllowedExtensions() {
-        Set<String> extensions = new LinkedHashSet<>();
-        for (ConversionProfile profile : Profiles.all()) {
-            String format = profile.inputFormat();
-            if (format == null || format.isBlank()) {
-                continue;
-            }
-            String normalized = format.toLowerCase();
-            extensions.add("." + normalized);
-            if ("jpg".equals(normalized)) {
-                extensions.add(".jpeg");
-            }
-        }
-        return Collections.unmodifiableSet(extensions);
-    }
-
     public record ValidationResult(boolean valid, String message) {
         public static ValidationResult success() {
             return new ValidationResult(true, "");
         }
 
         public static ValidationResult failure(String msg) {
-            return new ValidationResult(false, msg);
+            return new ValidationResult(false, ErrorMessages.shared(msg));
         }
     }
 }
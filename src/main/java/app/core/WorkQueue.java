@@ -0,0 +1,192 @@
+package app.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Priority-ordered queue of pending batch items that accepts additions and priority changes
+ * while workers are draining it. Higher priority runs first; equal priorities run in arrival order.
+ * All operations are O(log n), so re-prioritizing within tens of thousands of items stays cheap.
+ *
+ * <p>The queue also tracks items handed out by {@link #take()} until {@link #complete()} is called:
+ * once nothing is pending or in flight it closes itself and every waiting {@code take()} returns null.
+ */
+public final class WorkQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final TreeSet<Entry> pending = new TreeSet<>();
+    private final Map<BatchItem, Entry> index = new HashMap<>();
+    private long nextSeq;
+    private int inFlight;
+    private boolean closed;
+
+    public boolean add(BatchItem item) {
+        return add(item, 0);
+    }
+
+    /**
+     * @return false if the queue has already drained and closed, or the item is already queued
+     */
+    public boolean add(BatchItem item, int priority) {
+        lock.lock();
+        try {
+            if (closed || index.containsKey(item)) {
+                return false;
+            }
+            Entry entry = new Entry(item, priority, nextSeq++);
+            pending.add(entry);
+            index.put(item, entry);
+            changed.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the item is no longer pending (already started, finished or never queued)
+     */
+    public boolean reprioritize(BatchItem item, int priority) {
+        lock.lock();
+        try {
+            Entry old = index.get(item);
+            if (old == null) {
+                return false;
+            }
+            pending.remove(old);
+            Entry entry = new Entry(item, priority, old.seq);
+            pending.add(entry);
+            index.put(item, entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the item ahead of everything currently pending, so it starts on the next free worker.
+     */
+    public boolean runNext(BatchItem item) {
+        lock.lock();
+        try {
+            if (!index.containsKey(item)) {
+                return false;
+            }
+            int top = pending.first().priority;
+            return reprioritize(item, top == Integer.MAX_VALUE ? top : top + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(BatchItem item) {
+        lock.lock();
+        try {
+            Entry entry = index.remove(item);
+            return entry != null && pending.remove(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until an item is available. Returns null once the queue is drained and closed.
+     * The caller must call {@link #complete()} after processing a returned item.
+     */
+    public BatchItem take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (closed || inFlight == 0) {
+                    closed = true;
+                    changed.signalAll();
+                    return null;
+                }
+                changed.await();
+            }
+            Entry entry = pending.pollFirst();
+            index.remove(entry.item);
+            inFlight++;
+            return entry.item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Keeps the queue open for an item set aside outside it, as if one more item were in flight, until
+     * a matching {@link #complete()}. Call it while still holding the item from {@link #take()}, and put
+     * the item back with {@link #add} before completing the hold.
+     */
+    public void hold() {
+        lock.lock();
+        try {
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void complete() {
+        lock.lock();
+        try {
+            inFlight--;
+            if (inFlight == 0 && pending.isEmpty()) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns every pending item, leaving in-flight items to finish.
+     */
+    public List<BatchItem> drain() {
+        lock.lock();
+        try {
+            List<BatchItem> drained = new ArrayList<>(pending.size());
+            for (Entry entry : pending) {
+                drained.add(entry.item);
+            }
+            pending.clear();
+            index.clear();
+            changed.signalAll();
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(BatchItem item, int priority, long seq) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -3,13 +3,28 @@ package app.persistence;
 import java.nio.file.Path;
 
 /**
- * Application settings (API key, last output dir, last profile).
+ * Application settings (API key, last output dir, last profile, bandwidth caps). The caps are in
+ * bytes per second; 0 is unlimited.
  */
 public record AppSettings(
         String apiKey,
         Path lastOutputDir,
-        String lastProfileId
+        String lastProfileId,
+        long uploadBytesPerSecond,
+        long downloadBytesPerSecond
 ) {
+    public AppSettings {
+        uploadBytesPerSecond = Math.max(0, uploadBytesPerSecond);
+        downloadBytesPerSecond = Math.max(0, downloadBytesPerSecond);
+    }
+
+    /**
+     * Settings without bandwidth caps.
+     */
+    public AppSettings(String apiKey, Path lastOutputDir, String lastProfileId) {
+        this(apiKey, lastOutputDir, lastProfileId, 0, 0);
+    }
+
     public static AppSettings defaults() {
         return new AppSettings("", null, "mod-mov");
     }
@@ -0,0 +1,141 @@
+package app.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps settings in memory in front of another store. A load only reads the file again when its
+ * modification time or size has changed since the last read. Saves are written behind: the latest
+ * settings are written once after a short delay, however many saves arrived meanwhile, and loads
+ * see pending settings immediately. {@link #close()} writes anything still pending.
+ */
+public final class CachedSettingsStore implements SettingsStore, AutoCloseable {
+
+    public static final long DEFAULT_WRITE_DELAY_MS = 250;
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedSettingsStore.class);
+
+    private final SettingsStore delegate;
+    private final long writeDelayMs;
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "settings-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object lock = new Object();
+    private final Object writeLock = new Object();
+    private Snapshot snapshot;
+    private AppSettings pending;
+    private boolean scheduled;
+
+    public CachedSettingsStore(SettingsStore delegate) {
+        this(delegate, DEFAULT_WRITE_DELAY_MS);
+    }
+
+    public CachedSettingsStore(SettingsStore delegate, long writeDelayMs) {
+        this.delegate = delegate;
+        this.writeDelayMs = writeDelayMs;
+        // close() writes pending settings itself rather than waiting out the delay.
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public AppSettings load() {
+        synchronized (lock) {
+            if (pending != null) {
+                return pending;
+            }
+            // Stamp before reading: a change racing the read only costs one extra reload later.
+            Stamp stamp = stamp();
+            if (snapshot == null || !snapshot.stamp().equals(stamp)) {
+                snapshot = new Snapshot(delegate.load(), stamp);
+            }
+            return snapshot.settings();
+        }
+    }
+
+    @Override
+    public void save(AppSettings settings) {
+        synchronized (lock) {
+            pending = settings;
+            if (!scheduled && !writer.isShutdown()) {
+                scheduled = true;
+                writer.schedule(this::flushQuietly, writeDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes pending settings now, if there are any.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            AppSettings toWrite;
+            synchronized (lock) {
+                scheduled = false;
+                toWrite = pending;
+            }
+            if (toWrite == null) {
+                return;
+            }
+            delegate.save(toWrite);
+            synchronized (lock) {
+                if (pending == toWrite) {
+                    pending = null;
+                }
+                snapshot = null;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Settings stay pending; the next save or close retries.
+            LOG.error("Failed to write settings to {}", delegate.getSettingsPath(), e);
+        }
+    }
+
+    @Override
+    public Path getSettingsPath() {
+        return delegate.getSettingsPath();
+    }
+
+    /**
+     * Stops the background writer and writes anything still pending.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private Stamp stamp() {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(delegate.getSettingsPath(), BasicFileAttributes.class);
+            return new Stamp(attrs.lastModifiedTime(), attrs.size());
+        } catch (IOException e) {
+            return Stamp.MISSING;
+        }
+    }
+
+    private record Stamp(FileTime modified, long size) {
+        static final Stamp MISSING = new Stamp(FileTime.fromMillis(0), -1);
+    }
+
+    private record Snapshot(AppSettings settings, Stamp stamp) {
+    }
+}
@@ -0,0 +1,199 @@
+package app.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Memory-mapped hash tables from the input path and content hash keys of one {@link HistorySegment}
+ * to its index entries, so a lookup by path or hash visits only the entries with that key. A slot
+ * holds the newest entry with its key, and every entry links to the previous one with the same key,
+ * so matches come out newest first. Slots hold entry numbers only; the keys are read from the
+ * segment's index. Like the index, the table is derived data: its header records how many entries it
+ * covers, and a missing or stale table is rebuilt from the index.
+ */
+final class HistoryKeyTable implements Closeable {
+
+    private static final int MAGIC = 0x484b4559;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final FileChannel file;
+    private final IntToLongFunction pathKeys;
+    private final IntToLongFunction hashKeys;
+    private MappedByteBuffer table;
+    private int capacity;
+    private int slots;
+    private int covered;
+
+    private HistoryKeyTable(FileChannel file, IntToLongFunction pathKeys, IntToLongFunction hashKeys) {
+        this.file = file;
+        this.pathKeys = pathKeys;
+        this.hashKeys = hashKeys;
+    }
+
+    /**
+     * Opens the table at {@code path}, creating it if needed, for a segment of up to {@code capacity}
+     * entries. A table made for another capacity starts out empty.
+     */
+    static HistoryKeyTable open(Path path, int capacity, IntToLongFunction pathKeys, IntToLongFunction hashKeys)
+            throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            HistoryKeyTable table = new HistoryKeyTable(file, pathKeys, hashKeys);
+            table.map(capacity);
+            return table;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes the table cover exactly the first {@code count} entries, rebuilding it if it covers more.
+     */
+    void catchUp(int count) {
+        if (covered > count) {
+            reset(true);
+        }
+        while (covered < count) {
+            add(covered);
+        }
+    }
+
+    /**
+     * Re-maps the table for a segment grown to {@code capacity} entries and rebuilds it for the first
+     * {@code count}.
+     */
+    void grow(int capacity, int count) throws IOException {
+        map(capacity);
+        catchUp(count);
+    }
+
+    /**
+     * Adds the next entry, whose keys are already in the segment's index.
+     */
+    void add(int entry) {
+        insert(pathSlots(), pathLinks(), pathKeys, entry);
+        insert(hashSlots(), hashLinks(), hashKeys, entry);
+        covered = entry + 1;
+        table.putInt(8, covered);
+    }
+
+    /**
+     * The newest entry with input path key {@code key}, or -1.
+     */
+    int newestWithPath(long key) {
+        return newest(pathSlots(), pathKeys, key);
+    }
+
+    /**
+     * The entry before {@code entry} with the same input path key, or -1.
+     */
+    int previousWithPath(int entry) {
+        return table.getInt(pathLinks() + entry * 4) - 1;
+    }
+
+    int newestWithHash(long key) {
+        return newest(hashSlots(), hashKeys, key);
+    }
+
+    int previousWithHash(int entry) {
+        return table.getInt(hashLinks() + entry * 4) - 1;
+    }
+
+    void force() {
+        table.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            file.close();
+        }
+    }
+
+    private void insert(int slotBase, int linkBase, IntToLongFunction keys, int entry) {
+        long key = keys.applyAsLong(entry);
+        if (key == 0) {
+            return;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & (slots - 1)) {
+            int at = slotBase + slot * 4;
+            int head = table.getInt(at);
+            if (head == 0 || keys.applyAsLong(head - 1) == key) {
+                table.putInt(linkBase + entry * 4, head);
+                table.putInt(at, entry + 1);
+                return;
+            }
+        }
+    }
+
+    private int newest(int slotBase, IntToLongFunction keys, long key) {
+        if (key == 0) {
+            return -1;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & (slots - 1)) {
+            int head = table.getInt(slotBase + slot * 4);
+            if (head == 0 || keys.applyAsLong(head - 1) == key) {
+                return head - 1;
+            }
+        }
+    }
+
+    /**
+     * Fibonacci hashing: the keys are FNV hashes already, but their low bits alone spread poorly.
+     */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(slots)));
+    }
+
+    /**
+     * Maps room for {@code entries} entries, with at least twice as many slots per table so probes
+     * stay short. A header that does not match this layout empties the table.
+     */
+    private void map(int entries) throws IOException {
+        capacity = Math.max(1, entries);
+        slots = Integer.highestOneBit(2 * capacity - 1) << 1;
+        boolean blank = file.size() == 0;
+        table = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + 8L * slots + 8L * capacity);
+        covered = table.getInt(8);
+        if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION || table.getInt(12) != capacity
+                || covered < 0 || covered > capacity) {
+            reset(!blank);
+        }
+    }
+
+    private void reset(boolean clearSlots) {
+        if (clearSlots) {
+            for (int p = pathSlots(); p < pathLinks(); p += 8) {
+                table.putLong(p, 0);
+            }
+        }
+        covered = 0;
+        table.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, 0).putInt(12, capacity);
+    }
+
+    private static int pathSlots() {
+        return HEADER_BYTES;
+    }
+
+    private int hashSlots() {
+        return HEADER_BYTES + slots * 4;
+    }
+
+    private int pathLinks() {
+        return HEADER_BYTES + slots * 8;
+    }
+
+    private int hashLinks() {
+        return pathLinks() + capacity * 4;
+    }
+}
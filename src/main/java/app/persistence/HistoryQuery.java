@@ -0,0 +1,43 @@
+package app.persistence;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Filters for {@link HistoryStore#query}. Null fields match everything; {@code from} is inclusive,
+ * {@code to} exclusive, and a {@code limit} of 0 returns every match.
+ */
+public record HistoryQuery(Path input, String contentHash, String profileId, Instant from, Instant to, int limit) {
+
+    public static HistoryQuery all() {
+        return new HistoryQuery(null, null, null, null, null, 0);
+    }
+
+    public HistoryQuery forInput(Path path) {
+        return new HistoryQuery(path.toAbsolutePath().normalize(), contentHash, profileId, from, to, limit);
+    }
+
+    public HistoryQuery withContentHash(String hash) {
+        return new HistoryQuery(input, hash, profileId, from, to, limit);
+    }
+
+    public HistoryQuery withProfile(String id) {
+        return new HistoryQuery(input, contentHash, id, from, to, limit);
+    }
+
+    public HistoryQuery between(Instant fromInclusive, Instant toExclusive) {
+        return new HistoryQuery(input, contentHash, profileId, fromInclusive, toExclusive, limit);
+    }
+
+    public HistoryQuery limit(int max) {
+        return new HistoryQuery(input, contentHash, profileId, from, to, max);
+    }
+
+    boolean matches(HistoryRecord r) {
+        return (input == null || input.equals(r.input()))
+                && (contentHash == null || contentHash.equals(r.contentHash()))
+                && (profileId == null || profileId.equals(r.profileId()))
+                && (from == null || !r.finishedAt().isBefore(from))
+                && (to == null || r.finishedAt().isBefore(to));
+    }
+}
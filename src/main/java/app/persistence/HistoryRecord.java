@@ -0,0 +1,51 @@
+package app.persistence;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One finished batch item in the conversion history. Byte counts are -1 and durations 0 when they
+ * were not measured; {@code contentHash} and {@code jobId} are null when unknown. {@code outputPaths}
+ * are where the outputs were saved, and {@code outputDigests} the SHA-256 of each, taken while it
+ * downloaded; either is empty when not known.
+ */
+public record HistoryRecord(
+        Instant finishedAt,
+        Path input,
+        String contentHash,
+        String profileId,
+        String outcome,
+        long inputBytes,
+        long outputBytes,
+        long uploadMs,
+        long convertMs,
+        long downloadMs,
+        String jobId,
+        String message,
+        List<Path> outputPaths,
+        List<String> outputDigests
+) {
+
+    public HistoryRecord {
+        Objects.requireNonNull(finishedAt, "finishedAt");
+        Objects.requireNonNull(profileId, "profileId");
+        Objects.requireNonNull(outcome, "outcome");
+        input = input.toAbsolutePath().normalize();
+        message = message != null ? message : "";
+        outputPaths = outputPaths != null
+                ? outputPaths.stream().map(p -> p.toAbsolutePath().normalize()).toList() : List.of();
+        outputDigests = outputDigests != null ? List.copyOf(outputDigests) : List.of();
+    }
+
+    /**
+     * A record without output paths or digests.
+     */
+    public HistoryRecord(Instant finishedAt, Path input, String contentHash, String profileId, String outcome,
+            long inputBytes, long outputBytes, long uploadMs, long convertMs, long downloadMs, String jobId,
+            String message) {
+        this(finishedAt, input, contentHash, profileId, outcome, inputBytes, outputBytes, uploadMs, convertMs,
+                downloadMs, jobId, message, List.of(), List.of());
+    }
+}
@@ -0,0 +1,493 @@
+package app.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One segment of the conversion history: an append-only log of checksummed records, and a
+ * memory-mapped index with one fixed-size entry per record in append order. Entries are ordered by
+ * a time that never goes backwards: the record's own time, or the latest time before it if the clock
+ * was set back. Records keep their own times, and the index header holds the most any entry's order
+ * time runs ahead of its record's, which bounds a search by record time. Entries carry 64-bit keys of
+ * the input path, content hash and profile, so queries scan the index without touching the log, and
+ * a {@link HistoryKeyTable} next to it finds the entries with a given path or hash without a scan.
+ * The index and key table are derived data: a missing or stale index is rebuilt from the log, a key
+ * table from the index, and a torn record at the end of the log is cut off on open.
+ */
+final class HistorySegment implements Closeable {
+
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+    static final String KEYS_SUFFIX = ".keys";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HistorySegment.class);
+    private static final int LOG_MAGIC = 0x48535447;
+    private static final int INDEX_MAGIC = 0x48494458;
+    private static final int VERSION = 1;
+    private static final int INDEX_VERSION = 2;
+    private static final int LOG_HEADER_BYTES = 16;
+    private static final int INDEX_HEADER_BYTES = 24;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int ENTRY_BYTES = 44;
+    private static final int MAX_MESSAGE_CHARS = 2000;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long id;
+    private final long firstId;
+    private final Path logPath;
+    private final FileChannel log;
+    private final FileChannel indexFile;
+    private volatile MappedByteBuffer index;
+    private HistoryKeyTable keys;
+    private volatile int count;
+    private int capacity;
+    private long logEnd;
+
+    private HistorySegment(long id, long firstId, Path logPath, FileChannel log, FileChannel indexFile) {
+        this.id = id;
+        this.firstId = firstId;
+        this.logPath = logPath;
+        this.log = log;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Creates an empty segment. {@code firstId} is the oldest segment id whose records it holds:
+     * its own id, or the first id of a run of segments merged into it.
+     */
+    static HistorySegment create(Path logPath, Path indexPath, Path keysPath, long id, long firstId,
+            int capacity) throws IOException {
+        FileChannel log = FileChannel.open(logPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel indexFile = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        HistorySegment segment = new HistorySegment(id, firstId, logPath, log, indexFile);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES).putInt(LOG_MAGIC).putInt(VERSION).putLong(firstId);
+        writeFully(log, header.flip(), 0);
+        segment.logEnd = LOG_HEADER_BYTES;
+        segment.map(capacity);
+        segment.resetIndex();
+        segment.openKeys(keysPath);
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment, repairing its index and cutting off a torn last record.
+     */
+    static HistorySegment open(Path logPath, Path indexPath, Path keysPath, long id, int capacity)
+            throws IOException {
+        FileChannel log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+            readFully(log, header, 0);
+            header.flip();
+            if (header.getInt() != LOG_MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a history segment: " + logPath);
+            }
+            long firstId = header.getLong();
+            FileChannel indexFile = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            HistorySegment segment = new HistorySegment(id, firstId, logPath, log, indexFile);
+            long existing = (indexFile.size() - INDEX_HEADER_BYTES) / ENTRY_BYTES;
+            segment.map((int) Math.max(capacity, Math.min(Integer.MAX_VALUE / ENTRY_BYTES, existing)));
+            segment.recover();
+            segment.openKeys(keysPath);
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    private void openKeys(Path keysPath) throws IOException {
+        keys = HistoryKeyTable.open(keysPath, capacity, this::pathKey, this::hashKey);
+        keys.catchUp(count);
+    }
+
+    private void recover() throws IOException {
+        MappedByteBuffer idx = index;
+        long size = log.size();
+        int indexed = idx.getInt(0) == INDEX_MAGIC && idx.getInt(4) == INDEX_VERSION ? (int) idx.getLong(8) : -1;
+        if (indexed < 0 || indexed > capacity || (indexed > 0 && entryEnd(indexed - 1) > size)) {
+            LOG.info("Rebuilding history index for {}", logPath.getFileName());
+            resetIndex();
+            indexed = 0;
+        }
+        count = indexed;
+        logEnd = indexed == 0 ? LOG_HEADER_BYTES : entryEnd(indexed - 1);
+        indexTail(size);
+    }
+
+    /**
+     * Indexes records the log holds beyond the index, stopping at the first incomplete or corrupt one.
+     */
+    private void indexTail(long size) throws IOException {
+        long pos = logEnd;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (pos + RECORD_HEADER_BYTES <= size) {
+            readFully(log, header.clear(), pos);
+            int length = header.getInt(0);
+            if (length <= 0 || pos + RECORD_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(log, payload, pos + RECORD_HEADER_BYTES);
+            if (crc(payload.array()) != header.getInt(4)) {
+                break;
+            }
+            putEntry(decode(payload.array()), count > 0 ? time(count - 1) : Long.MIN_VALUE, pos,
+                    RECORD_HEADER_BYTES + length);
+            pos += RECORD_HEADER_BYTES + length;
+        }
+        if (pos < size) {
+            LOG.warn("Cutting off {} byte(s) of torn history record(s) in {}", size - pos, logPath.getFileName());
+            log.truncate(pos);
+        }
+        logEnd = pos;
+    }
+
+    /**
+     * Appends a record, ordered at its own time or at {@code notBefore}, whichever is later.
+     */
+    void append(HistoryRecord record, long notBefore) throws IOException {
+        byte[] payload = encode(record);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt(crc(payload)).put(payload);
+        long offset = logEnd;
+        writeFully(log, buffer.flip(), offset);
+        logEnd = offset + buffer.limit();
+        putEntry(record, notBefore, offset, buffer.limit());
+    }
+
+    private void putEntry(HistoryRecord record, long notBefore, long offset, int length) throws IOException {
+        int i = count;
+        if (i >= capacity) {
+            map((int) Math.min(Integer.MAX_VALUE / ENTRY_BYTES, (long) capacity * 2));
+            if (keys != null) {
+                keys.grow(capacity, i);
+            }
+        }
+        MappedByteBuffer idx = index;
+        int p = position(i);
+        long time = record.finishedAt().toEpochMilli();
+        long order = Math.max(time, notBefore);
+        if (order - time > idx.getLong(16)) {
+            idx.putLong(16, order - time);
+        }
+        idx.putLong(p, order);
+        idx.putLong(p + 8, pathKey(record.input()));
+        idx.putLong(p + 16, key(record.contentHash()));
+        idx.putLong(p + 24, key(record.profileId()));
+        idx.putLong(p + 32, offset);
+        idx.putInt(p + 40, length);
+        idx.putLong(8, i + 1L);
+        if (keys != null) {
+            keys.add(i);
+        }
+        count = i + 1;
+    }
+
+    HistoryRecord read(int i) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(index.getInt(position(i) + 40));
+        readFully(log, buffer, index.getLong(position(i) + 32));
+        byte[] payload = new byte[buffer.capacity() - RECORD_HEADER_BYTES];
+        buffer.position(RECORD_HEADER_BYTES).get(payload);
+        if (crc(payload) != buffer.getInt(4)) {
+            throw new IOException("Corrupt history record " + i + " in " + logPath.getFileName());
+        }
+        return decode(payload);
+    }
+
+    /**
+     * The order time of entry {@code i}, at or after its record's time.
+     */
+    long time(int i) {
+        return index.getLong(position(i));
+    }
+
+    long pathKey(int i) {
+        return index.getLong(position(i) + 8);
+    }
+
+    long hashKey(int i) {
+        return index.getLong(position(i) + 16);
+    }
+
+    long profileKey(int i) {
+        return index.getLong(position(i) + 24);
+    }
+
+    /**
+     * The newest entry with input path key {@code key}, or -1; older ones follow through
+     * {@link #previousWithPath}.
+     */
+    int newestWithPath(long key) {
+        return keys.newestWithPath(key);
+    }
+
+    int previousWithPath(int i) {
+        return keys.previousWithPath(i);
+    }
+
+    /**
+     * The newest entry with content hash key {@code key}, or -1; older ones follow through
+     * {@link #previousWithHash}.
+     */
+    int newestWithHash(long key) {
+        return keys.newestWithHash(key);
+    }
+
+    int previousWithHash(int i) {
+        return keys.previousWithHash(i);
+    }
+
+    /**
+     * The first entry of the first {@code n} whose time is at or after {@code epochMillis}, or {@code n}.
+     */
+    int lowerBound(long epochMillis, int n) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time(mid) < epochMillis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * How far an order time runs ahead of its record's time at most.
+     */
+    long lag() {
+        return index.getLong(16);
+    }
+
+    int count() {
+        return count;
+    }
+
+    long id() {
+        return id;
+    }
+
+    long firstId() {
+        return firstId;
+    }
+
+    Path logPath() {
+        return logPath;
+    }
+
+    void force() throws IOException {
+        log.force(false);
+        index.force();
+        keys.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            log.close();
+            indexFile.close();
+            keys.close();
+        }
+    }
+
+    static Path logPath(Path dir, long id) {
+        return dir.resolve(String.format("segment-%012d", id) + LOG_SUFFIX);
+    }
+
+    static Path indexPath(Path dir, long id) {
+        return dir.resolve(String.format("segment-%012d", id) + INDEX_SUFFIX);
+    }
+
+    /**
+     * The segment id in a log file name, or -1 if the name is not a segment log.
+     */
+    static long idOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("segment-") || !name.endsWith(LOG_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring("segment-".length(), name.length() - LOG_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static Path keysPath(Path dir, long id) {
+        return dir.resolve(String.format("segment-%012d", id) + KEYS_SUFFIX);
+    }
+
+    static void deleteFiles(Path dir, long id) throws IOException {
+        Files.deleteIfExists(keysPath(dir, id));
+        Files.deleteIfExists(indexPath(dir, id));
+        Files.deleteIfExists(logPath(dir, id));
+    }
+
+    static long pathKey(Path input) {
+        return key(input.toString());
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes; 0 is reserved for "no value".
+     */
+    static long key(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long h = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    private void map(int entries) throws IOException {
+        capacity = Math.max(1, entries);
+        index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_BYTES + (long) capacity * ENTRY_BYTES);
+    }
+
+    private void resetIndex() {
+        index.putInt(0, INDEX_MAGIC).putInt(4, INDEX_VERSION).putLong(8, 0).putLong(16, 0);
+    }
+
+    private long entryEnd(int i) {
+        return index.getLong(position(i) + 32) + index.getInt(position(i) + 40);
+    }
+
+    private static int position(int i) {
+        return INDEX_HEADER_BYTES + i * ENTRY_BYTES;
+    }
+
+    private static byte[] encode(HistoryRecord r) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(r.finishedAt().toEpochMilli());
+            out.writeUTF(r.input().toString());
+            out.writeUTF(r.contentHash() != null ? r.contentHash() : "");
+            out.writeUTF(r.profileId());
+            out.writeUTF(r.outcome());
+            out.writeLong(r.inputBytes());
+            out.writeLong(r.outputBytes());
+            out.writeLong(r.uploadMs());
+            out.writeLong(r.convertMs());
+            out.writeLong(r.downloadMs());
+            out.writeUTF(r.jobId() != null ? r.jobId() : "");
+            String message = r.message();
+            out.writeUTF(truncate(message));
+            writeStrings(out, r.outputDigests());
+            writeStrings(out, r.outputPaths().stream().map(Path::toString).toList());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Cuts a message to {@link #MAX_MESSAGE_CHARS}, never between the two halves of a surrogate pair.
+     */
+    private static String truncate(String message) {
+        if (message.length() <= MAX_MESSAGE_CHARS) {
+            return message;
+        }
+        int end = Character.isHighSurrogate(message.charAt(MAX_MESSAGE_CHARS - 1))
+                ? MAX_MESSAGE_CHARS - 1 : MAX_MESSAGE_CHARS;
+        return message.substring(0, end);
+    }
+
+    private static HistoryRecord decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            Instant finishedAt = Instant.ofEpochMilli(in.readLong());
+            Path input = Paths.get(in.readUTF());
+            String hash = emptyToNull(in.readUTF());
+            String profileId = in.readUTF();
+            String outcome = in.readUTF();
+            long inputBytes = in.readLong();
+            long outputBytes = in.readLong();
+            long uploadMs = in.readLong();
+            long convertMs = in.readLong();
+            long downloadMs = in.readLong();
+            String jobId = emptyToNull(in.readUTF());
+            String message = in.readUTF();
+            List<String> digests = readStrings(in);
+            List<Path> outputs = readStrings(in).stream().map(Paths::get).toList();
+            return new HistoryRecord(finishedAt, input, hash, profileId, outcome, inputBytes, outputBytes,
+                    uploadMs, convertMs, downloadMs, jobId, message, outputs, digests);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeShort(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads a counted list of strings; records written before the list existed end without one.
+     */
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        if (in.available() == 0) {
+            return List.of();
+        }
+        int n = in.readUnsignedShort();
+        List<String> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    private static String emptyToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, pos);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of " + channel);
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package app.persistence;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embedded, append-only conversion history in one directory of {@link HistorySegment}s. Records are
+ * appended to the newest segment, which is sealed once it holds {@code recordsPerSegment} records.
+ * Records keep the time they were stamped with. A record stamped before its predecessor, after the
+ * clock was set back, is indexed at its predecessor's time, so each segment's index is in time order
+ * and a date range is found by binary search.
+ *
+ * <p>A query by input path or content hash follows each segment's {@link HistoryKeyTable} from the
+ * newest entry with that key to the oldest, so it reads only matching entries however long the history
+ * grows. Other queries compare the 64-bit keys of every index entry in the date range, newest first,
+ * until the limit is reached; a profile matches too large a share of the records for a keyed lookup
+ * to pay off. {@code HistoryQueryBenchmarkTest} measures both over a million records.
+ *
+ * <p>Compaction drops records older than the retention period and merges runs of small sealed
+ * segments into one. A merged segment takes the id of the last segment of its run and remembers the
+ * first; segments it covers that are still on disk after a crash are deleted on open.
+ */
+public final class HistoryStore implements AutoCloseable {
+
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 18;
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(730);
+
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryStore.class);
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final Duration retention;
+    private final Clock clock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<HistorySegment> segments = new ArrayList<>();
+    private final Object compactLock = new Object();
+    private final ScheduledThreadPoolExecutor compactor = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "history-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private long lastTime;
+
+    public HistoryStore(Path dir) throws IOException {
+        this(dir, DEFAULT_RECORDS_PER_SEGMENT, DEFAULT_RETENTION, Clock.systemUTC());
+    }
+
+    public HistoryStore(Path dir, int recordsPerSegment, Duration retention, Clock clock) throws IOException {
+        this.dir = dir;
+        this.recordsPerSegment = Math.max(1, recordsPerSegment);
+        this.retention = retention;
+        this.clock = clock;
+        compactor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        Files.createDirectories(dir);
+        load();
+    }
+
+    private void load() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(TMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (HistorySegment.idOf(file) >= 0) {
+                    ids.add(HistorySegment.idOf(file));
+                }
+            }
+        }
+        ids.sort(null);
+        for (long id : ids) {
+            segments.add(HistorySegment.open(HistorySegment.logPath(dir, id), HistorySegment.indexPath(dir, id),
+                    HistorySegment.keysPath(dir, id), id, recordsPerSegment));
+        }
+        deleteCovered();
+        if (segments.isEmpty()) {
+            segments.add(newSegment(1, 1));
+        }
+        lastTime = Long.MIN_VALUE;
+        for (HistorySegment segment : segments) {
+            if (segment.count() > 0) {
+                lastTime = segment.time(segment.count() - 1);
+            }
+        }
+        if (active().count() >= recordsPerSegment) {
+            roll();
+        }
+        LOG.debug("History opened in {}: {} segment(s)", dir, segments.size());
+    }
+
+    /**
+     * Deletes segments whose records a merged segment already holds: a compaction that crashed
+     * between writing the merged segment and deleting its sources.
+     */
+    private void deleteCovered() throws IOException {
+        List<HistorySegment> covered = new ArrayList<>();
+        for (HistorySegment s : segments) {
+            for (HistorySegment merged : segments) {
+                if (merged.firstId() <= s.id() && s.id() < merged.id()) {
+                    covered.add(s);
+                    break;
+                }
+            }
+        }
+        for (HistorySegment s : covered) {
+            LOG.info("Deleting history segment {} left over from an interrupted compaction", s.id());
+            segments.remove(s);
+            s.close();
+            HistorySegment.deleteFiles(dir, s.id());
+        }
+    }
+
+    /**
+     * Compacts every {@code period}, starting one period from now.
+     */
+    public void startBackgroundCompaction(Duration period) {
+        compactor.scheduleWithFixedDelay(this::compactQuietly, period.toMillis(), period.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void append(HistoryRecord record) throws IOException {
+        appendAll(List.of(record));
+    }
+
+    public void appendAll(Collection<HistoryRecord> records) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (HistoryRecord record : records) {
+                active().append(record, lastTime);
+                lastTime = Math.max(lastTime, record.finishedAt().toEpochMilli());
+                if (active().count() >= recordsPerSegment) {
+                    roll();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Matching records, newest first.
+     */
+    public List<HistoryRecord> query(HistoryQuery query) throws IOException {
+        Filter filter = Filter.of(query);
+        List<HistoryRecord> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int s = segments.size() - 1; s >= 0 && result.size() < filter.limit(); s--) {
+                HistorySegment segment = segments.get(s);
+                int n = segment.count();
+                long to = filter.orderTo(segment);
+                if (n == 0 || segment.time(0) >= to || segment.time(n - 1) < filter.from()) {
+                    continue;
+                }
+                int lo = segment.lowerBound(filter.from(), n);
+                int hi = segment.lowerBound(to, n);
+                if (filter.keyed()) {
+                    followKeys(segment, lo, hi, filter, query, result);
+                } else {
+                    scan(segment, lo, hi, filter, query, result);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Adds matches among entries {@code lo} to {@code hi} (exclusive), newest first, visiting only
+     * those with the filter's path or hash key.
+     */
+    private static void followKeys(HistorySegment segment, int lo, int hi, Filter filter, HistoryQuery query,
+            List<HistoryRecord> result) throws IOException {
+        int i = filter.newest(segment);
+        while (i >= lo && result.size() < filter.limit()) {
+            if (i < hi) {
+                addIfMatches(segment, i, filter, query, result);
+            }
+            i = filter.previous(segment, i);
+        }
+    }
+
+    /**
+     * Adds matches among entries {@code lo} to {@code hi} (exclusive), newest first.
+     */
+    private static void scan(HistorySegment segment, int lo, int hi, Filter filter, HistoryQuery query,
+            List<HistoryRecord> result) throws IOException {
+        for (int i = hi - 1; i >= lo && result.size() < filter.limit(); i--) {
+            addIfMatches(segment, i, filter, query, result);
+        }
+    }
+
+    private static void addIfMatches(HistorySegment segment, int i, Filter filter, HistoryQuery query,
+            List<HistoryRecord> result) throws IOException {
+        if (filter.matchesKeys(segment, i)) {
+            HistoryRecord record = segment.read(i);
+            if (query.matches(record)) {
+                result.add(record);
+            }
+        }
+    }
+
+    /**
+     * Number of records held, including expired ones not compacted away yet.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return segments.stream().mapToLong(HistorySegment::count).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops expired records and merges runs of sealed segments that together fit in one segment.
+     * Sealed segments never change, so the copying runs without blocking appends or queries; only
+     * swapping the result in takes the write lock.
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            long cutoff = clock.millis() - retention.toMillis();
+            List<HistorySegment> sealed;
+            lock.readLock().lock();
+            try {
+                sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+            } finally {
+                lock.readLock().unlock();
+            }
+            List<HistorySegment> run = new ArrayList<>();
+            int runRecords = 0;
+            for (HistorySegment segment : sealed) {
+                int live = segment.count() - segment.lowerBound(cutoff, segment.count());
+                if (!run.isEmpty() && runRecords + live > recordsPerSegment) {
+                    compactRun(run, cutoff);
+                    run.clear();
+                    runRecords = 0;
+                }
+                run.add(segment);
+                runRecords += live;
+            }
+            if (!run.isEmpty()) {
+                compactRun(run, cutoff);
+            }
+        }
+    }
+
+    private void compactRun(List<HistorySegment> run, long cutoff) throws IOException {
+        HistorySegment first = run.get(0);
+        HistorySegment last = run.get(run.size() - 1);
+        if (run.size() == 1 && (first.count() == 0 || first.time(0) >= cutoff)) {
+            return;
+        }
+        Path logTmp = tmp(HistorySegment.logPath(dir, last.id()));
+        Path indexTmp = tmp(HistorySegment.indexPath(dir, last.id()));
+        Path keysTmp = tmp(HistorySegment.keysPath(dir, last.id()));
+        Files.deleteIfExists(logTmp);
+        int kept = 0;
+        try (HistorySegment merged = HistorySegment.create(logTmp, indexTmp, keysTmp, last.id(), first.firstId(),
+                recordsPerSegment)) {
+            for (HistorySegment segment : run) {
+                for (int i = segment.lowerBound(cutoff, segment.count()); i < segment.count(); i++) {
+                    merged.append(segment.read(i), merged.count() > 0 ? merged.time(merged.count() - 1)
+                            : Long.MIN_VALUE);
+                    kept++;
+                }
+            }
+        }
+        if (kept == 0) {
+            Files.deleteIfExists(logTmp);
+        }
+        swapIn(run, kept > 0 ? logTmp : null, indexTmp, keysTmp);
+        LOG.info("Compacted history segments {}..{} into {} record(s)", first.id(), last.id(), kept);
+    }
+
+    private void swapIn(List<HistorySegment> run, Path logTmp, Path indexTmp, Path keysTmp) throws IOException {
+        HistorySegment last = run.get(run.size() - 1);
+        lock.writeLock().lock();
+        try {
+            int at = segments.indexOf(run.get(0));
+            for (HistorySegment segment : run) {
+                segments.remove(segment);
+                segment.close();
+            }
+            Path logPath = HistorySegment.logPath(dir, last.id());
+            Path indexPath = HistorySegment.indexPath(dir, last.id());
+            Path keysPath = HistorySegment.keysPath(dir, last.id());
+            if (logTmp == null) {
+                Files.deleteIfExists(indexTmp);
+                Files.deleteIfExists(keysTmp);
+            } else {
+                // Derived files first: a crash in between leaves a log without them, and they are rebuilt on open.
+                Files.deleteIfExists(keysPath);
+                Files.deleteIfExists(indexPath);
+                Files.move(logTmp, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(indexTmp, indexPath, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(keysTmp, keysPath, StandardCopyOption.ATOMIC_MOVE);
+                segments.add(at, HistorySegment.open(logPath, indexPath, keysPath, last.id(), recordsPerSegment));
+            }
+            for (HistorySegment segment : run) {
+                if (segment != last || logTmp == null) {
+                    HistorySegment.deleteFiles(dir, segment.id());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("History compaction failed; will retry", e);
+        }
+    }
+
+    private void roll() throws IOException {
+        HistorySegment sealed = active();
+        sealed.force();
+        long id = sealed.id() + 1;
+        segments.add(newSegment(id, id));
+    }
+
+    private HistorySegment newSegment(long id, long firstId) throws IOException {
+        return HistorySegment.create(HistorySegment.logPath(dir, id), HistorySegment.indexPath(dir, id),
+                HistorySegment.keysPath(dir, id), id, firstId, recordsPerSegment);
+    }
+
+    private HistorySegment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private static Path tmp(Path path) {
+        return path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        synchronized (compactLock) {
+            lock.writeLock().lock();
+            try {
+                for (HistorySegment segment : segments) {
+                    segment.close();
+                }
+                segments.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * A query as index keys (0 matches any) and a time window in epoch milliseconds. Key matches may
+     * be hash collisions, so records are checked against the query once read.
+     */
+    private record Filter(long pathKey, long hashKey, long profileKey, long from, long to, int limit) {
+
+        static Filter of(HistoryQuery q) {
+            return new Filter(
+                    q.input() != null ? HistorySegment.pathKey(q.input()) : 0,
+                    HistorySegment.key(q.contentHash()),
+                    HistorySegment.key(q.profileId()),
+                    q.from() != null ? q.from().toEpochMilli() : Long.MIN_VALUE,
+                    q.to() != null ? q.to().toEpochMilli() : Long.MAX_VALUE,
+                    q.limit() > 0 ? q.limit() : Integer.MAX_VALUE);
+        }
+
+        /**
+         * The order time before which {@code segment} may hold records stamped before {@code to}.
+         */
+        long orderTo(HistorySegment segment) {
+            return to > Long.MAX_VALUE - segment.lag() ? Long.MAX_VALUE : to + segment.lag();
+        }
+
+        /**
+         * Whether matches can be found by key rather than by scanning; by path if both keys are set.
+         */
+        boolean keyed() {
+            return pathKey != 0 || hashKey != 0;
+        }
+
+        int newest(HistorySegment segment) {
+            return pathKey != 0 ? segment.newestWithPath(pathKey) : segment.newestWithHash(hashKey);
+        }
+
+        int previous(HistorySegment segment, int i) {
+            return pathKey != 0 ? segment.previousWithPath(i) : segment.previousWithHash(i);
+        }
+
+        boolean matchesKeys(HistorySegment segment, int i) {
+            return (pathKey == 0 || segment.pathKey(i) == pathKey)
+                    && (hashKey == 0 || segment.hashKey(i) == hashKey)
+                    && (profileKey == 0 || segment.profileKey(i) == profileKey);
+        }
+    }
+}
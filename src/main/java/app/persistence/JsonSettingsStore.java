@@ -4,20 +4,31 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * JSON-based settings persistence.
+ * JSON-based settings persistence. Saves write a temp file next to the settings file and move it
+ * into place atomically, holding a lock on a sidecar file, so readers and other writers (in this
+ * process or another) only ever see a complete file. A save that would not change the file leaves it
+ * alone, without the temp file and fsync.
  */
 public class JsonSettingsStore implements SettingsStore {
 
-    private static final ObjectMapper MAPPER = new ObjectMapper()
-            .enable(SerializationFeature.INDENT_OUTPUT);
     private static final String SETTINGS_FILE_NAME = "settings.json";
     private static final Path LEGACY_HOME_SETTINGS_PATH =
             Paths.get(System.getProperty("user.home"), ".file-converter", SETTINGS_FILE_NAME);
+    /** A file lock is held per JVM, so writers in this process also serialize on a monitor per path. */
+    private static final Map<Path, Object> WRITE_MONITORS = new ConcurrentHashMap<>();
 
     private final Path settingsPath;
 
@@ -29,6 +40,19 @@ public class JsonSettingsStore implements SettingsStore {
         this.settingsPath = settingsPath;
     }
 
+    /**
+     * Builds the Jackson mapper and its settings serializers now rather than on the first load or save,
+     * which would otherwise take a few hundred milliseconds on a cold JVM. Meant for a background thread.
+     */
+    public static void warmUp() {
+        try {
+            byte[] json = Json.MAPPER.writeValueAsBytes(new SettingsDto("", null, "", 0L, 0L));
+            Json.MAPPER.readValue(json, SettingsDto.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Settings mapper unusable", e);
+        }
+    }
+
     private static Path resolveDefaultSettingsPath() {
         Path projectRoot = findProjectRoot(Paths.get(System.getProperty("user.dir")));
         if (projectRoot != null) {
@@ -57,11 +81,13 @@ public class JsonSettingsStore implements SettingsStore {
         }
         try {
             byte[] bytes = Files.readAllBytes(settingsPath);
-            SettingsDto dto = MAPPER.readValue(bytes, SettingsDto.class);
+            SettingsDto dto = Json.MAPPER.readValue(bytes, SettingsDto.class);
             return new AppSettings(
                     dto.apiKey != null ? dto.apiKey : "",
                     dto.lastOutputDir != null ? Paths.get(dto.lastOutputDir) : null,
-                    dto.lastProfileId != null ? dto.lastProfileId : "mod-mov"
+                    dto.lastProfileId != null ? dto.lastProfileId : "mod-mov",
+                    dto.uploadBytesPerSecond != null ? dto.uploadBytesPerSecond : 0,
+                    dto.downloadBytesPerSecond != null ? dto.downloadBytesPerSecond : 0
             );
         } catch (IOException e) {
             return AppSettings.defaults();
@@ -71,26 +97,70 @@ public class JsonSettingsStore implements SettingsStore {
     @Override
     public void save(AppSettings settings) {
         try {
-            Path parent = settingsPath.getParent();
-            if (parent != null && !Files.exists(parent)) {
-                Files.createDirectories(parent);
-            }
+            Path target = settingsPath.toAbsolutePath().normalize();
+            Files.createDirectories(target.getParent());
             SettingsDto dto = new SettingsDto(
                     settings.apiKey(),
                     settings.lastOutputDir() != null ? settings.lastOutputDir().toString() : null,
-                    settings.lastProfileId()
+                    settings.lastProfileId(),
+                    settings.uploadBytesPerSecond(),
+                    settings.downloadBytesPerSecond()
             );
-            MAPPER.writeValue(settingsPath.toFile(), dto);
+            byte[] json = Json.MAPPER.writeValueAsBytes(dto);
+            synchronized (WRITE_MONITORS.computeIfAbsent(target, k -> new Object())) {
+                replaceLocked(target, json);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to save settings", e);
         }
     }
 
+    private static void replaceLocked(Path target, byte[] json) throws IOException {
+        Path lockPath = target.resolveSibling(target.getFileName() + ".lock");
+        try (FileChannel lockChannel = FileChannel.open(lockPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Released when the channel closes.
+            lockChannel.lock();
+            if (sameContent(target, json)) {
+                return;
+            }
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(json);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    out.force(true);
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    private static boolean sameContent(Path target, byte[] json) throws IOException {
+        try {
+            return Files.size(target) == json.length && Arrays.equals(Files.readAllBytes(target), json);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
     @Override
     public Path getSettingsPath() {
         return settingsPath;
     }
 
-    private record SettingsDto(String apiKey, String lastOutputDir, String lastProfileId) {
+    private record SettingsDto(String apiKey, String lastOutputDir, String lastProfileId, Long uploadBytesPerSecond,
+            Long downloadBytesPerSecond) {
+    }
+
+    /**
+     * Holds the mapper so Jackson is loaded on the first read or write, not when a store is created.
+     */
+    private static final class Json {
+        static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
     }
 }
@@ -1,16 +1,25 @@
 package app.ui;
 
+import app.core.StartupProbe;
+
 import java.util.Locale;
 
 /**
- * Plain Java entry point for packaged/classpath runs.
+ * Plain Java entry point for packaged/classpath runs. {@code --headless-probe} runs the
+ * {@link StartupProbe} instead of the GUI, on the same classpath as the app.
  */
 public final class Launcher {
 
+    public static final String HEADLESS_PROBE = "--headless-probe";
+
     private Launcher() {
     }
 
     public static void main(String[] args) {
+        if (args.length > 0 && HEADLESS_PROBE.equals(args[0])) {
+            StartupProbe.main(args);
+            return;
+        }
         String osName = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
         if (osName.contains("mac")) {
             System.setProperty("apple.awt.application.name", "Converto");
@@ -1,6 +1,9 @@
 package app.ui;
 
+import app.core.StartupProbe;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -12,15 +15,23 @@ import java.io.InputStream;
 import java.awt.Taskbar;
 import java.net.URL;
 import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * JavaFX application entry point for Converto.
  */
 public class MainApp extends Application {
 
+    private static final Logger LOG = LoggerFactory.getLogger(MainApp.class);
+
+    private MainController controller;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        Parent root = FXMLLoader.load(getClass().getResource("/fxml/main.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main.fxml"));
+        Parent root = loader.load();
+        controller = loader.getController();
         Scene scene = new Scene(root, 900, 600);
         primaryStage.setTitle("Converto");
         try (InputStream iconStream = getClass().getResourceAsStream("/icons/app-icon.png")) {
@@ -31,6 +42,38 @@ public class MainApp extends Application {
         configureDockIcon();
         primaryStage.setScene(scene);
         primaryStage.show();
+        reportFirstFrame();
+    }
+
+    /**
+     * Logs how long after JVM start the first frame was rendered; as the GUI startup probe, also
+     * prints it and exits.
+     */
+    private void reportFirstFrame() {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                // Runs after the pulse that rendered the first frame.
+                Platform.runLater(() -> {
+                    long readyMs = StartupProbe.sinceJvmStartMs();
+                    LOG.debug("First frame {} ms after JVM start", readyMs);
+                    if (StartupProbe.isFirstFrameProbe()) {
+                        if (!StartupProbe.report("gui", readyMs)) {
+                            System.exit(1);
+                        }
+                        Platform.exit();
+                    }
+                });
+            }
+        }.start();
+    }
+
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
     }
 
     public static void main(String[] args) {
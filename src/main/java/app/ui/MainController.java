@@ -1,17 +1,29 @@
 package app.ui;
 
+import app.core.AimdLimiter;
+import app.core.BandwidthSchedule;
+import app.core.BandwidthShaper;
 import app.core.BatchItem;
+import app.core.BatchItemStatus;
 import app.core.BatchRunner;
 import app.core.CloudConvertFacade;
 import app.core.CloudConvertFacadeImpl;
 import app.core.ConversionProfile;
+import app.core.DirectoryWalker;
+import app.core.FileIntake;
+import app.core.HttpAsyncCloudConvertFacade;
+import app.core.OutputStaging;
+import app.core.ProfileRouting;
 import app.core.Profiles;
-import app.core.Validation;
+import app.core.SchedulingPolicy;
+import app.core.SyncIndex;
 import app.persistence.AppSettings;
+import app.persistence.CachedSettingsStore;
+import app.persistence.HistoryStore;
 import app.persistence.JsonSettingsStore;
-import app.persistence.SettingsStore;
 import app.ui.model.BatchItemFx;
 import app.ui.model.ConversionProfileFx;
+import app.ui.model.Rows;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -21,6 +33,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.SelectionMode;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory;
@@ -35,12 +48,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
  * Main controller for the File Converter UI.
@@ -58,8 +79,24 @@ public class MainController implements Initializable {
     @FXML
     private Spinner<Integer> concurrencySpinner;
     @FXML
+    private CheckBox autoConcurrencyCheck;
+    @FXML
+    private Label concurrencyLimitLabel;
+    @FXML
+    private ComboBox<SchedulingPolicy> schedulingCombo;
+    @FXML
+    private ComboBox<OutputStaging.ConflictPolicy> conflictCombo;
+    @FXML
+    private CheckBox archiveExportCheck;
+    @FXML
+    private CheckBox syncCheck;
+    @FXML
     private Button addFilesButton;
     @FXML
+    private Button addFolderButton;
+    @FXML
+    private CheckBox mirrorFoldersCheck;
+    @FXML
     private Button removeButton;
     @FXML
     private Button clearButton;
@@ -68,6 +105,8 @@ public class MainController implements Initializable {
     @FXML
     private Button cancelButton;
     @FXML
+    private Button runNextButton;
+    @FXML
     private CheckBox skipIneligibleCheck;
     @FXML
     private TableView<BatchItemFx> batchTable;
@@ -91,10 +130,16 @@ public class MainController implements Initializable {
     private TextArea logArea;
 
     private final ObservableList<BatchItemFx> batchItems = FXCollections.observableArrayList();
-    private final SettingsStore settingsStore = new JsonSettingsStore();
-    private BatchRunner batchRunner;
+    private final CachedSettingsStore settingsStore = new CachedSettingsStore(new JsonSettingsStore());
+    private volatile HistoryStore history;
+    private volatile BatchRunner batchRunner;
     private Path outputDir;
     private final ExecutorService uiExecutor = Executors.newSingleThreadExecutor();
+    private final FileIntake intake = new FileIntake();
+    private final DirectoryWalker walker = new DirectoryWalker();
+    private final Set<AtomicBoolean> folderWalks = ConcurrentHashMap.newKeySet();
+    /** Bumped by Clear so items of an intake still in flight are neither added nor submitted afterwards. */
+    private volatile int rowsEpoch;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -102,6 +147,10 @@ public class MainController implements Initializable {
                 Profiles.all().stream().map(ConversionProfileFx::new).toList()));
         profileCombo.getSelectionModel().selectFirst();
         concurrencySpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 8, 2));
+        schedulingCombo.setItems(FXCollections.observableArrayList(SchedulingPolicy.values()));
+        schedulingCombo.getSelectionModel().select(SchedulingPolicy.TableOrder);
+        conflictCombo.setItems(FXCollections.observableArrayList(OutputStaging.ConflictPolicy.values()));
+        conflictCombo.getSelectionModel().select(OutputStaging.ConflictPolicy.Overwrite);
         batchTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         batchTable.setItems(batchItems);
         fileColumn.setCellValueFactory(cell -> {
@@ -126,40 +175,85 @@ public class MainController implements Initializable {
         progressColumn.setCellValueFactory(new PropertyValueFactory<>("progress"));
         outputColumn.setCellValueFactory(new PropertyValueFactory<>("outputPath"));
         messageColumn.setCellValueFactory(new PropertyValueFactory<>("message"));
-        loadSettings();
+        startBackgroundInit();
         outputDirButton.setOnAction(e -> chooseOutputDir());
         addFilesButton.setOnAction(e -> addFiles());
+        addFolderButton.setOnAction(e -> addFolder());
         removeButton.setOnAction(e -> removeSelected());
         clearButton.setOnAction(e -> clearAll());
         startButton.setOnAction(e -> startBatch());
         cancelButton.setOnAction(e -> cancelBatch());
+        runNextButton.setOnAction(e -> runSelectedNext());
         saveLogButton.setOnAction(e -> saveLog());
         LOG.debug("UI initialized");
     }
 
-    private void loadSettings() {
-        AppSettings s = settingsStore.load();
-        LOG.debug("Loaded settings from {}", settingsStore.getSettingsPath());
-        if (s.lastOutputDir() != null) {
+    /** Called when the application stops: writes settings that are still pending. */
+    public void shutdown() {
+        walker.close();
+        intake.close();
+        settingsStore.close();
+        if (history != null) {
+            try {
+                history.close();
+            } catch (IOException e) {
+                LOG.warn("Could not close conversion history", e);
+            }
+        }
+    }
+
+    /**
+     * Settings, history and the SDK classes are loaded off the FX thread, so the window shows without
+     * waiting for Jackson or the history index. The batch executor runs one task at a time, so a batch
+     * started meanwhile only begins once they are ready.
+     */
+    private void startBackgroundInit() {
+        ConversionProfileFx initialProfile = profileCombo.getValue();
+        uiExecutor.submit(() -> {
+            AppSettings s = settingsStore.load();
+            LOG.debug("Loaded settings from {}", settingsStore.getSettingsPath());
+            Platform.runLater(() -> applySettings(s, initialProfile));
+        });
+        uiExecutor.submit(this::openHistory);
+        uiExecutor.submit(CloudConvertFacadeImpl::preload);
+        uiExecutor.submit(JsonSettingsStore::warmUp);
+    }
+
+    /**
+     * History lives next to the settings file. Without it batches still run, just unrecorded.
+     */
+    private void openHistory() {
+        Path dir = settingsStore.getSettingsPath().toAbsolutePath().resolveSibling("history");
+        try {
+            history = new HistoryStore(dir);
+            history.startBackgroundCompaction(Duration.ofHours(6));
+            LOG.debug("Opened conversion history in {}", dir);
+        } catch (IOException e) {
+            LOG.warn("Conversion history unavailable in {}", dir, e);
+        }
+    }
+
+    /**
+     * Fills in the output directory and profile from the settings, unless the user already chose them
+     * while the settings were loading.
+     */
+    private void applySettings(AppSettings s, ConversionProfileFx initialProfile) {
+        if (s.lastOutputDir() != null && outputDir == null) {
             outputDir = s.lastOutputDir();
             outputDirField.setText(outputDir.toString());
         }
-        if (s.lastProfileId() != null) {
-            for (ConversionProfileFx pf : profileCombo.getItems()) {
-                if (s.lastProfileId().equals(pf.getProfile().id())) {
-                    profileCombo.getSelectionModel().select(pf);
-                    break;
-                }
-            }
+        if (s.lastProfileId() != null && profileCombo.getValue() == initialProfile) {
+            profileCombo.getItems().stream().filter(pf -> s.lastProfileId().equals(pf.getProfile().id()))
+                    .findFirst().ifPresent(profileCombo.getSelectionModel()::select);
         }
     }
 
     private void saveSettings() {
         ConversionProfileFx selected = profileCombo.getSelectionModel().getSelectedItem();
-        settingsStore.save(new AppSettings(
-                settingsStore.load().apiKey(),
-                outputDir,
-                selected != null ? selected.getProfile().id() : "mod-mov"));
+        AppSettings stored = settingsStore.load();
+        settingsStore.save(new AppSettings(stored.apiKey(), outputDir,
+                selected != null ? selected.getProfile().id() : "mod-mov",
+                stored.uploadBytesPerSecond(), stored.downloadBytesPerSecond()));
         LOG.debug("Saved settings to {}", settingsStore.getSettingsPath());
     }
 
@@ -177,6 +271,10 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Adds the chosen files in the background. Each file gets the selected profile if it takes the
+     * file's format, otherwise its format's default profile, so one batch can mix file types.
+     */
     private void addFiles() {
         if (outputDir == null) {
             showAlert("Select output directory first");
@@ -186,27 +284,92 @@ public class MainController implements Initializable {
         chooser.setTitle("Select files to convert");
         List<File> files = chooser.showOpenMultipleDialog(addFilesButton.getScene().getWindow());
         if (files != null) {
-            ConversionProfile profile = getSelectedProfile();
-            LOG.debug("Adding {} file(s) with profile {}", files.size(), profile.id());
-            for (File f : files) {
-                BatchItem item = new BatchItem(f.toPath(), profile);
-                Validation.ValidationResult vr = Validation.validate(item);
-                if (!vr.valid() && skipIneligibleCheck.isSelected()) {
-                    item.status = "Skipped";
-                    item.message = vr.message();
-                }
-                batchItems.add(new BatchItemFx(item));
-            }
-            log("Added " + files.size() + " file(s)");
+            ConversionProfile preferred = getSelectedProfile();
+            LOG.debug("Adding {} file(s), preferring profile {}", files.size(), preferred.id());
+            int epoch = rowsEpoch;
+            intake.submit(files.stream().map(File::toPath).toList(),
+                    file -> new BatchItem(file, ProfileRouting.DEFAULT.route(file, preferred)),
+                    skipIneligibleCheck.isSelected(), chunk -> publish(chunk, epoch))
+                    .whenComplete((added, e) -> {
+                        if (e != null) {
+                            LOG.error("File intake failed", e);
+                        } else {
+                            log("Added " + added + " file(s)");
+                        }
+                    });
         }
     }
 
+    /**
+     * Walks a folder in the background and streams the convertible files it finds into the table.
+     * Profiles are routed as for Add Files; with "Mirror folders" outputs keep the file's
+     * sub-directory relative to the folder.
+     */
+    private void addFolder() {
+        if (outputDir == null) {
+            showAlert("Select output directory first");
+            return;
+        }
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Select folder to convert");
+        File dir = chooser.showDialog(addFolderButton.getScene().getWindow());
+        if (dir == null) {
+            return;
+        }
+        Path root = dir.toPath();
+        ConversionProfile preferred = getSelectedProfile();
+        boolean mirror = mirrorFoldersCheck.isSelected();
+        boolean skipIneligible = skipIneligibleCheck.isSelected();
+        ProfileRouting routing = ProfileRouting.DEFAULT;
+        Function<Path, BatchItem> newItem = file -> new BatchItem(file, routing.route(file, preferred),
+                mirror ? root.relativize(file.getParent()) : null);
+        int epoch = rowsEpoch;
+        AtomicBoolean cancel = new AtomicBoolean();
+        folderWalks.add(cancel);
+        LOG.debug("Adding folder {} (mirror={})", root, mirror);
+        CompletableFuture.supplyAsync(() -> walker.walk(root,
+                        files -> intake.submit(files, newItem, skipIneligible, chunk -> publish(chunk, epoch)), cancel))
+                .whenComplete((found, e) -> {
+                    folderWalks.remove(cancel);
+                    if (e != null) {
+                        LOG.error("Folder walk failed for {}", root, e);
+                    } else {
+                        log("Found " + found + " file(s) in " + root);
+                    }
+                });
+    }
+
+    /**
+     * Called on the intake thread with each validated chunk. Rows are added in one change per
+     * chunk, unless the table was cleared since the intake started; a cleared chunk is not submitted
+     * to the running batch either.
+     */
+    private void publish(List<BatchItem> chunk, int epoch) {
+        if (epoch != rowsEpoch) {
+            return;
+        }
+        BatchRunner runner = batchRunner;
+        if (runner != null && runner.isRunning()) {
+            chunk.stream().filter(item -> item.status != BatchItemStatus.Skipped).forEach(runner::submit);
+        }
+        List<BatchItemFx> rows = chunk.stream().map(BatchItemFx::new).toList();
+        Platform.runLater(() -> {
+            if (epoch == rowsEpoch) {
+                batchItems.addAll(rows);
+            }
+        });
+    }
+
     private void removeSelected() {
-        List<BatchItemFx> selected = batchTable.getSelectionModel().getSelectedItems();
-        batchItems.removeAll(selected);
+        List<Integer> selected = new ArrayList<>(batchTable.getSelectionModel().getSelectedIndices());
+        batchTable.getSelectionModel().clearSelection();
+        Rows.removeIndices(batchItems, selected);
     }
 
     private void clearAll() {
+        folderWalks.forEach(cancel -> cancel.set(true));
+        intake.cancel();
+        rowsEpoch++;
         batchItems.clear();
         logArea.clear();
     }
@@ -227,17 +390,22 @@ public class MainController implements Initializable {
             return;
         }
         try {
-            CloudConvertFacade facade = new CloudConvertFacadeImpl(apiKey);
-            batchRunner = new BatchRunner(facade, concurrencySpinner.getValue());
+            batchRunner = createRunner(new CloudConvertFacadeImpl(apiKey));
+            configureRunner(batchRunner, apiKey);
             List<BatchItem> items = batchItems.stream()
                     .map(BatchItemFx::getItem)
-                    .filter(i -> !"Skipped".equals(i.status) && !"Failed".equals(i.status))
+                    .filter(i -> i.status != BatchItemStatus.Skipped && i.status != BatchItemStatus.Failed)
                     .toList();
-            LOG.debug("Starting batch with {} item(s), concurrency={}",
-                    items.size(), concurrencySpinner.getValue());
+            SchedulingPolicy policy = schedulingCombo.getValue() != null
+                    ? schedulingCombo.getValue() : SchedulingPolicy.TableOrder;
+            LOG.debug("Starting batch with {} item(s), concurrency={}, policy={}",
+                    items.size(), concurrencySpinner.getValue(), policy);
             saveSettings();
+            BatchRunner runner = batchRunner;
+            Path out = outputDir;
             uiExecutor.submit(() -> {
-                batchRunner.run(items, outputDir);
+                runner.setHistory(history);
+                runner.run(items, out, policy);
                 Platform.runLater(() -> {
                     batchItems.forEach(BatchItemFx::syncFromItem);
                     log("Batch completed");
@@ -250,6 +418,32 @@ public class MainController implements Initializable {
         }
     }
 
+    private BatchRunner createRunner(CloudConvertFacade facade) {
+        if (!autoConcurrencyCheck.isSelected()) {
+            concurrencyLimitLabel.setText("");
+            return new BatchRunner(facade, concurrencySpinner.getValue());
+        }
+        AimdLimiter limiter = new AimdLimiter(concurrencySpinner.getValue(), AimdLimiter.HARD_MAX);
+        limiter.setListener(limit -> Platform.runLater(() -> concurrencyLimitLabel.setText("limit " + limit)));
+        concurrencyLimitLabel.setText("limit " + limiter.getLimit());
+        LOG.debug("Auto concurrency enabled: start={}, max={}", limiter.getLimit(), limiter.getMaxLimit());
+        return new BatchRunner(facade, limiter);
+    }
+
+    private void configureRunner(BatchRunner runner, String apiKey) {
+        if (conflictCombo.getValue() != null) {
+            runner.setConflictPolicy(conflictCombo.getValue());
+        }
+        runner.setArchiveExport(archiveExportCheck.isSelected());
+        runner.setIncrementalSync(syncCheck.isSelected() ? SyncIndex.Check.Metadata : null);
+        runner.setAsyncFacade(new HttpAsyncCloudConvertFacade(apiKey));
+        AppSettings s = settingsStore.load();
+        if (s.uploadBytesPerSecond() > 0 || s.downloadBytesPerSecond() > 0) {
+            runner.setBandwidth(new BandwidthShaper(BandwidthSchedule.constant(
+                    new BandwidthSchedule.Caps(s.uploadBytesPerSecond(), s.downloadBytesPerSecond(), 0))));
+        }
+    }
+
     private void cancelBatch() {
         if (batchRunner != null) {
             batchRunner.cancel();
@@ -257,6 +451,17 @@ public class MainController implements Initializable {
         }
     }
 
+    private void runSelectedNext() {
+        if (batchRunner == null || !batchRunner.isRunning()) {
+            return;
+        }
+        List<BatchItemFx> selected = batchTable.getSelectionModel().getSelectedItems();
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            batchRunner.runNext(selected.get(i).getItem());
+        }
+        LOG.info("Run next requested for {} item(s)", selected.size());
+    }
+
     private void saveLog() {
         FileChooser chooser = new FileChooser();
         chooser.setTitle("Save log");
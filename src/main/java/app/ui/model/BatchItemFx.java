@@ -1,6 +1,8 @@
 package app.ui.model;
 
 import app.core.BatchItem;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -8,21 +10,17 @@ import javafx.beans.property.StringProperty;
 
 /**
  * JavaFX property wrapper for BatchItem.
+ *
+ * <p>The properties are created the first time the table asks for one, which it only does for rows
+ * it displays; a row that was never shown costs one small object. Syncing skips such rows.
  */
 public class BatchItemFx {
 
     private final BatchItem item;
-    private final StringProperty status = new SimpleStringProperty();
-    private final StringProperty message = new SimpleStringProperty();
-    private final DoubleProperty progress = new SimpleDoubleProperty();
-    private final StringProperty outputPath = new SimpleStringProperty();
+    private Properties properties;
 
     public BatchItemFx(BatchItem item) {
         this.item = item;
-        status.set(item.status);
-        message.set(item.message);
-        progress.set(item.progress);
-        outputPath.set(item.outputPath != null ? item.outputPath.toString() : "");
     }
 
     public BatchItem getItem() {
@@ -30,25 +28,60 @@ public class BatchItemFx {
     }
 
     public StringProperty statusProperty() {
-        return status;
+        return properties().status;
     }
 
     public StringProperty messageProperty() {
-        return message;
+        return properties().message;
     }
 
     public DoubleProperty progressProperty() {
-        return progress;
+        return properties().progress;
     }
 
     public StringProperty outputPathProperty() {
-        return outputPath;
+        return properties().outputPath;
+    }
+
+    /**
+     * True once the properties exist, i.e. the row has been displayed.
+     */
+    public boolean isMaterialized() {
+        return properties != null;
     }
 
     public void syncFromItem() {
-        status.set(item.status);
-        message.set(item.message);
-        progress.set(item.progress);
-        outputPath.set(item.outputPath != null ? item.outputPath.toString() : "");
+        if (properties != null) {
+            properties.sync(item);
+        }
+    }
+
+    private Properties properties() {
+        if (properties == null) {
+            properties = new Properties();
+            properties.sync(item);
+        }
+        return properties;
+    }
+
+    private static String describeOutputs(BatchItem item) {
+        if (item.outputPaths.size() > 1) {
+            return item.outputPaths.stream().map(Path::toString).collect(Collectors.joining(", "));
+        }
+        return item.outputPath != null ? item.outputPath.toString() : "";
+    }
+
+    private static final class Properties {
+        private final StringProperty status = new SimpleStringProperty();
+        private final StringProperty message = new SimpleStringProperty();
+        private final DoubleProperty progress = new SimpleDoubleProperty();
+        private final StringProperty outputPath = new SimpleStringProperty();
+
+        void sync(BatchItem item) {
+            status.set(item.status.name());
+            message.set(item.message);
+            progress.set(item.progress);
+            outputPath.set(describeOutputs(item));
+        }
     }
 }
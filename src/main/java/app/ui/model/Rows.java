@@ -0,0 +1,67 @@
+package app.ui.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import javafx.collections.ObservableList;
+
+/**
+ * Bulk edits of table rows by index.
+ */
+public final class Rows {
+
+    /** Beyond this many separate ranges, the list is rebuilt in one pass instead. */
+    static final int MAX_RANGE_REMOVALS = 16;
+
+    private Rows() {
+    }
+
+    /**
+     * Removes the rows at {@code indices} (any order, duplicates and out-of-range indices ignored).
+     * A few contiguous ranges are removed range by range from the end; a scattered selection is
+     * removed by one linear rebuild and a single list change, never by searching for each row.
+     *
+     * @return number of rows removed
+     */
+    public static <T> int removeIndices(ObservableList<T> rows, Collection<Integer> indices) {
+        int[] sorted = indices.stream().mapToInt(Integer::intValue)
+                .filter(i -> i >= 0 && i < rows.size()).sorted().distinct().toArray();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        List<int[]> ranges = ranges(sorted);
+        if (ranges.size() <= MAX_RANGE_REMOVALS) {
+            for (int r = ranges.size() - 1; r >= 0; r--) {
+                rows.remove(ranges.get(r)[0], ranges.get(r)[1]);
+            }
+        } else {
+            BitSet removed = new BitSet(rows.size());
+            Arrays.stream(sorted).forEach(removed::set);
+            List<T> kept = new ArrayList<>(rows.size() - sorted.length);
+            for (int i = removed.nextClearBit(0); i < rows.size(); i = removed.nextClearBit(i + 1)) {
+                kept.add(rows.get(i));
+            }
+            rows.setAll(kept);
+        }
+        return sorted.length;
+    }
+
+    /**
+     * Sorted distinct indices as half-open [from, to) ranges.
+     */
+    private static List<int[]> ranges(int[] sorted) {
+        List<int[]> ranges = new ArrayList<>();
+        int start = sorted[0];
+        for (int i = 1; i <= sorted.length; i++) {
+            if (i == sorted.length || sorted[i] != sorted[i - 1] + 1) {
+                ranges.add(new int[] {start, sorted[i - 1] + 1});
+                if (i < sorted.length) {
+                    start = sorted[i];
+                }
+            }
+        }
+        return ranges;
+    }
+}
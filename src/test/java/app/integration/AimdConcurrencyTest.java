@@ -0,0 +1,150 @@
+package app.integration;
+
+import app.core.AimdLimiter;
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.HttpStatusException;
+import app.core.Profiles;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Auto concurrency converges on a mock server that rejects requests above a fixed capacity with 429.
+ */
+class AimdConcurrencyTest {
+
+    private static final int CAPACITY = 4;
+    private static final int ITEMS = 240;
+
+    @Test
+    void limitRisesFromOneAndSettlesNearServerCapacity() throws Exception {
+        CapacityDispatcher dispatcher = new CapacityDispatcher(CAPACITY, 40);
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        try {
+            Path dir = Files.createTempDirectory("aimd");
+            List<BatchItem> items = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Path f = dir.resolve("clip" + i + ".mod");
+                Files.writeString(f, "x" + i);
+                items.add(new BatchItem(f, Profiles.MOD_TO_MOV));
+            }
+            AimdLimiter limiter = new AimdLimiter(1, AimdLimiter.HARD_MAX);
+            AtomicInteger maxLimit = new AtomicInteger(1);
+            limiter.setListener(l -> maxLimit.accumulateAndGet(l, Math::max));
+
+            new BatchRunner(new HttpUploadFacade(server.url("/upload").url()), limiter).run(items, dir);
+
+            long done = items.stream().filter(i -> i.status == BatchItemStatus.Done).count();
+            assertThat(maxLimit.get()).isGreaterThanOrEqualTo(CAPACITY);
+            assertThat(dispatcher.rejected.get()).isGreaterThan(0);
+            assertThat(limiter.getLimit()).isLessThanOrEqualTo(CAPACITY * 2);
+            assertThat(done).isGreaterThan(ITEMS * 3L / 4);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static final class CapacityDispatcher extends Dispatcher {
+
+        private final int capacity;
+        private final long serviceMs;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        CapacityDispatcher(int capacity, long serviceMs) {
+            this.capacity = capacity;
+            this.serviceMs = serviceMs;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            if (inFlight.incrementAndGet() > capacity) {
+                inFlight.decrementAndGet();
+                rejected.incrementAndGet();
+                return new MockResponse().setResponseCode(429);
+            }
+            try {
+                Thread.sleep(serviceMs);
+                return new MockResponse().setResponseCode(201);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Uploads hit the mock server; the remaining pipeline steps complete immediately.
+     */
+    private static final class HttpUploadFacade implements CloudConvertFacade {
+
+        private final URL uploadUrl;
+
+        HttpUploadFacade(URL uploadUrl) {
+            this.uploadUrl = uploadUrl;
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) throws Exception {
+            HttpURLConnection conn = (HttpURLConnection) uploadUrl.openConnection();
+            try {
+                int code = conn.getResponseCode();
+                if (code >= 400) {
+                    throw new HttpStatusException(code, "HTTP " + code);
+                }
+                return new TaskResult("upload-" + file.getFileName(), "finished", Map.of());
+            } finally {
+                conn.disconnect();
+            }
+        }
+
+        @Override
+        public String createJobForFile(String uploadTaskId, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            return exportTaskName;
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            return new JobResult("finished", List.of(Map.of("id", "export", "name", jobId)));
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "finished", Map.of("files", List.of(Map.of("url", "mem://out"))));
+        }
+
+        @Override
+        public InputStream download(String url) {
+            return new ByteArrayInputStream("converted".getBytes());
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package app.integration;
+
+import app.core.ApiCall;
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.ConversionProfile;
+import app.core.Profiles;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.LatencyDistribution;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-item CloudConvert call budget: one upload, one job, N polls and one download per output. Export
+ * URLs come from the finished job, so no task is fetched on its own.
+ */
+class ApiCallBudgetTest {
+
+    private static final int ITEMS = 6;
+
+    @TempDir
+    Path dir;
+
+    private List<BatchItem> items;
+
+    @Test
+    void singleOutputItemsStayWithinTheCallBudget() throws Exception {
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config())) {
+            BatchRunner runner = run(simulator, Profiles.MOD_TO_MOV, "clip", ".mod");
+
+            assertWithinBudget(runner, 1);
+            assertThat(simulator.counters()).doesNotContainKey("GET /v2/tasks/{id}");
+        }
+    }
+
+    @Test
+    void multiOutputItemsDownloadOncePerOutput() throws Exception {
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config())) {
+            BatchRunner runner = run(simulator, Profiles.MP4_TO_MP3_AND_MOV, "talk", ".mp4");
+
+            assertWithinBudget(runner, 2);
+            assertThat(simulator.counters()).doesNotContainKey("GET /v2/tasks/{id}");
+        }
+    }
+
+    private void assertWithinBudget(BatchRunner runner, int outputs) {
+        assertThat(items).allSatisfy(item -> {
+            assertThat(item.status).isEqualTo(BatchItemStatus.Done);
+            assertThat(item.apiCalls.get(ApiCall.Upload)).isEqualTo(1);
+            assertThat(item.apiCalls.get(ApiCall.CreateJob)).isEqualTo(1);
+            assertThat(item.apiCalls.get(ApiCall.PollJob)).isGreaterThanOrEqualTo(1);
+            assertThat(item.apiCalls.get(ApiCall.GetTask)).isZero();
+            assertThat(item.apiCalls.get(ApiCall.Download)).isEqualTo(outputs);
+            assertThat(item.apiCalls.get(ApiCall.Cancel)).isZero();
+        });
+        int polls = items.stream().mapToInt(i -> i.apiCalls.get(ApiCall.PollJob)).sum();
+        assertThat(runner.apiCalls().total()).isEqualTo(ITEMS * (2 + outputs) + polls);
+    }
+
+    private BatchRunner run(CloudConvertSimulator simulator, ConversionProfile profile, String name, String ext)
+            throws Exception {
+        Path out = Files.createDirectories(dir.resolve("out"));
+        items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Path f = Files.writeString(dir.resolve(name + i + ext), name + " " + i);
+            items.add(new BatchItem(f, profile));
+        }
+        BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, Duration.ofSeconds(10)), 3);
+        runner.setPollIntervalMs(10);
+        runner.run(items, out);
+        return runner;
+    }
+
+    private static SimulatorConfig config() {
+        return SimulatorConfig.defaults().withConversionLatency(LatencyDistribution.uniform(10, 40));
+    }
+}
@@ -0,0 +1,146 @@
+package app.integration;
+
+import app.core.ApiCall;
+import app.core.AsyncCloudConvertFacade;
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.HttpAsyncCloudConvertFacade;
+import app.core.Profiles;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.LatencyDistribution;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BatchRunner polling jobs through the async facade against the CloudConvert simulator: a worker moves
+ * on to the next upload once its job is created, so far more items convert at once than there are workers.
+ */
+class AsyncJobPollingTest {
+
+    private static final int WORKERS = 2;
+
+    @TempDir
+    Path dir;
+
+    private Path out;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        out = Files.createDirectories(dir.resolve("out"));
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void workersUploadTheNextItemsWhileJobsConvert() throws Exception {
+        int count = 24;
+        SimulatorConfig config = SimulatorConfig.defaults().withConversionLatency(LatencyDistribution.fixed(800));
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            BatchRunner runner = runner(simulator);
+            runner.setAsyncFacade(new HttpAsyncCloudConvertFacade(URI.create(simulator.apiUrl()), "test-key",
+                    executor));
+            List<BatchItem> batch = items(count, "clip", ".mod");
+
+            CompletableFuture<Void> run = CompletableFuture.runAsync(() -> runner.run(batch, out));
+            int peakConverting = 0;
+            while (!run.isDone()) {
+                peakConverting = Math.max(peakConverting,
+                        (int) batch.stream().filter(i -> i.status == BatchItemStatus.Converting).count());
+                Thread.sleep(10);
+            }
+            run.join();
+
+            assertThat(batch).allSatisfy(i -> {
+                assertThat(i.status).isEqualTo(BatchItemStatus.Done);
+                assertThat(i.convertMs).isGreaterThanOrEqualTo(800);
+                assertThat(i.apiCalls.get(ApiCall.PollJob)).isGreaterThanOrEqualTo(1);
+            });
+            assertThat(Files.readString(batch.get(0).outputPath)).startsWith("converted ");
+            assertThat(peakConverting).isGreaterThan(count / 2);
+            int polls = batch.stream().mapToInt(i -> i.apiCalls.get(ApiCall.PollJob)).sum();
+            assertThat(runner.apiCalls().get(ApiCall.PollJob)).isEqualTo(polls);
+        }
+    }
+
+    @Test
+    void failedJobsFailOnlyTheirOwnItems() throws Exception {
+        SimulatorConfig config = SimulatorConfig.defaults().withSeed(7).withConversionErrors(0.5)
+                .withConversionLatency(LatencyDistribution.uniform(10, 40));
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            BatchRunner runner = runner(simulator);
+            runner.setAsyncFacade(AsyncCloudConvertFacade.fromSync(
+                    new SimulatorFacade(simulator, Duration.ofSeconds(10)), executor));
+            List<BatchItem> batch = items(12, "talk", ".mp4");
+
+            runner.run(batch, out);
+
+            assertThat(batch).extracting(i -> i.status)
+                    .contains(BatchItemStatus.Done, BatchItemStatus.Failed)
+                    .containsOnly(BatchItemStatus.Done, BatchItemStatus.Failed);
+            assertThat(batch).filteredOn(i -> i.status == BatchItemStatus.Failed)
+                    .allSatisfy(i -> assertThat(i.message).isEqualTo("Job failed"));
+            assertThat(out.resolve(".tmp")).isEmptyDirectory();
+        }
+    }
+
+    @Test
+    void cancelFinishesItemsWhoseJobsAreStillConverting() throws Exception {
+        SimulatorConfig config = SimulatorConfig.defaults().withConversionLatency(LatencyDistribution.fixed(60_000));
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            BatchRunner runner = runner(simulator);
+            runner.setAsyncFacade(new HttpAsyncCloudConvertFacade(URI.create(simulator.apiUrl()), "test-key",
+                    executor));
+            List<BatchItem> batch = items(6, "clip", ".mod");
+
+            CompletableFuture<Void> run = CompletableFuture.runAsync(() -> runner.run(batch, out));
+            while (batch.stream().anyMatch(i -> i.status != BatchItemStatus.Converting)) {
+                Thread.sleep(10);
+            }
+            runner.cancel();
+            run.get(5, TimeUnit.SECONDS);
+
+            assertThat(batch).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Canceled));
+            assertThat(runner.isRunning()).isFalse();
+            assertThat(out).isEmptyDirectory();
+        }
+    }
+
+    private static BatchRunner runner(CloudConvertSimulator simulator) {
+        BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, Duration.ofSeconds(10)), WORKERS);
+        runner.setPollIntervalMs(50);
+        return runner;
+    }
+
+    private List<BatchItem> items(int count, String name, String ext) throws Exception {
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path f = Files.writeString(dir.resolve(name + i + ext), name + " " + i);
+            items.add(new BatchItem(f, ext.equals(".mp4") ? Profiles.MP4_TO_MP3_AND_MOV : Profiles.MOD_TO_MOV));
+        }
+        return items;
+    }
+}
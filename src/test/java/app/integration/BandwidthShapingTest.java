@@ -0,0 +1,139 @@
+package app.integration;
+
+import app.core.BandwidthSchedule;
+import app.core.BandwidthSchedule.Caps;
+import app.core.BandwidthShaper;
+import app.core.SegmentedDownload;
+import app.core.StreamingUpload;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+/**
+ * Transfers against a local server under a {@link BandwidthShaper}; the achieved rate has to be
+ * within 5% of the cap.
+ */
+class BandwidthShapingTest {
+
+    private static final int MIB = 1024 * 1024;
+    private static final long RATE = 2L * MIB;
+    private static final byte[] CONTENT = new byte[4 * MIB];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @TempDir
+    Path dir;
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new TransferDispatcher());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    void uploadIsPacedToTheUploadCap() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper(BandwidthSchedule.constant(new Caps(RATE, 0, 0)));
+
+        long start = System.nanoTime();
+        upload(shaper);
+
+        assertThat(bytesPerSecond(CONTENT.length, start)).isCloseTo(RATE, withinPercentage(5));
+    }
+
+    @Test
+    void downloadIsPacedToTheDownloadCap() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper(BandwidthSchedule.constant(new Caps(0, RATE, 0)));
+        Path target = dir.resolve("download.part");
+
+        long start = System.nanoTime();
+        SegmentedDownload.download(downloadUrl(), target, shaper.download());
+
+        assertThat(bytesPerSecond(CONTENT.length, start)).isCloseTo(RATE, withinPercentage(5));
+        assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void uploadsAndDownloadsShareTheTotalCap() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper(BandwidthSchedule.constant(new Caps(0, 0, RATE)));
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() -> {
+            try {
+                upload(shaper);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        SegmentedDownload.download(downloadUrl(), dir.resolve("download.part"), shaper.download());
+        upload.join();
+
+        assertThat(bytesPerSecond(2L * CONTENT.length, start)).isCloseTo(RATE, withinPercentage(5));
+    }
+
+    private void upload(BandwidthShaper shaper) throws Exception {
+        Path file = Files.write(Files.createTempFile(dir, "upload", ".bin"), CONTENT);
+        StreamingUpload.upload(server.url("/upload").uri(), Map.of("key", "value"), file, shaper.upload());
+    }
+
+    private URI downloadUrl() {
+        return server.url("/export/clip.mov").uri();
+    }
+
+    private static double bytesPerSecond(long bytes, long startNanos) {
+        return bytes * 1e9 / (System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Accepts uploads and serves {@link #CONTENT} with range support, both as fast as it can.
+     */
+    private static final class TransferDispatcher extends Dispatcher {
+
+        private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if ("POST".equals(request.getMethod())) {
+                return new MockResponse().setResponseCode(201);
+            }
+            String range = request.getHeader("Range");
+            Matcher m = range != null ? RANGE.matcher(range) : null;
+            if (m == null || !m.matches()) {
+                return new MockResponse().setBody(new Buffer().write(CONTENT));
+            }
+            int start = Integer.parseInt(m.group(1));
+            int end = Math.min(CONTENT.length - 1, Integer.parseInt(m.group(2)));
+            return new MockResponse()
+                    .setResponseCode(206)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + CONTENT.length)
+                    .setBody(new Buffer().write(CONTENT, start, end - start + 1));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package app.integration;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.Profiles;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.LatencyDistribution;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The batch pipeline end to end over HTTP against the local CloudConvert simulator.
+ */
+class CloudConvertSimulatorTest {
+
+    private static final int ITEMS = 12;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void batchConvertsEveryFileThroughTheSimulatedApi() throws Exception {
+        SimulatorConfig config = SimulatorConfig.defaults().withConversionLatency(LatencyDistribution.uniform(10, 40));
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            List<BatchItem> items = run(simulator, Duration.ofSeconds(10));
+
+            assertThat(items).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Done));
+            assertThat(Files.readString(items.get(0).outputPath)).startsWith("converted ");
+            assertThat(simulator.counters())
+                    .containsEntry("POST /v2/jobs", (long) ITEMS)
+                    .containsEntry("POST /upload/{id}", (long) ITEMS)
+                    .doesNotContainKeys("fault 429", "fault 5xx", "fault timeout");
+        }
+    }
+
+    @Test
+    void rejectedAndUnansweredApiCallsFailTheirItems() throws Exception {
+        SimulatorConfig config = SimulatorConfig.defaults().withApiFaults(0.5, 0.25, 0.25);
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            List<BatchItem> items = run(simulator, Duration.ofMillis(300));
+
+            assertThat(items).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Failed));
+            assertThat(simulator.counters()).containsKeys("fault 429", "fault 5xx", "fault timeout");
+        }
+    }
+
+    @Test
+    void conversionErrorsFailOnlyTheAffectedItems() throws Exception {
+        SimulatorConfig config = SimulatorConfig.defaults().withSeed(7).withConversionErrors(0.5);
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            List<BatchItem> items = run(simulator, Duration.ofSeconds(10));
+
+            assertThat(items).extracting(i -> i.status)
+                    .contains(BatchItemStatus.Done, BatchItemStatus.Failed)
+                    .containsOnly(BatchItemStatus.Done, BatchItemStatus.Failed);
+        }
+    }
+
+    private List<BatchItem> run(CloudConvertSimulator simulator, Duration requestTimeout) throws Exception {
+        Path out = Files.createDirectories(dir.resolve("out"));
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Path f = Files.writeString(dir.resolve("clip" + i + ".mod"), "clip " + i);
+            items.add(new BatchItem(f, Profiles.MOD_TO_MOV));
+        }
+        BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, requestTimeout), 4);
+        runner.setPollIntervalMs(10);
+        runner.run(items, out);
+        return items;
+    }
+}
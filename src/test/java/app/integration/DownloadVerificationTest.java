@@ -0,0 +1,194 @@
+package app.integration;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.ContentHash;
+import app.core.DownloadIntegrityException;
+import app.core.DownloadResult;
+import app.core.Profiles;
+import app.core.SegmentedDownload;
+import app.core.Throttle;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Downloads are hashed and length-checked as they stream in: the digest comes out of the download
+ * itself, whichever order the ranges arrive in, and short or corrupted bodies never reach the output.
+ */
+class DownloadVerificationTest {
+
+    private static final int MIB = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    void parallelRangesYieldTheDigestOfTheWholeFile() throws Exception {
+        byte[] content = randomBytes(20 * MIB + 17);
+        server.setDispatcher(new RangeDispatcher(content, null));
+        Path target = dir.resolve("clip.part");
+
+        DownloadResult result = SegmentedDownload.download(url(), target, Throttle.NONE);
+
+        assertThat(server.getRequestCount()).isGreaterThan(2);
+        assertThat(result.bytes()).isEqualTo(content.length);
+        assertThat(result.sha256()).isEqualTo(sha256Hex(content)).isEqualTo(ContentHash.sha256(target));
+    }
+
+    @Test
+    void matchingServerChecksumIsAccepted() throws Exception {
+        byte[] content = randomBytes(3 * MIB);
+        server.setDispatcher(new RangeDispatcher(content, "sha-256=:" + sha256Base64(content) + ":"));
+
+        DownloadResult result = SegmentedDownload.download(url(), dir.resolve("a.part"), Throttle.NONE);
+
+        assertThat(result.sha256()).isEqualTo(sha256Hex(content));
+    }
+
+    @Test
+    void mismatchingServerChecksumIsRejected() {
+        byte[] content = randomBytes(3 * MIB);
+        server.setDispatcher(new RangeDispatcher(content, "sha-256=:" + sha256Base64(new byte[1]) + ":"));
+
+        assertThatThrownBy(() -> SegmentedDownload.download(url(), dir.resolve("a.part"), Throttle.NONE))
+                .isInstanceOf(DownloadIntegrityException.class)
+                .hasMessageContaining("SHA-256");
+    }
+
+    @Test
+    void bodyCutShortOfContentLengthIsRejected() {
+        server.enqueue(new MockResponse()
+                .setBody(new Buffer().write(randomBytes(MIB)))
+                .setHeader("Content-Length", 2 * MIB)
+                .setSocketPolicy(SocketPolicy.DISCONNECT_AT_END));
+
+        assertThatThrownBy(() -> SegmentedDownload.download(url(), dir.resolve("a.part"), Throttle.NONE))
+                .isInstanceOf(DownloadIntegrityException.class)
+                .hasMessageContaining("of " + 2 * MIB + " bytes");
+    }
+
+    @Test
+    void batchRecordsTheDigestOfEveryOutput() throws Exception {
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(SimulatorConfig.defaults())) {
+            BatchItem item = runOne(simulator);
+
+            assertThat(item.status).isEqualTo(BatchItemStatus.Done);
+            assertThat(item.outputDigests).hasSize(item.outputPaths.size());
+            for (int i = 0; i < item.outputPaths.size(); i++) {
+                assertThat(item.outputDigests.get(i)).isEqualTo(ContentHash.sha256(item.outputPaths.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void truncatedDownloadIsNeverCommitted() throws Exception {
+        SimulatorConfig config = SimulatorConfig.defaults().withTruncatedDownloads(1.0);
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            BatchItem item = runOne(simulator);
+
+            assertThat(item.status).isEqualTo(BatchItemStatus.Failed);
+            assertThat(item.outputDigests).isEmpty();
+            try (Stream<Path> files = Files.walk(dir.resolve("out"))) {
+                assertThat(files.filter(Files::isRegularFile)).isEmpty();
+            }
+        }
+    }
+
+    private BatchItem runOne(CloudConvertSimulator simulator) throws Exception {
+        Path input = Files.writeString(dir.resolve("talk.mp4"), "talk");
+        BatchItem item = new BatchItem(input, Profiles.MP4_TO_MP3_AND_MOV);
+        BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, Duration.ofSeconds(10)), 1);
+        runner.setPollIntervalMs(10);
+        runner.run(List.of(item), Files.createDirectories(dir.resolve("out")));
+        return item;
+    }
+
+    private URI url() {
+        return server.url("/export/clip.mov").uri();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256Hex(byte[] content) {
+        return HexFormat.of().formatHex(ContentHash.newSha256().digest(content));
+    }
+
+    private static String sha256Base64(byte[] content) {
+        return Base64.getEncoder().encodeToString(ContentHash.newSha256().digest(content));
+    }
+
+    /**
+     * Serves {@code content} in whatever byte ranges are asked for, announcing {@code reprDigest} if set.
+     */
+    private static final class RangeDispatcher extends Dispatcher {
+
+        private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+        private final byte[] content;
+        private final String reprDigest;
+
+        private RangeDispatcher(byte[] content, String reprDigest) {
+            this.content = content;
+            this.reprDigest = reprDigest;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            Matcher m = RANGE.matcher(String.valueOf(request.getHeader("Range")));
+            if (!m.matches()) {
+                return new MockResponse().setResponseCode(400);
+            }
+            int start = Integer.parseInt(m.group(1));
+            int end = Math.min(content.length - 1, Integer.parseInt(m.group(2)));
+            MockResponse response = new MockResponse()
+                    .setResponseCode(206)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length)
+                    .setBody(new Buffer().write(content, start, end - start + 1));
+            return reprDigest != null ? response.setHeader("Repr-Digest", reprDigest) : response;
+        }
+    }
+}
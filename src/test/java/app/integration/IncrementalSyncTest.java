@@ -0,0 +1,127 @@
+package app.integration;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.OutputStaging;
+import app.core.Profiles;
+import app.core.SyncIndex;
+import app.persistence.HistoryStore;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Re-running a batch over an unchanged folder in incremental mode converts nothing and makes no
+ * CloudConvert calls; an input changed since its output was written is converted again.
+ */
+class IncrementalSyncTest {
+
+    private static final int ITEMS = 5;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void unchangedInputsAreSkippedWithoutCallingTheApi() throws Exception {
+        List<Path> inputs = inputs();
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(SimulatorConfig.defaults());
+                HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            List<BatchItem> first = run(simulator, history, inputs);
+            assertThat(first).allSatisfy(item -> assertThat(item.status).isEqualTo(BatchItemStatus.Done));
+
+            Files.setLastModifiedTime(inputs.get(0), FileTime.from(Instant.now().plusSeconds(60)));
+            BatchRunner runner = runner(simulator, history);
+            List<BatchItem> second = items(inputs);
+            runner.run(second, dir.resolve("out"));
+
+            assertThat(second.get(0).status).isEqualTo(BatchItemStatus.Done);
+            assertThat(second.subList(1, ITEMS)).allSatisfy(item -> {
+                assertThat(item.status).isEqualTo(BatchItemStatus.Skipped);
+                assertThat(item.message).isEqualTo("Up to date");
+                assertThat(item.outputPath).exists();
+            });
+            assertThat(runner.apiCalls().total()).isEqualTo(second.get(0).apiCalls.total());
+        }
+    }
+
+    @Test
+    void withoutIncrementalSyncEverythingIsConvertedAgain() throws Exception {
+        List<Path> inputs = inputs();
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(SimulatorConfig.defaults());
+                HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            run(simulator, history, inputs);
+            BatchRunner runner = runner(simulator, history);
+            runner.setIncrementalSync(null);
+            List<BatchItem> second = items(inputs);
+            runner.run(second, dir.resolve("out"));
+
+            assertThat(second).allSatisfy(item -> assertThat(item.status).isEqualTo(BatchItemStatus.Done));
+        }
+    }
+
+    @Test
+    void outputsSavedUnderASuffixAreSkippedOnTheNextRun() throws Exception {
+        List<Path> inputs = inputs();
+        Path taken = Files.writeString(Files.createDirectories(dir.resolve("out")).resolve("clip0.mov"), "other");
+        Files.setLastModifiedTime(taken, FileTime.from(Instant.now().minusSeconds(3600)));
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(SimulatorConfig.defaults());
+                HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            BatchRunner first = runner(simulator, history);
+            first.setConflictPolicy(OutputStaging.ConflictPolicy.Suffix);
+            List<BatchItem> converted = items(inputs);
+            first.run(converted, dir.resolve("out"));
+            assertThat(converted.get(0).outputPath).isNotEqualTo(taken);
+
+            BatchRunner second = runner(simulator, history);
+            second.setConflictPolicy(OutputStaging.ConflictPolicy.Suffix);
+            List<BatchItem> rerun = items(inputs);
+            second.run(rerun, dir.resolve("out"));
+
+            assertThat(rerun).allSatisfy(item -> assertThat(item.status).isEqualTo(BatchItemStatus.Skipped));
+            assertThat(rerun.get(0).outputPath).isEqualTo(converted.get(0).outputPath);
+            assertThat(second.apiCalls().total()).isZero();
+        }
+    }
+
+    private List<BatchItem> run(CloudConvertSimulator simulator, HistoryStore history, List<Path> inputs)
+            throws Exception {
+        List<BatchItem> items = items(inputs);
+        runner(simulator, history).run(items, Files.createDirectories(dir.resolve("out")));
+        return items;
+    }
+
+    private static BatchRunner runner(CloudConvertSimulator simulator, HistoryStore history) {
+        BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, Duration.ofSeconds(10)), 2);
+        runner.setPollIntervalMs(10);
+        runner.setHistory(history);
+        runner.setIncrementalSync(SyncIndex.Check.Metadata);
+        return runner;
+    }
+
+    private List<Path> inputs() throws Exception {
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Path input = Files.writeString(dir.resolve("clip" + i + ".mod"), "clip " + i);
+            Files.setLastModifiedTime(input, FileTime.from(Instant.now().minusSeconds(60)));
+            inputs.add(input);
+        }
+        return inputs;
+    }
+
+    private static List<BatchItem> items(List<Path> inputs) {
+        return inputs.stream().map(input -> new BatchItem(input, Profiles.MOD_TO_MOV)).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package app.integration;
+
+import app.core.HttpStatusException;
+import app.core.SegmentedDownload;
+import app.core.Throttle;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs segmented downloads against a stand-in export host that throttles every connection.
+ */
+class SegmentedDownloadTest {
+
+    private static final int MIB = 1024 * 1024;
+    private static final long BYTES_PER_SECOND_PER_CONNECTION = 16L * MIB;
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    void largeFileIsFetchedInParallelRangesFasterThanOneThrottledStream() throws Exception {
+        byte[] content = randomBytes(32 * MIB);
+        RangeDispatcher dispatcher = new RangeDispatcher(content, true);
+        server.setDispatcher(dispatcher);
+        Path target = Files.createTempFile("segmented", ".part");
+
+        long start = System.nanoTime();
+        long bytes = SegmentedDownload.download(server.url("/export/clip.mov").uri(), target);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long singleStreamMs = content.length * 1000L / BYTES_PER_SECOND_PER_CONNECTION;
+        assertThat(bytes).isEqualTo(content.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+        assertThat(dispatcher.rangeRequests.get()).isGreaterThan(2);
+        assertThat(elapsedMs).isLessThan(singleStreamMs / 2);
+    }
+
+    @Test
+    void serverWithoutRangeSupportIsStreamedInOneRequest() throws Exception {
+        byte[] content = randomBytes(3 * MIB + 5);
+        server.setDispatcher(new RangeDispatcher(content, false));
+        Path target = Files.createTempFile("single", ".part");
+
+        long bytes = SegmentedDownload.download(server.url("/export/a.jpg").uri(), target);
+
+        assertThat(bytes).isEqualTo(content.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void smallFileIsCompleteAfterTheProbe() throws Exception {
+        byte[] content = randomBytes(1000);
+        server.setDispatcher(new RangeDispatcher(content, true));
+        Path target = Files.createTempFile("small", ".part");
+
+        SegmentedDownload.download(server.url("/export/a.jpg").uri(), target);
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void httpErrorSurfacesStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(403));
+        Path target = Files.createTempFile("denied", ".part");
+
+        assertThatThrownBy(() -> SegmentedDownload.download(server.url("/export/a.jpg").uri(), target))
+                .isInstanceOf(HttpStatusException.class);
+    }
+
+    @Test
+    void interruptedThrottleIsNotRetried() throws Exception {
+        server.setDispatcher(new RangeDispatcher(randomBytes(3 * MIB), true));
+        Path target = Files.createTempFile("interrupted", ".part");
+        AtomicLong passed = new AtomicLong();
+        Throttle interruptedAfterProbe = bytes -> {
+            if (passed.addAndGet(bytes) > SegmentedDownload.PROBE_BYTES) {
+                throw new InterruptedIOException("Interrupted while throttled");
+            }
+        };
+
+        assertThatThrownBy(() -> SegmentedDownload.download(server.url("/export/clip.mov").uri(), target,
+                interruptedAfterProbe)).isInstanceOf(InterruptedIOException.class);
+        assertThat(server.getRequestCount()).as("probe and one range, no retry").isEqualTo(2);
+    }
+
+    @Test
+    void planGrowsConnectionsWithSizeUpToCap() {
+        assertThat(SegmentedDownload.plan(2L * MIB).parallelism()).isEqualTo(1);
+        SegmentedDownload.Plan huge = SegmentedDownload.plan(8L * 1024 * MIB);
+        assertThat(huge.parallelism()).isEqualTo(8);
+        assertThat(huge.segmentBytes()).isEqualTo(64L * MIB);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Serves {@code content}, honouring single byte ranges if asked to, at a fixed rate per connection.
+     */
+    private static final class RangeDispatcher extends Dispatcher {
+
+        private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+        private final byte[] content;
+        private final boolean rangesSupported;
+        private final AtomicInteger rangeRequests = new AtomicInteger();
+
+        private RangeDispatcher(byte[] content, boolean rangesSupported) {
+            this.content = content;
+            this.rangesSupported = rangesSupported;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String range = request.getHeader("Range");
+            Matcher m = range != null ? RANGE.matcher(range) : null;
+            if (!rangesSupported || m == null || !m.matches()) {
+                return throttled(new MockResponse().setBody(new Buffer().write(content)));
+            }
+            rangeRequests.incrementAndGet();
+            int start = Integer.parseInt(m.group(1));
+            int end = Math.min(content.length - 1, Integer.parseInt(m.group(2)));
+            return throttled(new MockResponse()
+                    .setResponseCode(206)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length)
+                    .setBody(new Buffer().write(content, start, end - start + 1)));
+        }
+
+        private static MockResponse throttled(MockResponse response) {
+            return response.throttleBody(BYTES_PER_SECOND_PER_CONNECTION / 10, 100, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package app.integration;
+
+import app.core.HttpStatusException;
+import app.core.StreamingUpload;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingUploadTest {
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    void multipartBodyCarriesParametersThenFileBytes() throws Exception {
+        Path file = Files.createTempFile("upload", ".mod");
+        byte[] content = new byte[StreamingUpload.CHUNK_SIZE * 3 + 17];
+        Arrays.fill(content, (byte) 'x');
+        Files.write(file, content);
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("expires", "1700000000");
+        params.put("signature", "abc");
+        server.enqueue(new MockResponse().setResponseCode(201));
+
+        long sent = StreamingUpload.upload(server.url("/upload").uri(), params, file);
+
+        RecordedRequest request = server.takeRequest();
+        String body = request.getBody().readString(StandardCharsets.UTF_8);
+        assertThat(sent).isEqualTo(content.length);
+        assertThat(request.getHeader("Content-Type")).startsWith("multipart/form-data; boundary=");
+        assertThat(request.getHeader("Transfer-Encoding")).isNull();
+        assertThat(Long.parseLong(request.getHeader("Content-Length"))).isEqualTo(request.getBodySize());
+        assertThat(body).contains("name=\"expires\"\r\n\r\n1700000000\r\n");
+        assertThat(body.indexOf("name=\"signature\"")).isLessThan(body.indexOf("name=\"file\""));
+        assertThat(body).contains("filename=\"" + file.getFileName() + "\"");
+        assertThat(body).contains(new String(content, StandardCharsets.UTF_8));
+        assertThat(body).endsWith("--\r\n");
+    }
+
+    @Test
+    void redirectAfterUploadCountsAsSuccess() throws Exception {
+        Path file = Files.createTempFile("upload", ".jpg");
+        Files.writeString(file, "x");
+        server.enqueue(new MockResponse().setResponseCode(303).setHeader("Location", "/done"));
+
+        assertThat(StreamingUpload.upload(server.url("/upload").uri(), Map.of(), file)).isEqualTo(1);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void errorStatusSurfacesAsHttpStatusException() throws Exception {
+        Path file = Files.createTempFile("upload", ".jpg");
+        Files.writeString(file, "x");
+        server.enqueue(new MockResponse().setResponseCode(429));
+
+        assertThatThrownBy(() -> StreamingUpload.upload(server.url("/upload").uri(), Map.of(), file))
+                .isInstanceOf(HttpStatusException.class)
+                .satisfies(e -> assertThat(((HttpStatusException) e).getStatusCode()).isEqualTo(429));
+    }
+}
@@ -0,0 +1,133 @@
+package app.invariants;
+
+import app.core.ArchiveExport;
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.OutputStaging;
+import app.core.Profiles;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Invariant: An archive entry is only ever written to the target reserved for the output it names;
+ * unknown entries are ignored and an item missing from the archive fails instead of being marked done.
+ */
+class ArchiveEntryIsolationTest {
+
+    @Test
+    void entriesLandOnTheirOwnTargetsAndUnknownEntriesAreIgnored() throws Exception {
+        Path out = Files.createTempDirectory("archive-isolation");
+        OutputStaging staging = new OutputStaging(out, OutputStaging.ConflictPolicy.Overwrite);
+        Map<String, String> entries = new LinkedHashMap<>();
+        List<BatchItem> finished = new ArrayList<>();
+        ArchiveExport archive = new ArchiveExport(new ZipFacade(entries), staging, new AtomicBoolean(),
+                finished::add, 10, 1);
+
+        BatchItem first = handOver(archive, staging, out.resolve("a.png"));
+        BatchItem second = handOver(archive, staging, out.resolve("b.png"));
+        String firstEntry = first.message;
+        entries.put("../escaped.jpg", "outside");
+        entries.put(firstEntry, "first");
+        entries.put("stranger.jpg", "unclaimed");
+        archive.finish();
+
+        assertThat(finished).containsExactlyInAnyOrder(first, second);
+        assertThat(first.status).isEqualTo(BatchItemStatus.Done);
+        assertThat(Files.readString(first.outputPath)).isEqualTo("first");
+        assertThat(second.status).isEqualTo(BatchItemStatus.Failed);
+        assertThat(second.message).isEqualTo("Missing from archive");
+        assertThat(out.resolve("b.jpg")).doesNotExist();
+        assertThat(out.resolve("stranger.jpg")).doesNotExist();
+        assertThat(out.getParent().resolve("escaped.jpg")).doesNotExist();
+        assertThat(staging.reserve(out.resolve("b.png"), Profiles.PNG_TO_JPG)).isEqualTo(out.resolve("b.jpg"));
+    }
+
+    /**
+     * Reserves the item's target and hands it over; the entry name is left in the message for the test.
+     */
+    private static BatchItem handOver(ArchiveExport archive, OutputStaging staging, Path input) {
+        BatchItem item = new BatchItem(input, Profiles.PNG_TO_JPG);
+        Path target = staging.reserve(input, Profiles.PNG_TO_JPG);
+        String entry = archive.entryName(Profiles.PNG_TO_JPG);
+        item.message = entry;
+        archive.add(item, List.of(new ArchiveExport.Output(entry, "task-" + entry, target)));
+        return item;
+    }
+
+    /**
+     * Serves whatever entries the test put in {@code entries}, regardless of the tasks asked for.
+     */
+    private static final class ZipFacade implements CloudConvertFacade {
+
+        private final Map<String, String> entries;
+
+        private ZipFacade(Map<String, String> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public TaskResult createArchiveExport(List<String> taskIds, String filename) {
+            return new TaskResult("archive", "processing", Map.of());
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "finished", Map.of("files", List.of(Map.of("url", "zip"))));
+        }
+
+        @Override
+        public InputStream download(String url) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+                for (Map.Entry<String, String> e : entries.entrySet()) {
+                    zip.putNextEntry(new ZipEntry(e.getKey()));
+                    zip.write(e.getValue().getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
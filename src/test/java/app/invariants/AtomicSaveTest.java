@@ -1,10 +1,16 @@
 package app.invariants;
 
+import app.persistence.AppSettings;
+import app.persistence.JsonSettingsStore;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -28,4 +34,34 @@ class AtomicSaveTest {
         Files.deleteIfExists(partFile.getParent());
         Files.deleteIfExists(tempDir);
     }
+
+    @Test
+    void settingsSaveReplacesTheFileWithoutLeavingTempFiles() throws Exception {
+        Path tempDir = Files.createTempDirectory("atomic-settings");
+        Path settingsPath = tempDir.resolve("settings.json");
+
+        IntStream.range(0, 64).parallel().forEach(i ->
+                new JsonSettingsStore(settingsPath).save(new AppSettings("key-" + i, null, "png-jpg")));
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+            assertThat(names).containsExactly("settings.json", "settings.json.lock");
+        }
+        assertThat(new JsonSettingsStore(settingsPath).load().apiKey()).startsWith("key-");
+    }
+
+    @Test
+    void savingUnchangedSettingsLeavesTheFileAlone() throws Exception {
+        Path settingsPath = Files.createTempDirectory("atomic-settings").resolve("settings.json");
+        JsonSettingsStore store = new JsonSettingsStore(settingsPath);
+        store.save(new AppSettings("key", null, "png-jpg"));
+        Files.setLastModifiedTime(settingsPath, FileTime.fromMillis(0));
+
+        store.save(new AppSettings("key", null, "png-jpg"));
+        assertThat(Files.getLastModifiedTime(settingsPath).toMillis()).isZero();
+
+        store.save(new AppSettings("other", null, "png-jpg"));
+        assertThat(Files.getLastModifiedTime(settingsPath).toMillis()).isPositive();
+        assertThat(store.load().apiKey()).isEqualTo("other");
+    }
 }
@@ -0,0 +1,93 @@
+package app.invariants;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.Profiles;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Invariant: Concurrent items never share a part file or an output target.
+ */
+class OutputCollisionTest {
+
+    @Test
+    void sameNamedInputsInOneBatchKeepTheirOwnOutputs() throws Exception {
+        Path dir = Files.createTempDirectory("output-collision");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Path input = Files.createDirectories(dir.resolve("folder" + i)).resolve("a.mod");
+            Files.writeString(input, "content of folder " + i);
+            items.add(new BatchItem(input, Profiles.MOD_TO_MOV));
+        }
+
+        new BatchRunner(new EchoFacade(), 6).run(items, out);
+
+        Set<String> contents = new HashSet<>();
+        for (BatchItem item : items) {
+            assertThat(item.status).isEqualTo(BatchItemStatus.Done);
+            contents.add(Files.readString(item.outputPath));
+        }
+        assertThat(contents).hasSize(6);
+        assertThat(out.resolve(".tmp")).isEmptyDirectory();
+    }
+
+    /**
+     * Converts a file by returning its own bytes, so every output shows which input produced it.
+     */
+    private static final class EchoFacade implements CloudConvertFacade {
+
+        private final Map<String, String> inputByExport = new ConcurrentHashMap<>();
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            inputByExport.put(exportTaskName, uploadTaskName);
+            return exportTaskName;
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            return new TaskResult(file.toString(), "FINISHED", Map.of());
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            return new JobResult("FINISHED", List.of(Map.of("name", jobId, "id", inputByExport.get(jobId))));
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "FINISHED", Map.of("files", List.of(Map.of("url", taskId))));
+        }
+
+        @Override
+        public InputStream download(String url) throws Exception {
+            return new ByteArrayInputStream(Files.readAllBytes(Path.of(url)));
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
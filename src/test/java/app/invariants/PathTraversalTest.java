@@ -2,12 +2,16 @@ package app.invariants;
 
 import app.core.ConversionProfile;
 import app.core.OutputNaming;
+import app.core.OutputStaging;
+import app.core.Profiles;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Invariant: Output path cannot escape chosen directory (path traversal).
@@ -33,4 +37,19 @@ class PathTraversalTest {
         assertThat(output.getParent()).isEqualTo(outputDir);
         assertThat(output.getFileName().toString()).isEqualTo("secret.mov");
     }
+
+    @Test
+    void mirroredSubdirectoryCannotLeaveOutputDir(@TempDir Path outputDir) {
+        OutputStaging staging = new OutputStaging(outputDir, OutputStaging.ConflictPolicy.Suffix);
+        Path input = Path.of("/archive/2024/march/clip.mod");
+
+        Path target = staging.reserve(input, Path.of("2024/march"), Profiles.MOD_TO_MOV);
+
+        assertThat(target).isEqualTo(outputDir.toAbsolutePath().resolve("2024/march/clip.mov"));
+        assertThat(target.getParent()).isDirectory();
+        assertThatThrownBy(() -> staging.reserve(input, Path.of("../escape"), Profiles.MOD_TO_MOV))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> staging.reserve(input, outputDir.getParent(), Profiles.MOD_TO_MOV))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -42,4 +42,15 @@ class PreflightValidationTest {
         var result = Validation.validate(new BatchItem(f, profile));
         assertThat(result.valid()).isTrue();
     }
+
+    @Test
+    void validationRecordsInputSize() throws Exception {
+        Path f = Files.createTempFile("sized", ".mod");
+        Files.writeString(f, "12345");
+        var profile = new ConversionProfile("mod-mov", "MOD→MOV", "mod", "mov", Map.of());
+        BatchItem item = new BatchItem(f, profile);
+        assertThat(item.inputBytes).isEqualTo(-1);
+        Validation.validate(item);
+        assertThat(item.inputBytes).isEqualTo(5);
+    }
 }
@@ -9,6 +9,7 @@ import java.nio.file.Path;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Invariant: BatchItem references valid ConversionProfile.
@@ -29,6 +30,32 @@ class ProfileReferenceTest {
             assertThat(p.id()).isNotBlank();
             assertThat(p.inputFormat()).isNotBlank();
             assertThat(p.outputFormat()).isNotBlank();
+            assertThat(p.isChainConsistent()).isTrue();
+            for (ConversionProfile target : p.targets()) {
+                assertThat(target.isMultiOutput()).isFalse();
+                assertThat(target.inputFormat()).isEqualTo(p.inputFormat());
+            }
         }
     }
+
+    @Test
+    void multiOutputRejectsMismatchedInputFormats() {
+        assertThatThrownBy(() -> Profiles.multiOutput("bad", "Bad", Profiles.MP4_TO_MP3, Profiles.WAV_TO_MP3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void chainRejectsHopsThatDoNotConnect() {
+        assertThatThrownBy(() -> Profiles.chain("bad", "Bad", Profiles.MOD_TO_MOV, Profiles.MP4_TO_MP3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("mov");
+    }
+
+    @Test
+    void chainRunsFromFirstInputToLastOutput() {
+        ConversionProfile chained = Profiles.MOD_TO_MOV_TO_MP4;
+        assertThat(chained.inputFormat()).isEqualTo("mod");
+        assertThat(chained.outputFormat()).isEqualTo("mp4");
+        assertThat(chained.steps()).containsExactly(Profiles.MOD_TO_MOV, Profiles.MOV_TO_MP4);
+    }
 }
@@ -1,12 +1,19 @@
 package app.invariants;
 
 import app.persistence.AppSettings;
+import app.persistence.CachedSettingsStore;
 import app.persistence.JsonSettingsStore;
 import app.persistence.SettingsStore;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -36,4 +43,61 @@ class SettingsIntegrityTest {
         assertThat(loaded).isNotNull();
         assertThat(loaded).isEqualTo(AppSettings.defaults());
     }
+
+    @Test
+    void bandwidthCapsSurviveSaveAndOlderFilesLoadUncapped() throws Exception {
+        Path settingsPath = Files.createTempDirectory("settings-bandwidth").resolve("settings.json");
+        SettingsStore store = new JsonSettingsStore(settingsPath);
+        store.save(new AppSettings("key", null, "mod-mov", 1_000_000, 4_000_000));
+        assertThat(store.load()).extracting(AppSettings::uploadBytesPerSecond, AppSettings::downloadBytesPerSecond)
+                .containsExactly(1_000_000L, 4_000_000L);
+
+        Files.writeString(settingsPath, "{\"apiKey\":\"key\",\"lastProfileId\":\"png-jpg\"}");
+        assertThat(store.load()).isEqualTo(new AppSettings("key", null, "png-jpg"));
+    }
+
+    @Test
+    void concurrentWritersNeverLeaveAPartialFile() throws Exception {
+        Path settingsPath = Files.createTempDirectory("settings-concurrent").resolve("settings.json");
+        new JsonSettingsStore(settingsPath).save(new AppSettings("key-initial", null, "png-jpg"));
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> write(settingsPath, writer)));
+            }
+            Future<Integer> reader = pool.submit(() -> {
+                int reads = 0;
+                SettingsStore store = new JsonSettingsStore(settingsPath);
+                while (writing.get()) {
+                    assertThat(store.load().apiKey()).startsWith("key-");
+                    reads++;
+                }
+                return reads;
+            });
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            assertThat(reader.get()).isPositive();
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(new JsonSettingsStore(settingsPath).load().apiKey()).matches("key-\\d-\\d+");
+    }
+
+    /**
+     * Alternates between a plain store and a write-behind store on the same file.
+     */
+    private static void write(Path settingsPath, int writer) {
+        SettingsStore plain = new JsonSettingsStore(settingsPath);
+        try (CachedSettingsStore cached = new CachedSettingsStore(new JsonSettingsStore(settingsPath), 1)) {
+            for (int i = 0; i < 200; i++) {
+                SettingsStore store = i % 2 == 0 ? plain : cached;
+                store.save(new AppSettings("key-" + writer + "-" + i, Path.of("/out/" + i), "profile-" + i));
+            }
+        }
+    }
 }
@@ -0,0 +1,167 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.Profiles;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-file exports against archive-bundled export for a batch of 5k small outputs. Every API call
+ * and download pays the same simulated round trip, which is what dominates small files.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class ArchiveExportBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveExportBenchmarkTest.class);
+    private static final int ITEMS = 5_000;
+    private static final int WORKERS = 8;
+    private static final long ROUND_TRIP_MS = 3;
+
+    @Test
+    void archiveExportBeatsPerFileDownloadsForManySmallOutputs() throws Exception {
+        Path dir = Files.createTempDirectory("archive-benchmark");
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Path input = dir.resolve("page" + i + ".png");
+            Files.writeString(input, "small image " + i);
+            inputs.add(input);
+        }
+
+        LatencyFacade perFileFacade = new LatencyFacade();
+        long perFileMs = run(inputs, Files.createDirectories(dir.resolve("per-file")), perFileFacade, false);
+        LatencyFacade archiveFacade = new LatencyFacade();
+        long archiveMs = run(inputs, Files.createDirectories(dir.resolve("archive")), archiveFacade, true);
+
+        LOG.info("{} outputs on {} workers: per-file {} ms ({} requests), archive {} ms ({} requests)",
+                ITEMS, WORKERS, perFileMs, perFileFacade.requests.get(), archiveMs, archiveFacade.requests.get());
+        assertThat(archiveFacade.requests.get()).isLessThan(perFileFacade.requests.get() * 2 / 3);
+        assertThat(archiveMs).isLessThan(perFileMs);
+    }
+
+    private static long run(List<Path> inputs, Path out, CloudConvertFacade facade, boolean archive)
+            throws Exception {
+        List<BatchItem> items = new ArrayList<>();
+        for (Path input : inputs) {
+            items.add(new BatchItem(input, Profiles.PNG_TO_JPG));
+        }
+        BatchRunner runner = new BatchRunner(facade, WORKERS);
+        runner.setArchiveExport(archive);
+        long start = System.nanoTime();
+        runner.run(items, out);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(items).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Done));
+        return elapsedMs;
+    }
+
+    /**
+     * Converts by echoing the input; every call sleeps for one round trip.
+     */
+    private static final class LatencyFacade implements CloudConvertFacade {
+
+        private final Map<String, List<Map<String, String>>> jobs = new ConcurrentHashMap<>();
+        private final Map<String, String[]> outputByTask = new ConcurrentHashMap<>();
+        private final Map<String, List<String>> archives = new ConcurrentHashMap<>();
+        private final AtomicInteger requests = new AtomicInteger();
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) throws Exception {
+            roundTrip();
+            return new TaskResult(file.toString(), "FINISHED", Map.of());
+        }
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) throws Exception {
+            roundTrip();
+            outputByTask.put(exportTaskName, new String[] {null, uploadTaskName});
+            jobs.put(exportTaskName, List.of(Map.of("name", exportTaskName, "id", exportTaskName)));
+            return exportTaskName;
+        }
+
+        @Override
+        public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) throws Exception {
+            roundTrip();
+            List<Map<String, String>> tasks = new ArrayList<>();
+            for (OutputTask output : outputs) {
+                outputByTask.put(output.convertTaskName(), new String[] {output.outputFilename(), uploadTaskId});
+                tasks.add(Map.of("name", output.convertTaskName(), "id", output.convertTaskName()));
+            }
+            jobs.put(uploadTaskId, tasks);
+            return uploadTaskId;
+        }
+
+        @Override
+        public TaskResult createArchiveExport(List<String> taskIds, String filename) throws Exception {
+            roundTrip();
+            archives.put(filename, taskIds);
+            return new TaskResult(filename, "FINISHED", Map.of("files", List.of(Map.of("url", filename))));
+        }
+
+        @Override
+        public JobResult getJob(String jobId) throws Exception {
+            roundTrip();
+            return new JobResult("FINISHED", jobs.get(jobId));
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) throws Exception {
+            roundTrip();
+            return new TaskResult(taskId, "FINISHED", Map.of("files", List.of(Map.of("url", taskId))));
+        }
+
+        @Override
+        public InputStream download(String url) throws Exception {
+            roundTrip();
+            List<String> taskIds = archives.get(url);
+            if (taskIds == null) {
+                return new ByteArrayInputStream(Files.readAllBytes(Path.of(outputByTask.get(url)[1])));
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+                for (String taskId : taskIds) {
+                    String[] output = outputByTask.get(taskId);
+                    zip.putNextEntry(new ZipEntry(output[0]));
+                    zip.write(Files.readAllBytes(Path.of(output[1])));
+                    zip.closeEntry();
+                }
+            }
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+
+        private void roundTrip() throws InterruptedException {
+            requests.incrementAndGet();
+            Thread.sleep(ROUND_TRIP_MS);
+        }
+    }
+}
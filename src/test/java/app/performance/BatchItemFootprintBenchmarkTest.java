@@ -0,0 +1,61 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.ErrorMessages;
+import app.core.Profiles;
+import app.ui.model.BatchItemFx;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retained heap per queued item in a large batch: the input path, the core {@link BatchItem} and its
+ * table row wrapper, with a few rows displayed and a share of items failed with a common error.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class BatchItemFootprintBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchItemFootprintBenchmarkTest.class);
+    private static final int ITEMS = 500_000;
+    private static final int VISIBLE_ROWS = 40;
+    private static final long BUDGET_BYTES_PER_ITEM = 256;
+
+    @Test
+    void queuedItemsStayCompact() {
+        Path dir = Path.of("/Users/someone/Pictures/Holiday 2025/Camera Roll");
+        Object[] keep = new Object[ITEMS];
+        long before = usedHeap();
+        for (int i = 0; i < ITEMS; i++) {
+            BatchItem item = new BatchItem(dir.resolve("IMG_" + i + ".png"), Profiles.PNG_TO_JPG);
+            if (i % 10 == 0) {
+                item.status = BatchItemStatus.Failed;
+                item.message = ErrorMessages.fromException(new IllegalStateException("HTTP 422 " + "quota"));
+            }
+            BatchItemFx row = new BatchItemFx(item);
+            if (i < VISIBLE_ROWS) {
+                row.statusProperty();
+            }
+            keep[i] = row;
+        }
+        long perItem = (usedHeap() - before) / ITEMS;
+        LOG.info("Heap per queued item (path, item and row wrapper): {} bytes", perItem);
+
+        assertThat(((BatchItemFx) keep[ITEMS - 1]).isMaterialized()).isFalse();
+        assertThat(perItem).isLessThan(BUDGET_BYTES_PER_ITEM);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
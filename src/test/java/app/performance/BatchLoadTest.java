@@ -0,0 +1,96 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.Profiles;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.LatencyDistribution;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A full batch against the CloudConvert simulator with long-tailed conversion times and a realistic
+ * sprinkling of rate limits, server errors, timeouts, truncated downloads and failed conversions.
+ * Reports throughput, item latency percentiles and error rates. Run with {@code gradle loadTest};
+ * {@code -Dloadtest.items=N} changes the batch size (default 10,000).
+ */
+@Tag("load")
+class BatchLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchLoadTest.class);
+    private static final int CONCURRENCY = 64;
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final double MAX_ERROR_RATE = 0.10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void batchAgainstSimulatedApi() throws Exception {
+        int count = Integer.getInteger("loadtest.items", 10_000);
+        SimulatorConfig config = SimulatorConfig.defaults()
+                .withSeed(42)
+                .withConversionLatency(LatencyDistribution.logNormal(200, 0.5))
+                .withApiFaults(0.002, 0.002, 0.001)
+                .withTruncatedDownloads(0.002)
+                .withConversionErrors(0.002);
+        List<BatchItem> items = createItems(count);
+        Path out = Files.createDirectories(dir.resolve("out"));
+
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(config)) {
+            BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, Duration.ofSeconds(2)), CONCURRENCY);
+            runner.setPollIntervalMs(POLL_INTERVAL_MS);
+            long start = System.nanoTime();
+            runner.run(items, out);
+            long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+            long[] latencies = items.stream().filter(i -> i.status == BatchItemStatus.Done)
+                    .mapToLong(i -> (long) i.uploadMs + i.convertMs + i.downloadMs).sorted().toArray();
+            long failed = items.stream().filter(i -> i.status == BatchItemStatus.Failed).count();
+            double errorRate = (double) failed / count;
+            LOG.info("{} item(s) in {} ms: {} item/s, latency p50 {} ms, p99 {} ms, max {} ms",
+                    count, wallMs, String.format("%.1f", count * 1000.0 / Math.max(1, wallMs)),
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+            LOG.info("{} failed ({}%), simulator counters {}", failed, String.format("%.2f", errorRate * 100),
+                    simulator.counters());
+
+            assertThat(items).allSatisfy(i -> assertThat(i.status).isIn(BatchItemStatus.Done, BatchItemStatus.Failed));
+            assertThat(latencies).hasSize((int) (count - failed));
+            assertThat(errorRate).isLessThan(MAX_ERROR_RATE);
+            Map<String, Long> counters = simulator.counters();
+            assertThat(counters.get("POST /v2/jobs")).isGreaterThan(count * 9L / 10);
+        }
+    }
+
+    private List<BatchItem> createItems(int count) throws Exception {
+        Path in = Files.createDirectories(dir.resolve("in"));
+        List<BatchItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path f = Files.writeString(in.resolve("clip" + i + ".mod"), "clip " + i + " ".repeat(1024));
+            items.add(new BatchItem(f, Profiles.MOD_TO_MOV));
+        }
+        return items;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,83 @@
+package app.performance;
+
+import app.core.DirectoryWalker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walk throughput over a generated tree of one million files (10 x 100 directories of 1000 files,
+ * every other one convertible), compared with a sequential {@code Files.walk}. Also records how soon
+ * the first matches reach the sink. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class DirectoryWalkerBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectoryWalkerBenchmarkTest.class);
+    private static final int TOP = 10;
+    private static final int MID = 100;
+    private static final int FILES_PER_DIR = 1000;
+    private static final long EXPECTED = (long) TOP * MID * FILES_PER_DIR / 2;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void walksAMillionFiles() throws IOException {
+        long start = System.nanoTime();
+        generateTree();
+        LOG.info("Generated {} files in {} ms", TOP * MID * FILES_PER_DIR, elapsedMs(start));
+
+        start = System.nanoTime();
+        long sequential;
+        try (Stream<Path> files = Files.walk(root)) {
+            sequential = files.filter(Files::isRegularFile).filter(f -> f.toString().endsWith(".png")).count();
+        }
+        long sequentialMs = elapsedMs(start);
+
+        AtomicLong firstBatchNs = new AtomicLong();
+        long walkStart = System.nanoTime();
+        long found;
+        try (DirectoryWalker walker = new DirectoryWalker()) {
+            found = walker.walk(root, batch -> firstBatchNs.compareAndSet(0, System.nanoTime() - walkStart));
+        }
+        long walkerMs = elapsedMs(walkStart);
+        LOG.info("Files.walk: {} matches in {} ms ({} files/s)", sequential, sequentialMs, perSecond(sequentialMs));
+        LOG.info("DirectoryWalker ({} workers): {} matches in {} ms ({} files/s), first batch after {} ms",
+                Runtime.getRuntime().availableProcessors(), found, walkerMs, perSecond(walkerMs),
+                TimeUnit.NANOSECONDS.toMillis(firstBatchNs.get()));
+
+        assertThat(found).isEqualTo(EXPECTED);
+        assertThat(sequential).isEqualTo(EXPECTED);
+    }
+
+    private void generateTree() throws IOException {
+        for (int t = 0; t < TOP; t++) {
+            for (int m = 0; m < MID; m++) {
+                Path dir = Files.createDirectories(root.resolve("t" + t).resolve("m" + m));
+                for (int f = 0; f < FILES_PER_DIR; f++) {
+                    Files.createFile(dir.resolve("f" + f + (f % 2 == 0 ? ".png" : ".txt")));
+                }
+            }
+        }
+    }
+
+    private static long perSecond(long ms) {
+        return (long) TOP * MID * FILES_PER_DIR * 1000 / Math.max(1, ms);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,138 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.FileIntake;
+import app.core.Profiles;
+import app.core.Validation;
+import app.ui.model.BatchItemFx;
+import app.ui.model.Rows;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time-to-interactive when 100k files are added to the table, and bulk removal of a scattered
+ * selection. A single-thread executor stands in for the FX thread; how long it is blocked at a stretch
+ * is what the user feels as a frozen window. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class FileIntakeBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileIntakeBenchmarkTest.class);
+    private static final int FILES = 100_000;
+    private static final int REMOVED = 5_000;
+    private static final long MAX_STALL_MS = 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void intakeKeepsTheUiThreadResponsive() throws Exception {
+        List<Path> files = createFiles();
+
+        long start = System.nanoTime();
+        ObservableList<BatchItemFx> oneByOne = table();
+        for (Path file : files) {
+            BatchItem item = new BatchItem(file, Profiles.MOD_TO_MOV);
+            Validation.validate(item);
+            oneByOne.add(new BatchItemFx(item));
+        }
+        long oneByOneMs = elapsedMs(start);
+
+        ObservableList<BatchItemFx> chunked = table();
+        ExecutorService fx = Executors.newSingleThreadExecutor();
+        AtomicLong longestStallNs = new AtomicLong();
+        AtomicLong firstRowsNs = new AtomicLong();
+        start = System.nanoTime();
+        long submitStart = start;
+        try (FileIntake intake = new FileIntake()) {
+            var done = intake.submit(files, Profiles.MOD_TO_MOV, true, chunk -> {
+                List<BatchItemFx> rows = chunk.stream().map(BatchItemFx::new).toList();
+                fx.submit(() -> {
+                    long t = System.nanoTime();
+                    chunked.addAll(rows);
+                    firstRowsNs.compareAndSet(0, System.nanoTime() - submitStart);
+                    longestStallNs.accumulateAndGet(System.nanoTime() - t, Math::max);
+                });
+            });
+            long submitMs = elapsedMs(start);
+            done.get(5, TimeUnit.MINUTES);
+            fx.shutdown();
+            fx.awaitTermination(1, TimeUnit.MINUTES);
+            LOG.info("{} files one by one on the UI thread: blocked {} ms", FILES, oneByOneMs);
+            LOG.info("{} files through intake: submit {} ms, first rows after {} ms, longest UI stall {} ms, "
+                    + "all rows after {} ms", FILES, submitMs, TimeUnit.NANOSECONDS.toMillis(firstRowsNs.get()),
+                    TimeUnit.NANOSECONDS.toMillis(longestStallNs.get()), elapsedMs(start));
+            assertThat(submitMs).isLessThan(MAX_STALL_MS);
+        }
+        assertThat(chunked).hasSize(FILES);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(longestStallNs.get())).isLessThan(MAX_STALL_MS);
+    }
+
+    @Test
+    void bulkRemovalIsLinear() {
+        List<BatchItemFx> all = IntStream.range(0, FILES)
+                .mapToObj(i -> new BatchItemFx(new BatchItem(dir.resolve("f" + i + ".mod"), Profiles.MOD_TO_MOV)))
+                .toList();
+        List<Integer> selected = IntStream.range(0, REMOVED).map(i -> i * (FILES / REMOVED)).boxed().toList();
+
+        ObservableList<BatchItemFx> byRow = table();
+        byRow.addAll(all);
+        List<BatchItemFx> selectedRows = selected.stream().map(byRow::get).toList();
+        long start = System.nanoTime();
+        byRow.removeAll(selectedRows);
+        long removeAllMs = elapsedMs(start);
+
+        ObservableList<BatchItemFx> byIndex = table();
+        byIndex.addAll(all);
+        start = System.nanoTime();
+        Rows.removeIndices(byIndex, selected);
+        long byIndexMs = elapsedMs(start);
+        LOG.info("Removing {} scattered rows of {}: removeAll {} ms, by index {} ms", REMOVED, FILES,
+                removeAllMs, byIndexMs);
+
+        assertThat(byIndex).containsExactlyElementsOf(byRow);
+        assertThat(byIndexMs).isLessThan(Math.max(1, removeAllMs));
+    }
+
+    private List<Path> createFiles() throws IOException {
+        List<Path> files = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            files.add(Files.writeString(dir.resolve(String.format("clip-%06d.mod", i)), "x"));
+        }
+        return files;
+    }
+
+    /** A list with a listener, as the table has. */
+    private static ObservableList<BatchItemFx> table() {
+        ObservableList<BatchItemFx> rows = FXCollections.observableArrayList();
+        rows.addListener((ListChangeListener<BatchItemFx>) c -> {
+            while (c.next()) {
+                c.getAddedSize();
+            }
+        });
+        return rows;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
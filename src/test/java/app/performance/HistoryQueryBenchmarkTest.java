@@ -0,0 +1,93 @@
+package app.performance;
+
+import app.persistence.HistoryQuery;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query latency of the conversion history over one million records spread over a year.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class HistoryQueryBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryQueryBenchmarkTest.class);
+    private static final int RECORDS = 1_000_000;
+    private static final int FILES = 200_000;
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+    private static final long STEP_MS = Duration.ofDays(365).toMillis() / RECORDS;
+    private static final String[] PROFILES = {"mod-mov", "png-jpg", "docx-pdf", "wav-mp3"};
+    private static final long BUDGET_MS = 50;
+
+    @Test
+    void queriesOverAMillionRecordsTakeMilliseconds() throws Exception {
+        Path dir = Files.createTempDirectory("history-benchmark");
+        try (HistoryStore store = new HistoryStore(dir)) {
+            long start = System.nanoTime();
+            List<HistoryRecord> batch = new ArrayList<>();
+            for (int i = 0; i < RECORDS; i++) {
+                batch.add(record(i));
+                if (batch.size() == 10_000) {
+                    store.appendAll(batch);
+                    batch.clear();
+                }
+            }
+            LOG.info("Appended {} records in {} ms", RECORDS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            Path file = Path.of("/library/photos/img" + 4242 + ".png");
+            Instant day = START.plus(Duration.ofDays(200));
+            assertWithinBudget("path", () -> query(store, HistoryQuery.all().forInput(file)), RECORDS / FILES);
+            assertWithinBudget("hash", () -> query(store, HistoryQuery.all().withContentHash("hash-4242")), 5);
+            assertWithinBudget("day", () -> query(store, HistoryQuery.all().between(day, day.plus(Duration.ofDays(1)))),
+                    (int) (Duration.ofDays(1).toMillis() / STEP_MS));
+            assertWithinBudget("profile, latest 100",
+                    () -> query(store, HistoryQuery.all().withProfile("wav-mp3").limit(100)), 100);
+        }
+    }
+
+    private static void assertWithinBudget(String name, Supplier<Integer> query, int expectedMatches) {
+        long[] samples = new long[25];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            assertThat(query.get()).isBetween(expectedMatches - 1, expectedMatches + 1);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double medianMs = samples[samples.length / 2] / 1e6;
+        LOG.info("History query by {}: median {} ms", name, String.format("%.2f", medianMs));
+        assertThat(medianMs).isLessThan(BUDGET_MS);
+    }
+
+    private static int query(HistoryStore store, HistoryQuery query) {
+        try {
+            return store.query(query).size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HistoryRecord record(int i) {
+        int file = i % FILES;
+        return new HistoryRecord(START.plusMillis(i * STEP_MS), Path.of("/library/photos/img" + file + ".png"),
+                "hash-" + file, PROFILES[i % PROFILES.length], "Done", 3_000_000, 800_000, 1200, 5400, 300,
+                "job-" + i, "");
+    }
+}
@@ -0,0 +1,121 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.Profiles;
+import app.core.SyncIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Incremental re-run over 100,000 unchanged inputs whose outputs all exist: every item must be skipped
+ * within a few seconds, without a single CloudConvert call. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class IncrementalSyncBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalSyncBenchmarkTest.class);
+    private static final int FILES = 100_000;
+    private static final int FILES_PER_DIR = 1000;
+    private static final long BUDGET_MS = 10_000;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void unchangedFolderOfAHundredThousandFilesIsSkippedInSeconds() throws Exception {
+        long start = System.nanoTime();
+        List<BatchItem> items = generate();
+        LOG.info("Generated {} inputs and outputs in {} ms", FILES, elapsedMs(start));
+
+        BatchRunner runner = new BatchRunner(new UnreachableFacade(), 4);
+        runner.setIncrementalSync(SyncIndex.Check.Metadata);
+        start = System.nanoTime();
+        runner.run(items, root.resolve("out"));
+        long runMs = elapsedMs(start);
+        LOG.info("Incremental re-run of {} items took {} ms", FILES, runMs);
+
+        assertThat(items).allSatisfy(item -> assertThat(item.status).isEqualTo(BatchItemStatus.Skipped));
+        assertThat(runner.apiCalls().total()).isZero();
+        assertThat(runMs).isLessThan(BUDGET_MS);
+    }
+
+    private List<BatchItem> generate() throws Exception {
+        FileTime inputTime = FileTime.from(Instant.now().minusSeconds(3600));
+        List<BatchItem> items = new ArrayList<>(FILES);
+        for (int d = 0; d < FILES / FILES_PER_DIR; d++) {
+            Path in = Files.createDirectories(root.resolve("in").resolve("d" + d));
+            Path out = Files.createDirectories(root.resolve("out").resolve("d" + d));
+            for (int f = 0; f < FILES_PER_DIR; f++) {
+                Path input = Files.writeString(in.resolve("clip" + f + ".mod"), "clip");
+                Files.setLastModifiedTime(input, inputTime);
+                Files.writeString(out.resolve("clip" + f + ".mov"), "converted");
+                items.add(new BatchItem(input, Profiles.MOD_TO_MOV, Path.of("d" + d)));
+            }
+        }
+        return items;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Any call means an up-to-date item was not skipped.
+     */
+    private static final class UnreachableFacade implements CloudConvertFacade {
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            throw new AssertionError("createJobForFile");
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            throw new AssertionError("upload " + file);
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            throw new AssertionError("getJob");
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            throw new AssertionError("getTask");
+        }
+
+        @Override
+        public InputStream download(String url) {
+            throw new AssertionError("download");
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+            throw new AssertionError("cancelTask");
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+            throw new AssertionError("cancelJob");
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.OutputNaming;
+import app.core.Profiles;
+import app.core.Validation;
+import app.core.WorkQueue;
+import app.performance.RegressionStats.Comparison;
+import app.performance.RegressionStats.Measurement;
+import app.performance.RegressionStats.Verdict;
+import app.persistence.AppSettings;
+import app.persistence.JsonSettingsStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Warmed-up, repeated measurements of orchestration throughput, validation, output naming, work queue
+ * reprioritization and settings I/O, compared with {@code config/perf/baseline.json}. A benchmark fails
+ * only when the 95% interval of its slowdown lies entirely above the tolerance ({@code -Dperf.tolerance},
+ * default 0.2). Timings are first scaled by a fixed CPU workload measured last in both runs, so a
+ * baseline recorded on another machine stays usable. Run with {@code gradle perfRegression}; {@code -Dperf.updateBaseline=true} rewrites the
+ * baseline from this run.
+ */
+@Tag("regression")
+class PerformanceRegressionTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PerformanceRegressionTest.class);
+    private static final String CALIBRATION = "calibration";
+    private static final int ORCHESTRATION_ITEMS = 200;
+    private static final int QUEUED_ITEMS = 50_000;
+    private static final double MAX_CALIBRATION_NOISE = 0.05;
+
+    @TempDir
+    Path dir;
+
+    private final Map<String, String> units = new LinkedHashMap<>();
+
+    @Test
+    void noSignificantSlowdownAgainstBaseline() throws Exception {
+        Map<String, Measurement> current = new LinkedHashMap<>();
+        current.put("validation", measure("validation", 5, 20, 2000, 1, validation()));
+        current.put("settings.saveLoad", measure("settings.saveLoad", 3, 20, 50, 1, settingsRoundTrip()));
+        current.put("outputNaming", measure("outputNaming", 5, 20, 2000, 1, outputNaming()));
+        current.put("workQueue.reprioritize", measure("workQueue.reprioritize", 3, 20, 10_000, 1, reprioritize()));
+        current.put("orchestration", measure("orchestration", 3, 15, 1, ORCHESTRATION_ITEMS, orchestration()));
+        current.put(CALIBRATION, measure(CALIBRATION, 10, 30, 200, 1, PerformanceRegressionTest::calibrationWork));
+
+        Path baselineFile = Path.of(System.getProperty("perf.baseline", "config/perf/baseline.json"));
+        Map<String, Measurement> baseline = RegressionBaseline.load(baselineFile);
+        double tolerance = Double.parseDouble(System.getProperty("perf.tolerance", "0.2"));
+        double scale = calibrationScale(baseline.get(CALIBRATION), current.get(CALIBRATION));
+        Map<String, Comparison> comparisons = new LinkedHashMap<>();
+        current.forEach((name, m) -> comparisons.put(name, RegressionStats.compare(baseline.get(name),
+                CALIBRATION.equals(name) ? m : m.scaled(scale), tolerance)));
+
+        RegressionBaseline.report(Path.of(System.getProperty("perf.reportDir", "build/reports/perf")),
+                comparisons, units);
+        comparisons.forEach((name, c) -> LOG.info("{}: {} {} ±{} vs baseline {} -> {} ({}..{})", name,
+                fmt(c.current().mean()), units.get(name), fmt(c.current().halfWidth()),
+                c.baseline() != null ? fmt(c.baseline().mean()) : "-", c.verdict(), fmt(c.ratioLow()),
+                fmt(c.ratioHigh())));
+        if (Boolean.getBoolean("perf.updateBaseline")) {
+            RegressionBaseline.save(baselineFile, current, units);
+            LOG.info("Baseline written to {}", baselineFile.toAbsolutePath());
+            return;
+        }
+        comparisons.remove(CALIBRATION);
+        assertThat(comparisons).as("benchmarks significantly slower than baseline (scale %.2f)", scale)
+                .allSatisfy((name, c) -> assertThat(c.verdict()).as(name).isNotEqualTo(Verdict.Slower));
+    }
+
+    /**
+     * Baseline over current speed of the CPU workload, or 1 when either run measured it too noisily to
+     * be trusted as a yardstick.
+     */
+    private static double calibrationScale(Measurement baseline, Measurement current) {
+        if (baseline == null || baseline.halfWidth() > baseline.mean() * MAX_CALIBRATION_NOISE
+                || current.halfWidth() > current.mean() * MAX_CALIBRATION_NOISE) {
+            LOG.warn("Calibration unusable, comparing unscaled timings");
+            return 1.0;
+        }
+        return baseline.mean() / current.mean();
+    }
+
+    /**
+     * Each sample times {@code calls} calls of {@code op}, each doing {@code opsPerCall} operations.
+     */
+    private Measurement measure(String name, int warmups, int samples, int calls, int opsPerCall, Op op)
+            throws Exception {
+        units.put(name, "us/op");
+        for (int i = 0; i < warmups; i++) {
+            runCalls(calls, op);
+        }
+        double[] values = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            runCalls(calls, op);
+            values[i] = (System.nanoTime() - start) / 1000.0 / ((double) calls * opsPerCall);
+        }
+        return Measurement.of(values);
+    }
+
+    private static void runCalls(int calls, Op op) throws Exception {
+        for (int i = 0; i < calls; i++) {
+            op.run(i);
+        }
+    }
+
+    private static void calibrationWork(int seed) {
+        long h = seed;
+        for (int i = 0; i < 20_000; i++) {
+            h = h * 6364136223846793005L + 1442695040888963407L;
+            h ^= h >>> 29;
+        }
+        if (h == 42) {
+            LOG.trace("unlikely");
+        }
+    }
+
+    private Op validation() throws Exception {
+        Path file = Files.writeString(dir.resolve("clip.mod"), "content");
+        BatchItem item = new BatchItem(file, Profiles.MOD_TO_MOV);
+        return i -> Validation.validate(item);
+    }
+
+    private static Op outputNaming() {
+        Path input = Path.of("/tmp/file.mod");
+        Path outputDir = Path.of("/out");
+        return i -> OutputNaming.resolveInDir(input, outputDir, Profiles.MOD_TO_MOV);
+    }
+
+    /**
+     * One op moves one of {@link #QUEUED_ITEMS} pending items to another priority.
+     */
+    private static Op reprioritize() {
+        List<BatchItem> items = new ArrayList<>(QUEUED_ITEMS);
+        WorkQueue queue = new WorkQueue();
+        for (int i = 0; i < QUEUED_ITEMS; i++) {
+            BatchItem item = new BatchItem(Path.of("/tmp/f" + i + ".png"), Profiles.PNG_TO_JPG);
+            items.add(item);
+            queue.add(item);
+        }
+        return i -> queue.reprioritize(items.get(i * 7 % QUEUED_ITEMS), i % 7);
+    }
+
+    private Op settingsRoundTrip() {
+        JsonSettingsStore store = new JsonSettingsStore(dir.resolve("settings").resolve("settings.json"));
+        return i -> {
+            store.save(AppSettings.defaults());
+            store.load();
+        };
+    }
+
+    /**
+     * One op is one item through {@link BatchRunner} against an in-memory facade, so the time is pure
+     * orchestration: scheduling, hashing, staging, dedup and the atomic save.
+     */
+    private Op orchestration() throws Exception {
+        Path in = Files.createDirectories(dir.resolve("in"));
+        Path out = Files.createDirectories(dir.resolve("out"));
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < ORCHESTRATION_ITEMS; i++) {
+            inputs.add(Files.writeString(in.resolve("clip" + i + ".mod"), "clip " + i));
+        }
+        BatchRunner runner = new BatchRunner(new InstantFacade(), 8);
+        runner.setPollIntervalMs(0);
+        return i -> {
+            List<BatchItem> items = new ArrayList<>(inputs.size());
+            inputs.forEach(p -> items.add(new BatchItem(p, Profiles.MOD_TO_MOV)));
+            runner.run(items, out);
+            assertThat(items).allSatisfy(item -> assertThat(item.status).isEqualTo(BatchItemStatus.Done));
+        };
+    }
+
+    private static String fmt(double value) {
+        return String.format("%.2f", value);
+    }
+
+    @FunctionalInterface
+    private interface Op {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * Every call succeeds at once and every output is the same few bytes.
+     */
+    private static final class InstantFacade implements CloudConvertFacade {
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            return new TaskResult("upload", "finished", Map.of());
+        }
+
+        @Override
+        public String createJobForFile(String uploadTaskId, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            return exportTaskName;
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            return new JobResult("finished", List.of(Map.of("id", "export", "name", jobId)));
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "finished", Map.of("files", List.of(Map.of("url", "mem://out"))));
+        }
+
+        @Override
+        public InputStream download(String url) {
+            return new ByteArrayInputStream("converted".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package app.performance;
+
+import app.performance.RegressionStats.Comparison;
+import app.performance.RegressionStats.Measurement;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The committed baseline of the regression suite and its per-run reports. The baseline is a JSON map
+ * from benchmark name to mean, standard deviation and sample count; every run appends one line per
+ * benchmark to {@code trend.csv} and rewrites {@code report.md} in the report directory.
+ */
+public final class RegressionBaseline {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String TREND_HEADER = "run,benchmark,unit,mean,ci95,baseline,ratio,ratio_low,ratio_high,"
+            + "verdict\n";
+
+    private RegressionBaseline() {
+    }
+
+    /**
+     * @return measurements by name; empty if the file does not exist
+     */
+    public static Map<String, Measurement> load(Path file) throws IOException {
+        Map<String, Measurement> result = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return result;
+        }
+        JsonNode benchmarks = JSON.readTree(file.toFile()).path("benchmarks");
+        for (Iterator<Map.Entry<String, JsonNode>> it = benchmarks.fields(); it.hasNext();) {
+            Map.Entry<String, JsonNode> e = it.next();
+            JsonNode m = e.getValue();
+            result.put(e.getKey(), new Measurement(m.path("mean").asDouble(), m.path("stdDev").asDouble(),
+                    m.path("samples").asInt()));
+        }
+        return result;
+    }
+
+    public static void save(Path file, Map<String, Measurement> measurements, Map<String, String> units)
+            throws IOException {
+        ObjectNode root = JSON.createObjectNode();
+        root.put("recorded", Instant.now().toString());
+        root.put("java", System.getProperty("java.version"));
+        root.put("cpus", Runtime.getRuntime().availableProcessors());
+        ObjectNode benchmarks = root.putObject("benchmarks");
+        new TreeMap<>(measurements).forEach((name, m) -> benchmarks.putObject(name)
+                .put("unit", units.getOrDefault(name, ""))
+                .put("mean", round(m.mean()))
+                .put("stdDev", round(m.stdDev()))
+                .put("samples", m.samples()));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        JSON.writeValue(file.toFile(), root);
+    }
+
+    /**
+     * Appends this run to {@code trend.csv} and writes a readable {@code report.md}.
+     */
+    public static void report(Path dir, Map<String, Comparison> comparisons, Map<String, String> units)
+            throws IOException {
+        Files.createDirectories(dir);
+        String run = Instant.now().toString();
+        StringBuilder csv = new StringBuilder();
+        StringBuilder md = new StringBuilder("# Performance regression run " + run + "\n\n"
+                + "| Benchmark | Mean | 95% CI | Baseline | Ratio (95% CI) | Verdict |\n"
+                + "|---|---|---|---|---|---|\n");
+        comparisons.forEach((name, c) -> {
+            String unit = units.getOrDefault(name, "");
+            String baseline = c.baseline() != null ? fmt(c.baseline().mean()) : "";
+            csv.append(String.join(",", run, name, unit, fmt(c.current().mean()), fmt(c.current().halfWidth()),
+                    baseline, fmt(c.ratio()), fmt(c.ratioLow()), fmt(c.ratioHigh()), c.verdict().name())).append('\n');
+            md.append(String.format(Locale.ROOT, "| %s | %s %s | ±%s | %s | %s (%s–%s) | %s |%n", name,
+                    fmt(c.current().mean()), unit, fmt(c.current().halfWidth()), baseline, fmt(c.ratio()),
+                    fmt(c.ratioLow()), fmt(c.ratioHigh()), c.verdict()));
+        });
+        Path trend = dir.resolve("trend.csv");
+        if (!Files.exists(trend)) {
+            Files.writeString(trend, TREND_HEADER, StandardCharsets.UTF_8);
+        }
+        Files.writeString(trend, csv, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Files.writeString(dir.resolve("report.md"), md, StandardCharsets.UTF_8);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static String fmt(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
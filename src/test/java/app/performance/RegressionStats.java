@@ -0,0 +1,108 @@
+package app.performance;
+
+/**
+ * Confidence intervals for repeated timings and the test deciding whether a change is a regression.
+ * Two runs are compared with Welch's t-interval on the difference of their means, so noisy
+ * measurements widen the interval instead of tripping the check.
+ */
+public final class RegressionStats {
+
+    /**
+     * Two-sided 95% Student t quantiles by degrees of freedom; between entries the next lower one is
+     * used, which errs on the wide side.
+     */
+    private static final int[] T_DF = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 15, 20, 25, 30, 40, 60, 120};
+    private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+        2.228, 2.179, 2.131, 2.086, 2.060, 2.042, 2.021, 2.000, 1.980};
+    private static final double Z_95 = 1.960;
+
+    private RegressionStats() {
+    }
+
+    public enum Verdict {
+        Faster,
+        Unchanged,
+        Slower,
+        New
+    }
+
+    /**
+     * Mean and sample standard deviation of one benchmark, in its unit per operation.
+     */
+    public record Measurement(double mean, double stdDev, int samples) {
+
+        public static Measurement of(double[] values) {
+            double sum = 0;
+            for (double v : values) {
+                sum += v;
+            }
+            double mean = sum / values.length;
+            double squares = 0;
+            for (double v : values) {
+                squares += (v - mean) * (v - mean);
+            }
+            double stdDev = values.length > 1 ? Math.sqrt(squares / (values.length - 1)) : 0;
+            return new Measurement(mean, stdDev, values.length);
+        }
+
+        /**
+         * Half width of the 95% confidence interval of the mean.
+         */
+        public double halfWidth() {
+            return samples > 1 ? tQuantile(samples - 1) * stdDev / Math.sqrt(samples) : Double.POSITIVE_INFINITY;
+        }
+
+        public Measurement scaled(double factor) {
+            return new Measurement(mean * factor, stdDev * factor, samples);
+        }
+    }
+
+    /**
+     * Current relative to baseline; {@code ratioLow..ratioHigh} is the 95% interval of current/baseline.
+     */
+    public record Comparison(Measurement baseline, Measurement current, double ratio, double ratioLow,
+            double ratioHigh, Verdict verdict) {
+    }
+
+    /**
+     * A run is {@link Verdict#Slower} only when even the optimistic end of the interval is more than
+     * {@code tolerance} (e.g. 0.2 for 20%) above the baseline, and {@link Verdict#Faster} when the
+     * pessimistic end is below it by as much.
+     */
+    public static Comparison compare(Measurement baseline, Measurement current, double tolerance) {
+        if (baseline == null) {
+            return new Comparison(null, current, Double.NaN, Double.NaN, Double.NaN, Verdict.New);
+        }
+        double diff = current.mean() - baseline.mean();
+        double varBase = baseline.stdDev() * baseline.stdDev() / baseline.samples();
+        double varCurrent = current.stdDev() * current.stdDev() / current.samples();
+        double se = Math.sqrt(varBase + varCurrent);
+        double margin = tQuantile(welchDf(varBase, baseline.samples(), varCurrent, current.samples())) * se;
+        double low = 1 + (diff - margin) / baseline.mean();
+        double high = 1 + (diff + margin) / baseline.mean();
+        Verdict verdict = Verdict.Unchanged;
+        if (low > 1 + tolerance) {
+            verdict = Verdict.Slower;
+        } else if (high < 1 - tolerance) {
+            verdict = Verdict.Faster;
+        }
+        return new Comparison(baseline, current, current.mean() / baseline.mean(), low, high, verdict);
+    }
+
+    static double welchDf(double varA, int nA, double varB, int nB) {
+        double numerator = (varA + varB) * (varA + varB);
+        double denominator = varA * varA / Math.max(1, nA - 1) + varB * varB / Math.max(1, nB - 1);
+        return denominator > 0 ? numerator / denominator : Math.max(1, nA + nB - 2);
+    }
+
+    static double tQuantile(double df) {
+        if (df > T_DF[T_DF.length - 1]) {
+            return Z_95;
+        }
+        double t = T_95[0];
+        for (int i = 0; i < T_DF.length && T_DF[i] <= df; i++) {
+            t = T_95[i];
+        }
+        return t;
+    }
+}
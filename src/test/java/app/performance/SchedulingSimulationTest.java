@@ -0,0 +1,115 @@
+package app.performance;
+
+import app.core.BatchItem;
+import app.core.ConversionProfile;
+import app.core.Profiles;
+import app.core.SchedulingPolicy;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulated makespans of each scheduling policy over realistic, heavy-tailed size mixes.
+ * Item time = fixed API overhead + upload at link speed + size-proportional conversion.
+ */
+class SchedulingSimulationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchedulingSimulationTest.class);
+    private static final int WORKERS = 4;
+    private static final double OVERHEAD_S = 6.0;
+    private static final double UPLOAD_BYTES_PER_S = 12_500_000.0;
+    private static final double VIDEO_CONVERT_BYTES_PER_S = 8_000_000.0;
+    private static final double OTHER_CONVERT_BYTES_PER_S = 40_000_000.0;
+
+    @Test
+    void largestFirstBeatsTableOrderWhenBigVideoArrivesLast() {
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(item("photo" + i + ".png", 3_000_000, Profiles.PNG_TO_JPG));
+        }
+        items.add(item("wedding.mov", 4_000_000_000L, Profiles.MOV_TO_MP4));
+
+        Map<SchedulingPolicy, Double> makespans = simulateAll(items);
+
+        assertThat(makespans.get(SchedulingPolicy.LargestFirst)).isLessThan(makespans.get(SchedulingPolicy.TableOrder));
+    }
+
+    @Test
+    void largestFirstIsNeverWorseOnMixedDistributions() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            Map<SchedulingPolicy, Double> makespans = simulateAll(mixedBatch(random, 200));
+            double lpt = makespans.get(SchedulingPolicy.LargestFirst);
+            assertThat(lpt).isLessThanOrEqualTo(makespans.get(SchedulingPolicy.TableOrder) * 1.01);
+            assertThat(lpt).isLessThanOrEqualTo(makespans.get(SchedulingPolicy.ShortestFirst) * 1.01);
+            if (run == 0) {
+                LOG.info("Simulated makespans (s) for 200 mixed items on {} workers: {}", WORKERS, makespans);
+            }
+        }
+    }
+
+    private static List<BatchItem> mixedBatch(Random random, int count) {
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double kind = random.nextDouble();
+            if (kind < 0.6) {
+                items.add(item("img" + i + ".jpg", logNormal(random, 3_000_000, 0.6), Profiles.JPEG_TO_WEBP));
+            } else if (kind < 0.85) {
+                items.add(item("doc" + i + ".docx", logNormal(random, 400_000, 1.0), Profiles.DOCX_TO_PDF));
+            } else if (kind < 0.95) {
+                items.add(item("song" + i + ".wav", logNormal(random, 40_000_000, 0.5), Profiles.WAV_TO_MP3));
+            } else {
+                items.add(item("clip" + i + ".mov", logNormal(random, 900_000_000, 0.9), Profiles.MOV_TO_MP4));
+            }
+        }
+        return items;
+    }
+
+    private static Map<SchedulingPolicy, Double> simulateAll(List<BatchItem> items) {
+        Map<SchedulingPolicy, Double> result = new EnumMap<>(SchedulingPolicy.class);
+        for (SchedulingPolicy policy : SchedulingPolicy.values()) {
+            result.put(policy, makespan(policy.order(items)));
+        }
+        return result;
+    }
+
+    private static double makespan(List<BatchItem> ordered) {
+        PriorityQueue<Double> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < WORKERS; i++) {
+            freeAt.add(0.0);
+        }
+        double end = 0;
+        for (BatchItem item : ordered) {
+            double finish = freeAt.poll() + duration(item);
+            end = Math.max(end, finish);
+            freeAt.add(finish);
+        }
+        return end;
+    }
+
+    private static double duration(BatchItem item) {
+        boolean video = item.profile.outputFormat().equals("mp4") || item.profile.outputFormat().equals("mov");
+        double convertRate = video ? VIDEO_CONVERT_BYTES_PER_S : OTHER_CONVERT_BYTES_PER_S;
+        return OVERHEAD_S + item.inputBytes / UPLOAD_BYTES_PER_S + item.inputBytes / convertRate;
+    }
+
+    private static long logNormal(Random random, double median, double sigma) {
+        return Math.max(1, (long) (median * Math.exp(sigma * random.nextGaussian())));
+    }
+
+    private static BatchItem item(String name, long bytes, ConversionProfile profile) {
+        BatchItem item = new BatchItem(Path.of(name), profile);
+        item.inputBytes = bytes;
+        return item;
+    }
+}
@@ -0,0 +1,73 @@
+package app.performance;
+
+import app.core.StreamingUpload;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent multi-GB uploads stay within a small, constant heap.
+ * Runs under the {@code memoryTest} task, whose 64 MB heap cap is the assertion: buffering
+ * any one request body would fail with OutOfMemoryError long before 8 GB have been sent.
+ */
+@Tag("memory")
+class StreamingUploadMemoryTest {
+
+    private static final long FILE_SIZE = 2L * 1024 * 1024 * 1024;
+    private static final int CONCURRENCY = 4;
+
+    @Test
+    void concurrentTwoGigabyteUploadsUseConstantHeap() throws Exception {
+        Path dir = Files.createTempDirectory("upload-memory");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Path f = dir.resolve("video-" + i + ".mod");
+            try (RandomAccessFile raf = new RandomAccessFile(f.toFile(), "rw")) {
+                raf.setLength(FILE_SIZE);
+            }
+            files.add(f);
+        }
+        MockWebServer server = new MockWebServer();
+        server.setBodyLimit(0);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            server.enqueue(new MockResponse().setResponseCode(201));
+        }
+        server.start();
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Path f : files) {
+                results.add(pool.submit(() ->
+                        StreamingUpload.upload(server.url("/upload").uri(), Map.of("key", "v"), f)));
+            }
+            for (Future<Long> r : results) {
+                assertThat(r.get()).isEqualTo(FILE_SIZE);
+            }
+            for (int i = 0; i < CONCURRENCY; i++) {
+                RecordedRequest request = server.takeRequest();
+                assertThat(request.getBodySize()).isGreaterThan(FILE_SIZE);
+            }
+        } finally {
+            pool.shutdownNow();
+            server.shutdown();
+            for (Path f : files) {
+                Files.deleteIfExists(f);
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+}
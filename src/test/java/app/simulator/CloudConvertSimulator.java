@@ -0,0 +1,304 @@
+package app.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local CloudConvert on {@link MockWebServer}: the import/upload, job, task and file endpoints of
+ * the v2 API, with conversion latency, faults and bandwidth set by a {@link SimulatorConfig}.
+ * Conversions do no work; a task is simply finished once its sampled latency has passed, and its
+ * output is a short text naming the input size and target format. Every random choice comes from the
+ * seed and a per-endpoint request counter, so a run with the same seed and request counts sees the
+ * same faults and latencies.
+ */
+public final class CloudConvertSimulator implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final long THROTTLE_PERIOD_MS = 100;
+
+    private final SimulatorConfig config;
+    private final MockWebServer server = new MockWebServer();
+    private final Map<String, Long> uploads = new ConcurrentHashMap<>();
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<String, List<Task>> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    public CloudConvertSimulator(SimulatorConfig config) throws IOException {
+        this.config = config;
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return handle(request);
+            }
+
+            @Override
+            public MockResponse peek() {
+                return throttled(new MockResponse().setSocketPolicy(SocketPolicy.KEEP_OPEN));
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Base URL of the API, without a trailing slash, e.g. {@code http://127.0.0.1:1234/v2}.
+     */
+    public String apiUrl() {
+        return base() + "/v2";
+    }
+
+    /**
+     * Requests per endpoint and faults injected per kind so far, sorted by name.
+     */
+    public Map<String, Long> counters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((k, v) -> snapshot.put(k, v.get()));
+        return snapshot;
+    }
+
+    private MockResponse handle(RecordedRequest request) {
+        String path = request.getPath() != null ? request.getPath() : "";
+        String method = request.getMethod();
+        try {
+            if (path.startsWith("/upload/")) {
+                return upload(path.substring("/upload/".length()), request.getBody());
+            }
+            if (path.startsWith("/files/")) {
+                return file(path.substring("/files/".length()), request.getHeader("Range"));
+            }
+            String endpoint = method + " " + path.replaceAll("/[a-z]+-\\d+", "/{id}");
+            long n = count(endpoint);
+            MockResponse fault = apiFault(endpoint, n);
+            return fault != null ? fault : api(method, path, request.getBody());
+        } catch (IOException | RuntimeException e) {
+            return json(400, Map.of("message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private MockResponse api(String method, String path, Buffer body) throws IOException {
+        if ("POST".equals(method) && "/v2/import/upload".equals(path)) {
+            String id = "upload-" + ids.incrementAndGet();
+            Map<String, Object> form = Map.of("url", base() + "/upload/" + id, "parameters", Map.of("key", id));
+            return json(201, Map.of("data", Map.of("id", id, "operation", "import/upload", "status", "waiting",
+                    "result", Map.of("form", form))));
+        }
+        if ("POST".equals(method) && "/v2/jobs".equals(path)) {
+            return json(201, Map.of("data", createJob(JSON.readTree(body.readByteArray()))));
+        }
+        if ("GET".equals(method)) {
+            return show(path);
+        }
+        return "DELETE".equals(method) ? new MockResponse().setResponseCode(204) : notFound();
+    }
+
+    private MockResponse show(String path) {
+        if (path.startsWith("/v2/jobs/")) {
+            List<Task> job = jobs.get(path.substring("/v2/jobs/".length()));
+            return job != null ? json(200, Map.of("data", describeJob(job))) : notFound();
+        }
+        if (path.startsWith("/v2/tasks/")) {
+            Task task = tasks.get(path.substring("/v2/tasks/".length()));
+            return task != null ? json(200, Map.of("data", describe(task, System.nanoTime()))) : notFound();
+        }
+        return notFound();
+    }
+
+    private MockResponse apiFault(String endpoint, long n) {
+        double roll = random(endpoint, n).nextDouble();
+        if (roll < config.rate429()) {
+            count("fault 429");
+            return json(429, Map.of("message", "Too Many Requests")).setHeader("Retry-After", "1");
+        }
+        if (roll < config.rate429() + config.rate5xx()) {
+            count("fault 5xx");
+            return json(503, Map.of("message", "Service Unavailable"));
+        }
+        if (roll < config.rate429() + config.rate5xx() + config.timeoutRate()) {
+            count("fault timeout");
+            return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+        }
+        return null;
+    }
+
+    private MockResponse upload(String id, Buffer body) {
+        count("POST /upload/{id}");
+        uploads.put(id, body.size());
+        return throttled(new MockResponse().setResponseCode(201));
+    }
+
+    private MockResponse file(String path, String range) {
+        long n = count("GET /files/{id}");
+        Task task = tasks.get(path.substring(0, Math.max(0, path.indexOf('/'))));
+        if (task == null) {
+            return notFound();
+        }
+        byte[] content = task.content();
+        MockResponse response = new MockResponse().setHeader("Content-Type", "application/octet-stream");
+        Matcher m = RANGE.matcher(String.valueOf(range));
+        if (m.matches()) {
+            int from = (int) Long.parseLong(m.group(1));
+            int to = m.group(2).isEmpty() ? content.length - 1 : (int) Math.min(content.length - 1,
+                    Long.parseLong(m.group(2)));
+            if (from >= content.length) {
+                return new MockResponse().setResponseCode(416);
+            }
+            byte[] slice = java.util.Arrays.copyOfRange(content, from, to + 1);
+            response.setResponseCode(206).setHeader("Content-Range", "bytes " + from + "-" + to + "/" + content.length)
+                    .setBody(new Buffer().write(slice));
+        } else {
+            response.setResponseCode(200).setBody(new Buffer().write(content));
+        }
+        if (random("GET /files/{id}", n).nextDouble() < config.truncatedRate()) {
+            count("fault truncated");
+            response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+        }
+        return throttled(response);
+    }
+
+    private Map<String, Object> createJob(JsonNode request) {
+        String jobId = "job-" + ids.incrementAndGet();
+        SplittableRandom random = random("conversion", ids.get());
+        Map<String, Task> byName = new LinkedHashMap<>();
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<String, JsonNode>> it = request.path("tasks").fields(); it.hasNext();) {
+            Map.Entry<String, JsonNode> e = it.next();
+            JsonNode spec = e.getValue();
+            Task input = byName.get(spec.path("input").asText());
+            Long uploaded = uploads.get(spec.path("input").asText());
+            boolean convert = "convert".equals(spec.path("operation").asText());
+            long readyAt = (input != null ? input.readyAt() : now)
+                    + (convert ? TimeUnit.MILLISECONDS.toNanos(config.conversionLatency().sampleMs(random)) : 0);
+            boolean failed = (input != null ? input.failed() : uploaded == null)
+                    || convert && random.nextDouble() < config.conversionErrorRate();
+            Task task = new Task("task-" + ids.incrementAndGet(), e.getKey(), spec.path("operation").asText(),
+                    outputName(spec, input), input != null ? input.inputBytes() : uploaded != null ? uploaded : 0,
+                    readyAt, failed);
+            byName.put(e.getKey(), task);
+            tasks.put(task.id(), task);
+        }
+        List<Task> job = new ArrayList<>(byName.values());
+        jobs.put(jobId, job);
+        Map<String, Object> data = describeJob(job);
+        data.put("id", jobId);
+        return data;
+    }
+
+    private static String outputName(JsonNode spec, Task input) {
+        if (spec.hasNonNull("filename")) {
+            return spec.get("filename").asText();
+        }
+        if (spec.hasNonNull("output_format")) {
+            return spec.get("output_format").asText() + "-output." + spec.get("output_format").asText();
+        }
+        return input != null ? input.filename() : "output";
+    }
+
+    private Map<String, Object> describeJob(List<Task> job) {
+        long now = System.nanoTime();
+        List<Map<String, Object>> described = new ArrayList<>();
+        String status = "finished";
+        for (Task task : job) {
+            Map<String, Object> d = describe(task, now);
+            described.add(d);
+            if ("error".equals(d.get("status"))) {
+                status = "error";
+            } else if (!"finished".equals(d.get("status")) && !"error".equals(status)) {
+                status = "processing";
+            }
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", jobs.entrySet().stream().filter(e -> e.getValue() == job).map(Map.Entry::getKey)
+                .findFirst().orElse(""));
+        data.put("status", status);
+        data.put("tasks", described);
+        return data;
+    }
+
+    private Map<String, Object> describe(Task task, long now) {
+        Map<String, Object> d = new LinkedHashMap<>();
+        d.put("id", task.id());
+        d.put("name", task.name());
+        d.put("operation", task.operation());
+        String status = task.failed() ? "error" : now >= task.readyAt() ? "finished" : "processing";
+        d.put("status", status);
+        if ("finished".equals(status)) {
+            Map<String, Object> file = new LinkedHashMap<>();
+            file.put("filename", task.filename());
+            if ("export/url".equals(task.operation())) {
+                file.put("url", base() + "/files/" + task.id() + "/" + task.filename());
+            }
+            d.put("result", Map.of("files", List.of(file)));
+        }
+        return d;
+    }
+
+    private MockResponse throttled(MockResponse response) {
+        long bps = config.bandwidthBytesPerSecond();
+        if (bps > 0) {
+            response.throttleBody(Math.max(1, bps * THROTTLE_PERIOD_MS / 1000), THROTTLE_PERIOD_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private SplittableRandom random(String stream, long n) {
+        return new SplittableRandom(config.seed() * 31 + stream.hashCode() * 1_000_003L + n);
+    }
+
+    private long count(String name) {
+        return counters.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static MockResponse json(int status, Object body) {
+        try {
+            return new MockResponse().setResponseCode(status).setHeader("Content-Type", "application/json")
+                    .setBody(JSON.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MockResponse notFound() {
+        return json(404, Map.of("message", "Not found"));
+    }
+
+    private String base() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private record Task(String id, String name, String operation, String filename, long inputBytes, long readyAt,
+            boolean failed) {
+
+        byte[] content() {
+            return ("converted " + inputBytes + " byte(s) to " + filename + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package app.simulator;
+
+import java.util.SplittableRandom;
+
+/**
+ * How long a simulated conversion takes, in milliseconds.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long sampleMs(SplittableRandom random);
+
+    static LatencyDistribution fixed(long ms) {
+        return random -> ms;
+    }
+
+    static LatencyDistribution uniform(long minMs, long maxMs) {
+        return random -> minMs + random.nextLong(maxMs - minMs + 1);
+    }
+
+    /**
+     * Long-tailed like real conversion times: half of the samples fall below {@code medianMs}, and
+     * {@code sigma} sets how heavy the tail is (0.5 puts p99 at about 3.2x the median).
+     */
+    static LatencyDistribution logNormal(long medianMs, double sigma) {
+        return random -> {
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            double gaussian = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+            return Math.round(medianMs * Math.exp(sigma * gaussian));
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package app.simulator;
+
+/**
+ * Knobs of a {@link CloudConvertSimulator}. Fault rates are probabilities per request: 429 and 5xx
+ * answers and timeouts (no response at all) hit the API endpoints, truncated bodies hit file
+ * downloads, and conversion errors make a convert task end in status {@code error}. The bandwidth cap
+ * applies to every upload and download body; 0 means unlimited.
+ */
+public record SimulatorConfig(
+        long seed,
+        LatencyDistribution conversionLatency,
+        double rate429,
+        double rate5xx,
+        double timeoutRate,
+        double truncatedRate,
+        double conversionErrorRate,
+        long bandwidthBytesPerSecond) {
+
+    /**
+     * No faults, no bandwidth cap and conversions that finish at once.
+     */
+    public static SimulatorConfig defaults() {
+        return new SimulatorConfig(1, LatencyDistribution.fixed(0), 0, 0, 0, 0, 0, 0);
+    }
+
+    public SimulatorConfig withSeed(long value) {
+        return new SimulatorConfig(value, conversionLatency, rate429, rate5xx, timeoutRate, truncatedRate,
+                conversionErrorRate, bandwidthBytesPerSecond);
+    }
+
+    public SimulatorConfig withConversionLatency(LatencyDistribution value) {
+        return new SimulatorConfig(seed, value, rate429, rate5xx, timeoutRate, truncatedRate,
+                conversionErrorRate, bandwidthBytesPerSecond);
+    }
+
+    public SimulatorConfig withApiFaults(double tooManyRequests, double serverErrors, double timeouts) {
+        return new SimulatorConfig(seed, conversionLatency, tooManyRequests, serverErrors, timeouts, truncatedRate,
+                conversionErrorRate, bandwidthBytesPerSecond);
+    }
+
+    public SimulatorConfig withTruncatedDownloads(double value) {
+        return new SimulatorConfig(seed, conversionLatency, rate429, rate5xx, timeoutRate, value,
+                conversionErrorRate, bandwidthBytesPerSecond);
+    }
+
+    public SimulatorConfig withConversionErrors(double value) {
+        return new SimulatorConfig(seed, conversionLatency, rate429, rate5xx, timeoutRate, truncatedRate,
+                value, bandwidthBytesPerSecond);
+    }
+
+    public SimulatorConfig withBandwidth(long bytesPerSecond) {
+        return new SimulatorConfig(seed, conversionLatency, rate429, rate5xx, timeoutRate, truncatedRate,
+                conversionErrorRate, bytesPerSecond);
+    }
+}
@@ -0,0 +1,155 @@
+package app.simulator;
+
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.DownloadResult;
+import app.core.HttpStatusException;
+import app.core.SegmentedDownload;
+import app.core.StreamingUpload;
+import app.core.Throttle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CloudConvertFacade} that speaks the v2 REST API of a {@link CloudConvertSimulator}. The SDK
+ * cannot be pointed at a local base URL, so this plays its part with plain JSON requests, while the
+ * upload form and downloads go through the production {@link StreamingUpload} and
+ * {@link SegmentedDownload}. Non-2xx answers surface as {@link HttpStatusException}, as from the SDK.
+ */
+public final class SimulatorFacade implements CloudConvertFacade {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String apiUrl;
+    private final Duration requestTimeout;
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    /**
+     * @param requestTimeout how long an API call may go unanswered before it fails, which is how
+     *                       injected timeouts surface
+     */
+    public SimulatorFacade(CloudConvertSimulator simulator, Duration requestTimeout) {
+        this.apiUrl = simulator.apiUrl();
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public String createJobForFile(String uploadTaskId, String convertTaskName, String exportTaskName,
+            ConversionProfile profile) throws Exception {
+        return createMultiOutputJob(uploadTaskId, List.of(new OutputTask(convertTaskName, exportTaskName, profile)));
+    }
+
+    @Override
+    public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) throws Exception {
+        Map<String, Object> tasks = new LinkedHashMap<>();
+        for (OutputTask output : outputs) {
+            String input = uploadTaskId;
+            List<ConversionProfile> steps = output.profile().steps();
+            for (int i = 0; i < steps.size(); i++) {
+                boolean last = i == steps.size() - 1;
+                String name = last ? output.convertTaskName() : output.convertTaskName() + "-hop" + (i + 1);
+                Map<String, Object> convert = new LinkedHashMap<>(steps.get(i).convertOptions());
+                convert.put("operation", "convert");
+                convert.put("input", input);
+                convert.put("output_format", steps.get(i).outputFormat());
+                if (last && output.outputFilename() != null) {
+                    convert.put("filename", output.outputFilename());
+                }
+                tasks.put(name, convert);
+                input = name;
+            }
+            if (output.exportTaskName() != null) {
+                tasks.put(output.exportTaskName(), Map.of("operation", "export/url", "input", input));
+            }
+        }
+        return (String) data(send("POST", "/jobs", Map.of("tasks", tasks))).get("id");
+    }
+
+    @Override
+    public TaskResult createUploadTaskAndUpload(Path file) throws Exception {
+        return createUploadTaskAndUpload(file, Throttle.NONE);
+    }
+
+    @Override
+    public TaskResult createUploadTaskAndUpload(Path file, Throttle throttle) throws Exception {
+        Map<String, Object> task = data(send("POST", "/import/upload", Map.of()));
+        Map<String, Object> form = map(map(task.get("result")).get("form"));
+        StreamingUpload.upload(URI.create((String) form.get("url")), map(form.get("parameters")), file, throttle);
+        return new TaskResult((String) task.get("id"), (String) task.get("status"), task.get("result"));
+    }
+
+    @Override
+    public JobResult getJob(String jobId) throws Exception {
+        Map<String, Object> job = data(send("GET", "/jobs/" + jobId, null));
+        return new JobResult((String) job.get("status"), job.get("tasks"));
+    }
+
+    @Override
+    public TaskResult getTask(String jobId, String taskId) throws Exception {
+        Map<String, Object> task = data(send("GET", "/tasks/" + taskId, null));
+        return new TaskResult((String) task.get("id"), (String) task.get("status"), task.get("result"));
+    }
+
+    @Override
+    public InputStream download(String url) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofInputStream()).body();
+    }
+
+    @Override
+    public void downloadTo(String url, Path target) throws Exception {
+        downloadTo(url, target, Throttle.NONE);
+    }
+
+    @Override
+    public DownloadResult downloadTo(String url, Path target, Throttle throttle) throws Exception {
+        return SegmentedDownload.download(URI.create(url), target, throttle);
+    }
+
+    @Override
+    public void cancelTask(String jobId, String taskId) throws Exception {
+        send("DELETE", "/tasks/" + taskId, null);
+    }
+
+    @Override
+    public void cancelJob(String jobId) throws Exception {
+        send("DELETE", "/jobs/" + jobId, null);
+    }
+
+    private byte[] send(String method, String path, Object body) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body != null
+                ? HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body))
+                : HttpRequest.BodyPublishers.noBody();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + path))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .method(method, publisher)
+                .build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new HttpStatusException(response.statusCode(), method + " " + path + " returned "
+                    + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static Map<String, Object> data(byte[] body) throws IOException {
+        return map(JSON.readValue(body, Map.class).get("data"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+}
@@ -0,0 +1,109 @@
+package app.unit;
+
+import app.core.AimdLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void growsByOnePerWindowWhileThroughputHolds() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(1, 8, clock::get);
+
+        for (int window = 0; window < 3; window++) {
+            completeWindow(limiter, clock, 100 * MS);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void overloadHalvesLimitOncePerBurst() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(8, 16, clock::get);
+        completeWindow(limiter, clock, 100 * MS);
+        int before = limiter.getLimit();
+
+        limiter.onOverload();
+        limiter.onOverload();
+        limiter.onOverload();
+
+        assertThat(limiter.getLimit()).isEqualTo(before / 2);
+        clock.addAndGet(200 * MS);
+        limiter.onOverload();
+        assertThat(limiter.getLimit()).isEqualTo(before / 4);
+    }
+
+    @Test
+    void overloadBurstBeforeFirstWindowHalvesOnce() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(8, 16, clock::get);
+
+        limiter.onOverload();
+        clock.addAndGet(MS);
+        limiter.onOverload();
+        limiter.onOverload();
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        clock.addAndGet(200 * MS);
+        limiter.onOverload();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void latencyInflationHalvesLimit() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(4, 16, clock::get);
+        completeWindow(limiter, clock, 100 * MS);
+        int before = limiter.getLimit();
+
+        completeWindow(limiter, clock, 500 * MS);
+
+        assertThat(limiter.getLimit()).isEqualTo(before / 2);
+    }
+
+    @Test
+    void neverExceedsHardUpperBoundOrDropsBelowOne() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(1, 1_000, clock::get);
+        for (int window = 0; window < 100; window++) {
+            completeWindow(limiter, clock, 10 * MS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(AimdLimiter.HARD_MAX);
+
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(1_000 * MS);
+            limiter.onOverload();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void listenerSeesEveryChange() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(2, 8, clock::get);
+        List<Integer> seen = new ArrayList<>();
+        limiter.setListener(seen::add);
+
+        completeWindow(limiter, clock, 50 * MS);
+        limiter.onOverload();
+
+        assertThat(seen).containsExactly(3, 1);
+    }
+
+    private static void completeWindow(AimdLimiter limiter, AtomicLong clock, long latency) {
+        int n = limiter.getLimit();
+        clock.addAndGet(latency);
+        for (int i = 0; i < n; i++) {
+            limiter.onSuccess(latency);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package app.unit;
+
+import app.core.ArchiveExport;
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.OutputStaging;
+import app.core.Profiles;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveExportTest {
+
+    @Test
+    void archiveModeDownloadsOneArchiveAndCommitsEveryOutput() throws Exception {
+        Path dir = Files.createTempDirectory("archive-export");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Path input = Files.createDirectories(dir.resolve("folder" + (i % 2))).resolve("img" + (i / 2) + ".png");
+            Files.writeString(input, "pixels " + i);
+            items.add(new BatchItem(input, Profiles.PNG_TO_JPG));
+        }
+        Path clip = dir.resolve("clip.mp4");
+        Files.writeString(clip, "frames");
+        items.add(new BatchItem(clip, Profiles.MP4_TO_MP3_AND_MOV));
+        ArchivingFacade facade = new ArchivingFacade();
+        BatchRunner runner = new BatchRunner(facade, 3);
+        runner.setArchiveExport(true);
+
+        runner.run(items, out);
+
+        assertThat(items).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Done));
+        assertThat(facade.archives.get()).isEqualTo(1);
+        assertThat(facade.fileDownloads.get()).isZero();
+        for (BatchItem item : items) {
+            for (Path output : item.outputPaths) {
+                assertThat(Files.readString(output)).isEqualTo("converted " + item.input);
+            }
+        }
+        assertThat(items.get(7).outputPaths).hasSize(2);
+        assertThat(out.resolve(".tmp")).isEmptyDirectory();
+    }
+
+    @Test
+    void closeFailsItemsStillExportingOrPendingAndThoseHandedOverLater() throws Exception {
+        Path out = Files.createTempDirectory("archive-close");
+        OutputStaging staging = new OutputStaging(out, OutputStaging.ConflictPolicy.Overwrite);
+        CountDownLatch polling = new CountDownLatch(1);
+        ArchivingFacade neverReady = new ArchivingFacade() {
+            @Override
+            public TaskResult createArchiveExport(List<String> taskIds, String filename) {
+                polling.countDown();
+                return new TaskResult("archive", "processing", null);
+            }
+
+            @Override
+            public TaskResult getTask(String jobId, String taskId) {
+                return new TaskResult(taskId, "processing", null);
+            }
+        };
+        List<BatchItem> finished = new CopyOnWriteArrayList<>();
+        ArchiveExport archive = new ArchiveExport(neverReady, staging, new AtomicBoolean(), finished::add, 2, 10);
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            items.add(new BatchItem(Path.of("/in/img" + i + ".png"), Profiles.PNG_TO_JPG));
+        }
+
+        handOver(archive, staging, items.get(0));
+        handOver(archive, staging, items.get(1));
+        assertThat(polling.await(5, TimeUnit.SECONDS)).isTrue();
+        handOver(archive, staging, items.get(2));
+        archive.close();
+        handOver(archive, staging, items.get(3));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (finished.size() < items.size() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(finished).containsExactlyInAnyOrderElementsOf(items);
+        assertThat(items).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Failed));
+        assertThat(staging.reserve(Path.of("/in/img0.png"), Profiles.PNG_TO_JPG)).isEqualTo(out.resolve("img0.jpg"));
+    }
+
+    private static void handOver(ArchiveExport archive, OutputStaging staging, BatchItem item) {
+        Path target = staging.reserve(item.input, item.profile);
+        archive.add(item, List.of(new ArchiveExport.Output(archive.entryName(item.profile), "task-" + item.input,
+                target)));
+    }
+
+    /**
+     * Converts by echoing the input path, names outputs as requested, and zips finished tasks on demand.
+     */
+    private static class ArchivingFacade implements CloudConvertFacade {
+
+        private final Map<String, String> uploads = new ConcurrentHashMap<>();
+        private final Map<String, List<Map<String, String>>> jobs = new ConcurrentHashMap<>();
+        private final Map<String, String[]> convertedByTask = new ConcurrentHashMap<>();
+        private final Map<String, List<String>> archiveInputs = new ConcurrentHashMap<>();
+        private final AtomicInteger archives = new AtomicInteger();
+        private final AtomicInteger fileDownloads = new AtomicInteger();
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            throw new AssertionError("archive mode must not export single files");
+        }
+
+        @Override
+        public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) {
+            List<Map<String, String>> tasks = new ArrayList<>();
+            for (OutputTask output : outputs) {
+                assertThat(output.exportTaskName()).isNull();
+                String taskId = "task-" + output.convertTaskName();
+                convertedByTask.put(taskId, new String[] {output.outputFilename(), "converted " + uploads.get(uploadTaskId)});
+                tasks.add(Map.of("name", output.convertTaskName(), "id", taskId, "operation", "convert"));
+            }
+            String jobId = "job-" + uploadTaskId;
+            jobs.put(jobId, tasks);
+            return jobId;
+        }
+
+        @Override
+        public TaskResult createArchiveExport(List<String> taskIds, String filename) {
+            String id = "archive-" + archives.incrementAndGet();
+            archiveInputs.put(id, taskIds);
+            return new TaskResult(id, "FINISHED", Map.of("files", List.of(Map.of("url", id))));
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            String id = "upload-" + uploads.size() + "-" + file.hashCode();
+            uploads.put(id, file.toString());
+            return new TaskResult(id, "FINISHED", Map.of());
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            return new JobResult("FINISHED", jobs.get(jobId));
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            throw new AssertionError("archive export is finished on creation");
+        }
+
+        @Override
+        public InputStream download(String url) throws IOException {
+            List<String> taskIds = archiveInputs.get(url);
+            if (taskIds == null) {
+                fileDownloads.incrementAndGet();
+                throw new IOException("unknown url " + url);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+                for (String taskId : taskIds) {
+                    String[] converted = convertedByTask.get(taskId);
+                    zip.putNextEntry(new ZipEntry(converted[0]));
+                    zip.write(converted[1].getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package app.unit;
+
+import app.core.AsyncCloudConvertFacade;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.HttpStatusException;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncCloudConvertFacadeTest {
+
+    @Test
+    void syncCallsRunOnTheExecutorAndCompleteTheirFutures() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "adapter-test"));
+        try {
+            AsyncCloudConvertFacade facade = AsyncCloudConvertFacade.fromSync(new ThreadEchoFacade(), executor);
+
+            assertThat(facade.getJob("job-1").get().status()).isEqualTo("adapter-test");
+            assertThat(facade.createMultiOutputJob("upload-1", List.of()).get()).isEqualTo("job-1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void syncExceptionsCompleteTheFutureExceptionally() {
+        AsyncCloudConvertFacade facade = AsyncCloudConvertFacade.fromSync(new ThreadEchoFacade(), Runnable::run);
+
+        CompletableFuture<Void> download = facade.downloadTo("https://files/gone", Path.of("out"));
+
+        assertThatThrownBy(download::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(HttpStatusException.class);
+    }
+
+    private static final class ThreadEchoFacade implements CloudConvertFacade {
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            return "job-1";
+        }
+
+        @Override
+        public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) {
+            return "job-1";
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            return new TaskResult("upload-1", "finished", null);
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            return new JobResult(Thread.currentThread().getName(), List.of());
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "finished", null);
+        }
+
+        @Override
+        public InputStream download(String url) throws Exception {
+            throw new HttpStatusException(404, "Download failed: HTTP 404");
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package app.unit;
+
+import app.core.BandwidthSchedule;
+import app.core.BandwidthSchedule.Caps;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BandwidthScheduleTest {
+
+    private static final Caps PEAK = new Caps(100, 200, 250);
+    private static final Caps OFF_PEAK = Caps.UNLIMITED;
+
+    @Test
+    void offPeakWindowMayWrapPastMidnight() {
+        BandwidthSchedule night = new BandwidthSchedule(PEAK, OFF_PEAK, LocalTime.of(19, 0), LocalTime.of(7, 0));
+
+        assertThat(night.capsAt(LocalTime.of(18, 59))).isEqualTo(PEAK);
+        assertThat(night.capsAt(LocalTime.of(19, 0))).isEqualTo(OFF_PEAK);
+        assertThat(night.capsAt(LocalTime.of(2, 0))).isEqualTo(OFF_PEAK);
+        assertThat(night.capsAt(LocalTime.of(7, 0))).isEqualTo(PEAK);
+    }
+
+    @Test
+    void daytimeWindowAndConstantSchedule() {
+        BandwidthSchedule lunch = new BandwidthSchedule(PEAK, OFF_PEAK, LocalTime.of(12, 0), LocalTime.of(13, 0));
+
+        assertThat(lunch.capsAt(LocalTime.of(12, 30))).isEqualTo(OFF_PEAK);
+        assertThat(lunch.capsAt(LocalTime.of(13, 30))).isEqualTo(PEAK);
+        assertThat(BandwidthSchedule.constant(PEAK).capsAt(LocalTime.of(3, 0))).isEqualTo(PEAK);
+    }
+}
@@ -0,0 +1,359 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.BatchRunner;
+import app.core.CloudConvertFacade;
+import app.core.ConversionProfile;
+import app.core.OutputStaging;
+import app.core.Profiles;
+import app.persistence.HistoryQuery;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import app.simulator.CloudConvertSimulator;
+import app.simulator.SimulatorConfig;
+import app.simulator.SimulatorFacade;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchRunnerTest {
+
+    @Test
+    void runNextItemStartsOnNextFreeWorker() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner");
+        List<BatchItem> items = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "urgent")) {
+            Path f = dir.resolve(name + ".mod");
+            Files.writeString(f, name);
+            items.add(new BatchItem(f, Profiles.MOD_TO_MOV));
+        }
+        BlockingFacade facade = new BlockingFacade();
+        BatchRunner runner = new BatchRunner(facade, 1);
+        Thread batch = new Thread(() -> runner.run(items, dir));
+        batch.start();
+        assertThat(facade.firstUploadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(runner.runNext(items.get(3))).isTrue();
+        facade.release.countDown();
+        batch.join(10_000);
+
+        assertThat(facade.uploadOrder).containsExactly("a.mod", "urgent.mod", "b.mod", "c.mod");
+        assertThat(runner.isRunning()).isFalse();
+    }
+
+    @Test
+    void itemsSubmittedDuringRunAreProcessed() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-submit");
+        Path first = dir.resolve("first.mod");
+        Path late = dir.resolve("late.mod");
+        Files.writeString(first, "x");
+        Files.writeString(late, "x");
+        BlockingFacade facade = new BlockingFacade();
+        BatchRunner runner = new BatchRunner(facade, 1);
+        Thread batch = new Thread(() -> runner.run(List.of(new BatchItem(first, Profiles.MOD_TO_MOV)), dir));
+        batch.start();
+        assertThat(facade.firstUploadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        BatchItem lateItem = new BatchItem(late, Profiles.MOD_TO_MOV);
+        assertThat(runner.submit(lateItem)).isTrue();
+        facade.release.countDown();
+        batch.join(10_000);
+
+        assertThat(facade.uploadOrder).containsExactly("first.mod", "late.mod");
+        assertThat(lateItem.status).isEqualTo(BatchItemStatus.Failed);
+        assertThat(runner.submit(new BatchItem(late, Profiles.MOD_TO_MOV))).isFalse();
+    }
+
+    @Test
+    void itemsSubmittedWhileTheBatchIsValidatedAreNotDropped() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-preflight");
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            items.add(new BatchItem(Files.writeString(dir.resolve("clip" + i + ".mod"), "clip" + i),
+                    Profiles.MOD_TO_MOV));
+        }
+        BatchItem lateItem = new BatchItem(Files.writeString(dir.resolve("late.mod"), "late"), Profiles.MOD_TO_MOV);
+        BlockingFacade facade = new BlockingFacade();
+        BatchRunner runner = new BatchRunner(facade, 1);
+        Thread batch = new Thread(() -> runner.run(items, dir));
+        batch.start();
+        while (!runner.isRunning() && batch.isAlive()) {
+            Thread.onSpinWait();
+        }
+
+        assertThat(runner.submit(lateItem)).isTrue();
+        facade.release.countDown();
+        batch.join(10_000);
+
+        assertThat(facade.uploadOrder).contains("late.mod");
+        assertThat(lateItem.status).isEqualTo(BatchItemStatus.Failed);
+    }
+
+    @Test
+    void identicalInputsAreConvertedOnceAndFannedOut() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-dedup");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        Path a = Files.createDirectories(dir.resolve("mailbox-a")).resolve("invoice.mod");
+        Path b = Files.createDirectories(dir.resolve("mailbox-b")).resolve("invoice.mod");
+        Path renamed = dir.resolve("copy-of-invoice.mod");
+        Path other = dir.resolve("other.mod");
+        for (Path p : List.of(a, b, renamed)) {
+            Files.writeString(p, "same bytes");
+        }
+        Files.writeString(other, "different!");
+        List<BatchItem> items = new ArrayList<>();
+        for (Path p : List.of(a, b, renamed, other)) {
+            items.add(new BatchItem(p, Profiles.MOD_TO_MOV));
+        }
+        ConvertingFacade facade = new ConvertingFacade();
+
+        new BatchRunner(facade, 2).run(items, out);
+
+        assertThat(facade.uploads).hasSize(2);
+        assertThat(items).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Done));
+        assertThat(Files.readString(out.resolve("copy-of-invoice.mov"))).isEqualTo("converted");
+        assertThat(items.get(0).outputPath).isEqualTo(items.get(1).outputPath);
+        assertThat(Files.exists(out.resolve("other.mov"))).isTrue();
+    }
+
+    @Test
+    void duplicateGetsEachOutputOfTheTargetItWasConvertedFor() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-dedup-targets");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        Files.writeString(out.resolve("talk.mp3"), "kept");
+        List<BatchItem> items = new ArrayList<>();
+        for (String name : List.of("talk.mp4", "copy.mp4")) {
+            items.add(new BatchItem(Files.writeString(dir.resolve(name), "same talk"), Profiles.MP4_TO_MP3_AND_MOV));
+        }
+        try (CloudConvertSimulator simulator = new CloudConvertSimulator(SimulatorConfig.defaults())) {
+            BatchRunner runner = new BatchRunner(new SimulatorFacade(simulator, Duration.ofSeconds(10)), 1);
+            runner.setPollIntervalMs(10);
+            runner.setConflictPolicy(OutputStaging.ConflictPolicy.Skip);
+
+            runner.run(items, out);
+        }
+
+        BatchItem original = items.get(0);
+        BatchItem duplicate = items.get(1);
+        assertThat(original.outputPaths).containsExactly(out.resolve("talk.mov"));
+        assertThat(duplicate.status).isEqualTo(BatchItemStatus.Done);
+        assertThat(duplicate.outputPaths).containsExactly(out.resolve("copy.mov"));
+        assertThat(duplicate.targetOutputs).containsExactly(null, out.resolve("copy.mov"));
+        assertThat(Files.readString(out.resolve("copy.mov"))).isEqualTo(Files.readString(out.resolve("talk.mov")));
+        assertThat(out.resolve("copy.mp3")).doesNotExist();
+        assertThat(duplicate.outputDigests).containsExactly(original.outputDigests.get(0));
+    }
+
+    @Test
+    void duplicateOfFailedItemFailsWithSameMessage() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-dedup-fail");
+        Path a = dir.resolve("a.mod");
+        Path b = dir.resolve("b.mod");
+        Files.writeString(a, "same");
+        Files.writeString(b, "same");
+        BlockingFacade facade = new BlockingFacade();
+        facade.release.countDown();
+        List<BatchItem> items = List.of(new BatchItem(a, Profiles.MOD_TO_MOV), new BatchItem(b, Profiles.MOD_TO_MOV));
+
+        new BatchRunner(facade, 2).run(items, dir);
+
+        assertThat(facade.uploadOrder).hasSize(1);
+        assertThat(items).allSatisfy(i -> {
+            assertThat(i.status).isEqualTo(BatchItemStatus.Failed);
+            assertThat(i.message).isEqualTo("stub upload");
+        });
+    }
+
+    @Test
+    void everyFinishedItemIsRecordedInHistoryIncludingDuplicates() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-history");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        Path a = dir.resolve("a.mod");
+        Path b = dir.resolve("b.mod");
+        Files.writeString(a, "same bytes");
+        Files.writeString(b, "same bytes");
+        List<BatchItem> items = List.of(new BatchItem(a, Profiles.MOD_TO_MOV), new BatchItem(b, Profiles.MOD_TO_MOV));
+        BatchRunner runner = new BatchRunner(new ConvertingFacade(), 2);
+
+        try (HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            runner.setHistory(history);
+            runner.run(items, out);
+
+            List<HistoryRecord> records = history.query(HistoryQuery.all());
+            assertThat(records).extracting(HistoryRecord::input)
+                    .containsExactlyInAnyOrder(a.toAbsolutePath(), b.toAbsolutePath());
+            assertThat(records).allSatisfy(r -> {
+                assertThat(r.outcome()).isEqualTo(BatchItemStatus.Done.name());
+                assertThat(r.profileId()).isEqualTo(Profiles.MOD_TO_MOV.id());
+                assertThat(r.inputBytes()).isEqualTo(10);
+                assertThat(r.outputBytes()).isEqualTo("converted".length());
+                assertThat(r.contentHash()).hasSize(64);
+            });
+            assertThat(history.query(HistoryQuery.all().withContentHash(records.get(0).contentHash()))).hasSize(2);
+        }
+    }
+
+    @Test
+    void batchFinishesAndSettlesDuplicatesWhenAWorkerThrows() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-throw");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        List<BatchItem> items = new ArrayList<>();
+        for (String name : List.of("boom", "boom-copy", "a", "b", "c")) {
+            String content = name.startsWith("boom") ? "boom" : name;
+            items.add(new BatchItem(Files.writeString(dir.resolve(name + ".mod"), content), Profiles.MOD_TO_MOV));
+        }
+        ConvertingFacade facade = new ConvertingFacade() {
+            @Override
+            public TaskResult createUploadTaskAndUpload(Path file) {
+                if (file.getFileName().toString().startsWith("boom")) {
+                    // Even describing this failure throws, so it escapes the worker.
+                    throw new IllegalStateException() {
+                        @Override
+                        public String getMessage() {
+                            throw new IllegalStateException("worker blew up");
+                        }
+                    };
+                }
+                return super.createUploadTaskAndUpload(file);
+            }
+        };
+        Thread batch = new Thread(() -> new BatchRunner(facade, 2).run(items, out));
+
+        batch.start();
+        batch.join(10_000);
+
+        assertThat(batch.isAlive()).isFalse();
+        assertThat(items.subList(0, 2)).allSatisfy(i -> {
+            assertThat(i.status).isEqualTo(BatchItemStatus.Failed);
+            assertThat(i.message).isEqualTo("worker blew up");
+        });
+        assertThat(items.subList(2, 5)).allSatisfy(i -> assertThat(i.status).isEqualTo(BatchItemStatus.Done));
+    }
+
+    @Test
+    void downloadWithoutRoomWaitsUntilTheBatchIsCanceled() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner-disk");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        BatchItem item = new BatchItem(Files.writeString(dir.resolve("clip.mod"), "clip"), Profiles.MOD_TO_MOV);
+        BatchRunner runner = new BatchRunner(new ConvertingFacade(), 1);
+        runner.setDiskHeadroomBytes(Long.MAX_VALUE / 2);
+        Thread batch = new Thread(() -> runner.run(List.of(item), out));
+
+        batch.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!"Waiting for disk space".equals(item.message) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(item.message).isEqualTo("Waiting for disk space");
+        assertThat(batch.isAlive()).isTrue();
+
+        runner.cancel();
+        batch.join(10_000);
+
+        assertThat(batch.isAlive()).isFalse();
+        assertThat(item.status).isEqualTo(BatchItemStatus.Canceled);
+    }
+
+    /**
+     * Completes every conversion with the same output bytes and records uploaded file names.
+     */
+    private static class ConvertingFacade implements CloudConvertFacade {
+
+        final List<String> uploads = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            uploads.add(file.toString());
+            return new TaskResult("upload", "finished", Map.of());
+        }
+
+        @Override
+        public String createJobForFile(String uploadTaskId, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            return exportTaskName;
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            return new JobResult("finished", List.of(Map.of("id", "export", "name", jobId)));
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "finished", Map.of("files", List.of(Map.of("url", "mem://out"))));
+        }
+
+        @Override
+        public InputStream download(String url) {
+            return new ByteArrayInputStream("converted".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+
+    /**
+     * Records upload order; the first upload blocks until released, then every upload fails fast.
+     */
+    private static final class BlockingFacade implements CloudConvertFacade {
+
+        final List<String> uploadOrder = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstUploadStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) throws Exception {
+            uploadOrder.add(file.getFileName().toString());
+            firstUploadStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("stub upload");
+        }
+
+        @Override
+        public String createJobForFile(String a, String b, String c, ConversionProfile p) {
+            throw new UnsupportedOperationException("stub");
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            throw new UnsupportedOperationException("stub");
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            throw new UnsupportedOperationException("stub");
+        }
+
+        @Override
+        public InputStream download(String url) {
+            throw new UnsupportedOperationException("stub");
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+}
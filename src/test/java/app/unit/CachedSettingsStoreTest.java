@@ -0,0 +1,116 @@
+package app.unit;
+
+import app.persistence.AppSettings;
+import app.persistence.CachedSettingsStore;
+import app.persistence.JsonSettingsStore;
+import app.persistence.SettingsStore;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedSettingsStoreTest {
+
+    @Test
+    void repeatedLoadsReadTheFileOnce() throws Exception {
+        CountingStore disk = new CountingStore(tempSettings());
+        disk.save(settings("key", "png-jpg"));
+        CachedSettingsStore store = new CachedSettingsStore(disk);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(store.load().apiKey()).isEqualTo("key");
+        }
+
+        assertThat(disk.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void externalChangeIsPickedUpByModificationTime() throws Exception {
+        Path path = tempSettings();
+        CountingStore disk = new CountingStore(path);
+        disk.save(settings("old", "png-jpg"));
+        CachedSettingsStore store = new CachedSettingsStore(disk);
+        assertThat(store.load().apiKey()).isEqualTo("old");
+
+        new JsonSettingsStore(path).save(settings("new", "png-jpg"));
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().plusSeconds(5)));
+
+        assertThat(store.load().apiKey()).isEqualTo("new");
+        assertThat(disk.loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void burstOfSavesIsWrittenOnceAndVisibleImmediately() throws Exception {
+        CountingStore disk = new CountingStore(tempSettings());
+        CachedSettingsStore store = new CachedSettingsStore(disk, 60_000);
+
+        for (int i = 0; i < 50; i++) {
+            store.save(settings("key", "profile-" + i));
+            assertThat(store.load().lastProfileId()).isEqualTo("profile-" + i);
+        }
+        assertThat(disk.saves.get()).isZero();
+        store.close();
+
+        assertThat(disk.saves.get()).isEqualTo(1);
+        assertThat(new JsonSettingsStore(disk.getSettingsPath()).load().lastProfileId()).isEqualTo("profile-49");
+    }
+
+    @Test
+    void writeBehindFlushesAfterTheDelay() throws Exception {
+        CountingStore disk = new CountingStore(tempSettings());
+        CachedSettingsStore store = new CachedSettingsStore(disk, 10);
+
+        store.save(settings("key", "png-jpg"));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (disk.saves.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThat(disk.saves.get()).isEqualTo(1);
+        assertThat(new JsonSettingsStore(disk.getSettingsPath()).load().lastProfileId()).isEqualTo("png-jpg");
+    }
+
+    private static Path tempSettings() throws Exception {
+        return Files.createTempDirectory("cached-settings").resolve("settings.json");
+    }
+
+    private static AppSettings settings(String apiKey, String profileId) {
+        return new AppSettings(apiKey, null, profileId);
+    }
+
+    /**
+     * A JSON store that counts how often it touches the file.
+     */
+    private static final class CountingStore implements SettingsStore {
+
+        private final JsonSettingsStore json;
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicInteger saves = new AtomicInteger();
+
+        private CountingStore(Path path) {
+            this.json = new JsonSettingsStore(path);
+        }
+
+        @Override
+        public AppSettings load() {
+            loads.incrementAndGet();
+            return json.load();
+        }
+
+        @Override
+        public void save(AppSettings settings) {
+            json.save(settings);
+            saves.incrementAndGet();
+        }
+
+        @Override
+        public Path getSettingsPath() {
+            return json.getSettingsPath();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package app.unit;
+
+import app.core.DirectoryWalker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DirectoryWalkerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void findsKnownFormatsThroughoutTheTree() throws Exception {
+        Path deep = Files.createDirectories(root.resolve("2024/march/day-1"));
+        Files.createDirectories(root.resolve("empty"));
+        Path a = Files.writeString(root.resolve("top.MOD"), "x");
+        Path b = Files.writeString(deep.resolve("photo.jpeg"), "x");
+        Path c = Files.writeString(root.resolve("2024/report.docx"), "x");
+        Files.writeString(root.resolve("notes.txt"), "x");
+        Files.writeString(deep.resolve("no-extension"), "x");
+        Files.createDirectories(root.resolve("looks-like.png"));
+
+        List<Path> found = new CopyOnWriteArrayList<>();
+        try (DirectoryWalker walker = new DirectoryWalker()) {
+            long count = walker.walk(root, found::addAll);
+
+            assertThat(count).isEqualTo(3);
+        }
+        assertThat(found).containsExactlyInAnyOrder(a, b, c);
+    }
+
+    @Test
+    void matchesArriveInBatches() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            Files.writeString(root.resolve("clip-" + i + ".mod"), "x");
+        }
+        List<List<Path>> batches = new CopyOnWriteArrayList<>();
+        try (DirectoryWalker walker = new DirectoryWalker(Set.of("mod"), 10, 2)) {
+            walker.walk(root, batches::add);
+        }
+
+        assertThat(batches).extracting(List::size).containsExactlyInAnyOrder(10, 10, 5);
+    }
+
+    @Test
+    void symbolicLinksAreNotFollowed() throws Exception {
+        Path outside = Files.createTempDirectory("walker-outside");
+        Files.writeString(outside.resolve("elsewhere.mod"), "x");
+        try {
+            Files.createSymbolicLink(root.resolve("link"), outside);
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+        List<Path> found = new CopyOnWriteArrayList<>();
+        try (DirectoryWalker walker = new DirectoryWalker()) {
+            walker.walk(root, found::addAll);
+        }
+
+        assertThat(found).isEmpty();
+    }
+
+    @Test
+    void eachWalkHasItsOwnCancelToken() throws Exception {
+        Files.writeString(root.resolve("clip.mod"), "x");
+        try (DirectoryWalker walker = new DirectoryWalker()) {
+            walker.cancel();
+            assertThat(walker.walk(root, batch -> { })).as("an earlier cancel does not stop a new walk").isEqualTo(1);
+
+            assertThat(walker.walk(root, batch -> { }, new AtomicBoolean(true)))
+                    .as("a token set before the walk starts stops it").isZero();
+        }
+    }
+}
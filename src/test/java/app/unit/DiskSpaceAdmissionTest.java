@@ -0,0 +1,109 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.DiskSpaceAdmission;
+import app.core.OutputSizeEstimator;
+import app.core.Profiles;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskSpaceAdmissionTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final AtomicLong usable = new AtomicLong(1000 * MB);
+    private final DiskSpaceAdmission admission = new DiskSpaceAdmission(usable::get, 100 * MB,
+            new OutputSizeEstimator());
+
+    @Test
+    void downloadsThatFitNextToEachOtherAreAdmittedAtOnce() throws Exception {
+        try (DiskSpaceAdmission.Reservation a = admission.tryReserve(item(400 * MB));
+                DiskSpaceAdmission.Reservation b = admission.tryReserve(item(500 * MB))) {
+            assertThat(a.bytes() + b.bytes()).isEqualTo(900 * MB);
+            assertThat(admission.reservedBytes()).isEqualTo(900 * MB);
+        }
+        assertThat(admission.reservedBytes()).isZero();
+    }
+
+    @Test
+    void downloadWithoutRoomIsRetriedWhenAnotherFinishes() throws Exception {
+        DiskSpaceAdmission.Reservation first = admission.tryReserve(item(600 * MB));
+        BatchItem waiting = item(600 * MB);
+        AtomicInteger retries = new AtomicInteger();
+
+        assertThat(admission.tryReserve(waiting)).isNull();
+        assertThat(waiting.message).isEqualTo("Waiting for disk space");
+        admission.whenRoom(waiting, retries::incrementAndGet);
+        assertThat(retries).hasValue(0);
+
+        first.close();
+        assertThat(retries).hasValue(1);
+        try (DiskSpaceAdmission.Reservation second = admission.tryReserve(waiting)) {
+            assertThat(second.bytes()).isEqualTo(600 * MB);
+        }
+        assertThat(waiting.message).isEmpty();
+    }
+
+    @Test
+    void retryRunsAtOnceIfRoomAppearedInTheMeantime() throws Exception {
+        DiskSpaceAdmission.Reservation first = admission.tryReserve(item(600 * MB));
+        BatchItem waiting = item(600 * MB);
+        AtomicInteger retries = new AtomicInteger();
+        assertThat(admission.tryReserve(waiting)).isNull();
+
+        usable.set(2000 * MB);
+        admission.whenRoom(waiting, retries::incrementAndGet);
+        assertThat(retries).hasValue(1);
+        first.close();
+        assertThat(retries).hasValue(1);
+    }
+
+    @Test
+    void downloadThatCannotFitEvenAloneWaitsForSpaceFreedElsewhere() throws Exception {
+        usable.set(300 * MB);
+        admission.setRecheckMs(20);
+        BatchItem waiting = item(400 * MB);
+        CountDownLatch retried = new CountDownLatch(1);
+
+        assertThat(admission.tryReserve(waiting)).isNull();
+        assertThat(waiting.message).isEqualTo("Waiting for disk space");
+        assertThat(admission.reservedBytes()).isZero();
+        admission.whenRoom(waiting, retried::countDown);
+        assertThat(retried.getCount()).isEqualTo(1);
+
+        usable.set(2000 * MB);
+        assertThat(retried.await(5, TimeUnit.SECONDS)).isTrue();
+        try (DiskSpaceAdmission.Reservation reservation = admission.tryReserve(waiting)) {
+            assertThat(reservation.bytes()).isEqualTo(400 * MB);
+        }
+    }
+
+    @Test
+    void wakeAllRunsWaitingRetriesWithoutRoom() throws Exception {
+        usable.set(300 * MB);
+        BatchItem waiting = item(400 * MB);
+        AtomicInteger retries = new AtomicInteger();
+        assertThat(admission.tryReserve(waiting)).isNull();
+        admission.whenRoom(waiting, retries::incrementAndGet);
+
+        admission.wakeAll();
+
+        assertThat(retries).hasValue(1);
+    }
+
+    /**
+     * Without learned ratios, a single-output item is expected to be as large as its input.
+     */
+    private static BatchItem item(long inputBytes) {
+        BatchItem item = new BatchItem(Path.of("clip.mod"), Profiles.MOD_TO_MOV);
+        item.inputBytes = inputBytes;
+        return item;
+    }
+}
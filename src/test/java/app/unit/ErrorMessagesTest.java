@@ -1,6 +1,7 @@
 package app.unit;
 
 import app.core.ErrorMessages;
+import app.core.HttpStatusException;
 import com.cloudconvert.dto.result.Status;
 import com.cloudconvert.exception.CloudConvertClientException;
 import org.junit.jupiter.api.Test;
@@ -58,4 +59,45 @@ class ErrorMessagesTest {
 
         assertThat(message).isEqualTo("RuntimeException");
     }
+
+    @Test
+    void httpStatusFoundOnWrappedTransferFailure() {
+        Throwable wrapped = new RuntimeException("upload", new HttpStatusException(429, "Too Many Requests"));
+
+        assertThat(ErrorMessages.httpStatusOf(wrapped)).isEqualTo(429);
+    }
+
+    @Test
+    void httpStatusReadFromCloudConvertException() {
+        CloudConvertClientException ex = new CloudConvertClientException(
+                Status.builder().code(503).reason("Service Unavailable").build(),
+                Map.of(),
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))
+        );
+
+        assertThat(ErrorMessages.httpStatusOf(ex)).isEqualTo(503);
+        assertThat(ErrorMessages.httpStatusOf(new IllegalStateException("no status"))).isEqualTo(-1);
+        assertThat(ErrorMessages.httpStatusOf(null)).isEqualTo(-1);
+    }
+
+    @Test
+    void itemsFailingTheSameWayShareOneMessageInstance() {
+        String first = ErrorMessages.fromException(new IllegalStateException(new String("Quota exceeded")));
+        String second = ErrorMessages.fromException(new IllegalStateException(new String("Quota exceeded")));
+
+        assertThat(second).isSameAs(first);
+        assertThat(ErrorMessages.shared(null)).isNull();
+    }
+
+    @Test
+    void messagesKeepBeingSharedAfterManyUniqueOnes() {
+        for (int i = 0; i < 10_000; i++) {
+            ErrorMessages.shared("Cannot read /photos/img" + i + ".png");
+        }
+
+        String first = ErrorMessages.shared(new String("Upload failed"));
+        String second = ErrorMessages.shared(new String("Upload failed"));
+
+        assertThat(second).isSameAs(first);
+    }
 }
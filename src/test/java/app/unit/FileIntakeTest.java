@@ -0,0 +1,91 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.FileIntake;
+import app.core.Profiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileIntakeTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void publishesValidatedChunksInSelectionOrder() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Path f = dir.resolve(String.format("clip-%02d.mod", i));
+            Files.writeString(f, i % 5 == 0 ? "" : "data");
+            files.add(f);
+        }
+        List<List<BatchItem>> chunks = new CopyOnWriteArrayList<>();
+        try (FileIntake intake = new FileIntake(4, 10)) {
+            int published = intake.submit(files, Profiles.MOD_TO_MOV, true, chunks::add).get(10, TimeUnit.SECONDS);
+
+            assertThat(published).isEqualTo(25);
+        }
+        assertThat(chunks).extracting(List::size).containsExactly(10, 10, 5);
+        List<BatchItem> items = chunks.stream().flatMap(List::stream).toList();
+        assertThat(items).extracting(item -> item.input).containsExactlyElementsOf(files);
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            assertThat(item.status).isEqualTo(i % 5 == 0 ? BatchItemStatus.Skipped : BatchItemStatus.Queued);
+            assertThat(item.inputBytes).isEqualTo(i % 5 == 0 ? 0 : 4);
+        }
+    }
+
+    @Test
+    void ineligibleFilesStayQueuedUnlessSkipping() throws Exception {
+        Path empty = Files.createFile(dir.resolve("empty.mod"));
+        List<BatchItem> items = new CopyOnWriteArrayList<>();
+        try (FileIntake intake = new FileIntake(2, 10)) {
+            intake.submit(List.of(empty), Profiles.MOD_TO_MOV, false, items::addAll).get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(items).singleElement().satisfies(item -> assertThat(item.status).isEqualTo(BatchItemStatus.Queued));
+    }
+
+    @Test
+    void cancelStopsPublishingFurtherChunks() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            files.add(Files.writeString(dir.resolve("f" + i + ".mod"), "x"));
+        }
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        List<BatchItem> items = new CopyOnWriteArrayList<>();
+        try (FileIntake intake = new FileIntake(2, 10)) {
+            var done = intake.submit(files, Profiles.MOD_TO_MOV, true, chunk -> {
+                items.addAll(chunk);
+                firstChunk.countDown();
+                await(resume);
+            });
+            assertThat(firstChunk.await(10, TimeUnit.SECONDS)).isTrue();
+            intake.cancel();
+            resume.countDown();
+
+            assertThat(done.get(10, TimeUnit.SECONDS)).isEqualTo(10);
+        }
+        assertThat(items).hasSize(10);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
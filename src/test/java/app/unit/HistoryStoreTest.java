@@ -0,0 +1,247 @@
+package app.unit;
+
+import app.persistence.HistoryQuery;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryStoreTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void queriesByPathHashProfileAndDateRangeNewestFirst() throws Exception {
+        Path dir = Files.createTempDirectory("history");
+        try (HistoryStore store = store(dir, 4, T0.plus(Duration.ofDays(1)))) {
+            for (int i = 0; i < 20; i++) {
+                store.append(record(i, "file" + (i % 5) + ".mod", i % 2 == 0 ? "mod-mov" : "png-jpg"));
+            }
+
+            List<HistoryRecord> byPath = store.query(HistoryQuery.all().forInput(Path.of("/in/file3.mod")));
+            assertThat(byPath).extracting(r -> r.finishedAt().getEpochSecond() - T0.getEpochSecond())
+                    .containsExactly(18L, 13L, 8L, 3L);
+            assertThat(store.query(HistoryQuery.all().withContentHash("hash-7"))).hasSize(1);
+            assertThat(store.query(HistoryQuery.all().withProfile("png-jpg").limit(3)))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-19", "job-17", "job-15");
+            assertThat(store.query(HistoryQuery.all().between(T0.plusSeconds(5), T0.plusSeconds(9))))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-8", "job-7", "job-6", "job-5");
+            assertThat(store.query(HistoryQuery.all().forInput(Path.of("/in/missing.mod")))).isEmpty();
+        }
+    }
+
+    @Test
+    void recordsSurviveReopenAndAMissingIndexIsRebuilt() throws Exception {
+        Path dir = Files.createTempDirectory("history-reopen");
+        try (HistoryStore store = store(dir, 4, T0)) {
+            for (int i = 0; i < 10; i++) {
+                store.append(record(i, "file" + i + ".mod", "mod-mov"));
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path index : files.filter(p -> p.toString().endsWith(".idx")).toList()) {
+                Files.delete(index);
+            }
+        }
+
+        try (HistoryStore store = store(dir, 4, T0)) {
+            assertThat(store.size()).isEqualTo(10);
+            assertThat(store.query(HistoryQuery.all().forInput(Path.of("/in/file6.mod"))))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-6");
+            store.append(record(10, "file10.mod", "mod-mov"));
+            assertThat(store.query(HistoryQuery.all().limit(1))).extracting(HistoryRecord::jobId)
+                    .containsExactly("job-10");
+        }
+    }
+
+    @Test
+    void keyedLookupsFindEveryRecordOfAFileAndSurviveLosingTheKeyTables() throws Exception {
+        Path dir = Files.createTempDirectory("history-keys");
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            records.add(new HistoryRecord(T0.plusSeconds(i), Path.of("/in/file" + i % 40 + ".mod"), "hash-" + i % 40,
+                    "mod-mov", "Done", 1, 1, 0, 0, 0, "job-" + i, null));
+        }
+        try (HistoryStore store = store(dir, 64, T0)) {
+            store.appendAll(records);
+
+            assertThat(store.query(HistoryQuery.all().forInput(Path.of("/in/file7.mod"))))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-287", "job-247", "job-207", "job-167",
+                            "job-127", "job-87", "job-47", "job-7");
+            assertThat(store.query(HistoryQuery.all().withContentHash("hash-39").limit(2)))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-279", "job-239");
+            assertThat(store.query(HistoryQuery.all().forInput(Path.of("/in/file7.mod"))
+                    .between(T0.plusSeconds(100), T0.plusSeconds(200)))).extracting(HistoryRecord::jobId)
+                    .containsExactly("job-167", "job-127");
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path keys : files.filter(p -> p.toString().endsWith(".keys")).toList()) {
+                Files.delete(keys);
+            }
+        }
+
+        try (HistoryStore store = store(dir, 64, T0)) {
+            for (int f = 0; f < 40; f++) {
+                assertThat(store.query(HistoryQuery.all().withContentHash("hash-" + f)))
+                        .hasSize(f < 20 ? 8 : 7)
+                        .allSatisfy(r -> assertThat(r.input()).isEqualTo(Path.of("/in/file" + r.contentHash()
+                                .substring("hash-".length()) + ".mod")));
+            }
+        }
+    }
+
+    @Test
+    void outputPathsAndDigestsSurviveReopen() throws Exception {
+        Path dir = Files.createTempDirectory("history-outputs");
+        HistoryRecord plain = record(0, "plain.mod", "mod-mov");
+        HistoryRecord converted = new HistoryRecord(T0.plusSeconds(1), Path.of("/in/talk.mp4"), "hash-1", "mp4-mp3-mov",
+                "Done", 100, 50, 10, 20, 30, "job-1", "", List.of(Path.of("/out/talk.mp3"), Path.of("/out/talk (1).mov")),
+                List.of("a".repeat(64), "b".repeat(64)));
+        try (HistoryStore store = store(dir, 4, T0)) {
+            store.append(plain);
+            store.append(converted);
+        }
+
+        try (HistoryStore store = store(dir, 4, T0)) {
+            List<HistoryRecord> records = store.query(HistoryQuery.all());
+            assertThat(records).extracting(HistoryRecord::outputPaths)
+                    .containsExactly(converted.outputPaths(), List.of());
+            assertThat(records).extracting(HistoryRecord::outputDigests)
+                    .containsExactly(converted.outputDigests(), List.of());
+        }
+    }
+
+    @Test
+    void tornLastRecordIsCutOffOnOpen() throws Exception {
+        Path dir = Files.createTempDirectory("history-torn");
+        try (HistoryStore store = store(dir, 100, T0)) {
+            store.append(record(0, "a.mod", "mod-mov"));
+            store.append(record(1, "b.mod", "mod-mov"));
+        }
+        Path log = dir.resolve("segment-000000000001.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Files.delete(dir.resolve("segment-000000000001.idx"));
+
+        try (HistoryStore store = store(dir, 100, T0)) {
+            assertThat(store.query(HistoryQuery.all())).extracting(HistoryRecord::jobId).containsExactly("job-0");
+            store.append(record(2, "c.mod", "mod-mov"));
+        }
+        try (HistoryStore store = store(dir, 100, T0)) {
+            assertThat(store.query(HistoryQuery.all())).extracting(HistoryRecord::jobId)
+                    .containsExactly("job-2", "job-0");
+        }
+    }
+
+    @Test
+    void recordsKeepTheirTimesWhenTheClockGoesBack() throws Exception {
+        Path dir = Files.createTempDirectory("history-clock");
+        try (HistoryStore store = store(dir, 100, T0)) {
+            store.append(record(10, "late.mod", "mod-mov"));
+            store.append(record(3, "skewed.mod", "mod-mov"));
+            store.append(record(12, "later.mod", "mod-mov"));
+
+            assertThat(store.query(HistoryQuery.all())).extracting(HistoryRecord::finishedAt)
+                    .containsExactly(T0.plusSeconds(12), T0.plusSeconds(3), T0.plusSeconds(10));
+            assertThat(store.query(HistoryQuery.all().between(T0, T0.plusSeconds(5))))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-3");
+            assertThat(store.query(HistoryQuery.all().between(T0.plusSeconds(5), T0.plusSeconds(11))))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-10");
+        }
+        Files.delete(dir.resolve("segment-000000000001.idx"));
+
+        try (HistoryStore store = store(dir, 100, T0)) {
+            assertThat(store.query(HistoryQuery.all().between(T0, T0.plusSeconds(5))))
+                    .extracting(HistoryRecord::jobId).containsExactly("job-3");
+        }
+    }
+
+    @Test
+    void longMessagesAreNotCutInsideASurrogatePair() throws Exception {
+        Path dir = Files.createTempDirectory("history-message");
+        String message = "a".repeat(1999) + "\uD83C\uDFAC" + "b".repeat(100);
+        try (HistoryStore store = store(dir, 100, T0)) {
+            store.append(new HistoryRecord(T0, Path.of("/in/clip.mod"), null, "mod-mov", "Failed",
+                    1, 0, 0, 0, 0, null, message));
+
+            assertThat(store.query(HistoryQuery.all())).extracting(HistoryRecord::message)
+                    .containsExactly("a".repeat(1999));
+        }
+    }
+
+    @Test
+    void compactingAwayEverySealedRecordLeavesNoTemporaryFiles() throws Exception {
+        Path dir = Files.createTempDirectory("history-expired");
+        try (HistoryStore store = store(dir, 2, T0.plus(Duration.ofDays(800)))) {
+            for (int i = 0; i < 5; i++) {
+                store.append(record(i, "file" + i + ".mod", "mod-mov"));
+            }
+
+            store.compact();
+
+            assertThat(store.size()).isEqualTo(1);
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.map(p -> p.getFileName().toString())).noneMatch(name -> name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void compactionDropsExpiredRecordsAndMergesSmallSegments() throws Exception {
+        Path dir = Files.createTempDirectory("history-compact");
+        Instant now = T0.plus(Duration.ofDays(800));
+        try (HistoryStore store = store(dir, 10, now)) {
+            List<HistoryRecord> records = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Instant at = i < 30 ? T0.plusSeconds(i) : now.minusSeconds(50 - i);
+                records.add(new HistoryRecord(at, Path.of("/in/f" + i + ".mod"), null, "mod-mov", "Done",
+                        1, 1, 0, 0, 0, "job-" + i, null));
+            }
+            store.appendAll(records);
+            assertThat(segmentFiles(dir)).isEqualTo(6);
+
+            store.compact();
+
+            assertThat(store.size()).isEqualTo(20);
+            assertThat(segmentFiles(dir)).isEqualTo(3);
+            assertThat(store.query(HistoryQuery.all())).extracting(HistoryRecord::jobId)
+                    .first().isEqualTo("job-49");
+            assertThat(store.query(HistoryQuery.all().forInput(Path.of("/in/f5.mod")))).isEmpty();
+        }
+        try (HistoryStore store = store(dir, 10, now)) {
+            assertThat(store.size()).isEqualTo(20);
+            assertThat(store.query(HistoryQuery.all().forInput(Path.of("/in/f31.mod")))).hasSize(1);
+        }
+    }
+
+    private static HistoryStore store(Path dir, int recordsPerSegment, Instant now) throws IOException {
+        return new HistoryStore(dir, recordsPerSegment, HistoryStore.DEFAULT_RETENTION,
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static HistoryRecord record(int i, String file, String profileId) {
+        return new HistoryRecord(T0.plusSeconds(i), Path.of("/in", file), "hash-" + i, profileId, "Done",
+                100, 50, 10, 20, 30, "job-" + i, "");
+    }
+
+    private static long segmentFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".log")).count();
+        }
+    }
+}
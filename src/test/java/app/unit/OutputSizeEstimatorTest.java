@@ -0,0 +1,71 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.ConversionProfile;
+import app.core.OutputSizeEstimator;
+import app.core.Profiles;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OutputSizeEstimatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void unknownProfilesAssumeOneInputSizePerOutput() {
+        OutputSizeEstimator estimator = new OutputSizeEstimator();
+
+        assertThat(estimator.estimate(item(Profiles.MOD_TO_MOV, 1000))).isEqualTo(1000);
+        assertThat(estimator.estimate(item(Profiles.MP4_TO_MP3_AND_MOV, 1000))).isEqualTo(2000);
+        assertThat(estimator.estimate(item(Profiles.MOD_TO_MOV, -1))).isZero();
+    }
+
+    @Test
+    void learnedRatioIsWeightedByInputSizeWithAMargin() {
+        OutputSizeEstimator estimator = new OutputSizeEstimator();
+        estimator.record(Profiles.MOD_TO_MOV.id(), 1000, 500);
+        estimator.record(Profiles.MOD_TO_MOV.id(), 3000, 900);
+        estimator.record(Profiles.MOD_TO_MOV.id(), -1, 900);
+
+        assertThat(estimator.ratio(Profiles.MOD_TO_MOV.id())).isCloseTo(0.35, within(1e-9));
+        assertThat(estimator.estimate(item(Profiles.MOD_TO_MOV, 1000))).isEqualTo(438);
+    }
+
+    @Test
+    void ratiosAreSeededFromSuccessfulConversionsInHistory() throws Exception {
+        try (HistoryStore history = new HistoryStore(dir)) {
+            history.appendAll(List.of(
+                    record(BatchItemStatus.Done, 1000, 250),
+                    record(BatchItemStatus.Failed, 1000, -1),
+                    record(BatchItemStatus.Done, 1000, 150)));
+            OutputSizeEstimator estimator = new OutputSizeEstimator();
+
+            estimator.seed(history, List.of(Profiles.PNG_TO_WEBP.id(), Profiles.MOD_TO_MOV.id()));
+
+            assertThat(estimator.ratio(Profiles.PNG_TO_WEBP.id())).isCloseTo(0.2, within(1e-9));
+            assertThat(estimator.ratio(Profiles.MOD_TO_MOV.id())).isEqualTo(-1);
+        }
+    }
+
+    private static HistoryRecord record(BatchItemStatus outcome, long inputBytes, long outputBytes) {
+        return new HistoryRecord(Instant.now(), Path.of("image.png"), null, Profiles.PNG_TO_WEBP.id(),
+                outcome.name(), inputBytes, outputBytes, 0, 0, 0, null, null);
+    }
+
+    private static BatchItem item(ConversionProfile profile, long inputBytes) {
+        BatchItem item = new BatchItem(Path.of("input"), profile);
+        item.inputBytes = inputBytes;
+        return item;
+    }
+}
@@ -0,0 +1,126 @@
+package app.unit;
+
+import app.core.OutputStaging;
+import app.core.OutputStaging.ConflictPolicy;
+import app.core.Profiles;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputStagingTest {
+
+    @Test
+    void sameNameInputsFromDifferentFoldersGetDistinctTargets() throws Exception {
+        Path out = Files.createTempDirectory("staging");
+        OutputStaging staging = new OutputStaging(out, ConflictPolicy.Overwrite);
+
+        Path first = staging.reserve(Path.of("/a/clip.mod"), Profiles.MOD_TO_MOV);
+        Path second = staging.reserve(Path.of("/b/clip.mod"), Profiles.MOD_TO_MOV);
+
+        assertThat(first.getFileName().toString()).isEqualTo("clip.mov");
+        assertThat(second.getFileName().toString()).isEqualTo("clip (1).mov");
+    }
+
+    @Test
+    void policyDecidesWhatHappensToExistingFiles() throws Exception {
+        Path out = Files.createTempDirectory("staging-policy");
+        Files.writeString(out.resolve("clip.mov"), "old");
+        Path input = Path.of("/in/clip.mod");
+
+        assertThat(new OutputStaging(out, ConflictPolicy.Overwrite).reserve(input, Profiles.MOD_TO_MOV))
+                .isEqualTo(out.resolve("clip.mov"));
+        assertThat(new OutputStaging(out, ConflictPolicy.Suffix).reserve(input, Profiles.MOD_TO_MOV))
+                .isEqualTo(out.resolve("clip (1).mov"));
+        assertThat(new OutputStaging(out, ConflictPolicy.Skip).reserve(input, Profiles.MOD_TO_MOV)).isNull();
+    }
+
+    @Test
+    void suffixingAnExistingFileDoesNotHoldOnToItsName() throws Exception {
+        Path out = Files.createTempDirectory("staging-suffix");
+        Path existing = Files.writeString(out.resolve("clip.mov"), "old");
+        OutputStaging staging = new OutputStaging(out, ConflictPolicy.Suffix);
+
+        assertThat(staging.reserve(Path.of("/a/clip.mod"), Profiles.MOD_TO_MOV)).isEqualTo(out.resolve("clip (1).mov"));
+        Files.delete(existing);
+
+        assertThat(staging.reserve(Path.of("/b/clip.mod"), Profiles.MOD_TO_MOV)).isEqualTo(existing);
+    }
+
+    @Test
+    void concurrentReservationsNeverCollide() throws Exception {
+        Path out = Files.createTempDirectory("staging-concurrent");
+        OutputStaging staging = new OutputStaging(out, ConflictPolicy.Suffix);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Path>> reservations = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Path input = Path.of("/folder" + i, "a.png");
+                reservations.add(() -> staging.reserve(input, Profiles.PNG_TO_JPG));
+            }
+            Set<Path> targets = new HashSet<>();
+            for (Future<Path> f : pool.invokeAll(reservations)) {
+                targets.add(f.get());
+            }
+            assertThat(targets).hasSize(200);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void partsAreUniqueAndCommitReplacesAtomically() throws Exception {
+        Path out = Files.createTempDirectory("staging-commit");
+        OutputStaging staging = new OutputStaging(out, ConflictPolicy.Overwrite);
+        Path target = staging.reserve(Path.of("/in/a.png"), Profiles.PNG_TO_JPG);
+
+        Path part1 = staging.newPart(target);
+        Path part2 = staging.newPart(target);
+        Files.writeString(part2, "converted");
+        staging.commit(part2, target);
+
+        assertThat(part1).isNotEqualTo(part2);
+        assertThat(Files.readString(target)).isEqualTo("converted");
+        assertThat(Files.exists(part2)).isFalse();
+    }
+
+    @Test
+    void sweepRemovesOrphanedPartsOnly() throws Exception {
+        Path out = Files.createTempDirectory("staging-sweep");
+        OutputStaging staging = new OutputStaging(out, ConflictPolicy.Overwrite);
+        Path orphan = staging.newPart(out.resolve("a.jpg"));
+        FileTime twoHoursAgo = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        Files.setLastModifiedTime(orphan, twoHoursAgo);
+        Path unrelated = Files.writeString(orphan.resolveSibling("notes.txt"), "keep");
+        Files.setLastModifiedTime(unrelated, twoHoursAgo);
+
+        assertThat(OutputStaging.sweepOrphans(out)).isEqualTo(1);
+        assertThat(Files.exists(orphan)).isFalse();
+        assertThat(Files.exists(unrelated)).isTrue();
+        assertThat(OutputStaging.sweepOrphans(Files.createTempDirectory("no-tmp"))).isZero();
+    }
+
+    @Test
+    void sweepKeepsPartsOfDownloadsStillInProgress() throws Exception {
+        Path out = Files.createTempDirectory("staging-sweep-live");
+        OutputStaging staging = new OutputStaging(out, ConflictPolicy.Overwrite);
+        Path downloading = staging.newPart(out.resolve("a.jpg"));
+        Files.writeString(downloading, "still arriving");
+
+        assertThat(OutputStaging.sweepOrphans(out)).isZero();
+        assertThat(Files.exists(downloading)).isTrue();
+    }
+}
@@ -1,10 +1,12 @@
 package app.unit;
 
+import app.core.ApiCall;
 import app.core.BatchItem;
 import app.core.BatchItemStatus;
 import app.core.CloudConvertFacade;
 import app.core.ConversionProfile;
 import app.core.PipelineWorker;
+import app.core.Profiles;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
@@ -13,7 +15,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,7 +38,7 @@ class PipelineWorkerTest {
 
         new PipelineWorker(item, outputDir, facade, new AtomicBoolean(false)).run();
 
-        assertThat(item.status).isEqualTo(BatchItemStatus.Done.name());
+        assertThat(item.status).isEqualTo(BatchItemStatus.Done);
         assertThat(item.outputPath).isNotNull();
         assertThat(Files.exists(item.outputPath)).isTrue();
         assertThat(Files.readString(item.outputPath)).isEqualTo("converted");
@@ -51,12 +57,148 @@ class PipelineWorkerTest {
 
         new PipelineWorker(item, outputDir, facade, new AtomicBoolean(false)).run();
 
-        assertThat(item.status).isEqualTo(BatchItemStatus.Done.name());
+        assertThat(item.status).isEqualTo(BatchItemStatus.Done);
         assertThat(item.outputPath).isNotNull();
         assertThat(Files.exists(item.outputPath)).isTrue();
     }
 
-    private static final class StubCloudConvertFacade implements CloudConvertFacade {
+    @Test
+    void multiOutputProfileUploadsOnceAndDownloadsOutputsConcurrently() throws Exception {
+        Path outputDir = Files.createTempDirectory("pipeline-worker-multi");
+        Path input = outputDir.resolve("clip.mp4");
+        Files.writeString(input, "raw");
+        BatchItem item = new BatchItem(input, Profiles.MP4_TO_MP3_AND_MOV);
+        MultiOutputFacade facade = new MultiOutputFacade();
+
+        new PipelineWorker(item, outputDir, facade, new AtomicBoolean(false)).run();
+
+        assertThat(item.status).isEqualTo(BatchItemStatus.Done);
+        assertThat(facade.uploads.get()).isEqualTo(1);
+        assertThat(facade.jobs.get()).isEqualTo(1);
+        assertThat(item.apiCalls.get(ApiCall.GetTask)).as("job payload without results").isEqualTo(2);
+        assertThat(item.apiCalls.get(ApiCall.Download)).isEqualTo(2);
+        assertThat(item.outputPaths).containsExactly(outputDir.resolve("clip.mp3"), outputDir.resolve("clip.mov"));
+        assertThat(Files.readString(outputDir.resolve("clip.mp3"))).isEqualTo("converted-mp3");
+        assertThat(Files.readString(outputDir.resolve("clip.mov"))).isEqualTo("converted-mov");
+        assertThat(outputDir.resolve(".tmp")).isEmptyDirectory();
+    }
+
+    @Test
+    void jobThatNeverFinishesTimesOutByWallClock() throws Exception {
+        Path outputDir = Files.createTempDirectory("pipeline-worker-timeout");
+        Path input = outputDir.resolve("clip.mod");
+        Files.writeString(input, "raw");
+        BatchItem item = new BatchItem(input, Profiles.MOD_TO_MOV);
+        AtomicInteger polls = new AtomicInteger();
+        StubCloudConvertFacade facade = new StubCloudConvertFacade() {
+            @Override
+            public JobResult getJob(String jobId) {
+                polls.incrementAndGet();
+                return new JobResult("processing", List.of());
+            }
+        };
+        PipelineWorker worker = new PipelineWorker(item, outputDir, facade, new AtomicBoolean(false));
+        worker.setPollIntervalMs(0);
+        worker.setPollTimeoutMs(200);
+
+        long start = System.nanoTime();
+        worker.run();
+
+        assertThat(item.status).isEqualTo(BatchItemStatus.Failed);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+        assertThat(polls.get()).as("a zero interval is raised to the minimum").isLessThanOrEqualTo(25);
+    }
+
+    @Test
+    void interruptedWorkerCancelsItsItemAndKeepsTheInterrupt() throws Exception {
+        Path outputDir = Files.createTempDirectory("pipeline-worker-interrupt");
+        Path input = Files.writeString(outputDir.resolve("clip.mod"), "raw");
+        BatchItem item = new BatchItem(input, Profiles.MOD_TO_MOV);
+        StubCloudConvertFacade facade = new StubCloudConvertFacade() {
+            @Override
+            public JobResult getJob(String jobId) {
+                return new JobResult("processing", List.of());
+            }
+        };
+        PipelineWorker worker = new PipelineWorker(item, outputDir, facade, new AtomicBoolean(false));
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            worker.run();
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        thread.start();
+        while (item.status != BatchItemStatus.Converting && thread.isAlive()) {
+            Thread.onSpinWait();
+        }
+
+        thread.interrupt();
+        thread.join(5_000);
+
+        assertThat(item.status).isEqualTo(BatchItemStatus.Canceled);
+        assertThat(item.message).isEmpty();
+        assertThat(worker.getFailure()).isNull();
+        assertThat(stillInterrupted).isTrue();
+        assertThat(outputDir.resolve("clip.mov")).doesNotExist();
+    }
+
+    private static final class MultiOutputFacade implements CloudConvertFacade {
+
+        private final AtomicInteger uploads = new AtomicInteger();
+        private final AtomicInteger jobs = new AtomicInteger();
+        private final CountDownLatch bothDownloading = new CountDownLatch(2);
+        private final Map<String, String> formatByExportName = new ConcurrentHashMap<>();
+
+        @Override
+        public String createJobForFile(String uploadTaskName, String convertTaskName, String exportTaskName,
+                ConversionProfile profile) {
+            throw new AssertionError("multi-output profiles must be submitted as one job");
+        }
+
+        @Override
+        public String createMultiOutputJob(String uploadTaskId, List<OutputTask> outputs) {
+            jobs.incrementAndGet();
+            for (OutputTask output : outputs) {
+                formatByExportName.put(output.exportTaskName(), output.profile().outputFormat());
+            }
+            return "job-multi";
+        }
+
+        @Override
+        public TaskResult createUploadTaskAndUpload(Path file) {
+            uploads.incrementAndGet();
+            return new TaskResult("upload-multi", "FINISHED", Map.of());
+        }
+
+        @Override
+        public JobResult getJob(String jobId) {
+            List<Map<String, String>> tasks = formatByExportName.entrySet().stream()
+                    .map(e -> Map.of("name", e.getKey(), "id", e.getValue(), "operation", "export/url"))
+                    .toList();
+            return new JobResult("FINISHED", tasks);
+        }
+
+        @Override
+        public TaskResult getTask(String jobId, String taskId) {
+            return new TaskResult(taskId, "FINISHED", Map.of("files", List.of(Map.of("url", taskId))));
+        }
+
+        @Override
+        public InputStream download(String url) throws InterruptedException {
+            bothDownloading.countDown();
+            assertThat(bothDownloading.await(5, TimeUnit.SECONDS)).isTrue();
+            return new ByteArrayInputStream(("converted-" + url).getBytes());
+        }
+
+        @Override
+        public void cancelTask(String jobId, String taskId) {
+        }
+
+        @Override
+        public void cancelJob(String jobId) {
+        }
+    }
+
+    private static class StubCloudConvertFacade implements CloudConvertFacade {
 
         private String exportTaskName;
 
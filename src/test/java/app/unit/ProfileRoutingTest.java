@@ -0,0 +1,60 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.ConversionProfile;
+import app.core.ProfileRouting;
+import app.core.Profiles;
+import app.core.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileRoutingTest {
+
+    private final ProfileRouting routing = ProfileRouting.DEFAULT;
+
+    @Test
+    void formatIsLowerCaseWithAliasesResolved() {
+        assertThat(routing.formatOf(Path.of("IMG_1.JPEG"))).isEqualTo("jpg");
+        assertThat(routing.formatOf(Path.of("archive.tar.MOD"))).isEqualTo("mod");
+        assertThat(routing.formatOf(Path.of("README"))).isEmpty();
+        assertThat(routing.isSupported("jpg")).isTrue();
+        assertThat(routing.isSupported("txt")).isFalse();
+        assertThat(routing.extensions()).contains("jpg", "jpeg", "docx", "mp4").doesNotContain("txt");
+    }
+
+    @Test
+    void selectedProfileWinsWhenItTakesTheFile() {
+        assertThat(routing.route(Path.of("a.png"), Profiles.PNG_TO_WEBP)).isSameAs(Profiles.PNG_TO_WEBP);
+        assertThat(routing.route(Path.of("b.DOCX"), Profiles.PNG_TO_WEBP)).isSameAs(Profiles.DOCX_TO_PDF);
+        assertThat(routing.route(Path.of("c.jpeg"), Profiles.MOD_TO_MOV)).isSameAs(Profiles.JPEG_TO_WEBP);
+        assertThat(routing.route(Path.of("d.txt"), Profiles.MOD_TO_MOV)).isSameAs(Profiles.MOD_TO_MOV);
+    }
+
+    @Test
+    void defaultIsTheFirstProfileListedForAFormat() {
+        ConversionProfile first = new ConversionProfile("x-1", "X 1", "x", "y", Map.of());
+        ConversionProfile second = new ConversionProfile("x-2", "X 2", "x", "z", Map.of());
+        ProfileRouting custom = ProfileRouting.of(List.of(first, second), Map.of("xx", "x"));
+
+        assertThat(custom.defaultFor("x")).isSameAs(first);
+        assertThat(custom.route(Path.of("file.XX"), null)).isSameAs(first);
+        assertThat(custom.defaultFor("y")).isNull();
+    }
+
+    @Test
+    void mixedBatchRoutesEveryFileToAProfileThatValidates(@TempDir Path dir) throws Exception {
+        for (String name : List.of("report.docx", "photo.png", "clip.mp4", "scan.JPEG", "talk.wav")) {
+            Path file = Files.writeString(dir.resolve(name), "x");
+            BatchItem item = new BatchItem(file, routing.route(file, Profiles.MOD_TO_MOV));
+
+            assertThat(Validation.validate(item).valid()).as(name).isTrue();
+        }
+    }
+}
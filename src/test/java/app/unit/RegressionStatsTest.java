@@ -0,0 +1,65 @@
+package app.unit;
+
+import app.performance.RegressionBaseline;
+import app.performance.RegressionStats;
+import app.performance.RegressionStats.Comparison;
+import app.performance.RegressionStats.Measurement;
+import app.performance.RegressionStats.Verdict;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RegressionStatsTest {
+
+    private static final Measurement BASELINE = new Measurement(100, 5, 20);
+
+    @Test
+    void measurementHasSampleStandardDeviationAndTInterval() {
+        Measurement m = Measurement.of(new double[] {9, 10, 11, 10, 10});
+
+        assertThat(m.mean()).isEqualTo(10);
+        assertThat(m.stdDev()).isCloseTo(Math.sqrt(0.5), within(1e-9));
+        assertThat(m.halfWidth()).isCloseTo(2.776 * Math.sqrt(0.5) / Math.sqrt(5), within(1e-9));
+    }
+
+    @Test
+    void slowdownWithinNoiseOrToleranceIsNotARegression() {
+        assertThat(RegressionStats.compare(BASELINE, new Measurement(112, 5, 20), 0.2).verdict())
+                .isEqualTo(Verdict.Unchanged);
+        assertThat(RegressionStats.compare(BASELINE, new Measurement(140, 80, 20), 0.2).verdict())
+                .as("noisy run").isEqualTo(Verdict.Unchanged);
+    }
+
+    @Test
+    void significantSlowdownIsARegression() {
+        Comparison c = RegressionStats.compare(BASELINE, new Measurement(300, 10, 20), 0.2);
+
+        assertThat(c.verdict()).isEqualTo(Verdict.Slower);
+        assertThat(c.ratio()).isEqualTo(3.0);
+        assertThat(c.ratioLow()).isGreaterThan(1.2).isLessThan(3.0);
+        assertThat(RegressionStats.compare(BASELINE, new Measurement(40, 3, 20), 0.2).verdict())
+                .isEqualTo(Verdict.Faster);
+        assertThat(RegressionStats.compare(null, BASELINE, 0.2).verdict()).isEqualTo(Verdict.New);
+    }
+
+    @Test
+    void baselineRoundTripsAndEveryRunExtendsTheTrend(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("baseline.json");
+        RegressionBaseline.save(file, Map.of("validation", BASELINE), Map.of("validation", "us/op"));
+
+        assertThat(RegressionBaseline.load(file)).containsEntry("validation", BASELINE);
+        assertThat(RegressionBaseline.load(dir.resolve("missing.json"))).isEmpty();
+
+        Map<String, Comparison> run = Map.of("validation", RegressionStats.compare(BASELINE, BASELINE, 0.2));
+        RegressionBaseline.report(dir, run, Map.of());
+        RegressionBaseline.report(dir, run, Map.of());
+        assertThat(Files.readAllLines(dir.resolve("trend.csv"))).hasSize(3);
+        assertThat(Files.readString(dir.resolve("report.md"))).contains("| validation |", "Unchanged");
+    }
+}
@@ -0,0 +1,51 @@
+package app.unit;
+
+import app.ui.model.Rows;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowsTest {
+
+    @Test
+    void removesContiguousRangesInAnyIndexOrder() {
+        ObservableList<Integer> rows = rows(10);
+
+        int removed = Rows.removeIndices(rows, List.of(7, 2, 3, 8, 3, 42, -1));
+
+        assertThat(removed).isEqualTo(4);
+        assertThat(rows).containsExactly(0, 1, 4, 5, 6, 9);
+    }
+
+    @Test
+    void scatteredSelectionIsRemovedInOneChange() {
+        ObservableList<Integer> rows = rows(1000);
+        AtomicInteger changes = new AtomicInteger();
+        rows.addListener((ListChangeListener<Integer>) c -> changes.incrementAndGet());
+
+        int removed = Rows.removeIndices(rows, IntStream.range(0, 1000).filter(i -> i % 2 == 0).boxed().toList());
+
+        assertThat(removed).isEqualTo(500);
+        assertThat(changes).hasValue(1);
+        assertThat(rows).hasSize(500).allMatch(i -> i % 2 == 1);
+    }
+
+    @Test
+    void nothingSelectedLeavesRowsAlone() {
+        ObservableList<Integer> rows = rows(3);
+
+        assertThat(Rows.removeIndices(rows, List.of())).isZero();
+        assertThat(rows).containsExactly(0, 1, 2);
+    }
+
+    private static ObservableList<Integer> rows(int n) {
+        return FXCollections.observableArrayList(IntStream.range(0, n).boxed().toList());
+    }
+}
@@ -0,0 +1,59 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.Profiles;
+import app.core.SchedulingPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulingPolicyTest {
+
+    @Test
+    void largestFirstSortsBySizeDescending() {
+        BatchItem small = item("a.png", 10, Profiles.PNG_TO_JPG);
+        BatchItem big = item("b.mov", 4_000, Profiles.MOV_TO_MP4);
+        BatchItem mid = item("c.png", 500, Profiles.PNG_TO_JPG);
+
+        assertThat(SchedulingPolicy.LargestFirst.order(List.of(small, big, mid))).containsExactly(big, mid, small);
+        assertThat(SchedulingPolicy.ShortestFirst.order(List.of(small, big, mid))).containsExactly(small, mid, big);
+    }
+
+    @Test
+    void tableOrderKeepsInputOrder() {
+        BatchItem a = item("a.png", 10, Profiles.PNG_TO_JPG);
+        BatchItem b = item("b.mov", 4_000, Profiles.MOV_TO_MP4);
+
+        assertThat(SchedulingPolicy.TableOrder.order(List.of(a, b))).containsExactly(a, b);
+    }
+
+    @Test
+    void interleavedAlternatesConversionAndUploadHeavyItems() {
+        BatchItem video1 = item("v1.mov", 3_000, Profiles.MOV_TO_MP4);
+        BatchItem video2 = item("v2.mov", 2_000, Profiles.MOV_TO_MP4);
+        BatchItem audio1 = item("a1.wav", 900, Profiles.WAV_TO_MP3);
+        BatchItem audio2 = item("a2.wav", 800, Profiles.WAV_TO_MP3);
+        BatchItem doc = item("d.docx", 50, Profiles.DOCX_TO_PDF);
+
+        List<BatchItem> ordered = SchedulingPolicy.Interleaved.order(List.of(audio2, doc, video2, audio1, video1));
+
+        assertThat(ordered).containsExactly(video1, audio1, video2, audio2, doc);
+    }
+
+    @Test
+    void unvalidatedItemsSortAsEmpty() {
+        BatchItem unknown = new BatchItem(Path.of("x.png"), Profiles.PNG_TO_JPG);
+        BatchItem known = item("y.png", 1, Profiles.PNG_TO_JPG);
+
+        assertThat(SchedulingPolicy.LargestFirst.order(List.of(unknown, known))).containsExactly(known, unknown);
+    }
+
+    private static BatchItem item(String name, long bytes, app.core.ConversionProfile profile) {
+        BatchItem item = new BatchItem(Path.of(name), profile);
+        item.inputBytes = bytes;
+        return item;
+    }
+}
@@ -0,0 +1,29 @@
+package app.unit;
+
+import app.core.StartupProbe;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupProbeTest {
+
+    @AfterEach
+    void clearBudget() {
+        System.clearProperty(StartupProbe.BUDGET_PROPERTY);
+    }
+
+    @Test
+    void timeIsMeasuredFromJvmStart() {
+        assertThat(StartupProbe.sinceJvmStartMs()).isGreaterThan(0);
+    }
+
+    @Test
+    void probeFailsOnlyWhenOverAConfiguredBudget() {
+        assertThat(StartupProbe.report("test", 5_000)).isTrue();
+
+        System.setProperty(StartupProbe.BUDGET_PROPERTY, "1000");
+        assertThat(StartupProbe.report("test", 999)).isTrue();
+        assertThat(StartupProbe.report("test", 1001)).isFalse();
+    }
+}
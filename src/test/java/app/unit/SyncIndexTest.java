@@ -0,0 +1,148 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.BatchItemStatus;
+import app.core.ContentHash;
+import app.core.Profiles;
+import app.core.SyncIndex;
+import app.core.Validation;
+import app.persistence.HistoryRecord;
+import app.persistence.HistoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncIndexTest {
+
+    private static final FileTime INPUT_TIME = FileTime.from(Instant.parse("2026-01-01T10:00:00Z"));
+    private static final FileTime LATER = FileTime.from(Instant.parse("2026-01-01T11:00:00Z"));
+    private static final FileTime EARLIER = FileTime.from(Instant.parse("2026-01-01T09:00:00Z"));
+
+    @TempDir
+    Path dir;
+
+    private Path out;
+    private BatchItem item;
+
+    @BeforeEach
+    void createInput() throws Exception {
+        out = Files.createDirectories(dir.resolve("out"));
+        Path input = Files.writeString(dir.resolve("clip.mod"), "clip");
+        Files.setLastModifiedTime(input, INPUT_TIME);
+        item = new BatchItem(input, Profiles.MOD_TO_MOV);
+        Validation.validate(item);
+    }
+
+    @Test
+    void outputNewerThanItsInputIsUpToDate() throws Exception {
+        Path output = output(out.resolve("clip.mov"), "converted", LATER);
+
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(item)).containsExactly(output);
+    }
+
+    @Test
+    void missingEmptyOrOlderOutputIsStale() throws Exception {
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(item)).isNull();
+
+        output(out.resolve("clip.mov"), "", LATER);
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(item)).isNull();
+
+        output(out.resolve("clip.mov"), "converted", EARLIER);
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(item)).isNull();
+    }
+
+    @Test
+    void everyOutputOfAMultiOutputProfileMustBeUpToDate() throws Exception {
+        Path input = Files.writeString(dir.resolve("talk.mp4"), "talk");
+        Files.setLastModifiedTime(input, INPUT_TIME);
+        BatchItem multi = new BatchItem(input, Profiles.MP4_TO_MP3_AND_MOV);
+        output(out.resolve("talk.mp3"), "audio", LATER);
+
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(multi)).isNull();
+
+        output(out.resolve("talk.mov"), "video", LATER);
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(multi)).hasSize(2);
+    }
+
+    @Test
+    void outputsAreLookedUpInTheItemsSubdirectory() throws Exception {
+        Path output = output(Files.createDirectories(out.resolve("a/b")).resolve("clip.mov"), "converted", LATER);
+        output(out.resolve("clip.mov"), "converted", LATER);
+        BatchItem nested = new BatchItem(item.input, Profiles.MOD_TO_MOV, Path.of("a", "b"));
+
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).upToDate(nested)).containsExactly(output);
+    }
+
+    @Test
+    void sizesMustMatchTheLastSuccessfulConversion() throws Exception {
+        output(out.resolve("clip.mov"), "converted", LATER);
+        try (HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            history.append(record(null, 4, 9));
+            assertThat(seeded(history, SyncIndex.Check.Metadata).upToDate(item)).isNotNull();
+
+            history.append(record(null, 4, 100));
+            assertThat(seeded(history, SyncIndex.Check.Metadata).upToDate(item)).isNull();
+        }
+    }
+
+    @Test
+    void contentCheckComparesTheInputHashWithHistory() throws Exception {
+        output(out.resolve("clip.mov"), "converted", LATER);
+        try (HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            assertThat(seeded(history, SyncIndex.Check.Content).upToDate(item)).isNull();
+
+            history.append(record("0".repeat(64), 4, 9));
+            assertThat(seeded(history, SyncIndex.Check.Content).upToDate(item)).isNull();
+
+            history.append(record(ContentHash.sha256(item.input), 4, 9));
+            assertThat(seeded(history, SyncIndex.Check.Content).upToDate(item)).isNotNull();
+            assertThat(item.contentHash).isEqualTo(ContentHash.sha256(item.input));
+        }
+    }
+
+    @Test
+    void outputsAreFoundWhereHistorySavedThem() throws Exception {
+        Path suffixed = output(out.resolve("clip (1).mov"), "converted", LATER);
+        output(out.resolve("clip.mov"), "someone else's", EARLIER);
+        try (HistoryStore history = new HistoryStore(dir.resolve("history"))) {
+            assertThat(seeded(history, SyncIndex.Check.Metadata).upToDate(item)).isNull();
+
+            history.append(new HistoryRecord(Instant.now(), item.input, null, Profiles.MOD_TO_MOV.id(),
+                    BatchItemStatus.Done.name(), 4, 9, 0, 0, 0, "job", "", List.of(suffixed), List.of()));
+            assertThat(seeded(history, SyncIndex.Check.Metadata).upToDate(item)).containsExactly(suffixed);
+        }
+    }
+
+    @Test
+    void stagedPartsAreNotIndexed() throws Exception {
+        output(Files.createDirectories(out.resolve(".tmp")).resolve("clip.mov"), "partial", LATER);
+
+        assertThat(SyncIndex.scan(out, SyncIndex.Check.Metadata).size()).isZero();
+        assertThat(SyncIndex.scan(dir.resolve("missing"), SyncIndex.Check.Metadata).size()).isZero();
+    }
+
+    private SyncIndex seeded(HistoryStore history, SyncIndex.Check check) throws Exception {
+        SyncIndex index = SyncIndex.scan(out, check);
+        index.seed(history, List.of(Profiles.MOD_TO_MOV.id()));
+        return index;
+    }
+
+    private HistoryRecord record(String contentHash, long inputBytes, long outputBytes) {
+        return new HistoryRecord(Instant.now(), item.input, contentHash, Profiles.MOD_TO_MOV.id(),
+                BatchItemStatus.Done.name(), inputBytes, outputBytes, 0, 0, 0, "job", "");
+    }
+
+    private static Path output(Path path, String content, FileTime modified) throws Exception {
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, modified);
+        return path;
+    }
+}
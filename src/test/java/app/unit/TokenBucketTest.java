@@ -0,0 +1,53 @@
+package app.unit;
+
+import app.core.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong rate = new AtomicLong(1000);
+    private final TokenBucket bucket = new TokenBucket(rate::get, 100, clock::get);
+
+    @Test
+    void burstPassesAtOnceAndTheRestWaitsForTheRate() {
+        assertThat(bucket.reserve(100)).isZero();
+        assertThat(bucket.reserve(500)).isEqualTo(SECOND / 2);
+
+        clock.addAndGet(SECOND / 2);
+        assertThat(bucket.reserve(100)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void concurrentCallersQueueBehindEachOthersDebt() {
+        bucket.reserve(100);
+
+        assertThat(bucket.reserve(1000)).isEqualTo(SECOND);
+        assertThat(bucket.reserve(1000)).isEqualTo(2 * SECOND);
+    }
+
+    @Test
+    void idleTimeRefillsOnlyUpToTheBurst() {
+        bucket.reserve(100);
+        clock.addAndGet(60 * SECOND);
+
+        assertThat(bucket.reserve(100)).isZero();
+        assertThat(bucket.reserve(100)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void rateChangesApplyToTheNextChunkAndZeroIsUnlimited() {
+        bucket.reserve(100);
+        rate.set(4000);
+        assertThat(bucket.reserve(400)).isEqualTo(SECOND / 10);
+
+        rate.set(0);
+        assertThat(bucket.reserve(1_000_000)).isZero();
+    }
+}
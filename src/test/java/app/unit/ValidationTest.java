@@ -2,11 +2,13 @@ package app.unit;
 
 import app.core.BatchItem;
 import app.core.ConversionProfile;
+import app.core.Profiles;
 import app.core.Validation;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,4 +37,15 @@ class ValidationTest {
         var result = Validation.validate(new BatchItem(f, profile));
         assertThat(result.valid()).isTrue();
     }
+
+    @Test
+    void chainedProfileWithDisconnectedHopsFails() throws Exception {
+        Path f = Files.createTempFile("test", ".doc");
+        Files.writeString(f, "data");
+        var broken = new ConversionProfile("doc-docx", "DOC→DOCX", "doc", "docx", Map.of(), List.of(),
+                List.of(Profiles.DOC_TO_PDF, Profiles.MOV_TO_MP4));
+        var result = Validation.validate(new BatchItem(f, broken));
+        assertThat(result.valid()).isFalse();
+        assertThat(Validation.validate(new BatchItem(f, Profiles.DOC_TO_PDF_TO_DOCX)).valid()).isTrue();
+    }
 }
@@ -0,0 +1,102 @@
+package app.unit;
+
+import app.core.BatchItem;
+import app.core.Profiles;
+import app.core.WorkQueue;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkQueueTest {
+
+    @Test
+    void higherPriorityFirstThenArrivalOrder() throws Exception {
+        WorkQueue queue = new WorkQueue();
+        BatchItem a = item("a");
+        BatchItem b = item("b");
+        BatchItem c = item("c");
+        queue.add(a);
+        queue.add(b);
+        queue.add(c, 5);
+
+        assertThat(takeAndComplete(queue)).isSameAs(c);
+        assertThat(takeAndComplete(queue)).isSameAs(a);
+        assertThat(takeAndComplete(queue)).isSameAs(b);
+    }
+
+    @Test
+    void runNextMovesItemAheadOfEverythingPending() throws Exception {
+        WorkQueue queue = new WorkQueue();
+        BatchItem a = item("a");
+        BatchItem b = item("b");
+        BatchItem last = item("last");
+        queue.add(a, 3);
+        queue.add(b);
+        queue.add(last);
+
+        assertThat(queue.runNext(last)).isTrue();
+
+        assertThat(takeAndComplete(queue)).isSameAs(last);
+        assertThat(takeAndComplete(queue)).isSameAs(a);
+    }
+
+    @Test
+    void reprioritizeOnlyAffectsPendingItems() throws Exception {
+        WorkQueue queue = new WorkQueue();
+        BatchItem a = item("a");
+        BatchItem b = item("b");
+        queue.add(a);
+        queue.add(b);
+
+        BatchItem started = queue.take();
+        assertThat(queue.reprioritize(started, 10)).isFalse();
+        assertThat(queue.reprioritize(b, 10)).isTrue();
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    void closesOnceDrainedAndRejectsLateAdds() throws Exception {
+        WorkQueue queue = new WorkQueue();
+        queue.add(item("a"));
+
+        takeAndComplete(queue);
+
+        assertThat(queue.take()).isNull();
+        assertThat(queue.isClosed()).isTrue();
+        assertThat(queue.add(item("late"))).isFalse();
+    }
+
+    @Test
+    void waitingTakeReceivesItemAddedWhileOthersInFlight() throws Exception {
+        WorkQueue queue = new WorkQueue();
+        queue.add(item("a"));
+        queue.take();
+        BatchItem late = item("late");
+        BatchItem[] received = new BatchItem[1];
+        Thread waiter = new Thread(() -> {
+            try {
+                received[0] = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        queue.add(late);
+        waiter.join(5000);
+
+        assertThat(received[0]).isSameAs(late);
+    }
+
+    private static BatchItem takeAndComplete(WorkQueue queue) throws InterruptedException {
+        BatchItem item = queue.take();
+        queue.complete();
+        return item;
+    }
+
+    private static BatchItem item(String name) {
+        return new BatchItem(Path.of(name + ".png"), Profiles.PNG_TO_JPG);
+    }
+}